@@ -0,0 +1,156 @@
+/**
+ * Mars Simulation Project
+ * BlockCodec.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.UnsupportedOptionsException;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * The codecs compressing the serialized simulation in independent blocks
+ * (see {@link SaveFile}).
+ */
+public enum BlockCodec {
+
+	/** Deflate at its fastest level on 1 MB blocks. */
+	DEFLATE(1, 1 << 20) {
+		@Override
+		public byte[] compressBlock(byte[] data, int offset, int length) {
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				deflater.setInput(data, offset, length);
+				deflater.finish();
+				ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+				byte[] buf = new byte[64 * 1024];
+				while (!deflater.finished()) {
+					int n = deflater.deflate(buf);
+					out.write(buf, 0, n);
+				}
+				return out.toByteArray();
+			} finally {
+				deflater.end();
+			}
+		}
+
+		@Override
+		public void decompressBlock(byte[] data, byte[] block) throws IOException {
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(data);
+				int n = 0;
+				while (n < block.length && !inflater.finished()) {
+					int read = inflater.inflate(block, n, block.length - n);
+					if (read == 0 && inflater.needsInput())
+						break;
+					n += read;
+				}
+				if (n != block.length)
+					throw new IOException("Truncated block : " + n + " of " + block.length + " bytes");
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupted block", e);
+			} finally {
+				inflater.end();
+			}
+		}
+	},
+
+	/** LZMA2 on 8 MB blocks. */
+	LZMA2(2, 1 << 23) {
+		@Override
+		public byte[] compressBlock(byte[] data, int offset, int length) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 64);
+			try (XZOutputStream xzout = new XZOutputStream(out, getOptions())) {
+				xzout.write(data, offset, length);
+			}
+			return out.toByteArray();
+		}
+
+		@Override
+		public void decompressBlock(byte[] data, byte[] block) throws IOException {
+			try (DataInputStream in = new DataInputStream(new XZInputStream(new ByteArrayInputStream(data)))) {
+				in.readFully(block);
+			}
+		}
+
+		/**
+		 * Gets the LZMA2 options. The dictionary need not be larger than a block, which
+		 * keeps the memory used by each compressing thread down.
+		 */
+		private LZMA2Options getOptions() throws UnsupportedOptionsException {
+			LZMA2Options options = new LZMA2Options(6);
+			options.setDictSize(getBlockSize());
+			return options;
+		}
+	};
+
+	/** The identifier written in the save file header. */
+	private int id;
+	/** The size of the uncompressed blocks in bytes. */
+	private int blockSize;
+
+	private BlockCodec(int id, int blockSize) {
+		this.id = id;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Gets the identifier written in the save file header.
+	 * @return identifier
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the size of the uncompressed blocks.
+	 * @return size in bytes.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Compresses a block.
+	 * @param data the buffer holding the block.
+	 * @param offset the start of the block in the buffer.
+	 * @param length the length of the block.
+	 * @return the compressed block.
+	 * @throws IOException if error compressing.
+	 */
+	public abstract byte[] compressBlock(byte[] data, int offset, int length) throws IOException;
+
+	/**
+	 * Decompresses a block.
+	 * @param data the compressed block.
+	 * @param block the array to fill, of the uncompressed length of the block.
+	 * @throws IOException if the block is corrupted.
+	 */
+	public abstract void decompressBlock(byte[] data, byte[] block) throws IOException;
+
+	/**
+	 * Gets the codec with an identifier.
+	 * @param id the identifier.
+	 * @return the codec.
+	 * @throws IOException if no such codec.
+	 */
+	public static BlockCodec getCodec(int id) throws IOException {
+		for (BlockCodec c : values()) {
+			if (c.id == id)
+				return c;
+		}
+		throw new IOException("Unknown save codec " + id);
+	}
+}
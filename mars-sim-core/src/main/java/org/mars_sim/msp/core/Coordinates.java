@@ -744,7 +744,7 @@ implements Serializable {
 	 * @return longitude
 	 */
 	public static double getRandomLongitude() {
-		double theta = Math.random() * (2D * Math.PI);
+		double theta = RandomUtil.getRandomDouble(2D * Math.PI);
 		return theta;
 	}
 }
\ No newline at end of file
@@ -10,15 +10,19 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.mars_sim.msp.core.equipment.Container;
 import org.mars_sim.msp.core.resource.AmountResource;
@@ -46,6 +50,19 @@ implements Serializable {
     /** Comparison to indicate a small but non-zero amount. */
     private static final double SMALL_AMOUNT_COMPARISON = .0000001D;
 
+    // The supply and demand statistics of the amount resources.
+    private static final int AMOUNT_DEMAND = 0;
+    private static final int AMOUNT_DEMAND_TOTAL_REQUEST = 1;
+    private static final int AMOUNT_DEMAND_MET_REQUEST = 2;
+    private static final int AMOUNT_SUPPLY = 3;
+    private static final int AMOUNT_SUPPLY_REQUEST = 4;
+    private static final int NUM_AMOUNT_STATS = 5;
+
+    // The demand statistics of the item resources.
+    private static final int ITEM_DEMAND = 0;
+    private static final int ITEM_DEMAND_MET_REQUEST = 1;
+    private static final int NUM_ITEM_STATS = 2;
+
     // Data members
     /** The unit that owns this inventory. */
     private Unit owner;
@@ -58,57 +75,48 @@ implements Serializable {
     /** Resource storage. */
     private AmountResourceStorage resourceStorage = new AmountResourceStorage();
 
-    // Cache capacity variables.
-/*    
-    private transient Map<AmountResource, Double> amountResourceCapacityCache = null;
-    private transient Map<AmountResource, Boolean> amountResourceCapacityCacheDirty = null;
-    private transient Map<AmountResource, Double> amountResourceContainersCapacityCache = null;
-    private transient Map<AmountResource, Boolean> amountResourceContainersCapacityCacheDirty = null;
-    private transient Map<AmountResource, Double> amountResourceStoredCache = null;
-    private transient Map<AmountResource, Boolean> amountResourceStoredCacheDirty = null;
-    private transient Map<AmountResource, Double> amountResourceContainersStoredCache = null;
-    private transient Map<AmountResource, Boolean> amountResourceContainersStoredCacheDirty = null;
-*/    
-    //private transient Set<AmountResource> allStoredAmountResourcesCache = null;
-    
-    private transient Map<Integer, Double> capacityCache = null;
-    private transient Map<Integer, Boolean> capacityCacheDirty = null;
-    private transient Map<Integer, Double> containersCapacityCache = null;
-    private transient Map<Integer, Boolean> containersCapacityCacheDirty = null;
-    private transient Map<Integer, Double> storedCache = null;
-    private transient Map<Integer, Boolean> storedCacheDirty = null;
-    private transient Map<Integer, Double> containersStoredCache = null;
-    private transient Map<Integer, Boolean> containersStoredCacheDirty = null;
+    // Cache variables. Each cached value is stamped with the modification count at which it
+    // was computed, and stays valid as long as none of the counts it depends on has moved past
+    // its stamp. A change in a contained unit is passed up to the inventories containing it.
+
+    /** The modification count, incremented on every change to the inventory. */
+    private transient long modCount = 1L;
+    /** The count of the last change to the capacities or the contained units. */
+    private transient long structureModCount = 1L;
+    /** The count of the last change to the mass stored in general capacity. */
+    private transient long generalModCount;
+    /** The count of the last change to any amount resource stored. */
+    private transient long amountModCount;
+    /** The count of the last change to each amount resource stored, by resource id. */
+    private transient long[] resourceModCounts = null;
+    /** The count of the last change to an amount resource of each phase, by phase ordinal. */
+    private transient long[] phaseModCounts = null;
+
+    private transient double[] capacityCache = null;
+    private transient long[] capacityCacheStamps = null;
+    private transient double[] storedCache = null;
+    private transient long[] storedCacheStamps = null;
     private transient Set<Integer> allStoredARCache = null;
-        
-    private transient boolean allStoredAmountResourcesCacheDirty = true;
+    private transient long allStoredARCacheStamp;
     private transient double totalAmountResourcesStoredCache;
-    private transient boolean totalAmountResourcesStoredCacheDirty = true;
+    private transient long totalAmountResourcesStoredCacheStamp;
     private transient double itemResourceTotalMassCache;
-    private transient boolean itemResourceTotalMassCacheDirty = true;
+    private transient long itemResourceTotalMassCacheStamp;
     private transient double unitTotalMassCache;
-    private transient boolean unitTotalMassCacheDirty = true;
+    private transient long unitTotalMassCacheStamp;
     private transient double totalInventoryMassCache;
-    private transient boolean totalInventoryMassCacheDirty = true;
-
-    // TODO: Switch to using parallel operation in ConcurrentHashMap instead of HashMap.
-    // see https://dzone.com/articles/concurrenthashmap-in-java8
-    // see https://dzone.com/articles/how-concurrenthashmap-works-internally-in-java
-    // see https://dzone.com/articles/concurrenthashmap-isnt-always-enough
-
-	// Add 3 amount resource demand maps
-	private Map<String, Integer> amountDemandTotalRequestMap =  new HashMap<String, Integer>();
-	private Map<String, Integer> amountDemandMetRequestMap =  new HashMap<String, Integer>();
-	private Map<String, Double> amountDemandMap = new HashMap<String, Double>();
-	// Add 2 amount resource supply maps
-	private Map<String, Double> amountSupplyMap =  new HashMap<String, Double>();
-	private Map<String, Integer> amountSupplyRequestMap =  new HashMap<String, Integer>();
-	// Add 2 item resource demand maps
-	private Map<String, Integer> itemDemandMetRequestMap =  new HashMap<String, Integer>();
-	private Map<String, Integer> itemDemandMap = new HashMap<String, Integer>();
-	// Add 2 item resource supply maps
-	//private Map<String, Integer> itemSupplyMap =  new HashMap<String, Integer>();
-	//private Map<String, Integer> itemSupplyRequestMap =  new HashMap<String, Integer>();
+    private transient long totalInventoryMassCacheStamp;
+
+    /**
+     * The contained units of each class looked for, in the order they were stored.
+     * Built and updated while holding the lock of this inventory.
+     */
+    private transient volatile Map<Class<? extends Unit>, UnitClassIndex> unitClassIndexes = null;
+
+    /** The supply and demand statistics of the amount resources, by resource id. */
+    private ResourceStatHistory amountStats = null;
+    /** The demand statistics of the item resources, by resource id. */
+    private ResourceStatHistory itemStats = null;
 
     /**
      * Constructor
@@ -119,285 +127,166 @@ implements Serializable {
         this.owner = owner;
     }
 
-    public int getAmountSupplyRequest(String resourceName) {
-       	int result;
-    	String r = resourceName.toLowerCase();
-
-       	if (amountSupplyRequestMap.containsKey(r)) {
-       		result = amountSupplyRequestMap.get(r);
-    	}
-    	else {
-    		amountSupplyRequestMap.put(r, 0);
-    		result = 0;
-    	}
-    	return result;
+    /**
+     * Moves the supply and demand statistics to a new sol.
+     * @param sol the sol.
+     */
+    public void setSupplyDemandSol(int sol) {
+        getAmountStats().setSol(sol);
+        getItemStats().setSol(sol);
     }
 
-    public double getAmountSupplyAmount(String resourceName) {
-    	double result;
-    	String r = resourceName.toLowerCase();
-
-       	if (amountSupplyMap.containsKey(r)) {
-       		result = amountSupplyMap.get(r);
-    	}
-    	else {
-    		amountSupplyMap.put(r, 0.0);
-    		result = 0.0;
-    	}
-    	return result;
+    /**
+     * Gets the number of sols the supply and demand statistics are summed over.
+     * @param sols the number of sols asked for.
+     * @return the number of sols recorded, up to those asked for.
+     */
+    public int getSupplyDemandSols(int sols) {
+        return getAmountStats().getNumSols(sols);
     }
 
-
-   	public void addAmountSupplyAmount(AmountResource resource, double amount) {
-   		String r = resource.getName();
-
-    	if (amountSupplyMap.containsKey(r)) {
-
-    		double oldAmount = amountSupplyMap.get(r);
-    		amountSupplyMap.put(r, amount + oldAmount);
-
-    	}
-    	else {
-    		amountSupplyMap.put(r, amount);
-    	}
-
-    	addAmountSupplyRequest(resource, amount);
-   	}
-
-   	public void addAmountSupplyRequest(AmountResource resource, double amount) {
-   		String r = resource.getName();
-
-    	if (amountSupplyRequestMap.containsKey(r)) {
-    		int oldNum = amountSupplyRequestMap.get(r);
-			//System.out.println( resource.getName() + " demandSuccessful : " + oldNum+1);
-    		amountSupplyRequestMap.put(r, oldNum + 1);
-    	}
-
-    	else {
-    		amountSupplyRequestMap.put(r, 1);
-    	}
-	}
-
-    public double getAmountDemandAmount(String resourceName) {
-    	double result;
-    	String r = resourceName.toLowerCase();
-
-       	if (amountDemandMap.containsKey(r)) {
-       		result = amountDemandMap.get(r);
-    	}
-    	else {
-    		amountDemandMap.put(r, 0.0);
-    		result = 0.0;
-    	}
-    	return result;
+    /**
+     * Gets the number of supply requests of a resource over the last sols.
+     * @param resource the resource.
+     * @param sols the number of sols.
+     * @return number of requests.
+     */
+    public int getAmountSupplyRequest(int resource, int sols) {
+        return (int) getAmountStats().getSum(AMOUNT_SUPPLY_REQUEST, resource, sols);
     }
 
-    public int getAmountDemandTotalRequest(String resourceName) {
-       	int result;
-    	String r = resourceName.toLowerCase();
-
-       	if (amountDemandTotalRequestMap.containsKey(r)) {
-       		result = amountDemandTotalRequestMap.get(r);
-    	}
-    	else {
-    		amountDemandTotalRequestMap.put(r, 0);
-    		result = 0;
-    	}
-    	return result;
+    /**
+     * Gets the amount of a resource supplied over the last sols.
+     * @param resource the resource.
+     * @param sols the number of sols.
+     * @return amount (kg).
+     */
+    public double getAmountSupplyAmount(int resource, int sols) {
+        return getAmountStats().getSum(AMOUNT_SUPPLY, resource, sols);
     }
 
-    public int getAmountDemandMetRequest(String resourceName) {
-       	int result;
-    	String r = resourceName.toLowerCase();
-
-       	if (amountDemandMetRequestMap.containsKey(r)) {
-       		result = amountDemandMetRequestMap.get(r);
-    	}
-    	else {
-    		amountDemandMetRequestMap.put(r, 0);
-    		result = 0;
-    	}
-
-    	return result;
+    /**
+     * Gets the amount of a resource demanded over the last sols.
+     * @param resource the resource.
+     * @param sols the number of sols.
+     * @return amount (kg).
+     */
+    public double getAmountDemandAmount(int resource, int sols) {
+        return getAmountStats().getSum(AMOUNT_DEMAND, resource, sols);
     }
 
-    public int getAmountDemandAmountMapSize() {
-    	return amountDemandMap.size();
+    /**
+     * Gets the number of demand requests of a resource over the last sols.
+     * @param resource the resource.
+     * @param sols the number of sols.
+     * @return number of requests.
+     */
+    public int getAmountDemandTotalRequest(int resource, int sols) {
+        return (int) getAmountStats().getSum(AMOUNT_DEMAND_TOTAL_REQUEST, resource, sols);
     }
 
-    public int getDemandTotalRequestMapSize() {
-    	return amountDemandTotalRequestMap.size();
+    /**
+     * Gets the number of demand requests of a resource met over the last sols.
+     * @param resource the resource.
+     * @param sols the number of sols.
+     * @return number of requests.
+     */
+    public int getAmountDemandMetRequest(int resource, int sols) {
+        return (int) getAmountStats().getSum(AMOUNT_DEMAND_MET_REQUEST, resource, sols);
     }
 
-    public int getAmountDemandMetRequestMapSize() {
-    	return amountDemandMetRequestMap.size();
+    /**
+     * Gets the number of items of a resource demanded over the last sols.
+     * @param resource the item resource.
+     * @param sols the number of sols.
+     * @return number of items.
+     */
+    public int getItemDemand(int resource, int sols) {
+        return (int) getItemStats().getSum(ITEM_DEMAND, resource, sols);
     }
 
-    public void compactAmountSupplyAmountMap(int sol) {
-    	compactMap(amountSupplyMap, sol);
+    public void addAmountSupplyAmount(AmountResource resource, double amount) {
+        addAmountSupplyAmount(resource.getID(), amount);
     }
 
-    public void clearAmountSupplyRequestMap() {
-    	amountSupplyRequestMap.clear();
+    public void addAmountSupplyAmount(int resource, double amount) {
+        getAmountStats().add(AMOUNT_SUPPLY, resource, amount);
+        addAmountSupplyRequest(resource, amount);
     }
 
-    public void clearAmountDemandAmountMap() {
-    	amountDemandMap.clear();
+    public void addAmountSupplyRequest(AmountResource resource, double amount) {
+        addAmountSupplyRequest(resource.getID(), amount);
     }
 
-    public void compactAmountDemandAmountMap(int sol) {
-    	compactMap(amountDemandMap, sol);
+    public void addAmountSupplyRequest(int resource, double amount) {
+        getAmountStats().add(AMOUNT_SUPPLY_REQUEST, resource, 1D);
     }
 
-    public void compactMap(Map<String, Double> amountMap, int sol) {
-
-    	Map<String, Double> map = amountMap;
-
-    	for (Map.Entry<String, Double> entry : map.entrySet()) {
-    	    String key = entry.getKey();
-    	    double value = entry.getValue();
-    	    value = value / sol;
-    	    map.put(key, value);
-    	}
+    public void addAmountDemandTotalRequest(AmountResource resource) {
+        addAmountDemandTotalRequest(resource.getID());
     }
 
-    public void clearAmountDemandTotalRequestMap() {
-    	amountDemandTotalRequestMap.clear();
+    public void addAmountDemandTotalRequest(int resource) {
+        getAmountStats().add(AMOUNT_DEMAND_TOTAL_REQUEST, resource, 1D);
     }
 
-    public void clearAmountDemandMetRequestMap() {
-    	amountDemandMetRequestMap.clear();
+    /**
+     * Adds the demand of this resource. It prompts for raising its value point (VP).
+     * @param resource
+     * @param amount
+     */
+    public void addAmountDemand(AmountResource resource, double amount) {
+        addAmountDemand(resource.getID(), amount);
     }
 
-	public void addAmountDemandTotalRequest(AmountResource resource) {
-   		String r = resource.getName();
-
-		if (amountDemandTotalRequestMap.containsKey(r)) {
-
-			int oldNum = amountDemandTotalRequestMap.get(r);
-			//System.out.println( resource.getName() + " demandTotal : " + oldNum+1);
-			amountDemandTotalRequestMap.put(r, oldNum + 1);
-		}
-		else
-	    	amountDemandTotalRequestMap.put(r, 1);
-	}
-
-	public void addAmountDemandTotalRequest(int resource) {
-   		String r = ResourceUtil.findAmountResource(resource).getName();
-
-		if (amountDemandTotalRequestMap.containsKey(r)) {
-
-			int oldNum = amountDemandTotalRequestMap.get(r);
-			//System.out.println( resource.getName() + " demandTotal : " + oldNum+1);
-			amountDemandTotalRequestMap.put(r, oldNum + 1);
-		}
-		else
-	    	amountDemandTotalRequestMap.put(r, 1);
-	}
-	
-	/**
-	 * Adds the demand of this resource. It prompts for raising its value point (VP).
-	 * @param resource
-	 * @param amount
-	 */
-	public void addAmountDemand(AmountResource resource, double amount) {
-   		String r = resource.getName();
-
-    	if (amountDemandMap.containsKey(r)) {
-
-    		double oldAmount = amountDemandMap.get(r);
-			//System.out.println( resource.getName() + " demandReal : " + amount + oldAmount);
-    		amountDemandMap.put(r, amount + oldAmount);
-
-    	}
-    	else {
-    		amountDemandMap.put(r, amount);
-    	}
-
-    	addAmountDemandMetRequest(resource, amount);
-   	}
-
-	/**
-	 * Adds the demand of this resource. It prompts for raising its value point (VP).
-	 * @param resource
-	 * @param amount
-	 */
-	public void addAmountDemand(int resource, double amount) {
-   		String r = ResourceUtil.findAmountResource(resource).getName();
- 
-    	if (amountDemandMap.containsKey(r)) {
-
-    		double oldAmount = amountDemandMap.get(r);
-			//System.out.println( resource.getName() + " demandReal : " + amount + oldAmount);
-    		amountDemandMap.put(r, amount + oldAmount);
-
-    	}
-    	else {
-    		amountDemandMap.put(r, amount);
-    	}
-
-    	addAmountDemandMetRequest(resource, amount);
-   	}	
-	
-   	public void addItemDemand(ItemResource resource, int number) {
-   		String r = resource.getName();
-
-    	if (itemDemandMap.containsKey(r)) {
-
-    		int oldNumber = itemDemandMap.get(r);
-			//System.out.println( resource.getName() + " demandReal : " + amount + oldAmount);
-    		itemDemandMap.put(r, number + oldNumber);
-
-    	}
-    	else {
-    		itemDemandMap.put(r, number);
-    	}
+    /**
+     * Adds the demand of this resource. It prompts for raising its value point (VP).
+     * @param resource
+     * @param amount
+     */
+    public void addAmountDemand(int resource, double amount) {
+        getAmountStats().add(AMOUNT_DEMAND, resource, amount);
+        addAmountDemandMetRequest(resource, amount);
+    }
 
-    	addItemDemandMetRequest(resource, number);
-   	}
+    public void addItemDemand(ItemResource resource, int number) {
+        getItemStats().add(ITEM_DEMAND, resource.getID(), number);
+        addItemDemandMetRequest(resource, number);
+    }
 
-   	public void addAmountDemandMetRequest(AmountResource resource, double amount) {
-   		String r = resource.getName();
+    public void addAmountDemandMetRequest(AmountResource resource, double amount) {
+        addAmountDemandMetRequest(resource.getID(), amount);
+    }
 
-    	if (amountDemandMetRequestMap.containsKey(r)) {
-    		int oldNum = amountDemandMetRequestMap.get(r);
-			//System.out.println( resource.getName() + " demandSuccessful : " + oldNum+1);
-    		amountDemandMetRequestMap.put(r, oldNum + 1);
-    	}
+    public void addAmountDemandMetRequest(int resource, double amount) {
+        getAmountStats().add(AMOUNT_DEMAND_MET_REQUEST, resource, 1D);
+    }
 
-    	else {
-    		amountDemandMetRequestMap.put(r, 1);
-    	}
-	}
-   	
-	
-   	public void addAmountDemandMetRequest(int resource, double amount) {
-   		String r = ResourceUtil.findAmountResource(resource).getName();
-   		
-    	if (amountDemandMetRequestMap.containsKey(r)) {
-    		int oldNum = amountDemandMetRequestMap.get(r);
-			//System.out.println( resource.getName() + " demandSuccessful : " + oldNum+1);
-    		amountDemandMetRequestMap.put(r, oldNum + 1);
-    	}
+    public void addItemDemandMetRequest(ItemResource resource, double number) {
+        getItemStats().add(ITEM_DEMAND_MET_REQUEST, resource.getID(), 1D);
+    }
 
-    	else {
-    		amountDemandMetRequestMap.put(r, 1);
-    	}
-	}
-   	
-   	public void addItemDemandMetRequest(ItemResource resource, double number) {
-   		String r = resource.getName();
-
-    	if (itemDemandMetRequestMap.containsKey(r)) {
-    		int oldNum = itemDemandMetRequestMap.get(r);
-			//System.out.println( resource.getName() + " demandSuccessful : " + oldNum+1);
-    		itemDemandMetRequestMap.put(r, oldNum + 1);
-    	}
+    /**
+     * Gets the supply and demand statistics of the amount resources, creating them if needed.
+     * @return statistics
+     */
+    private ResourceStatHistory getAmountStats() {
+        if (amountStats == null) {
+            amountStats = new ResourceStatHistory(NUM_AMOUNT_STATS);
+        }
+        return amountStats;
+    }
 
-    	else {
-    		itemDemandMetRequestMap.put(r, 1);
-    	}
-	}
+    /**
+     * Gets the demand statistics of the item resources, creating them if needed.
+     * @return statistics
+     */
+    private ResourceStatHistory getItemStats() {
+        if (itemStats == null) {
+            itemStats = new ResourceStatHistory(NUM_ITEM_STATS);
+        }
+        return itemStats;
+    }
 
     /**
      * Adds capacity for a resource type.
@@ -406,15 +295,6 @@ implements Serializable {
      */
     public void addAmountResourceTypeCapacity(AmountResource resource, double capacity) {
     	addARTypeCapacity(resource.getID(), capacity);
-/*    	
-        // Set capacity cache to dirty because capacity values are changing.
-        setAmountResourceCapacityCacheDirty(resource);
-        // Initialize resource storage if necessary.
-        if (resourceStorage == null) {
-            resourceStorage = new AmountResourceStorage();
-        }
-        resourceStorage.addAmountResourceTypeCapacity(resource, capacity);
-*/        
     }
 
     /**
@@ -423,14 +303,13 @@ implements Serializable {
      * @param capacity the extra capacity amount (kg).
      */
     public void addARTypeCapacity(int resource, double capacity) {
-    	//AmountResource ar = ResourceUtil.findAmountResource(resource);
-        // Set capacity cache to dirty because capacity values are changing.
-        setARCapacityCacheDirty(resource);
         // Initialize resource storage if necessary.
         if (resourceStorage == null) {
             resourceStorage = new AmountResourceStorage();
         }
         resourceStorage.addARTypeCapacity(resource, capacity);
+        // Invalidate the caches because capacity values are changing.
+        setModified(-1, true, false);
     }
     
     /**
@@ -442,15 +321,6 @@ implements Serializable {
             double capacity) {
 
     	removeARTypeCapacity(resource.getID(), capacity);
- /*   	
-        // Set capacity cache to dirty because capacity values are changing.
-        setAmountResourceCapacityCacheDirty(resource);
-        // Initialize resource storage if necessary.
-        if (resourceStorage == null) {
-            resourceStorage = new AmountResourceStorage();
-        }
-        resourceStorage.removeAmountResourceTypeCapacity(resource, capacity);
- */       
     }
 
     /**
@@ -460,13 +330,13 @@ implements Serializable {
      */
     public void removeARTypeCapacity(int resource, double capacity) {
 
-        // Set capacity cache to dirty because capacity values are changing.
-        setARCapacityCacheDirty(resource);
         // Initialize resource storage if necessary.
         if (resourceStorage == null) {
             resourceStorage = new AmountResourceStorage();
         }
         resourceStorage.removeAmountResourceTypeCapacity(resource, capacity);
+        // Invalidate the caches because capacity values are changing.
+        setModified(-1, true, false);
     }
     
     /**
@@ -475,13 +345,13 @@ implements Serializable {
      * @param capacity the capacity amount (kg).
      */
     public void addAmountResourcePhaseCapacity(PhaseType phase, double capacity) {
-        // Set capacity cache to all dirty because capacity values are changing.
-        setAmountResourceCapacityCacheAllDirty(false);
         // Initialize resource storage if necessary.
         if (resourceStorage == null) {
             resourceStorage = new AmountResourceStorage();
         }
         resourceStorage.addAmountResourcePhaseCapacity(phase, capacity);
+        // Invalidate the caches because capacity values are changing.
+        setModified(-1, true, false);
     }
 
     /**
@@ -494,7 +364,7 @@ implements Serializable {
         if (resource == null) {
             throw new IllegalArgumentException("resource cannot be null.");
         }
-        return (getAmountResourceCapacityCacheValue(resource, allowDirty) > 0D);
+        return (getARCapacityCacheValue(resource.getID(), allowDirty) > 0D);
     }
 
     /**
@@ -513,7 +383,7 @@ implements Serializable {
         if (amount < 0D) {
             throw new IllegalArgumentException("amount cannot be a negative value.");
         }
-        return (getAmountResourceCapacityCacheValue(resource, allowDirty) >= amount);
+        return (getARCapacityCacheValue(resource.getID(), allowDirty) >= amount);
     }
 
     /**
@@ -523,7 +393,7 @@ implements Serializable {
      * @return capacity amount (kg).
      */
     public double getAmountResourceCapacity(AmountResource resource, boolean allowDirty) {
-        return getAmountResourceCapacityCacheValue(resource, allowDirty);
+        return getARCapacityCacheValue(resource.getID(), allowDirty);
     }
 
     /**
@@ -533,7 +403,7 @@ implements Serializable {
      * @return capacity amount (kg).
      */
     public double getARCapacity(int resource, boolean allowDirty) {
-        return getAmountResourceCapacityCacheValue(ResourceUtil.findAmountResource(resource), allowDirty);
+        return getARCapacityCacheValue(resource, allowDirty);
     }
     
     /**
@@ -558,7 +428,7 @@ implements Serializable {
      * @return stored amount (kg).
      */
     public double getAmountResourceStored(AmountResource resource, boolean allowDirty) {
-        return getAmountResourceStoredCacheValue(resource, allowDirty);
+        return getARStoredCacheValue(resource.getID(), allowDirty);
     }
     
     /**
@@ -568,7 +438,7 @@ implements Serializable {
      * @return stored amount (kg).
      */
     public double getARStored(int resource, boolean allowDirty) {
-        return getAmountResourceStoredCacheValue(ResourceUtil.findAmountResource(resource), allowDirty);
+        return getARStoredCacheValue(resource, allowDirty);
     }
     
     /**
@@ -673,12 +543,6 @@ implements Serializable {
 
             if (amount <= getAmountResourceRemainingCapacity(resource, useContainedUnits, false)) {
 
-                // Set modified cache values as dirty.
-                setAmountResourceCapacityCacheAllDirty(false);
-                setAmountResourceStoredCacheAllDirty(false);
-                setAllStoredAmountResourcesCacheDirty();
-                setTotalAmountResourcesStoredCacheDirty();
-
                 double remainingAmount = amount;
                 double remainingStorageCapacity = 0D;
                 if (resourceStorage != null) {
@@ -700,6 +564,7 @@ implements Serializable {
                 if ((storageAmount > 0D) && (resourceStorage != null)) {
                     resourceStorage.storeAmountResource(resource, storageAmount);
                     remainingAmount -= storageAmount;
+                    setModified(resource.getID(), false, false);
                 }
 
                 // Store remaining resource in contained units in general capacity.
@@ -747,6 +612,17 @@ implements Serializable {
      * @param useContainedUnits
      */
     public void storeAR(int resource, double amount, boolean useContainedUnits) {
+        storeAR(resource, amount, useContainedUnits, true);
+    }
+
+    /**
+     * Store an amount of a resource.
+     * @param resource the resource.
+     * @param amount the amount (kg).
+     * @param useContainedUnits
+     * @param fireEvent true if the resource event should be fired.
+     */
+    private void storeAR(int resource, double amount, boolean useContainedUnits, boolean fireEvent) {
         AmountResource ar = ResourceUtil.findAmountResource(resource);
         
         if (amount < 0D) {
@@ -757,12 +633,6 @@ implements Serializable {
 
             if (amount <= getARRemainingCapacity(resource, useContainedUnits, false)) {
 
-                // Set modified cache values as dirty.
-                setAmountResourceCapacityCacheAllDirty(false);
-                setAmountResourceStoredCacheAllDirty(false);
-                setAllStoredAmountResourcesCacheDirty();
-                setTotalAmountResourcesStoredCacheDirty();
-
                 double remainingAmount = amount;
                 double remainingStorageCapacity = 0D;
                 if (resourceStorage != null) {
@@ -784,6 +654,7 @@ implements Serializable {
                 if ((storageAmount > 0D) && (resourceStorage != null)) {
                     resourceStorage.storeAmountResource(resource, storageAmount);
                     remainingAmount -= storageAmount;
+                    setModified(resource, false, false);
                 }
 
                 // Store remaining resource in contained units in general capacity.
@@ -812,7 +683,7 @@ implements Serializable {
                 }
 
                 // Fire inventory event.
-                if (owner != null) {
+                if (fireEvent && (owner != null)) {
                     owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, ar);
                 }
             } else {
@@ -839,12 +710,6 @@ implements Serializable {
 
             if (amount <= getAmountResourceStored(resource, false)) {
 
-                // Set modified cache values as dirty.
-                setAmountResourceCapacityCacheAllDirty(false);
-                setAmountResourceStoredCacheAllDirty(false);
-                setAllStoredAmountResourcesCacheDirty();
-                setTotalAmountResourcesStoredCacheDirty();
-
                 double remainingAmount = amount;
 
                 // Retrieve from local resource storage.
@@ -859,6 +724,7 @@ implements Serializable {
                 if ((retrieveAmount > 0D) && (resourceStorage != null)) {
                     resourceStorage.retrieveAmountResource(resource, retrieveAmount);
                     remainingAmount -= retrieveAmount;
+                    setModified(resource.getID(), false, false);
                 }
 
                 // Retrieve remaining resource from contained units.
@@ -885,10 +751,6 @@ implements Serializable {
                             + " could not be totally retrieved. Remaining: " + remainingAmount);
                 }
 
-                // Update caches.
-                updateAmountResourceCapacityCache(resource);
-                updateAmountResourceStoredCache(resource);
-
                 // Fire inventory event.
                 if (owner != null) {
                     owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
@@ -908,6 +770,16 @@ implements Serializable {
      * @param amount the amount (kg).
      */
     public void retrieveAR(int resource, double amount) {
+        retrieveAR(resource, amount, true);
+    }
+
+    /**
+     * Retrieves an amount of a resource from storage.
+     * @param resource the resource.
+     * @param amount the amount (kg).
+     * @param fireEvent true if the resource event should be fired.
+     */
+    private void retrieveAR(int resource, double amount, boolean fireEvent) {
 
         if (amount < 0D) {
             throw new IllegalStateException("Cannot retrieve negative amount of resource: " + amount);
@@ -920,12 +792,6 @@ implements Serializable {
             
             if (amount <= getARStored(resource, false)) {
 
-                // Set modified cache values as dirty.
-                setAmountResourceCapacityCacheAllDirty(false);
-                setAmountResourceStoredCacheAllDirty(false);
-                setAllStoredAmountResourcesCacheDirty();
-                setTotalAmountResourcesStoredCacheDirty();
-
                 double remainingAmount = amount;
 
                 // Retrieve from local resource storage.
@@ -940,6 +806,7 @@ implements Serializable {
                 if ((retrieveAmount > 0D) && (resourceStorage != null)) {
                     resourceStorage.retrieveAR(resource, retrieveAmount);
                     remainingAmount -= retrieveAmount;
+                    setModified(resource, false, false);
                 }
 
                 // Retrieve remaining resource from contained units.
@@ -966,12 +833,8 @@ implements Serializable {
                             + " could not be totally retrieved. Remaining: " + remainingAmount);
                 }
 
-                // Update caches.
-                updateAmountResourceCapacityCache(ar);
-                updateAmountResourceStoredCache(ar);
-
                 // Fire inventory event.
-                if (owner != null) {
+                if (fireEvent && (owner != null)) {
                     owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, ar);
                 }
             } else {
@@ -982,14 +845,130 @@ implements Serializable {
         }
     }
 
+    /**
+     * Retrieves and stores the amount resources of a transaction, all of them or none of them.
+     * The retrievals are applied before the stores, and a single resource event is fired for
+     * all of the resources once the transaction is applied.
+     * @param transaction the transaction.
+     * @throws IllegalStateException if the transaction cannot be applied in full, in which case
+     * the inventory is left unchanged.
+     */
+    public void applyTransaction(InventoryTransaction transaction) {
+
+        int size = transaction.size();
+        if (size == 0) {
+            return;
+        }
+
+        // Check the net amount of each resource once.
+        for (int i = 0; i < size; i++) {
+            int resource = transaction.getResource(i);
+
+            boolean checked = false;
+            for (int j = 0; (j < i) && !checked; j++) {
+                checked = (transaction.getResource(j) == resource);
+            }
+            if (checked) {
+                continue;
+            }
+
+            double retrieved = 0D;
+            double stored = 0D;
+            boolean useContainedUnits = false;
+            for (int j = i; j < size; j++) {
+                if (transaction.getResource(j) == resource) {
+                    double amount = transaction.getAmount(j);
+                    if (amount < 0D) {
+                        retrieved -= amount;
+                    } else {
+                        stored += amount;
+                        useContainedUnits |= transaction.isUseContainedUnits(j);
+                    }
+                }
+            }
+
+            if (retrieved > getARStored(resource, false)) {
+                throw new IllegalStateException("Insufficient stored amount to retrieve " +
+                        ResourceUtil.findAmountResource(resource).getName() + ". Storage Amount : " +
+                        getARStored(resource, false) + " kg. Attempted Amount : " + retrieved + " kg");
+            }
+            if ((stored - retrieved) > getARRemainingCapacity(resource, useContainedUnits, false)) {
+                throw new IllegalStateException("Insufficient capacity to store " +
+                        ResourceUtil.findAmountResource(resource).getName() + ", capacity: " +
+                        getARRemainingCapacity(resource, useContainedUnits, false) + ", attempted: " +
+                        (stored - retrieved));
+            }
+        }
+
+        // Apply the retrievals then the stores, counting them so they can be undone.
+        int retrievals = 0;
+        int stores = 0;
+        try {
+            for (int i = 0; i < size; i++) {
+                double amount = transaction.getAmount(i);
+                if (amount < 0D) {
+                    retrieveAR(transaction.getResource(i), -amount, false);
+                    retrievals++;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                double amount = transaction.getAmount(i);
+                if (amount > 0D) {
+                    storeAR(transaction.getResource(i), amount, transaction.isUseContainedUnits(i), false);
+                    stores++;
+                }
+            }
+        }
+        catch (IllegalStateException e) {
+            undoTransaction(transaction, retrievals, stores);
+            throw e;
+        }
+
+        // Fire a single inventory event for all of the resources.
+        if (owner != null) {
+            Set<AmountResource> resources = new HashSet<AmountResource>();
+            for (int i = 0; i < size; i++) {
+                resources.add(ResourceUtil.findAmountResource(transaction.getResource(i)));
+            }
+            owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, Collections.unmodifiableSet(resources));
+        }
+    }
+
+    /**
+     * Undoes the first retrievals and stores of a transaction.
+     * @param transaction the transaction.
+     * @param retrievals the number of retrievals applied.
+     * @param stores the number of stores applied.
+     */
+    private void undoTransaction(InventoryTransaction transaction, int retrievals, int stores) {
+
+        int size = transaction.size();
+
+        for (int i = 0; (i < size) && (stores > 0); i++) {
+            double amount = transaction.getAmount(i);
+            if (amount > 0D) {
+                retrieveAR(transaction.getResource(i), amount, false);
+                stores--;
+            }
+        }
+
+        for (int i = 0; (i < size) && (retrievals > 0); i++) {
+            double amount = transaction.getAmount(i);
+            if (amount < 0D) {
+                storeAR(transaction.getResource(i), -amount, true, false);
+                retrievals--;
+            }
+        }
+    }
+
     /**
      * Adds a capacity to general capacity.
      * @param capacity amount capacity (kg).
      */
     public void addGeneralCapacity(double capacity) {
         generalCapacity += capacity;
-        // Mark amount resource capacity cache as dirty.
-        setAmountResourceCapacityCacheAllDirty(false);
+        // Invalidate the caches because capacity values are changing.
+        setModified(-1, true, false);
     }
 
     /**
@@ -1097,10 +1076,6 @@ implements Serializable {
         if (number > 0) {
             if (totalMass <= getRemainingGeneralCapacity(false)) {
 
-                // Mark caches as dirty.
-                setAmountResourceCapacityCacheAllDirty(false);
-                setItemResourceTotalMassCacheDirty();
-
                 // Initialize contained item resources if necessary.
                 if (containedItemResources == null) {
                     containedItemResources = new ConcurrentHashMap<ItemResource, Integer>();
@@ -1111,6 +1086,9 @@ implements Serializable {
                     containedItemResources.put(resource, totalNum);
                 }
 
+                // Invalidate the caches of the general stored mass.
+                setModified(-1, false, true);
+
                 // Fire inventory event.
                 if (owner != null) {
                     owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
@@ -1137,10 +1115,6 @@ implements Serializable {
             if (number <= getItemResourceNum(resource)) {
                 int remainingNum = number;
 
-                // Mark caches as dirty.
-                setAmountResourceCapacityCacheAllDirty(false);
-                setItemResourceTotalMassCacheDirty();
-
                 // Retrieve resources from local storage.
                 if ((containedItemResources != null) && containedItemResources.containsKey(resource)) {
                     int storedLocal = containedItemResources.get(resource);
@@ -1155,6 +1129,9 @@ implements Serializable {
                         containedItemResources.remove(resource);
                     }
                     remainingNum -= retrieveNum;
+
+                    // Invalidate the caches of the general stored mass.
+                    setModified(-1, false, true);
                 }
 
                 // Fire inventory event.
@@ -1216,21 +1193,35 @@ implements Serializable {
     }
 
     /**
-     * Checks if any of a given class of unit is in storage.
+     * Gets the index of the contained units of a class, building it on first use.
      * @param unitClass the unit class.
-     * @return true if class of unit is in storage.
+     * @return the index.
      */
-    private boolean containsUnitClassLocal(Class<? extends Unit> unitClass) {
-        boolean result = false;
-        if (containedUnits != null) {
-            Iterator<Unit> i = containedUnits.iterator();
-            while (!result && i.hasNext()) {
-                if (unitClass.isInstance(i.next())) {
-                    result = true;
-                }
+    private UnitClassIndex getUnitClassIndex(Class<? extends Unit> unitClass) {
+
+        Map<Class<? extends Unit>, UnitClassIndex> indexes = unitClassIndexes;
+        if (indexes != null) {
+            UnitClassIndex index = indexes.get(unitClass);
+            if (index != null) {
+                return index;
             }
         }
-        return result;
+
+        // Build the index under the lock storeUnit and retrieveUnit hold, so no unit
+        // stored or retrieved meanwhile is missed.
+        synchronized (this) {
+            if (unitClassIndexes == null) {
+                unitClassIndexes = new ConcurrentHashMap<Class<? extends Unit>, UnitClassIndex>();
+            }
+
+            UnitClassIndex index = unitClassIndexes.get(unitClass);
+            if (index == null) {
+                index = new UnitClassIndex(unitClass, containedUnits);
+                unitClassIndexes.put(unitClass, index);
+            }
+
+            return index;
+        }
     }
 
     /**
@@ -1239,12 +1230,7 @@ implements Serializable {
      * @return if class of unit is in storage.
      */
     public boolean containsUnitClass(Class<? extends Unit> unitClass) {
-        boolean result = false;
-        // Check if unit of class is in inventory.
-        if (containsUnitClassLocal(unitClass)) {
-            result = true;
-        }
-        return result;
+        return !getUnitClassIndex(unitClass).units.isEmpty();
     }
 
     /**
@@ -1253,17 +1239,8 @@ implements Serializable {
      * @return the instance of the unit class or null if none.
      */
     public Unit findUnitOfClass(Class<? extends Unit> unitClass) {
-        Unit result = null;
-        if (containsUnitClass(unitClass)) {
-            Iterator<Unit> i = containedUnits.iterator();
-            while ((result == null) && i.hasNext()) {
-                Unit unit = i.next();
-                if (unitClass.isInstance(unit)) {
-                    result = unit;
-                }
-            }
-        }
-        return result;
+        Iterator<Unit> i = getUnitClassIndex(unitClass).units.iterator();
+        return i.hasNext() ? i.next() : null;
     }
 
     /**
@@ -1272,15 +1249,8 @@ implements Serializable {
      * @return collection of units or empty collection if none.
      */
     public Collection<Unit> findAllUnitsOfClass(Class<? extends Unit> unitClass) {
-        Collection<Unit> result = new ConcurrentLinkedQueue<Unit>();
-        if (containsUnitClass(unitClass)) {
-            for (Unit unit : containedUnits) {
-                if (unitClass.isInstance(unit)) {
-                    result.add(unit);
-                }
-            }
-        }
-        return result;
+        // The index is copied on write, so callers may store and retrieve the units while going through them
+        return Collections.unmodifiableList(getUnitClassIndex(unitClass).units);
     }
 
     /**
@@ -1289,15 +1259,7 @@ implements Serializable {
      * @return number of units
      */
     public int findNumUnitsOfClass(Class<? extends Unit> unitClass) {
-        int result = 0;
-        if (containsUnitClass(unitClass)) {
-            for (Unit unit : containedUnits) {
-                if (unitClass.isInstance(unit)) {
-                    result++;
-                }
-            }
-        }
-        return result;
+        return getUnitClassIndex(unitClass).units.size();
     }
 
     /**
@@ -1308,18 +1270,66 @@ implements Serializable {
      * @return number of empty units.
      */
     public int findNumEmptyUnitsOfClass(Class<? extends Unit> unitClass, boolean allowDirty) {
-        int result = 0;
-        if (containsUnitClass(unitClass)) {
-            for (Unit unit : containedUnits) {
-                if (unitClass.isInstance(unit)) {
-                    Inventory inv = unit.getInventory();
-                    if ((inv != null) && inv.isEmpty(allowDirty)) {
-                        result++;
+
+        UnitClassIndex index = getUnitClassIndex(unitClass);
+
+        Set<Unit> emptyUnits = index.emptyUnits;
+        if (emptyUnits == null) {
+            // Start keeping the empty units under the lock they are kept up to date with
+            synchronized (this) {
+                emptyUnits = index.emptyUnits;
+                if (emptyUnits == null) {
+                    emptyUnits = Collections.newSetFromMap(new ConcurrentHashMap<Unit, Boolean>());
+                    for (Unit unit : index.units) {
+                        if (isEmptyUnit(unit)) {
+                            emptyUnits.add(unit);
+                        }
+                    }
+                    index.emptyUnits = emptyUnits;
+                }
+            }
+        }
+
+        return emptyUnits.size();
+    }
+
+    /**
+     * Checks if a unit has an empty inventory.
+     * @param unit the unit.
+     * @return true if empty.
+     */
+    private static boolean isEmptyUnit(Unit unit) {
+        Inventory inv = unit.getInventory();
+        return (inv != null) && inv.isEmpty(false);
+    }
+
+    /**
+     * Updates the empty units kept for the classes of a contained unit whose contents changed.
+     * @param unit the contained unit.
+     */
+    private void updateEmptyUnit(Unit unit) {
+        Map<Class<? extends Unit>, UnitClassIndex> indexes = unitClassIndexes;
+        if (indexes == null) {
+            return;
+        }
+
+        synchronized (this) {
+            int empty = -1;
+            for (UnitClassIndex index : indexes.values()) {
+                if ((index.emptyUnits != null) && index.unitClass.isInstance(unit)) {
+                    if (empty < 0) {
+                        empty = isEmptyUnit(unit) ? 1 : 0;
+                    }
+                    // Only a unit still in the index is counted, as it may be on its way out
+                    if ((empty == 1) && index.units.contains(unit)) {
+                        index.emptyUnits.add(unit);
+                    }
+                    else {
+                        index.emptyUnits.remove(unit);
                     }
                 }
             }
         }
-        return result;
     }
 
     /**
@@ -1359,21 +1369,30 @@ implements Serializable {
 
         if (canStoreUnit(unit, false)) {
 
-            // Set modified cache values as dirty.
-            setAmountResourceCapacityCacheAllDirty(true);
-            setAmountResourceStoredCacheAllDirty(true);
-            setAllStoredAmountResourcesCacheDirty();
-            setTotalAmountResourcesStoredCacheDirty();
-            setUnitTotalMassCacheDirty();
+            synchronized (this) {
+                // Initialize containedUnits if necessary.
+                if (containedUnits == null) {
+                    containedUnits = new ConcurrentLinkedQueue<Unit>();
+                }
 
-            // Initialize containedUnits if necessary.
-            if (containedUnits == null) {
-                containedUnits = new ConcurrentLinkedQueue<Unit>();
-            }
+                containedUnits.add(unit);
 
-            containedUnits.add(unit);
+                if (unitClassIndexes != null) {
+                    for (UnitClassIndex index : unitClassIndexes.values()) {
+                        if (index.unitClass.isInstance(unit)) {
+                            index.units.add(unit);
+                            if ((index.emptyUnits != null) && isEmptyUnit(unit)) {
+                                index.emptyUnits.add(unit);
+                            }
+                        }
+                    }
+                }
+            }
             unit.setContainerUnit(owner);
 
+            // Invalidate the caches because the contained units are changing.
+            setModified(-1, true, true);
+
             // Try to empty amount resources into parent if container.
             if (unit instanceof Container) {
                 Inventory containerInv = unit.getInventory();
@@ -1391,8 +1410,6 @@ implements Serializable {
                 unit.setCoordinates(owner.getCoordinates());
                 owner.fireUnitUpdate(UnitEventType.INVENTORY_STORING_UNIT_EVENT, unit);
                 for (AmountResource resource : unit.getInventory().getAllAmountResourcesStored(false)) {
-                    updateAmountResourceCapacityCache(resource);
-                    updateAmountResourceStoredCache(resource);
                     owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
                 }
                 for (ItemResource itemResource : unit.getInventory().getAllItemResourcesStored()) {
@@ -1417,24 +1434,29 @@ implements Serializable {
 
         if (containsUnit(unit)) {
 
-            // Set modified cache values as dirty.
-            setAmountResourceCapacityCacheAllDirty(true);
-            setAmountResourceStoredCacheAllDirty(true);
-            setAllStoredAmountResourcesCacheDirty();
-            setTotalAmountResourcesStoredCacheDirty();
-            setUnitTotalMassCacheDirty();
-
             if (containedUnits.contains(unit)) {
 
-                containedUnits.remove(unit);
-
-                // Update owner
-                if (owner != null) {
-                    owner.fireUnitUpdate(UnitEventType.INVENTORY_RETRIEVING_UNIT_EVENT, unit);
+                synchronized (this) {
+                    containedUnits.remove(unit);
 
-                    for (AmountResource resource : unit.getInventory().getAllAmountResourcesStored(false)) {
-                        updateAmountResourceCapacityCache(resource);
-                        updateAmountResourceStoredCache(resource);
+                    if (unitClassIndexes != null) {
+                        for (UnitClassIndex index : unitClassIndexes.values()) {
+                            index.units.remove(unit);
+                            if (index.emptyUnits != null) {
+                                index.emptyUnits.remove(unit);
+                            }
+                        }
+                    }
+                }
+
+                // Invalidate the caches because the contained units are changing.
+                setModified(-1, true, true);
+
+                // Update owner
+                if (owner != null) {
+                    owner.fireUnitUpdate(UnitEventType.INVENTORY_RETRIEVING_UNIT_EVENT, unit);
+
+                    for (AmountResource resource : unit.getInventory().getAllAmountResourcesStored(false)) {
                         owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
                     }
                     for (ItemResource itemResource : unit.getInventory().getAllItemResourcesStored()) {
@@ -1512,200 +1534,98 @@ implements Serializable {
     }
 
     /**
-     * Initializes the amount resource capacity cache.
-     */
-    public synchronized void initializeAmountResourceCapacityCache() {
-    	initializeARCapacityCache();
-/*    	
-        Collection<AmountResource> resources = ResourceUtil.getInstance().getAmountResources();
-        amountResourceCapacityCache = new HashMap<AmountResource, Double>();
-        amountResourceCapacityCacheDirty = new HashMap<AmountResource, Boolean>();
-        amountResourceContainersCapacityCache = new HashMap<AmountResource, Double>();
-        amountResourceContainersCapacityCacheDirty = new HashMap<AmountResource, Boolean>();
-
-        for (AmountResource resource : resources) {
-            amountResourceCapacityCache.put(resource, 0D);
-            amountResourceCapacityCacheDirty.put(resource, true);
-            amountResourceContainersCapacityCache.put(resource, 0D);
-            amountResourceContainersCapacityCacheDirty.put(resource, true);
-        }
-*/        
-    }
-
-    /**
-     * Initializes the amount resource capacity cache.
-     */
-    public synchronized void initializeARCapacityCache() {
-
-        Collection<Integer> resources = ResourceUtil.getInstance().getARIDs();
-        capacityCache = new HashMap<Integer, Double>();
-        capacityCacheDirty = new HashMap<Integer, Boolean>();
-        containersCapacityCache = new HashMap<Integer, Double>();
-        containersCapacityCacheDirty = new HashMap<Integer, Boolean>();
-
-        for (int resource : resources) {
-            capacityCache.put(resource, 0D);
-            capacityCacheDirty.put(resource, true);
-            containersCapacityCache.put(resource, 0D);
-            containersCapacityCacheDirty.put(resource, true);
-        }
-    }
-    
-    /**
-     * Checks if the amount resource capacity cache is dirty for a resource.
-     * @param resource the resource to check.
-     * @return true if resource is dirty in cache.
-     */
-    private boolean isAmountResourceCapacityCacheDirty(AmountResource resource) {
-    	return isARCapacityCacheDirty(resource.getID());
-/*    	
-        // Initialize amount resource capacity cache if necessary.
-        if (amountResourceCapacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
-        // 2016-12-21 Check if amountResourceCapacityCacheDirty contains the resource
-        if (amountResourceCapacityCacheDirty.containsKey(resource))
-        	return amountResourceCapacityCacheDirty.get(resource);
-        else
-        	return true;
-*/
-    }
-
-    /**
-     * Checks if the amount resource capacity cache is dirty for a resource.
-     * @param resource the resource to check.
-     * @return true if resource is dirty in cache.
+     * Records a change to this inventory and to the inventories containing it.
+     * @param resource the amount resource changed, or -1 if none.
+     * @param structure true if the capacities or the contained units changed.
+     * @param general true if the mass stored in general capacity changed.
      */
-    private boolean isARCapacityCacheDirty(int resource) {
+    private void setModified(int resource, boolean structure, boolean general) {
 
-        // Initialize amount resource capacity cache if necessary.
-        if (capacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
-        // 2016-12-21 Check if amountResourceCapacityCacheDirty contains the resource
-        if (capacityCacheDirty.containsKey(resource))
-        	return capacityCacheDirty.get(resource);
-        else
-        	return true;
+        long count = ++modCount;
 
-    }
-    
-    /**
-     * Sets a resource in the amount resource capacity cache to dirty.
-     * @param resource the dirty resource.
-     */
-    private void setAmountResourceCapacityCacheDirty(AmountResource resource) {
-    	setARCapacityCacheDirty(resource.getID());
-/*   	
-        // Initialize amount resource capacity cache if necessary.
-        if (amountResourceCapacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
-
-        amountResourceCapacityCacheDirty.put(resource, true);
-*/        
-    }
+        if (resource >= 0) {
+            if ((resourceModCounts == null) || (resource >= resourceModCounts.length)) {
+                resourceModCounts = grow(resourceModCounts, resource);
+            }
+            resourceModCounts[resource] = count;
 
-    /**
-     * Sets a resource in the amount resource capacity cache to dirty.
-     * @param resource the dirty resource.
-     */
-    private void setARCapacityCacheDirty(int resource) {
+            int phase = ResourceUtil.findAmountResource(resource).getPhase().ordinal();
+            if (phaseModCounts == null) {
+                phaseModCounts = new long[PhaseType.values().length];
+            }
+            phaseModCounts[phase] = count;
 
-        // Initialize amount resource capacity cache if necessary.
-        if (capacityCache == null) {
-            initializeAmountResourceCapacityCache();
+            amountModCount = count;
         }
 
-        capacityCacheDirty.put(resource, true);
-    }
-    
-    /**
-     * Sets all of the resources in the amount resource capacity cache to dirty.
-     * @param containersDirty true if containers cache should be marked as all dirty.
-     */
-    private void setAmountResourceCapacityCacheAllDirty(boolean containersDirty) {
-    	setARCapacityCacheAllDirty(containersDirty);
-/*
-        // Initialize amount resource capacity cache if necessary.
-        if (amountResourceCapacityCache == null) {
-            initializeAmountResourceCapacityCache();
+        if (structure) {
+            structureModCount = count;
         }
 
-        for (AmountResource amountResource : ResourceUtil.getInstance().getAmountResources()) {
-            setAmountResourceCapacityCacheDirty(amountResource);
-
-            if (containersDirty) {
-                amountResourceContainersCapacityCacheDirty.put(amountResource, true);
-            }
+        if (general) {
+            generalModCount = count;
         }
 
-        // Set owner unit's amount resource capacity cache as dirty (if any).
+        // The contents of the owner are part of the general stored mass of its container.
         if (owner != null) {
             Unit container = owner.getContainerUnit();
             if (container != null) {
-                container.getInventory().setAmountResourceCapacityCacheAllDirty(true);
+                container.getInventory().updateEmptyUnit(owner);
+                container.getInventory().setModified(resource, structure, true);
             }
         }
-*/        
     }
 
     /**
-     * Sets all of the resources in the amount resource capacity cache to dirty.
-     * @param containersDirty true if containers cache should be marked as all dirty.
+     * Grows an array indexed by resource id to hold a resource.
+     * @param array the array (or null).
+     * @param resource the resource id.
+     * @return the array or a larger copy of it.
      */
-    private void setARCapacityCacheAllDirty(boolean containersDirty) {
-
-        // Initialize amount resource capacity cache if necessary.
-        if (capacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
-
-        for (int amountResource : ResourceUtil.getInstance().getARIDs()) {
-            setARCapacityCacheDirty(amountResource);
-
-            if (containersDirty) {
-                containersCapacityCacheDirty.put(amountResource, true);
-            }
-        }
-
-        // Set owner unit's amount resource capacity cache as dirty (if any).
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setAmountResourceCapacityCacheAllDirty(true);
-            }
+    private static long[] grow(long[] array, int resource) {
+        int length = (resource / 16 + 1) * 16;
+        if (array == null) {
+            return new long[length];
         }
+        return Arrays.copyOf(array, length);
     }
-    
+
     /**
-     * Gets the cached capacity value for an amount resource.
-     * @param resource the amount resource.
-     * @param allowDirty true if cache value can be dirty.
-     * @return capacity (kg) for the amount resource.
+     * Gets the count of the last change to an amount resource.
+     * @param resource the resource.
+     * @return modification count.
      */
-    private double getAmountResourceCapacityCacheValue(AmountResource resource, boolean allowDirty) {
-    	return getARCapacityCacheValue(resource.getID(), allowDirty);
-/*    	
-        // Initialize amount resource capacity cache if necessary.
-        if (amountResourceCapacityCache == null) {
-            initializeAmountResourceCapacityCache();
+    private long getARModCount(int resource) {
+        if ((resourceModCounts != null) && (resource < resourceModCounts.length)) {
+            return resourceModCounts[resource];
         }
+        return 0L;
+    }
 
-        // Update amount resource capacity cache if it is dirty.
-        if (isAmountResourceCapacityCacheDirty(resource) && !allowDirty) {
-            updateAmountResourceCapacityCache(resource);
+    /**
+     * Gets the count of the last change to an amount resource of a phase.
+     * @param resource the resource.
+     * @return modification count.
+     */
+    private long getPhaseModCount(int resource) {
+        if (phaseModCounts != null) {
+            return phaseModCounts[ResourceUtil.findAmountResource(resource).getPhase().ordinal()];
         }
+        return 0L;
+    }
 
-        // 2017-03-21 Check if amountResourceCapacityCache contains the resource
-        if (amountResourceCapacityCache.containsKey(resource))
-        	return amountResourceCapacityCache.get(resource);
-        else {
-        	amountResourceCapacityCache.put(resource, 0D);
-        	return 0;
+    /**
+     * Makes sure the capacity and stored caches can hold a resource.
+     * @param resource the resource.
+     */
+    private void ensureARCacheSize(int resource) {
+        if ((capacityCache == null) || (resource >= capacityCache.length)) {
+            capacityCacheStamps = grow(capacityCacheStamps, resource);
+            storedCacheStamps = grow(storedCacheStamps, resource);
+            int length = capacityCacheStamps.length;
+            capacityCache = (capacityCache == null) ? new double[length] : Arrays.copyOf(capacityCache, length);
+            storedCache = (storedCache == null) ? new double[length] : Arrays.copyOf(storedCache, length);
         }
-        //return amountResourceCapacityCache.get(resource);
-*/        
     }
 
     /**
@@ -1716,123 +1636,27 @@ implements Serializable {
      */
     private double getARCapacityCacheValue(int resource, boolean allowDirty) {
 
-        // Initialize amount resource capacity cache if necessary.
-        if (capacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
-
-        // Update amount resource capacity cache if it is dirty.
-        if (isARCapacityCacheDirty(resource) && !allowDirty) {
-            updateARCapacityCache(resource);
-        }
-
-        // 2017-03-21 Check if amountResourceCapacityCache contains the resource
-        if (capacityCache.containsKey(resource))
-        	return capacityCache.get(resource);
-        else {
-        	capacityCache.put(resource, 0D);
-        	return 0;
-        }
-        //return amountResourceCapacityCache.get(resource);
-    }
-    
-    /**
-     * Update the amount resource capacity cache for an amount resource.
-     * @param resource the resource to update.
-     */
-    private void updateAmountResourceCapacityCache(AmountResource resource) {
-    	updateARCapacityCache(resource.getID());
-/*    	
-        // Initialize amount resource capacity cache if necessary.
-        if (amountResourceCapacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
-
-        // Determine local resource capacity.
-        double capacity = 0D;
-        if (resourceStorage != null) {
-            capacity += resourceStorage.getAmountResourceCapacity(resource);
-        }
+        ensureARCacheSize(resource);
 
-        // Determine capacity for all contained units.
-        double containedCapacity = 0D;
-        // 2016-12-21 Check for null
-        if (amountResourceContainersCapacityCacheDirty.containsKey(resource)) {
-	        if (amountResourceContainersCapacityCacheDirty.get(resource)) {
-	            if (containedUnits != null) {
-	                for (Unit unit : containedUnits) {
-	                    if (unit instanceof Container) {
-	                        containedCapacity += unit.getInventory().getAmountResourceCapacity(resource, false);
-	                    }
-	                }
-	            }
-	            amountResourceContainersCapacityCache.put(resource, containedCapacity);
-	            amountResourceContainersCapacityCacheDirty.put(resource, false);
-	        }
-	        // 2016-12-21 Check for null
-	        else if (amountResourceContainersCapacityCache.containsKey(resource)) {
-	            containedCapacity = amountResourceContainersCapacityCache.get(resource);
-	        }
-        }
-        // 2016-12-21 Check for null
-        else if (amountResourceContainersCapacityCache.containsKey(resource)) {
-            containedCapacity = amountResourceContainersCapacityCache.get(resource);
-        }
-
-        // Determine stored resources for all contained units.
-        double containedStored = 0D;
-        if (amountResourceContainersStoredCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        // 2017-03-21 Add checking for amountResourceContainersStoredCacheDirty and add if else clause
-        if (amountResourceContainersStoredCacheDirty.containsKey(resource)) {
-         	if (amountResourceContainersStoredCacheDirty.get(resource)) {
-	            if (containedUnits != null) {
-	                for (Unit unit : containedUnits) {
-	                    if (unit instanceof Container) {
-	                        containedStored += unit.getInventory().getAmountResourceStored(resource, false);
-	                    }
-	                }
-	            }
-	            amountResourceContainersStoredCache.put(resource,  containedStored);
-	            amountResourceContainersStoredCacheDirty.put(resource, false);
-	        }
-	        else {
-	            containedStored = amountResourceContainersStoredCache.get(resource);
-	        }
-        }
-        else {
-            //amountResourceContainersStoredCacheDirty.put(resource, false);
-            //containedStored = amountResourceContainersStoredCache.get(resource);
-        }
+        long stamp = capacityCacheStamps[resource];
+        boolean valid = (stamp >= structureModCount) && (stamp >= generalModCount)
+                && (stamp >= getPhaseModCount(resource)) && (stamp >= getARModCount(resource));
 
-        // Limit container capacity to this inventory's remaining general capacity.
-        // Add container's resource stored as this is already factored into inventory's
-        // remaining general capacity.
-        double generalResourceCapacity = getRemainingGeneralCapacity(false) + containedStored;
-        if (containedCapacity > generalResourceCapacity) {
-            containedCapacity = generalResourceCapacity;
+        // A value never computed is computed even if dirty results are allowed.
+        if (!valid && (!allowDirty || (stamp == 0L))) {
+            updateARCapacityCache(resource);
         }
 
-        capacity += containedCapacity;
-
-        amountResourceCapacityCache.put(resource, capacity);
-        amountResourceCapacityCacheDirty.put(resource, false);
-*/        
+        return capacityCache[resource];
     }
 
-    
     /**
      * Update the amount resource capacity cache for an amount resource.
      * @param resource the resource to update.
      */
     private void updateARCapacityCache(int resource) {
 
-        // Initialize amount resource capacity cache if necessary.
-        if (capacityCache == null) {
-            initializeAmountResourceCapacityCache();
-        }
+        long stamp = modCount;
 
         // Determine local resource capacity.
         double capacity = 0D;
@@ -1840,57 +1664,17 @@ implements Serializable {
             capacity += resourceStorage.getARCapacity(resource);
         }
 
-        // Determine capacity for all contained units.
+        // Determine capacity and stored resources for all contained units.
         double containedCapacity = 0D;
-        // 2016-12-21 Check for null
-        if (containersCapacityCacheDirty.containsKey(resource)) {
-	        if (containersCapacityCacheDirty.get(resource)) {
-	            if (containedUnits != null) {
-	                for (Unit unit : containedUnits) {
-	                    if (unit instanceof Container) {
-	                        containedCapacity += unit.getInventory().getARCapacity(resource, false);
-	                    }
-	                }
-	            }
-	            containersCapacityCache.put(resource, containedCapacity);
-	            containersCapacityCacheDirty.put(resource, false);
-	        }
-	        // 2016-12-21 Check for null
-	        else if (containersCapacityCache.containsKey(resource)) {
-	            containedCapacity = containersCapacityCache.get(resource);
-	        }
-        }
-        // 2016-12-21 Check for null
-        else if (containersCapacityCache.containsKey(resource)) {
-            containedCapacity = containersCapacityCache.get(resource);
-        }
-
-        // Determine stored resources for all contained units.
         double containedStored = 0D;
-        if (containersStoredCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        // 2017-03-21 Add checking for amountResourceContainersStoredCacheDirty and add if else clause
-        if (containersStoredCacheDirty.containsKey(resource)) {
-         	if (containersStoredCacheDirty.get(resource)) {
-	            if (containedUnits != null) {
-	                for (Unit unit : containedUnits) {
-	                    if (unit instanceof Container) {
-	                        containedStored += unit.getInventory().getARStored(resource, false);
-	                    }
-	                }
-	            }
-	            containersStoredCache.put(resource,  containedStored);
-	            containersStoredCacheDirty.put(resource, false);
-	        }
-	        else {
-	            containedStored = containersStoredCache.get(resource);
-	        }
-        }
-        else {
-            //amountResourceContainersStoredCacheDirty.put(resource, false);
-            //containedStored = amountResourceContainersStoredCache.get(resource);
+        if (containedUnits != null) {
+            for (Unit unit : containedUnits) {
+                if (unit instanceof Container) {
+                    Inventory unitInventory = unit.getInventory();
+                    containedCapacity += unitInventory.getARCapacity(resource, false);
+                    containedStored += unitInventory.getARStored(resource, false);
+                }
+            }
         }
 
         // Limit container capacity to this inventory's remaining general capacity.
@@ -1903,282 +1687,28 @@ implements Serializable {
 
         capacity += containedCapacity;
 
-        capacityCache.put(resource, capacity);
-        capacityCacheDirty.put(resource, false);
-    }
-
-    
-    /**
-     * Initializes the amount resource stored cache.
-     */
-    private synchronized void initializeAmountResourceStoredCache() {
-    	initializeARStoredCache();
-/*    	
-        Collection<AmountResource> resources = ResourceUtil.getInstance().getAmountResources();
-        amountResourceStoredCache = new HashMap<AmountResource, Double>();
-        amountResourceStoredCacheDirty = new HashMap<AmountResource, Boolean>();
-        amountResourceContainersStoredCache = new HashMap<AmountResource, Double>();
-        amountResourceContainersStoredCacheDirty = new HashMap<AmountResource, Boolean>();
-
-        for (AmountResource resource : resources) {
-            amountResourceStoredCache.put(resource, 0D);
-            amountResourceStoredCacheDirty.put(resource, true);
-            amountResourceContainersStoredCache.put(resource, 0D);
-            amountResourceContainersStoredCacheDirty.put(resource, true);
-        }
-*/        
-    }
-
-    /**
-     * Initializes the amount resource stored cache.
-     */
-    private synchronized void initializeARStoredCache() {
-        Collection<Integer> resources = ResourceUtil.getInstance().getARIDs();
-        storedCache = new HashMap<Integer, Double>();
-        storedCacheDirty = new HashMap<Integer, Boolean>();
-        containersStoredCache = new HashMap<Integer, Double>();
-        containersStoredCacheDirty = new HashMap<Integer, Boolean>();
-
-        for (int resource : resources) {
-            storedCache.put(resource, 0D);
-            storedCacheDirty.put(resource, true);
-            containersStoredCache.put(resource, 0D);
-            containersStoredCacheDirty.put(resource, true);
-        }
-    }
-    
-    /**
-     * Checks if the amount resource stored cache is dirty for a resource.
-     * @param resource the resource to check.
-     * @return true if resource is dirty in cache.
-     */
-    private boolean isAmountResourceStoredCacheDirty(AmountResource resource) {
-    	return isARStoredCacheDirty(resource.getID());
-    	/* 
-    	// Initialize amount resource stored cache if necessary.
-        if (amountResourceStoredCacheDirty == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        // 2016-12-21 Check if amountResourceStoredCacheDirty contains the resource
-        if (amountResourceStoredCacheDirty.containsKey(resource))
-        	return amountResourceStoredCacheDirty.get(resource);
-        else
-        	return true;
-*/        
-    }
-
-    /**
-     * Checks if the amount resource stored cache is dirty for a resource.
-     * @param resource the resource to check.
-     * @return true if resource is dirty in cache.
-     */
-    private boolean isARStoredCacheDirty(int resource) {
-        // Initialize amount resource stored cache if necessary.
-        if (storedCacheDirty == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        // 2016-12-21 Check if amountResourceStoredCacheDirty contains the resource
-        if (storedCacheDirty.containsKey(resource))
-        	return storedCacheDirty.get(resource);
-        else
-        	return true;
-    }
-    
-    /**
-     * Sets a resource in the amount resource stored cache to dirty.
-     * @param resource the dirty resource.
-     */
-    private void setAmountResourceStoredCacheDirty(AmountResource resource) {
-    	setARStoredCacheDirty(resource.getID());
-/*    	
-        // Initialize amount resource stored cache if necessary.
-        if (amountResourceStoredCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        amountResourceStoredCacheDirty.put(resource, true);
-*/        
+        capacityCache[resource] = capacity;
+        capacityCacheStamps[resource] = stamp;
     }
 
-    /**
-     * Sets a resource in the amount resource stored cache to dirty.
-     * @param resource the dirty resource.
-     */
-    private void setARStoredCacheDirty(int resource) {
-
-        // Initialize amount resource stored cache if necessary.
-        if (storedCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        storedCacheDirty.put(resource, true);
-    }
-    
-    /**
-     * Sets all of the resources in the amount resource stored cache to dirty.
-     * @param containersDirty true if containers cache should be marked as all dirty.
-     */
-    private void setAmountResourceStoredCacheAllDirty(boolean containersDirty) {
-    	setARStoredCacheAllDirty(containersDirty);
-/*    	
-        // Initialize amount resource stored cache if necessary.
-        if (amountResourceStoredCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        for (AmountResource amountResource : ResourceUtil.getInstance().getAmountResources()) {
-            setAmountResourceStoredCacheDirty(amountResource);
-
-            if (containersDirty) {
-                amountResourceContainersStoredCacheDirty.put(amountResource, true);
-            }
-        }
-
-        // Set owner unit's amount resource stored cache as dirty (if any).
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setAmountResourceStoredCacheAllDirty(true);
-            }
-        }
-*/        
-    }
-
-    /**
-     * Sets all of the resources in the amount resource stored cache to dirty.
-     * @param containersDirty true if containers cache should be marked as all dirty.
-     */
-    private void setARStoredCacheAllDirty(boolean containersDirty) {
-
-        // Initialize amount resource stored cache if necessary.
-        if (storedCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        for (int amountResource : ResourceUtil.getInstance().getARIDs()) {
-            setARStoredCacheDirty(amountResource);
-
-            if (containersDirty) {
-                containersStoredCacheDirty.put(amountResource, true);
-            }
-        }
-
-        // Set owner unit's amount resource stored cache as dirty (if any).
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setARStoredCacheAllDirty(true);
-            }
-        }
-    }
-    
     /**
      * Gets the cached stored value for an amount resource.
      * @param resource the amount resource.
      * @param allowDirty true if cache value can be dirty.
      * @return stored amount (kg) for the amount resource.
      */
-    private double getAmountResourceStoredCacheValue(final AmountResource resource, final boolean allowDirty) {
-    	return getARStoredCacheValue(resource.getID(), allowDirty);
-/*   	
-        // Initialize amount resource stored cache if necessary.
-        if (amountResourceStoredCache == null) {
-            initializeAmountResourceStoredCache();
-        }
-
-        // Update amount resource stored cache if it is dirty.
-        if (!allowDirty && isAmountResourceStoredCacheDirty(resource)) {
-            updateAmountResourceStoredCache(resource);
-        }
-
-        // 2017-03-21 Check if amountResourceStoredCache contains the resource
-        if (amountResourceStoredCache.containsKey(resource))
-        	return amountResourceStoredCache.get(resource);
-        else {
-        	amountResourceCapacityCache.put(resource, 0D);
-        	return 0;
-        }
+    private double getARStoredCacheValue(int resource, boolean allowDirty) {
 
-        //return amountResourceStoredCache.get(resource);
-*/
-    }
+        ensureARCacheSize(resource);
 
-    /**
-     * Gets the cached stored value for an amount resource.
-     * @param resource the amount resource.
-     * @param allowDirty true if cache value can be dirty.
-     * @return stored amount (kg) for the amount resource.
-     */
-    private double getARStoredCacheValue(final int resource, final boolean allowDirty) {
-
-        // Initialize amount resource stored cache if necessary.
-        if (storedCache == null) {
-            initializeARStoredCache();
-        }
+        long stamp = storedCacheStamps[resource];
+        boolean valid = (stamp >= structureModCount) && (stamp >= getARModCount(resource));
 
-        // Update amount resource stored cache if it is dirty.
-        if (!allowDirty && isARStoredCacheDirty(resource)) {
+        if (!valid && (!allowDirty || (stamp == 0L))) {
             updateARStoredCache(resource);
         }
 
-        // 2017-03-21 Check if amountResourceStoredCache contains the resource
-        if (storedCache.containsKey(resource))
-        	return storedCache.get(resource);
-        else {
-        	capacityCache.put(resource, 0D);
-        	return 0;
-        }
-
-        //return amountResourceStoredCache.get(resource);
-
-    }
-    
-    /**
-     * Update the amount resource stored cache for an amount resource.
-     * @param resource the resource to update.
-     */
-    private void updateAmountResourceStoredCache(AmountResource resource) {
-    	updateARStoredCache(resource.getID());
-/*    	
-        double stored = 0D;
-
-        if (resourceStorage != null) {
-            stored += resourceStorage.getAmountResourceStored(resource);
-        }
-
-        double containerStored = 0D;
-        // 2016-12-21 Add checking for amountResourceContainersStoredCacheDirty
-        if (amountResourceContainersStoredCacheDirty.containsKey(resource)) {
-	        if (amountResourceContainersStoredCacheDirty.get(resource)) {
-	            if (containedUnits != null) {
-	                for (Unit unit : containedUnits) {
-	                    if (unit instanceof Container) {
-	                        containerStored += unit.getInventory().getAmountResourceStored(resource, false);
-	                    }
-	                }
-	            }
-	            amountResourceContainersStoredCache.put(resource, containerStored);
-	            amountResourceContainersStoredCacheDirty.put(resource, false);
-	        }
-	        else {
-	            containerStored = amountResourceContainersStoredCache.get(resource);
-	        }
-        }
-        // 2016-12-21 Add checking amountResourceContainersStoredCache
-        else if (amountResourceContainersStoredCache.containsKey(resource)) {
-        	containerStored = amountResourceContainersStoredCache.get(resource);
-        }
-        else {
-        	//containerStored = amountResourceContainersStoredCache.get(resource);
-        }
-
-        stored += containerStored;
-
-        amountResourceStoredCache.put(resource, stored);
-        amountResourceStoredCacheDirty.put(resource, false);
-*/        
+        return storedCache[resource];
     }
 
     /**
@@ -2187,105 +1717,26 @@ implements Serializable {
      */
     private void updateARStoredCache(int resource) {
 
+        long stamp = modCount;
+
         double stored = 0D;
 
         if (resourceStorage != null) {
             stored += resourceStorage.getARStored(resource);
         }
 
-        double containerStored = 0D;
-        // 2016-12-21 Add checking for amountResourceContainersStoredCacheDirty
-        if (containersStoredCacheDirty.containsKey(resource)) {
-	        if (containersStoredCacheDirty.get(resource)) {
-	            if (containedUnits != null) {
-	                for (Unit unit : containedUnits) {
-	                    if (unit instanceof Container) {
-	                        containerStored += unit.getInventory().getARStored(resource, false);
-	                    }
-	                }
-	            }
-	            containersStoredCache.put(resource, containerStored);
-	            containersStoredCacheDirty.put(resource, false);
-	        }
-	        else {
-	            containerStored = containersStoredCache.get(resource);
-	        }
-        }
-        // 2016-12-21 Add checking amountResourceContainersStoredCache
-        else if (containersStoredCache.containsKey(resource)) {
-        	containerStored = containersStoredCache.get(resource);
-        }
-        else {
-        	//containerStored = amountResourceContainersStoredCache.get(resource);
-        }
-
-        stored += containerStored;
-
-        storedCache.put(resource, stored);
-        storedCacheDirty.put(resource, false);
-    }
-    
-    /**
-     * Initializes the all stored amount resources cache.
-     */
-    private synchronized void initializeAllStoredAmountResourcesCache() {
-    	initializeAllStoredARCache();
-        //allStoredAmountResourcesCache = new HashSet<AmountResource>();
-        //allStoredAmountResourcesCacheDirty = true;
-    }
-
-    /**
-     * Initializes the all stored amount resources cache.
-     */
-    private synchronized void initializeAllStoredARCache() {
-
-        allStoredARCache = new HashSet<Integer>();
-        allStoredAmountResourcesCacheDirty = true;
-    }
-    
-    /**
-     * Sets the all stored amount resources cache as dirty.
-     */
-    private void setAllStoredAmountResourcesCacheDirty() {
-    	setAllStoredARCacheDirty();
-    	/*
-        // Update all stored amount resources cache if it hasn't been initialized.
-        if (allStoredAmountResourcesCache == null) {
-            initializeAllStoredAmountResourcesCache();
-        }
-
-        allStoredAmountResourcesCacheDirty = true;
-
-        // Mark owner unit's all stored amount resources stored as dirty, if any.
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setAllStoredAmountResourcesCacheDirty();
+        if (containedUnits != null) {
+            for (Unit unit : containedUnits) {
+                if (unit instanceof Container) {
+                    stored += unit.getInventory().getARStored(resource, false);
+                }
             }
         }
-*/        
-    }
 
-    /**
-     * Sets the all stored amount resources cache as dirty.
-     */
-    private void setAllStoredARCacheDirty() {
-
-        // Update all stored amount resources cache if it hasn't been initialized.
-        if (allStoredARCache == null) {
-            initializeAllStoredAmountResourcesCache();
-        }
-
-        allStoredAmountResourcesCacheDirty = true;
+        storedCache[resource] = stored;
+        storedCacheStamps[resource] = stamp;
+    }
 
-        // Mark owner unit's all stored amount resources stored as dirty, if any.
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setAllStoredARCacheDirty();
-            }
-        }
-    }    
     /**
      * Gets the all stored amount resources cache.
      * @param allowDirty true if cache value can be dirty.
@@ -2297,19 +1748,6 @@ implements Serializable {
     		set.add(ResourceUtil.findAmountResource(ar));
     	}
     	return set;
-    	
-/*    	
-        // Update all stored amount resources cache if it hasn't been initialized.
-        if (allStoredAmountResourcesCache == null) {
-            initializeAllStoredAmountResourcesCache();
-        }
-
-        if (allStoredAmountResourcesCacheDirty && !allowDirty) {
-            updateAllStoredAmountResourcesCache();
-        }
-
-        return allStoredAmountResourcesCache;
-*/        
     }
 
     /**
@@ -2319,48 +1757,23 @@ implements Serializable {
      */
     private Set<Integer> getAllStoredARCache(boolean allowDirty) {
 
-        // Update all stored amount resources cache if it hasn't been initialized.
-        if (allStoredARCache == null) {
-            initializeAllStoredARCache();
-        }
+        long stamp = allStoredARCacheStamp;
+        boolean valid = (stamp >= structureModCount) && (stamp >= amountModCount);
 
-        if (allStoredAmountResourcesCacheDirty && !allowDirty) {
+        if (allStoredARCache == null || (!valid && !allowDirty)) {
             updateAllStoredARCache();
         }
 
         return allStoredARCache;
     }
-    
-    /**
-     * Update the all stored amount resources cache as well as the container's cache if any.
-     */
-    private void updateAllStoredAmountResourcesCache() {
-    	updateAllStoredARCache();
-/*    	
-        Set<AmountResource> tempAllStored = new HashSet<AmountResource>();
-
-        if (resourceStorage != null) {
-            tempAllStored.addAll(resourceStorage.getAllAmountResourcesStored(false));
-        }
-
-        if (containedUnits != null) {
-            for (Unit unit : containedUnits) {
-                if (unit instanceof Container) {
-                    tempAllStored.addAll(unit.getInventory().getAllAmountResourcesStored(false));
-                }
-            }
-        }
 
-        allStoredAmountResourcesCache = tempAllStored;
-        allStoredAmountResourcesCacheDirty = false;
-*/        
-    }
-    
     /**
-     * Update the all stored amount resources cache as well as the container's cache if any.
+     * Update the all stored amount resources cache.
      */
     private void updateAllStoredARCache() {
 
+        long stamp = modCount;
+
         Set<Integer> tempAllStored = new HashSet<Integer>();
 
         if (resourceStorage != null) {
@@ -2376,26 +1789,7 @@ implements Serializable {
         }
 
         allStoredARCache = tempAllStored;
-        allStoredAmountResourcesCacheDirty = false;
-    }
-
-    /**
-     * Sets the total amount resources stored cache as dirty.
-     */
-    private void setTotalAmountResourcesStoredCacheDirty() {
-
-        totalAmountResourcesStoredCacheDirty = true;
-
-        // Set total inventory mass cache dirty as well.
-        setTotalInventoryMassCacheDirty();
-
-        // Mark owner unit's total resources stored as dirty, if any.
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setTotalAmountResourcesStoredCacheDirty();
-            }
-        }
+        allStoredARCacheStamp = stamp;
     }
 
     /**
@@ -2405,8 +1799,11 @@ implements Serializable {
      */
     public double getTotalAmountResourcesStoredCache(boolean allowDirty) {
 
+        long stamp = totalAmountResourcesStoredCacheStamp;
+        boolean valid = (stamp >= structureModCount) && (stamp >= amountModCount);
+
         // Update total amount resources stored cache if it is dirty.
-        if (!allowDirty && totalAmountResourcesStoredCacheDirty) {
+        if (!valid && (!allowDirty || (stamp == 0L))) {
             updateTotalAmountResourcesStoredCache();
         }
 
@@ -2414,10 +1811,12 @@ implements Serializable {
     }
 
     /**
-     * Update the total amount resources stored cache as well as the container's cache if any.
+     * Update the total amount resources stored cache.
      */
     private void updateTotalAmountResourcesStoredCache() {
 
+        long stamp = modCount;
+
         double tempStored = 0D;
         if (resourceStorage != null) {
             tempStored += resourceStorage.getTotalAmountResourcesStored(false);
@@ -2430,18 +1829,7 @@ implements Serializable {
         }
 
         totalAmountResourcesStoredCache = tempStored;
-        totalAmountResourcesStoredCacheDirty = false;
-    }
-
-    /**
-     * Sets the item resource total mass cache as dirty.
-     */
-    private void setItemResourceTotalMassCacheDirty() {
-
-        itemResourceTotalMassCacheDirty = true;
-
-        // Set total inventory mass cache dirty as well.
-        setTotalInventoryMassCacheDirty();
+        totalAmountResourcesStoredCacheStamp = stamp;
     }
 
     /**
@@ -2451,8 +1839,11 @@ implements Serializable {
      */
     private double getItemResourceTotalMassCache(boolean allowDirty) {
 
+        long stamp = itemResourceTotalMassCacheStamp;
+        boolean valid = (stamp >= generalModCount);
+
         // Update item resource total mass cache if it is dirty.
-        if (itemResourceTotalMassCacheDirty && !allowDirty) {
+        if (!valid && (!allowDirty || (stamp == 0L))) {
             updateItemResourceTotalMassCache();
         }
 
@@ -2464,6 +1855,8 @@ implements Serializable {
      */
     private void updateItemResourceTotalMassCache() {
 
+        long stamp = modCount;
+
         double tempMass = 0D;
 
         if (containedItemResources != null) {
@@ -2474,18 +1867,7 @@ implements Serializable {
         }
 
         itemResourceTotalMassCache = tempMass;
-        itemResourceTotalMassCacheDirty = false;
-    }
-
-    /**
-     * Sets the unit total mass cache as dirty.
-     */
-    private void setUnitTotalMassCacheDirty() {
-
-        unitTotalMassCacheDirty = true;
-
-        // Set total inventory mass cache dirty as well.
-        setTotalInventoryMassCacheDirty();
+        itemResourceTotalMassCacheStamp = stamp;
     }
 
     /**
@@ -2495,8 +1877,11 @@ implements Serializable {
      */
     private double getUnitTotalMassCache(boolean allowDirty) {
 
+        long stamp = unitTotalMassCacheStamp;
+        boolean valid = (stamp >= structureModCount) && (stamp >= generalModCount);
+
         // Update unit total mass cache if it is dirty.
-        if (!allowDirty && unitTotalMassCacheDirty) {
+        if (!valid && (!allowDirty || (stamp == 0L))) {
             updateUnitTotalMassCache();
         }
 
@@ -2507,6 +1892,7 @@ implements Serializable {
      * Update the unit total mass cache.
      */
     private void updateUnitTotalMassCache() {
+        long stamp = modCount;
         double tempMass = 0D;
         if (containedUnits != null) {
             for (Unit unit : containedUnits) {
@@ -2514,23 +1900,7 @@ implements Serializable {
             }
         }
         unitTotalMassCache = tempMass;
-        unitTotalMassCacheDirty = false;
-    }
-
-    /**
-     * Sets the total inventory mass cache as dirty.
-     */
-    private void setTotalInventoryMassCacheDirty() {
-
-        totalInventoryMassCacheDirty = true;
-
-        // Set owner's unit total mass to dirty, if any.
-        if (owner != null) {
-            Unit container = owner.getContainerUnit();
-            if (container != null) {
-                container.getInventory().setUnitTotalMassCacheDirty();
-            }
-        }
+        unitTotalMassCacheStamp = stamp;
     }
 
     /**
@@ -2540,8 +1910,12 @@ implements Serializable {
      */
     private double getTotalInventoryMassCache(boolean allowDirty) {
 
+        long stamp = totalInventoryMassCacheStamp;
+        boolean valid = (stamp >= structureModCount) && (stamp >= amountModCount)
+                && (stamp >= generalModCount);
+
         // Update total inventory mass cache if it is dirty.
-        if (!allowDirty && totalInventoryMassCacheDirty) {
+        if (!valid && (!allowDirty || (stamp == 0L))) {
             updateTotalInventoryMassCache();
         }
 
@@ -2553,6 +1927,8 @@ implements Serializable {
      */
     private void updateTotalInventoryMassCache() {
 
+        long stamp = modCount;
+
         double tempMass = 0D;
 
         // Add total amount resource mass stored.
@@ -2562,7 +1938,7 @@ implements Serializable {
         tempMass += getGeneralStoredMass(false);
 
         totalInventoryMassCache = tempMass;
-        totalInventoryMassCacheDirty = false;
+        totalInventoryMassCacheStamp = stamp;
     }
 
     /**
@@ -2620,26 +1996,16 @@ implements Serializable {
         
         if (resourceStorage != null) resourceStorage.destroy();
         resourceStorage = null;
-        //if (amountResourceCapacityCache != null) amountResourceCapacityCache.clear();
-        //amountResourceCapacityCache = null;
-        //if (amountResourceCapacityCacheDirty != null) amountResourceCapacityCacheDirty.clear();
-        //amountResourceCapacityCacheDirty = null;
-        //if (amountResourceStoredCache != null) amountResourceStoredCache.clear();
-        //amountResourceStoredCache = null;
-        //if (amountResourceStoredCacheDirty != null) amountResourceStoredCacheDirty.clear();
-        //amountResourceStoredCacheDirty = null;
-        //if (allStoredAmountResourcesCache != null) allStoredAmountResourcesCache.clear();
-        //allStoredAmountResourcesCache = null;
+        resourceModCounts = null;
+        phaseModCounts = null;
         capacityCache = null;
-        capacityCacheDirty = null;
-        storedCacheDirty = null;
-        allStoredARCache = null;
-
-        containersCapacityCache = null;
-        containersCapacityCacheDirty = null;
+        capacityCacheStamps = null;
         storedCache = null;
-        containersStoredCache = null;
-        containersStoredCacheDirty = null;
+        storedCacheStamps = null;
+        allStoredARCache = null;
+        unitClassIndexes = null;
+        amountStats = null;
+        itemStats = null;
     }
 
     /**
@@ -2652,11 +2018,35 @@ implements Serializable {
 
         in.defaultReadObject();
 
-        // Initialize transient variables that need it.
-        allStoredAmountResourcesCacheDirty = true;
-        totalAmountResourcesStoredCacheDirty = true;
-        itemResourceTotalMassCacheDirty = true;
-        unitTotalMassCacheDirty = true;
-        totalInventoryMassCacheDirty = true;
+        // Initialize transient variables that need it. The caches are empty, so start
+        // the counts above the zero stamp of a value never computed.
+        modCount = 1L;
+        structureModCount = 1L;
+    }
+
+    /**
+     * The contained units of a class, kept up to date as units are stored and retrieved.
+     */
+    private static class UnitClassIndex {
+
+        private Class<? extends Unit> unitClass;
+        /** The units, copied on write so they can be iterated over while units move. */
+        private List<Unit> units = new CopyOnWriteArrayList<Unit>();
+        /**
+         * The units with an empty inventory, kept from the first time they are counted as
+         * units are stored, retrieved, filled and emptied; or null if never counted.
+         */
+        private volatile Set<Unit> emptyUnits;
+
+        private UnitClassIndex(Class<? extends Unit> unitClass, Collection<Unit> containedUnits) {
+            this.unitClass = unitClass;
+            if (containedUnits != null) {
+                for (Unit unit : containedUnits) {
+                    if (unitClass.isInstance(unit)) {
+                        units.add(unit);
+                    }
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
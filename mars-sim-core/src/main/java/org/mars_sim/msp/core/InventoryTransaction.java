@@ -0,0 +1,140 @@
+/**
+ * Mars Simulation Project
+ * InventoryTransaction.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.util.Arrays;
+
+import org.mars_sim.msp.core.resource.AmountResource;
+
+/**
+ * A batch of amount resources to retrieve from and store in an inventory.
+ * The inventory applies all of them or none of them (see {@link Inventory#applyTransaction(InventoryTransaction)})
+ * and fires a single resource event for the batch.
+ */
+public class InventoryTransaction {
+
+	/** The initial number of operations the arrays can hold. */
+	private static final int INITIAL_SIZE = 8;
+
+	/** The number of operations. */
+	private int size;
+	/** The resource of each operation. */
+	private int[] resources = new int[INITIAL_SIZE];
+	/** The amount (kg) of each operation, negative if retrieved. */
+	private double[] amounts = new double[INITIAL_SIZE];
+	/** True for each store operation that may use the contained units. */
+	private boolean[] useContainedUnits = new boolean[INITIAL_SIZE];
+
+	/**
+	 * Adds an amount of a resource to retrieve.
+	 * @param resource the resource.
+	 * @param amount the amount (kg).
+	 */
+	public void retrieve(AmountResource resource, double amount) {
+		retrieve(resource.getID(), amount);
+	}
+
+	/**
+	 * Adds an amount of a resource to retrieve.
+	 * @param resource the resource.
+	 * @param amount the amount (kg).
+	 */
+	public void retrieve(int resource, double amount) {
+		if (amount < 0D) {
+			throw new IllegalArgumentException("Cannot retrieve negative amount of resource: " + amount);
+		}
+		add(resource, -amount, false);
+	}
+
+	/**
+	 * Adds an amount of a resource to store.
+	 * @param resource the resource.
+	 * @param amount the amount (kg).
+	 * @param useContainedUnits true if the resource may be stored in contained units.
+	 */
+	public void store(AmountResource resource, double amount, boolean useContainedUnits) {
+		store(resource.getID(), amount, useContainedUnits);
+	}
+
+	/**
+	 * Adds an amount of a resource to store.
+	 * @param resource the resource.
+	 * @param amount the amount (kg).
+	 * @param useContainedUnits true if the resource may be stored in contained units.
+	 */
+	public void store(int resource, double amount, boolean useContainedUnits) {
+		if (amount < 0D) {
+			throw new IllegalArgumentException("Cannot store negative amount of resource: " + amount);
+		}
+		add(resource, amount, useContainedUnits);
+	}
+
+	private void add(int resource, double amount, boolean contained) {
+		if (amount == 0D) {
+			return;
+		}
+		if (size == resources.length) {
+			resources = Arrays.copyOf(resources, size * 2);
+			amounts = Arrays.copyOf(amounts, size * 2);
+			useContainedUnits = Arrays.copyOf(useContainedUnits, size * 2);
+		}
+		resources[size] = resource;
+		amounts[size] = amount;
+		useContainedUnits[size] = contained;
+		size++;
+	}
+
+	/**
+	 * Gets the number of operations.
+	 * @return number of operations.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the transaction has no operation.
+	 * @return true if empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the operations, so the transaction can be used again.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Gets the resource of an operation.
+	 * @param index the index of the operation.
+	 * @return the resource id.
+	 */
+	int getResource(int index) {
+		return resources[index];
+	}
+
+	/**
+	 * Gets the amount of an operation.
+	 * @param index the index of the operation.
+	 * @return the amount (kg), negative if retrieved.
+	 */
+	double getAmount(int index) {
+		return amounts[index];
+	}
+
+	/**
+	 * Checks if a store operation may use the contained units.
+	 * @param index the index of the operation.
+	 * @return true if the contained units may be used.
+	 */
+	boolean isUseContainedUnits(int index) {
+		return useContainedUnits[index];
+	}
+}
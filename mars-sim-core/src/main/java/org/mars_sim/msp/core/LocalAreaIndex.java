@@ -0,0 +1,205 @@
+/**
+ * Mars Simulation Project
+ * LocalAreaIndex.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+
+package org.mars_sim.msp.core;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spatial index of the local bounded objects at a coordinate location.
+ * The bounding rectangle of each object is entered in the cells of a uniform grid
+ * it overlaps, so that finding the objects near a point or an area only looks at
+ * the objects in the cells covering it.
+ */
+class LocalAreaIndex {
+
+    /** The size (meters) of a grid cell. */
+    private static final double CELL_SIZE = 20D;
+
+    /** Objects overlapping more cells than this are kept out of the grid. */
+    private static final int MAX_CELLS = 64;
+
+    /** The bounding rectangle of each object in the index. */
+    private Map<LocalBoundedObject, Rectangle2D> bounds = new IdentityHashMap<LocalBoundedObject, Rectangle2D>();
+
+    /** The objects overlapping each grid cell, by cell key. */
+    private Map<Long, List<LocalBoundedObject>> cells = new HashMap<Long, List<LocalBoundedObject>>();
+
+    /** The objects too large for the grid, checked by every query. */
+    private List<LocalBoundedObject> largeObjects = new ArrayList<LocalBoundedObject>();
+
+    /**
+     * Adds an object to the index, or enters it again if already in the index.
+     * @param object the local bounded object.
+     */
+    void add(LocalBoundedObject object) {
+        remove(object);
+
+        Rectangle2D rect = LocalAreaUtil.getBoundingRectangle(object);
+        bounds.put(object, rect);
+
+        int minX = getCell(rect.getMinX());
+        int maxX = getCell(rect.getMaxX());
+        int minY = getCell(rect.getMinY());
+        int maxY = getCell(rect.getMaxY());
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS) {
+            largeObjects.add(object);
+            return;
+        }
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                Long key = getKey(x, y);
+                List<LocalBoundedObject> cell = cells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<LocalBoundedObject>(4);
+                    cells.put(key, cell);
+                }
+                cell.add(object);
+            }
+        }
+    }
+
+    /**
+     * Removes an object from the index.
+     * @param object the local bounded object.
+     * @return true if the object was in the index.
+     */
+    boolean remove(LocalBoundedObject object) {
+        Rectangle2D rect = bounds.remove(object);
+        if (rect == null) {
+            return false;
+        }
+
+        if (largeObjects.remove(object)) {
+            return true;
+        }
+
+        int maxX = getCell(rect.getMaxX());
+        int maxY = getCell(rect.getMaxY());
+        for (int x = getCell(rect.getMinX()); x <= maxX; x++) {
+            for (int y = getCell(rect.getMinY()); y <= maxY; y++) {
+                Long key = getKey(x, y);
+                List<LocalBoundedObject> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(object);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an object is in the index.
+     * @param object the local bounded object.
+     * @return true if in the index.
+     */
+    boolean contains(LocalBoundedObject object) {
+        return bounds.containsKey(object);
+    }
+
+    /**
+     * Checks if the index has no object.
+     * @return true if empty.
+     */
+    boolean isEmpty() {
+        return bounds.isEmpty();
+    }
+
+    /**
+     * Adds all the objects in the index to a collection.
+     * @param result the collection the objects are added to.
+     */
+    void getAll(Collection<LocalBoundedObject> result) {
+        result.addAll(bounds.keySet());
+    }
+
+    /**
+     * Adds the objects whose bounding rectangle overlaps an area (edges included) to a collection.
+     * An object may be added more than once unless the collection is a set.
+     * @param minXLoc the minimum X location of the area.
+     * @param minYLoc the minimum Y location of the area.
+     * @param maxXLoc the maximum X location of the area.
+     * @param maxYLoc the maximum Y location of the area.
+     * @param result the collection the objects are added to.
+     */
+    void getOverlapping(double minXLoc, double minYLoc, double maxXLoc, double maxYLoc,
+            Collection<LocalBoundedObject> result) {
+
+        int minX = getCell(minXLoc);
+        int maxX = getCell(maxXLoc);
+        int minY = getCell(minYLoc);
+        int maxY = getCell(maxYLoc);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+            // Cheaper to go through the objects than through the cells of the area.
+            Iterator<Map.Entry<LocalBoundedObject, Rectangle2D>> i = bounds.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<LocalBoundedObject, Rectangle2D> entry = i.next();
+                if (overlaps(entry.getValue(), minXLoc, minYLoc, maxXLoc, maxYLoc)) {
+                    result.add(entry.getKey());
+                }
+            }
+            return;
+        }
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                List<LocalBoundedObject> cell = cells.get(getKey(x, y));
+                if (cell != null) {
+                    for (LocalBoundedObject object : cell) {
+                        if (overlaps(bounds.get(object), minXLoc, minYLoc, maxXLoc, maxYLoc)) {
+                            result.add(object);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (LocalBoundedObject object : largeObjects) {
+            if (overlaps(bounds.get(object), minXLoc, minYLoc, maxXLoc, maxYLoc)) {
+                result.add(object);
+            }
+        }
+    }
+
+    /**
+     * Checks if a rectangle overlaps an area, edges included.
+     */
+    private static boolean overlaps(Rectangle2D rect, double minX, double minY, double maxX, double maxY) {
+        return rect.getMinX() <= maxX && rect.getMaxX() >= minX
+                && rect.getMinY() <= maxY && rect.getMaxY() >= minY;
+    }
+
+    /**
+     * Gets the grid cell of a location along one axis.
+     * @param loc the X or Y location (meters).
+     * @return the cell.
+     */
+    private static int getCell(double loc) {
+        return (int) Math.floor(loc / CELL_SIZE);
+    }
+
+    /**
+     * Gets the key of a grid cell.
+     * @param x the cell along the X axis.
+     * @param y the cell along the Y axis.
+     * @return the key.
+     */
+    private static Long getKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
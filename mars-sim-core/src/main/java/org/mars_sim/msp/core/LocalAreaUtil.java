@@ -13,9 +13,12 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -46,6 +49,18 @@ public class LocalAreaUtil {
     /** Time stamps for obstacle area cache. */
     private static final Map<Coordinates, String> obstacleAreaTimestamps = new HashMap<Coordinates, String>();
 
+    /** Lock for the local area indexes. */
+    private static final Object indexLock = new Object();
+
+    /** The spatial indexes of vehicles, buildings and construction sites by coordinate location. Rebuilt when null. */
+    private static Map<Coordinates, LocalAreaIndex> localAreaIndexes = null;
+
+    /** The coordinate location (key of localAreaIndexes) of each indexed object. */
+    private static Map<LocalBoundedObject, Coordinates> indexedLocations = null;
+
+    /** The unit manager the local area indexes were built from. */
+    private static UnitManager indexedUnitManager = null;
+
     /**
      * Private empty constructor for utility class.
      */
@@ -193,7 +208,7 @@ public class LocalAreaUtil {
 
         boolean result = true;
 
-        Iterator<LocalBoundedObject> i = getAllLocalBoundedObjectsAtLocation(coordinates).iterator();
+        Iterator<LocalBoundedObject> i = getLocalBoundedObjectsNear(coordinates, xLoc, yLoc, xLoc, yLoc).iterator();
         while (i.hasNext() && result) {
             LocalBoundedObject object = i.next();
             if (checkLocationWithinLocalBoundedObject(xLoc, yLoc, object)) {
@@ -220,10 +235,10 @@ public class LocalAreaUtil {
 
         boolean result = true;
 
-        Iterator<LocalBoundedObject> i = getAllImmovableBoundedObjectsAtLocation(coordinates).iterator();
+        Iterator<LocalBoundedObject> i = getLocalBoundedObjectsNear(coordinates, xLoc, yLoc, xLoc, yLoc).iterator();
         while (i.hasNext() && result) {
             LocalBoundedObject object = i.next();
-            if (checkLocationWithinLocalBoundedObject(xLoc, yLoc, object)) {
+            if (isImmovable(object) && checkLocationWithinLocalBoundedObject(xLoc, yLoc, object)) {
                 //result = false;
     			//logger.info("checkImmovableCollision(): Colliding with an immovable object (a building or construction site");
     			//break;
@@ -278,10 +293,10 @@ public class LocalAreaUtil {
 
         boolean result = true;
 
-        Iterator<LocalBoundedObject> i = getAllVehicleBoundedObjectsAtLocation(coordinates).iterator();
+        Iterator<LocalBoundedObject> i = getLocalBoundedObjectsNear(coordinates, xLoc, yLoc, xLoc, yLoc).iterator();
         while (i.hasNext()) {
             LocalBoundedObject object = i.next();
-            if (checkLocationWithinLocalBoundedObject(xLoc, yLoc, object)) {
+            if ((object instanceof Vehicle) && checkLocationWithinLocalBoundedObject(xLoc, yLoc, object)) {
                 result = false;
                 if (needToMove) {
                 	Vehicle v = (Vehicle) object;
@@ -332,11 +347,11 @@ public class LocalAreaUtil {
         Set<LocalBoundedObject> result = new HashSet<LocalBoundedObject>();
 
         // Add all vehicles at location.
-        Iterator<Vehicle> i = Simulation.instance().getUnitManager().getVehicles().iterator();
+        Iterator<LocalBoundedObject> i = getAllLocalBoundedObjectsAtLocation(coordinates).iterator();
         while (i.hasNext()) {
-            Vehicle vehicle = i.next();
-            if (vehicle.getCoordinates().equals(coordinates)) {
-                result.add(vehicle);
+            LocalBoundedObject object = i.next();
+            if (object instanceof Vehicle) {
+                result.add(object);
             }
         }
 
@@ -351,10 +366,12 @@ public class LocalAreaUtil {
      */
     // 2015-12-08 Added checkImmovableBoundedOjectIntersected()
     public static boolean isImmovableBoundedOjectIntersected(LocalBoundedObject object, Coordinates coordinates) { //, boolean needToMove) {
-        Iterator<LocalBoundedObject> i = getAllImmovableBoundedObjectsAtLocation(coordinates).iterator();
+        Rectangle2D bounds = getBoundingRectangle(object);
+        Iterator<LocalBoundedObject> i = getLocalBoundedObjectsNear(coordinates, bounds.getMinX(), bounds.getMinY(),
+                bounds.getMaxX(), bounds.getMaxY()).iterator();
     	while (i.hasNext()) {
     		LocalBoundedObject immovable = i.next();
-    		if (isTwoBoundedOjectsIntersected(object, immovable)) {
+    		if (isImmovable(immovable) && isTwoBoundedOjectsIntersected(object, immovable)) {
     			//result = false;
     			//logger.info("LocalAreaUtil: Colliding with an immovable object (a building or construction site");
     			//break;
@@ -373,33 +390,31 @@ public class LocalAreaUtil {
 
         Set<LocalBoundedObject> result = new HashSet<LocalBoundedObject>();
 
-        // Check for any settlements at coordinates.
-        Iterator<Settlement> l = Simulation.instance().getUnitManager().getSettlements().iterator();
-        while (l.hasNext()) {
-            Settlement settlement = l.next();
-            if (settlement.getCoordinates().equals(coordinates)) {
-
-                // Add all buildings at settlement.
-                Iterator<Building> j = settlement.getBuildingManager().getACopyOfBuildings().iterator();
-                while (j.hasNext()) {
-                	Building b = j.next();
-                	// 2016-03-07 Added checking for getInTransport()
-                	if (!b.getInTransport())
-                		result.add(b);
-                }
-
-                // Check all construction sites at settlement.
-                Iterator<ConstructionSite> k = settlement.getConstructionManager().
-                        getConstructionSites().iterator();
-                while (k.hasNext()) {
-                    result.add(k.next());
-                }
+        // Add all buildings not in transport and construction sites at location.
+        Iterator<LocalBoundedObject> i = getAllLocalBoundedObjectsAtLocation(coordinates).iterator();
+        while (i.hasNext()) {
+            LocalBoundedObject object = i.next();
+            if (isImmovable(object)) {
+                result.add(object);
             }
         }
 
         return result;
     }
 
+    /**
+     * Checks if a local bounded object is a building not in transport or a construction site.
+     * @param object the local bounded object.
+     * @return true if immovable.
+     */
+    private static boolean isImmovable(LocalBoundedObject object) {
+        if (object instanceof Building) {
+            // 2016-03-07 Added checking for getInTransport()
+            return !((Building) object).getInTransport();
+        }
+        return object instanceof ConstructionSite;
+    }
+
     /**
      * Gets a set of local bounded objects at a given coordinate location.
      * @param coordinates the coordinate location.
@@ -409,37 +424,169 @@ public class LocalAreaUtil {
 
         Set<LocalBoundedObject> result = new HashSet<LocalBoundedObject>();
 
-        // Add all vehicles at location.
-        Iterator<Vehicle> i = Simulation.instance().getUnitManager().getVehicles().iterator();
-        while (i.hasNext()) {
-            Vehicle vehicle = i.next();
-            if (vehicle.getCoordinates().equals(coordinates)) {
-                result.add(vehicle);
+        synchronized (indexLock) {
+            LocalAreaIndex index = getLocalAreaIndexes().get(coordinates);
+            if (index != null) {
+                index.getAll(result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the local bounded objects at a coordinate location whose bounding rectangle
+     * overlaps an area, edges included.
+     * @param coordinates the coordinate location.
+     * @param minXLoc the minimum X location of the area.
+     * @param minYLoc the minimum Y location of the area.
+     * @param maxXLoc the maximum X location of the area.
+     * @param maxYLoc the maximum Y location of the area.
+     * @return set of local bounded objects (may be empty).
+     */
+    public static Set<LocalBoundedObject> getLocalBoundedObjectsNear(Coordinates coordinates,
+            double minXLoc, double minYLoc, double maxXLoc, double maxYLoc) {
+
+        Set<LocalBoundedObject> result = new HashSet<LocalBoundedObject>();
+
+        synchronized (indexLock) {
+            LocalAreaIndex index = getLocalAreaIndexes().get(coordinates);
+            if (index != null) {
+                index.getOverlapping(minXLoc, minYLoc, maxXLoc, maxYLoc, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds a vehicle, building or construction site to the local area index of its coordinate location.
+     * @param object the local bounded object.
+     * @param coordinates the coordinate location of the object.
+     */
+    public static void addLocalBoundedObject(LocalBoundedObject object, Coordinates coordinates) {
+        synchronized (indexLock) {
+            if (localAreaIndexes != null) {
+                addToIndex(object, coordinates);
+            }
+        }
+    }
+
+    /**
+     * Removes a vehicle, building or construction site from the local area indexes.
+     * @param object the local bounded object.
+     */
+    public static void removeLocalBoundedObject(LocalBoundedObject object) {
+        synchronized (indexLock) {
+            if (localAreaIndexes != null) {
+                removeFromIndex(object);
             }
         }
+    }
 
-        // Check for any settlements at coordinates.
-        Iterator<Settlement> l = Simulation.instance().getUnitManager().getSettlements().iterator();
-        while (l.hasNext()) {
-            Settlement settlement = l.next();
-            if (settlement.getCoordinates().equals(coordinates)) {
+    /**
+     * Updates the local area index after an indexed object has changed its location, facing or size.
+     * @param object the local bounded object.
+     */
+    public static void updateLocalBoundedObject(LocalBoundedObject object) {
+        synchronized (indexLock) {
+            if (localAreaIndexes != null) {
+                Coordinates location = indexedLocations.get(object);
+                if (location != null) {
+                    localAreaIndexes.get(location).add(object);
+                }
+            }
+        }
+    }
 
-                // Add all buildings at settlement.
-                Iterator<Building> j = settlement.getBuildingManager().getACopyOfBuildings().iterator();
-                while (j.hasNext()) {
-                    result.add(j.next());
+    /**
+     * Moves an indexed object to the local area index of a new coordinate location.
+     * @param object the local bounded object.
+     * @param coordinates the new coordinate location.
+     */
+    public static void moveLocalBoundedObject(LocalBoundedObject object, Coordinates coordinates) {
+        synchronized (indexLock) {
+            if (localAreaIndexes != null) {
+                Coordinates location = indexedLocations.get(object);
+                if ((location != null) && !location.equals(coordinates)) {
+                    removeFromIndex(object);
+                    addToIndex(object, coordinates);
                 }
+            }
+        }
+    }
 
-                // Check all construction sites at settlement.
-                Iterator<ConstructionSite> k = settlement.getConstructionManager().
-                        getConstructionSites().iterator();
-                while (k.hasNext()) {
-                    result.add(k.next());
+    /**
+     * Gets the local area indexes, building them from the units if needed.
+     * Must be called while holding the index lock.
+     * @return map of local area indexes by coordinate location.
+     */
+    private static Map<Coordinates, LocalAreaIndex> getLocalAreaIndexes() {
+        UnitManager unitManager = Simulation.instance().getUnitManager();
+        if ((localAreaIndexes == null) || (indexedUnitManager != unitManager)) {
+            localAreaIndexes = new HashMap<Coordinates, LocalAreaIndex>();
+            indexedLocations = new IdentityHashMap<LocalBoundedObject, Coordinates>();
+            indexedUnitManager = unitManager;
+
+            if (unitManager != null) {
+                // Add all vehicles.
+                Iterator<Vehicle> i = unitManager.getVehicles().iterator();
+                while (i.hasNext()) {
+                    Vehicle vehicle = i.next();
+                    addToIndex(vehicle, vehicle.getCoordinates());
+                }
+
+                // Add all buildings and construction sites at settlements.
+                Iterator<Settlement> l = unitManager.getSettlements().iterator();
+                while (l.hasNext()) {
+                    Settlement settlement = l.next();
+                    Iterator<Building> j = settlement.getBuildingManager().getACopyOfBuildings().iterator();
+                    while (j.hasNext()) {
+                        addToIndex(j.next(), settlement.getCoordinates());
+                    }
+
+                    List<ConstructionSite> sites = new ArrayList<ConstructionSite>(
+                            settlement.getConstructionManager().getConstructionSites());
+                    Iterator<ConstructionSite> k = sites.iterator();
+                    while (k.hasNext()) {
+                        addToIndex(k.next(), settlement.getCoordinates());
+                    }
                 }
             }
         }
+        return localAreaIndexes;
+    }
 
-        return result;
+    /**
+     * Adds an object to the local area index of a coordinate location.
+     * Must be called while holding the index lock.
+     */
+    private static void addToIndex(LocalBoundedObject object, Coordinates coordinates) {
+        removeFromIndex(object);
+
+        Coordinates location = new Coordinates(coordinates);
+        LocalAreaIndex index = localAreaIndexes.get(location);
+        if (index == null) {
+            index = new LocalAreaIndex();
+            localAreaIndexes.put(location, index);
+        }
+        index.add(object);
+        indexedLocations.put(object, location);
+    }
+
+    /**
+     * Removes an object from its local area index, and the index if left empty.
+     * Must be called while holding the index lock.
+     */
+    private static void removeFromIndex(LocalBoundedObject object) {
+        Coordinates location = indexedLocations.remove(object);
+        if (location != null) {
+            LocalAreaIndex index = localAreaIndexes.get(location);
+            index.remove(object);
+            if (index.isEmpty()) {
+                localAreaIndexes.remove(location);
+            }
+        }
     }
 
     /**
@@ -753,7 +900,17 @@ public class LocalAreaUtil {
 
         if (!cached) {
             // Add all obstacle areas at location together to create a total obstacle area.
-            Iterator<LocalBoundedObject> i = getAllLocalBoundedObjectsAtLocation(coordinates).iterator();
+            // Without caching, only the obstacles near the path are needed.
+            Set<LocalBoundedObject> obstacles = null;
+            if (useCache) {
+                obstacles = getAllLocalBoundedObjectsAtLocation(coordinates);
+            }
+            else {
+                Rectangle2D pathBounds = path.getBounds2D();
+                obstacles = getLocalBoundedObjectsNear(coordinates, pathBounds.getMinX(), pathBounds.getMinY(),
+                        pathBounds.getMaxX(), pathBounds.getMaxY());
+            }
+            Iterator<LocalBoundedObject> i = obstacles.iterator();
             while (i.hasNext()) {
                 LocalBoundedObject lbo = i.next();
                 if (lbo != object) {
@@ -795,7 +952,7 @@ public class LocalAreaUtil {
     }
 
     /**
-     * Clear the obstacle area cache and time stamps.
+     * Clear the obstacle area cache and time stamps, and the local area indexes.
      */
     public static void clearObstacleCache() {
         if (obstacleAreaCache != null) {
@@ -804,6 +961,18 @@ public class LocalAreaUtil {
         if (obstacleAreaTimestamps != null) {
             obstacleAreaTimestamps.clear();
         }
+        clearLocalAreaIndexes();
+    }
+
+    /**
+     * Clears the local area indexes, so they are built again from the units when next needed.
+     */
+    public static void clearLocalAreaIndexes() {
+        synchronized (indexLock) {
+            localAreaIndexes = null;
+            indexedLocations = null;
+            indexedUnitManager = null;
+        }
     }
 
     /**
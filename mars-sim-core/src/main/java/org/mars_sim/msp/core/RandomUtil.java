@@ -8,12 +8,19 @@ package org.mars_sim.msp.core;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 //import it.unimi.dsi.util.XorShift1024StarRandom;
 
 /**
  * The RandomUtil class is a library of various random-related
  * methods.
+ * <p>
+ * Besides the default generator, it hands out independent random streams, each derived
+ * from the master seed and a stream key (e.g. a unit identifier). A thread bound to a
+ * stream with {@link #setStream(MersenneTwisterFast)} draws all its random numbers from
+ * that stream, so units advanced on different threads get the same numbers as when
+ * advanced one after another, whatever the number of threads.
  */
 public final class RandomUtil {
 
@@ -24,6 +31,21 @@ public final class RandomUtil {
 	 * of the java.util.Random
 	 */
 	private final static MersenneTwisterFast random = new MersenneTwisterFast();
+
+	/** The number of ints seeding a random stream (the Mersenne Twister state size). */
+	private static final int STREAM_SEED_LENGTH = 624;
+
+	/** The stream key namespace of the units. */
+	private static final long UNIT_STREAMS = 1L << 32;
+	/** The stream key namespace of the named subsystems. */
+	private static final long SUBSYSTEM_STREAMS = 2L << 32;
+
+	/** The seed all the random streams are derived from. */
+	private static volatile long masterSeed = System.nanoTime();
+	/** The random streams by stream key. */
+	private static final Map<Long, MersenneTwisterFast> streams = new ConcurrentHashMap<>();
+	/** The random stream bound to each thread, or null for the default generator. */
+	private static final ThreadLocal<MersenneTwisterFast> currentStream = new ThreadLocal<>();
 	// Note 1: it is compatible with standard java.util.Randrom's method and require no mapping
 	// See intro at https://cran.r-project.org/web/packages/randtoolbox/vignettes/fullpres.pdf
 
@@ -37,13 +59,100 @@ public final class RandomUtil {
 	// private final static SFMT19937 random = new SFMT19937();
 	// private final static SFMT19937j random = new SFMT19937j();
 
+	/**
+	 * Reseeds the random generator so that a run can be reproduced.
+	 * @param seed the seed
+	 */
+	public static void setSeed(long seed) {
+		random.setSeed(seed);
+		masterSeed = seed;
+		streams.clear();
+	}
+
+	/**
+	 * Gets the random stream of a stream key, creating it on first use.
+	 * @param key the stream key.
+	 * @return the random stream.
+	 */
+	public static MersenneTwisterFast getStream(long key) {
+		MersenneTwisterFast stream = streams.get(key);
+		if (stream == null)
+			stream = streams.computeIfAbsent(key, k -> createStream(masterSeed, k));
+		return stream;
+	}
+
+	/**
+	 * Gets the random stream of a unit.
+	 * @param identifier the unit identifier.
+	 * @return the random stream.
+	 */
+	public static MersenneTwisterFast getUnitStream(int identifier) {
+		return getStream(UNIT_STREAMS | (identifier & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Gets the random stream of a subsystem.
+	 * @param name the name of the subsystem.
+	 * @return the random stream.
+	 */
+	public static MersenneTwisterFast getSubsystemStream(String name) {
+		return getStream(SUBSYSTEM_STREAMS | (name.hashCode() & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Binds a random stream to the current thread.
+	 * @param stream the random stream, or null to go back to the default generator.
+	 */
+	public static void setStream(MersenneTwisterFast stream) {
+		currentStream.set(stream);
+	}
+
+	/**
+	 * Creates a random stream. The generator state is filled from a SplitMix64 sequence
+	 * started at a mix of the master seed and the stream key, so that streams of nearby
+	 * keys are unrelated.
+	 * @param seed the master seed.
+	 * @param key the stream key.
+	 * @return the random stream.
+	 */
+	private static MersenneTwisterFast createStream(long seed, long key) {
+		long x = mix(seed ^ mix(key));
+		int[] state = new int[STREAM_SEED_LENGTH];
+		for (int i = 0; i < state.length; i += 2) {
+			x += 0x9E3779B97F4A7C15L;
+			long z = mix(x);
+			state[i] = (int) (z >>> 32);
+			if (i + 1 < state.length)
+				state[i + 1] = (int) z;
+		}
+		return new MersenneTwisterFast(state);
+	}
+
+	/**
+	 * The SplitMix64 finalizer.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Gets the random stream bound to the current thread, or the default generator.
+	 * @return the generator.
+	 */
+	private static MersenneTwisterFast random() {
+		MersenneTwisterFast stream = currentStream.get();
+		return stream == null ? random : stream;
+	}
+
 	/**
 	 * Returns true if given number is less than a random percentage.
 	 * @param randomLimit the random percentage limit
 	 * @return true if random percent is less than percentage limit
 	 */
 	public static boolean lessThanRandPercent(int randomLimit) {
-		int rand = random.nextInt(100) + 1;
+		int rand = random().nextInt(100) + 1;
 		return rand < randomLimit;
 	}
 
@@ -53,7 +162,7 @@ public final class RandomUtil {
 	 * @return true if random percent is less than percentage limit
 	 */
 	public static boolean lessThanRandPercent(double randomLimit) {
-		double rand = random.nextDouble() * 100D;
+		double rand = random().nextDouble() * 100D;
 		return rand < randomLimit;
 	}
 
@@ -65,7 +174,7 @@ public final class RandomUtil {
 	 */
 	public static int getRandomInt(int ceiling) {
 		if (ceiling < 0) throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustBePositive") + ceiling); //$NON-NLS-1$
-		return random.nextInt(ceiling + 1);
+		return random().nextInt(ceiling + 1);
 	}
 
 	/**Returns a random int number from a given base number
@@ -76,7 +185,7 @@ public final class RandomUtil {
 	 */
 	public static int getRandomInt(int base, int ceiling) {
 		if (ceiling < base) throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustGreaterBase")); //$NON-NLS-1$
-		return random.nextInt(ceiling - base + 1) + base;
+		return random().nextInt(ceiling - base + 1) + base;
 	}
 
 	/**Returns a random double number from 0
@@ -85,7 +194,7 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getRandomDouble(double ceiling) {
-		return random.nextDouble() * ceiling;
+		return random().nextDouble() * ceiling;
 	}
 
 	/**Returns a random double number under Gaussian ("normally") distributed 
@@ -94,7 +203,7 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getGaussianDouble() {
-		return random.nextGaussian();
+		return random().nextGaussian();
 	}
 	
 	/**
@@ -0,0 +1,146 @@
+/**
+ * Mars Simulation Project
+ * ResourceStatHistory.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Per-sol counters of resources by resource id, kept for a rolling window of sols.
+ * Each resource has a row of counters, one per statistic and per sol of the window,
+ * used as a ring buffer : moving to a new sol clears the counters of the sols that
+ * fall out of the window. Counting does not allocate once a resource has its row.
+ */
+class ResourceStatHistory implements Serializable {
+
+	/** default serial id. */
+	private static final long serialVersionUID = 1L;
+
+	/** The number of sols kept. */
+	static final int WINDOW_SOLS = 16;
+
+	/** The rows array length is rounded up to a multiple of this. */
+	private static final int ARRAY_GRANULARITY = 16;
+
+	/** The number of statistics counted for each resource. */
+	private int numStats;
+	/** The sol the counters are added to. */
+	private int sol = 0;
+	/** The number of sols recorded, up to the window. */
+	private int numSols = 1;
+	/** The counters of each resource by id, by statistic then by sol of the window. */
+	private double[][] rows = new double[0][];
+
+	/**
+	 * Constructor.
+	 * @param numStats the number of statistics counted for each resource.
+	 */
+	ResourceStatHistory(int numStats) {
+		this.numStats = numStats;
+	}
+
+	/**
+	 * Adds to a counter of a resource for the current sol.
+	 * @param stat the statistic.
+	 * @param resource the resource id.
+	 * @param value the value to add.
+	 */
+	void add(int stat, int resource, double value) {
+		getRow(resource)[stat * WINDOW_SOLS + getSlot(sol)] += value;
+	}
+
+	/**
+	 * Gets the sum of a counter of a resource over the last sols, including the current sol.
+	 * @param stat the statistic.
+	 * @param resource the resource id.
+	 * @param sols the number of sols.
+	 * @return the sum.
+	 */
+	double getSum(int stat, int resource, int sols) {
+		if (resource < 0 || resource >= rows.length || rows[resource] == null) {
+			return 0D;
+		}
+
+		double[] row = rows[resource];
+		int base = stat * WINDOW_SOLS;
+		double result = 0D;
+		for (int s = getNumSols(sols) - 1; s >= 0; s--) {
+			result += row[base + getSlot(sol - s)];
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of sols a sum is taken over.
+	 * @param sols the number of sols asked for.
+	 * @return the number of sols recorded, up to those asked for.
+	 */
+	int getNumSols(int sols) {
+		return Math.max(1, Math.min(sols, numSols));
+	}
+
+	/**
+	 * Moves the counting to a new sol. The counters of the sols in between and of the new
+	 * sol are cleared.
+	 * @param newSol the new sol.
+	 */
+	void setSol(int newSol) {
+		if (sol == 0) {
+			// The first sol recorded.
+			sol = newSol;
+			return;
+		}
+		if (newSol <= sol) {
+			return;
+		}
+
+		int cleared = Math.min(newSol - sol, WINDOW_SOLS);
+		for (double[] row : rows) {
+			if (row != null) {
+				for (int s = 1; s <= cleared; s++) {
+					int slot = getSlot(sol + s);
+					for (int stat = 0; stat < numStats; stat++) {
+						row[stat * WINDOW_SOLS + slot] = 0D;
+					}
+				}
+			}
+		}
+
+		numSols = Math.min(numSols + newSol - sol, WINDOW_SOLS);
+		sol = newSol;
+	}
+
+	/**
+	 * Gets the row of counters of a resource, creating it if needed.
+	 * @param resource the resource id.
+	 * @return the row.
+	 */
+	private double[] getRow(int resource) {
+		if (resource < 0) {
+			throw new IllegalArgumentException("Invalid resource id: " + resource);
+		}
+
+		if (resource >= rows.length) {
+			rows = Arrays.copyOf(rows, (resource / ARRAY_GRANULARITY + 1) * ARRAY_GRANULARITY);
+		}
+		double[] row = rows[resource];
+		if (row == null) {
+			row = new double[numStats * WINDOW_SOLS];
+			rows[resource] = row;
+		}
+		return row;
+	}
+
+	/**
+	 * Gets the slot of a sol in the window.
+	 * @param sol the sol.
+	 * @return the slot.
+	 */
+	private static int getSlot(int sol) {
+		return Math.floorMod(sol, WINDOW_SOLS);
+	}
+}
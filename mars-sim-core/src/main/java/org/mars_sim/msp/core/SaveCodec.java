@@ -0,0 +1,58 @@
+/**
+ * Mars Simulation Project
+ * SaveCodec.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+/**
+ * The compression formats of a save file.
+ */
+public enum SaveCodec {
+
+	/** A single XZ stream, as written by earlier versions. Compressed on one core. */
+	XZ(null),
+
+	/** Deflate at its fastest level on 1 MB blocks, for frequent autosaves. */
+	FAST(BlockCodec.DEFLATE),
+
+	/** LZMA2 on 8 MB blocks, for archival saves. */
+	HIGH(BlockCodec.LZMA2);
+
+	/** The codec of the blocks, or null if a single stream. */
+	private BlockCodec blockCodec;
+
+	private SaveCodec(BlockCodec blockCodec) {
+		this.blockCodec = blockCodec;
+	}
+
+	/**
+	 * Checks if the save file is cut into independent blocks.
+	 * @return true if compressed in blocks.
+	 */
+	public boolean isBlockCodec() {
+		return blockCodec != null;
+	}
+
+	/**
+	 * Gets the codec of the blocks.
+	 * @return the block codec, or null if a single stream.
+	 */
+	public BlockCodec getBlockCodec() {
+		return blockCodec;
+	}
+
+	/**
+	 * Gets the save format compressing its blocks with a block codec.
+	 * @param blockCodec the block codec.
+	 * @return the save format.
+	 */
+	public static SaveCodec valueOf(BlockCodec blockCodec) {
+		for (SaveCodec c : values()) {
+			if (c.blockCodec == blockCodec)
+				return c;
+		}
+		throw new IllegalArgumentException("No save format for " + blockCodec);
+	}
+}
@@ -0,0 +1,408 @@
+/**
+ * Mars Simulation Project
+ * SaveFile.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * The SaveFile class writes and reads the compressed save files.
+ * <p>
+ * A save file written with a block codec starts with a header giving the codec, followed
+ * by the serialized simulation cut into independent blocks, each with its uncompressed and
+ * compressed length. The blocks are compressed and decompressed in parallel. A save file
+ * streamed without knowing its length in advance (see {@link SaveOutputStream}) has a
+ * block count of {@link #STREAMED_BLOCKS} and ends with an empty block instead. A save file
+ * without the header is a single XZ stream, as written by earlier versions.
+ */
+public final class SaveFile {
+
+	/** The magic bytes starting a block save file. */
+	private static final byte[] MAGIC = { 'M', 'S', 'P', 'S', 'A', 'V', 'E', '\n' };
+	/** The version of the block format. */
+	private static final int VERSION = 1;
+	/** The XZ preset of the single stream codec. */
+	private static final int XZ_PRESET = 6;
+	/** The memory limit (in KB) of the XZ decompressor. */
+	private static final int XZ_MEMORY_LIMIT = 256 * 1024;
+	/** The buffer size of the file streams. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** The block count of a streamed block save file, which ends with an empty block. */
+	private static final int STREAMED_BLOCKS = -1;
+	/** The number of blocks being compressed at once while streaming. */
+	private static final int MAX_PENDING_BLOCKS = 2 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Private constructor for utility class.
+	 */
+	private SaveFile() {
+	}
+
+	/**
+	 * A buffer holding a serialized simulation, giving access to its bytes without a copy.
+	 */
+	public static class SnapshotBuffer extends ByteArrayOutputStream {
+
+		public SnapshotBuffer(int size) {
+			super(size);
+		}
+
+		/**
+		 * Gets the internal buffer. Only the first {@link #size()} bytes are valid.
+		 * @return buffer
+		 */
+		public byte[] getBuffer() {
+			return buf;
+		}
+	}
+
+	/**
+	 * Compresses a serialized simulation.
+	 * @param snapshot the serialized simulation.
+	 * @param codec the codec.
+	 * @param out the stream to write to.
+	 * @throws IOException if error writing.
+	 */
+	public static void write(SnapshotBuffer snapshot, SaveCodec codec, OutputStream out) throws IOException {
+		if (!codec.isBlockCodec()) {
+			XZOutputStream xzout = new XZOutputStream(out, new LZMA2Options(XZ_PRESET));
+			snapshot.writeTo(xzout);
+			xzout.finish();
+			return;
+		}
+
+		BlockCodec blockCodec = codec.getBlockCodec();
+		byte[] data = snapshot.getBuffer();
+		int length = snapshot.size();
+		int blockSize = blockCodec.getBlockSize();
+		int blocks = (length + blockSize - 1) / blockSize;
+
+		// Compress all the blocks in parallel and write them in order as they complete
+		List<Future<byte[]>> tasks = new ArrayList<>(blocks);
+		for (int i = 0; i < blocks; i++) {
+			final int offset = i * blockSize;
+			final int size = Math.min(blockSize, length - offset);
+			tasks.add(ForkJoinPool.commonPool().submit(() -> blockCodec.compressBlock(data, offset, size)));
+		}
+
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.write(MAGIC);
+		dos.writeByte(VERSION);
+		dos.writeByte(blockCodec.getId());
+		dos.writeInt(blocks);
+		for (int i = 0; i < blocks; i++) {
+			byte[] compressed = getResult(tasks.get(i));
+			tasks.set(i, null);
+			dos.writeInt(Math.min(blockSize, length - i * blockSize));
+			dos.writeInt(compressed.length);
+			dos.write(compressed);
+		}
+		dos.flush();
+	}
+
+	/**
+	 * A stream compressing the serialized simulation straight into a save file, without
+	 * holding it in memory. With a block codec, each block is compressed in parallel as soon
+	 * as it is full, and at most {@link #MAX_PENDING_BLOCKS} blocks are held at once.
+	 * Closing the stream finishes the save file and closes the underlying stream.
+	 */
+	public static class SaveOutputStream extends OutputStream {
+
+		private OutputStream out;
+		private XZOutputStream xzout;
+		private BlockCodec codec;
+		private DataOutputStream dos;
+		private byte[] block;
+		private int pos;
+		private Deque<Future<byte[]>> tasks = new ArrayDeque<>();
+		private Deque<Integer> sizes = new ArrayDeque<>();
+		private long size;
+		private boolean closed;
+
+		/**
+		 * Constructor.
+		 * @param codec the codec.
+		 * @param out the stream to write to.
+		 * @throws IOException if error writing.
+		 */
+		public SaveOutputStream(SaveCodec codec, OutputStream out) throws IOException {
+			this.out = out;
+			if (!codec.isBlockCodec()) {
+				xzout = new XZOutputStream(out, new LZMA2Options(XZ_PRESET));
+				return;
+			}
+
+			this.codec = codec.getBlockCodec();
+			block = new byte[this.codec.getBlockSize()];
+			dos = new DataOutputStream(out);
+			dos.write(MAGIC);
+			dos.writeByte(VERSION);
+			dos.writeByte(this.codec.getId());
+			dos.writeInt(STREAMED_BLOCKS);
+		}
+
+		/**
+		 * Gets the number of uncompressed bytes written so far.
+		 * @return bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (xzout != null) {
+				xzout.write(b);
+			}
+			else {
+				block[pos++] = (byte) b;
+				if (pos == block.length)
+					submitBlock();
+			}
+			size++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			size += len;
+			if (xzout != null) {
+				xzout.write(b, off, len);
+				return;
+			}
+
+			while (len > 0) {
+				int n = Math.min(len, block.length - pos);
+				System.arraycopy(b, off, block, pos, n);
+				pos += n;
+				off += n;
+				len -= n;
+				if (pos == block.length)
+					submitBlock();
+			}
+		}
+
+		/**
+		 * Hands the current block to a compressing task, writing the oldest blocks first
+		 * if too many are pending.
+		 */
+		private void submitBlock() throws IOException {
+			while (tasks.size() >= MAX_PENDING_BLOCKS) {
+				writeBlock();
+			}
+			final byte[] data = block;
+			final int length = pos;
+			tasks.add(ForkJoinPool.commonPool().submit(() -> codec.compressBlock(data, 0, length)));
+			sizes.add(length);
+			block = new byte[block.length];
+			pos = 0;
+		}
+
+		/**
+		 * Writes the oldest pending block once compressed.
+		 */
+		private void writeBlock() throws IOException {
+			byte[] compressed = getResult(tasks.remove());
+			dos.writeInt(sizes.remove());
+			dos.writeInt(compressed.length);
+			dos.write(compressed);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+			try {
+				if (xzout != null) {
+					xzout.finish();
+				}
+				else {
+					if (pos > 0)
+						submitBlock();
+					while (!tasks.isEmpty()) {
+						writeBlock();
+					}
+					// The empty block ending a streamed save file
+					dos.writeInt(0);
+					dos.writeInt(0);
+					dos.flush();
+				}
+			} finally {
+				for (Future<byte[]> f : tasks) {
+					f.cancel(false);
+				}
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Opens a save file for reading the serialized simulation.
+	 * @param file the save file.
+	 * @return the uncompressed stream.
+	 * @throws IOException if error reading.
+	 */
+	public static InputStream open(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try {
+			if (!readMagic(in))
+				return new XZInputStream(in, XZ_MEMORY_LIMIT);
+
+			DataInputStream dis = new DataInputStream(in);
+			int version = dis.readUnsignedByte();
+			if (version != VERSION)
+				throw new IOException("Unsupported save file version " + version);
+			BlockCodec codec = BlockCodec.getCodec(dis.readUnsignedByte());
+			return new BlockInputStream(dis, codec, dis.readInt());
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the codec of a save file.
+	 * @param file the save file.
+	 * @return the codec.
+	 * @throws IOException if error reading.
+	 */
+	public static SaveCodec getCodec(File file) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			if (!readMagic(in))
+				return SaveCodec.XZ;
+			in.read();
+			return SaveCodec.valueOf(BlockCodec.getCodec(in.read()));
+		}
+	}
+
+	/**
+	 * Reads the magic bytes, or resets the stream if they are not found.
+	 * @param in the stream, supporting mark.
+	 * @return true if a block save file.
+	 */
+	private static boolean readMagic(InputStream in) throws IOException {
+		in.mark(MAGIC.length);
+		byte[] magic = new byte[MAGIC.length];
+		int n = 0;
+		while (n < magic.length) {
+			int read = in.read(magic, n, magic.length - n);
+			if (read < 0)
+				break;
+			n += read;
+		}
+		if (n == magic.length && Arrays.equals(magic, MAGIC))
+			return true;
+		in.reset();
+		return false;
+	}
+
+	private static <T> T getResult(Future<T> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing the save file", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Reads the blocks of a save file. Every block is handed to a decompressing task as soon
+	 * as it is read, and the blocks are returned in order as the tasks complete.
+	 */
+	private static class BlockInputStream extends InputStream {
+
+		private DataInputStream in;
+		private List<Future<byte[]>> tasks;
+		private int next;
+		private byte[] block = new byte[0];
+		private int pos;
+
+		private BlockInputStream(DataInputStream in, BlockCodec codec, int blocks) throws IOException {
+			this.in = in;
+			boolean streamed = blocks == STREAMED_BLOCKS;
+			tasks = new ArrayList<>(streamed ? 16 : blocks);
+			for (int i = 0; streamed || i < blocks; i++) {
+				final byte[] uncompressed = new byte[in.readInt()];
+				final byte[] compressed = new byte[in.readInt()];
+				if (streamed && uncompressed.length == 0)
+					break;
+				in.readFully(compressed);
+				tasks.add(ForkJoinPool.commonPool().submit(() -> {
+					codec.decompressBlock(compressed, uncompressed);
+					return uncompressed;
+				}));
+			}
+		}
+
+		/**
+		 * Moves to the next block with data.
+		 * @return false at the end of the file.
+		 */
+		private boolean nextBlock() throws IOException {
+			while (pos >= block.length) {
+				if (next >= tasks.size())
+					return false;
+				block = getResult(tasks.get(next));
+				// Let the block be collected once read
+				tasks.set(next++, null);
+				pos = 0;
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!nextBlock())
+				return -1;
+			return block[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!nextBlock())
+				return -1;
+			int n = Math.min(len, block.length - pos);
+			System.arraycopy(block, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (Future<byte[]> f : tasks) {
+				if (f != null)
+					f.cancel(false);
+			}
+			in.close();
+		}
+	}
+}
@@ -6,18 +6,24 @@
  */
 package org.mars_sim.msp.core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,10 +40,8 @@ import org.mars_sim.msp.core.structure.goods.CreditManager;
 import org.mars_sim.msp.core.time.ClockListener;
 import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.core.time.SystemDateTime;
+import org.mars_sim.msp.core.time.TickProfiler;
 import org.mars_sim.msp.core.time.UpTimer;
-import org.tukaani.xz.LZMA2Options;
-import org.tukaani.xz.XZInputStream;
-import org.tukaani.xz.XZOutputStream;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -88,6 +92,12 @@ implements ClockListener, Serializable {
     private final static String DEFAULT_FILE = Msg.getString("Simulation.defaultFile"); //$NON-NLS-1$
     /** Default temp filename. */
     private final static String TEMP_FILE = Msg.getString("Simulation.tempFile"); //$NON-NLS-1$
+    /** The extension of a save file being written. */
+    private final static String PARTIAL_EXTENSION = ".part";
+    /** The maximum time (in milliseconds) to wait for the clock listeners before taking a snapshot. */
+    private final static long LISTENER_TIMEOUT = 10_000L;
+    /** The buffer size of the save and load streams. */
+    private final static int BUFFER_SIZE = 64 * 1024;
     /** Default save filename extension. */
     private final static String DEFAULT_EXTENSION = Msg.getString("Simulation.defaultFile.extension"); //$NON-NLS-1$
 
@@ -114,6 +124,16 @@ implements ClockListener, Serializable {
 
 	public final static String MARS_SIM_DIRECTORY = ".mars-sim";
 
+    /** The file the tick profile is written to at shutdown. */
+    public final static String TICK_PROFILE_FILE =
+            System.getProperty("user.home") + //$NON-NLS-1$
+            File.separator +
+            MARS_SIM_DIRECTORY +
+            File.separator +
+            "logs" + //$NON-NLS-1$
+            File.separator +
+            "tick_profile.txt"; //$NON-NLS-1$
+
     public final static String title = Msg.getString(
             "Simulation.title", VERSION
             + " - Build " + BUILD
@@ -147,6 +167,20 @@ implements ClockListener, Serializable {
     private String loadBuild;// = "unknown";
 
     private String lastSaveStr = null;
+    /** The uncompressed bytes per second of the last save. */
+    private transient volatile double lastSaveBytesPerSecond;
+    /** The size of the last snapshot in bytes. */
+    private transient int lastSnapshotSize;
+    /** The save being written in the background. */
+    private transient volatile Future<?> backgroundSave;
+    /** The thread writing the saves in the background. */
+    private transient ExecutorService saveExecutor;
+    /** The compression codec of the saves. */
+    private transient SaveCodec saveCodec = SaveCodec.HIGH;
+    /** The compression codec of the autosaves. */
+    private transient SaveCodec autosaveCodec = SaveCodec.FAST;
+    /** The time (in milliseconds) the simulation was paused during the last save. */
+    private transient long lastSavePauseTime;
     // Note: Transient data members (aren't stored in save file)
     // 2016-07-26 Added transient to avoid serialization error
 	private transient Timeline autosaveTimer;
@@ -156,6 +190,12 @@ implements ClockListener, Serializable {
     //private transient ThreadPoolExecutor clockScheduler;
     private transient ExecutorService clockExecutor;
     private transient ExecutorService simExecutor;
+    /** Timings of each part of the clock pulse. */
+    private transient volatile TickProfiler tickProfiler;
+    /** The lock the tick profiler is created under, apart from the simulation monitor held by saveSimulation. */
+    private static final Object tickProfilerLock = new Object();
+    /** True once the shutdown hook dumping the current tick profiler is registered. */
+    private static boolean tickProfilerHookAdded = false;
 
     // Intransient data members (stored in save file)
     /** Planet Mars. */
@@ -414,6 +454,8 @@ implements ClockListener, Serializable {
 
         Simulation sim = instance();
         sim.stop();
+        // The file to load may still be written in the background
+        sim.awaitBackgroundSave();
 
         // Use default file path if file is null.
         if (f == null) {
@@ -472,35 +514,13 @@ implements ClockListener, Serializable {
    	// 2016-03-22 Replace gzip with xz compression (based on LZMA2)
     private synchronized void readFromFile(File file) throws ClassNotFoundException, IOException {
     	//logger.info("Simulation : running readFromFile()");
-        byte[] buf = new byte[8192];
         ObjectInputStream ois = null;
-        //FileInputStream in = null;
-        FileInputStream in = null;
-        //boolean no_go = false;
+        long start = System.currentTimeMillis();
 
         try {
-        	//System.out.println("Simulation : inside try. starting decompressing");
-            //in = new FileInputStream(file);
-            in = new FileInputStream(file);
-
-            // Since XZInputStream does some buffering internally
-            // anyway, BufferedInputStream doesn't seem to be
-            // needed here to improve performance.
-            // in = new BufferedInputStream(in);
-        	XZInputStream xzin = new XZInputStream(in, 256 * 1024);
-            // limit memory usage to 256 MB
-
-            // define a temporary uncompressed file
-            File uncompressed = new File(DEFAULT_DIR, TEMP_FILE);
-            // Decompress a xz compressed file
-            //FileOutputStream fos = new FileOutputStream(uncompressed);
-            FileOutputStream fos = new FileOutputStream(uncompressed);
-
-            int size;
-            while ((size = xzin.read(buf)) != -1)
-            	fos.write(buf, 0, size);
-
-            ois = new ObjectInputStream(new FileInputStream(uncompressed));
+            // Decompress the objects straight from the file, without an intermediate file.
+            // The codec is detected from the file header.
+            ois = new ObjectInputStream(new BufferedInputStream(SaveFile.open(file), BUFFER_SIZE));
 
             // Load intransient objects.
             SimulationConfig.setInstance((SimulationConfig) ois.readObject());
@@ -518,14 +538,12 @@ implements ClockListener, Serializable {
             masterClock = (MasterClock) ois.readObject();
             //eventManager = (HistoricalEventManager) ois.readObject();
 
-	        if (ois != null) {
-	            ois.close();
-	        }
-            // Close FileInputStream (directly or indirectly via XZInputStream, it doesn't matter).
-            in.close();
-            xzin.close();
-            fos.close();
-            uncompressed.delete();
+            // Closing the ObjectInputStream closes the decompressing stream and the FileInputStream
+            ois.close();
+
+            long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+            logger.info("Loaded " + file + " in " + Math.round(elapsed / 10D) / 100D + " s at "
+                    + Math.round(file.length() / (double) elapsed) + " KB/s (compressed)");
 
         	// Compute the size of the saved sim
 			fileSize = (file.length() / 1000D);
@@ -588,12 +606,216 @@ implements ClockListener, Serializable {
 	}
 
 
+    /**
+     * Serializes the simulation into memory. Must be called at a pulse boundary
+     * with the clock paused so that the snapshot is consistent.
+     * @return the uncompressed snapshot.
+     * @throws IOException if error serializing.
+     */
+    private SaveFile.SnapshotBuffer takeSnapshot() throws IOException {
+        long start = System.currentTimeMillis();
+        // Start from the size of the last snapshot to avoid growing the buffer
+        SaveFile.SnapshotBuffer snapshot = new SaveFile.SnapshotBuffer(Math.max(BUFFER_SIZE, lastSnapshotSize));
+
+        try (ObjectOutputStream oos = new ObjectOutputStream(snapshot)) {
+            writeObjects(oos);
+        }
+
+        lastSnapshotSize = snapshot.size();
+        logger.info("Took a snapshot of " + Math.round(snapshot.size() / 1000D) + " KB in "
+                + Math.round((System.currentTimeMillis() - start) / 10D) / 100D + " s");
+        return snapshot;
+    }
+
+    /**
+     * Writes the in-transient objects of the simulation.
+     * @param oos the stream to write to.
+     * @throws IOException if error serializing.
+     */
+    private void writeObjects(ObjectOutputStream oos) throws IOException {
+        oos.writeObject(SimulationConfig.instance());
+        oos.writeObject(ResourceUtil.getInstance());
+        //oos.writeObject(eventManager);
+        oos.writeObject(malfunctionFactory);
+        oos.writeObject(mars);
+        oos.writeObject(missionManager);
+        oos.writeObject(relationshipManager);
+        oos.writeObject(medicalManager);
+        oos.writeObject(scientificStudyManager);
+        oos.writeObject(transportManager);
+        oos.writeObject(creditManager);
+        oos.writeObject(unitManager);
+        oos.writeObject(masterClock);
+    }
+
+    /**
+     * Serializes the simulation straight through the compressor into the save file,
+     * without holding it in memory. Must be called at a pulse boundary with the clock
+     * paused. The save file is first written to a partial file next to it, so a failed
+     * save does not destroy the previous one.
+     * @param file the file to be saved to.
+     * @param codec the compression codec.
+     * @throws IOException if error writing to file.
+     */
+    private void writeSimulation(File file, SaveCodec codec) throws IOException {
+        // Remove the uncompressed file left behind by earlier versions
+        File uncompressed = new File(DEFAULT_DIR, TEMP_FILE);
+        if (uncompressed.exists())
+            uncompressed.delete();
+
+        long start = System.currentTimeMillis();
+        File partial = new File(file.getParentFile(), file.getName() + PARTIAL_EXTENSION);
+
+        SaveFile.SaveOutputStream out = new SaveFile.SaveOutputStream(codec,
+                new BufferedOutputStream(new FileOutputStream(partial), BUFFER_SIZE));
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(out, BUFFER_SIZE))) {
+            writeObjects(oos);
+        }
+
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+        lastSaveBytesPerSecond = out.getSize() * 1000D / elapsed;
+        logger.info("Saved " + Math.round(out.getSize() / 1000D) + " KB (" + Math.round(file.length() / 1000D)
+                + " KB compressed with " + codec + ") to " + file + " in " + Math.round(elapsed / 10D) / 100D + " s at "
+                + Math.round(lastSaveBytesPerSecond / 1000D) + " KB/s");
+    }
+
+    /**
+     * Compresses a snapshot into the save file. The snapshot is first written to a
+     * partial file next to it, so a failed save does not destroy the previous one.
+     * @param snapshot the uncompressed snapshot.
+     * @param file the file to be saved to.
+     * @param codec the compression codec.
+     * @throws IOException if error writing to file.
+     */
+    private void writeSnapshot(SaveFile.SnapshotBuffer snapshot, File file, SaveCodec codec) throws IOException {
+        // Remove the uncompressed file left behind by earlier versions
+        File uncompressed = new File(DEFAULT_DIR, TEMP_FILE);
+        if (uncompressed.exists())
+            uncompressed.delete();
+
+        long start = System.currentTimeMillis();
+        File partial = new File(file.getParentFile(), file.getName() + PARTIAL_EXTENSION);
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(partial), BUFFER_SIZE)) {
+            SaveFile.write(snapshot, codec, out);
+        }
+
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+        lastSaveBytesPerSecond = snapshot.size() * 1000D / elapsed;
+        logger.info("Saved " + Math.round(snapshot.size() / 1000D) + " KB (" + Math.round(file.length() / 1000D)
+                + " KB compressed with " + codec + ") to " + file + " in " + Math.round(elapsed / 10D) / 100D + " s at "
+                + Math.round(lastSaveBytesPerSecond / 1000D) + " KB/s");
+    }
+
+    /**
+     * Compresses a snapshot into the save file on the save thread.
+     * @param snapshot the uncompressed snapshot.
+     * @param file the file to be saved to.
+     */
+    private void writeSnapshotInBackground(final SaveFile.SnapshotBuffer snapshot, final File file) {
+        if (saveExecutor == null) {
+            saveExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "save-thread");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+
+        backgroundSave = saveExecutor.submit(() -> {
+            try {
+                writeSnapshot(snapshot, file, autosaveCodec);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
+            }
+        });
+    }
+
+    /**
+     * Waits until the save being written in the background, if any, is complete.
+     */
+    public void awaitBackgroundSave() {
+        Future<?> f = backgroundSave;
+        if (f == null)
+            return;
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, Msg.getString("Simulation.log.saveError"), e.getCause()); //$NON-NLS-1$
+        }
+        backgroundSave = null;
+    }
+
+    /**
+     * Checks if a type of save is written in the background after the simulation resumes.
+     * @param type the type of save.
+     * @return true if in the background.
+     */
+    private static boolean isBackgroundSave(int type) {
+        return type == AUTOSAVE || type == AUTOSAVE_AS_DEFAULT;
+    }
+
+    /**
+     * Sets the codec of the saves.
+     * @param codec the compression codec.
+     */
+    public void setSaveCodec(SaveCodec codec) {
+        saveCodec = codec;
+    }
+
+    /**
+     * Gets the codec of the saves.
+     * @return the compression codec.
+     */
+    public SaveCodec getSaveCodec() {
+        return saveCodec;
+    }
+
+    /**
+     * Sets the codec of the autosaves.
+     * @param codec the compression codec.
+     */
+    public void setAutosaveCodec(SaveCodec codec) {
+        autosaveCodec = codec;
+    }
+
+    /**
+     * Gets the codec of the autosaves.
+     * @return the compression codec.
+     */
+    public SaveCodec getAutosaveCodec() {
+        return autosaveCodec;
+    }
+
+    /**
+     * Gets the speed of the last save.
+     * @return uncompressed bytes per second.
+     */
+    public double getLastSaveBytesPerSecond() {
+        return lastSaveBytesPerSecond;
+    }
+
+    /**
+     * Gets the time the simulation was paused during the last save.
+     * @return time in milliseconds.
+     */
+    public long getLastSavePauseTime() {
+        return lastSavePauseTime;
+    }
+
     /**
      * Saves a simulation instance to a save file.
      * @param file the file to be saved to.
      */
     public synchronized void saveSimulation(int type, File file) throws IOException {
         logger.config(Msg.getString("Simulation.log.saveSimTo") + file); //$NON-NLS-1$
+        long pauseStart = System.currentTimeMillis();
     	//System.out.println("file is " + file);
 
     	// 2015-12-18 Check if it was previously on pause
@@ -650,89 +872,35 @@ implements ClockListener, Serializable {
             file.getParentFile().mkdirs();
         }
 
-        ObjectOutputStream oos = null;
-        FileInputStream fis = null;
-        FileOutputStream fos = new FileOutputStream(file);
-        XZOutputStream xzout = null;
-        File uncompressed = null;
+        // A save still being written holds the previous snapshot in memory and may target the same file
+        awaitBackgroundSave();
 
+        SaveFile.SnapshotBuffer snapshot = null;
         try {
+            // Serialize the simulation at a pulse boundary
+            if (!masterClock.awaitListeners(LISTENER_TIMEOUT))
+                logger.warning("Saving while the clock listeners are still busy");
 
-            // 2016-03-22 Replace gzip with xz compression (based on LZMA2)
-            // See (1) http://stackoverflow.com/questions/5481487/how-to-use-lzma-sdk-to-compress-decompress-in-java
-            //     (2) http://tukaani.org/xz/xz-javadoc/
-
-            // STEP 1: combine all objects into one single uncompressed file, namely "default"
-            uncompressed = new File(DEFAULT_DIR, TEMP_FILE);
-
-            // if the default save directory does not exist, create one now
-            if (!uncompressed.getParentFile().exists()) {
-            	uncompressed.getParentFile().mkdirs();
-            }
-
-        	oos = new ObjectOutputStream(new FileOutputStream(uncompressed));
-
-            // Store the in-transient objects.
-            oos.writeObject(SimulationConfig.instance());
-    		oos.writeObject(ResourceUtil.getInstance());
-            //oos.writeObject(eventManager);
-            oos.writeObject(malfunctionFactory);
-            oos.writeObject(mars);
-            oos.writeObject(missionManager);
-            oos.writeObject(relationshipManager);
-            oos.writeObject(medicalManager);
-            oos.writeObject(scientificStudyManager);
-            oos.writeObject(transportManager);
-            oos.writeObject(creditManager);
-            oos.writeObject(unitManager);
-            oos.writeObject(masterClock);
-
-            oos.flush();
-            //oos.close();
-
-            // STEP 2: convert the uncompressed file into a fis
-            fis = new FileInputStream(uncompressed);
-			LZMA2Options options = new LZMA2Options();
-			// Set to 6. For mid sized archives (>8mb), 7 works better.
-			options.setPreset(6);
-			xzout = new XZOutputStream(fos, options);
-
-			// STEP 3: set up buffer and create outxz and save as a .sim file
-			byte[] buf = new byte[8192];
-			int size;
-			while ((size = fis.read(buf)) != -1)
-			   xzout.write(buf, 0, size);
-
-			xzout.finish();
-
+            // Only an autosave is held in memory to be written in the background
+            if (isBackgroundSave(type))
+                snapshot = takeSnapshot();
+            else
+                writeSimulation(file, saveCodec);
 
         } catch (Exception e){
             logger.log(Level.SEVERE, Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
             e.printStackTrace();
-            //throw e;
-
-        //} finally {
-        //    if (oos != null) {
-        //        oos.close();
-        //    }
-        //}
+            snapshot = null;
         }
 
-        //uncompressed.delete(); // cannot be deleted;
-		uncompressed = null;
-        //fis.close(); // fis closed automatically
-        //fos.close(); // fos closed automatically
-        if (oos != null)
-            oos.close();
-        
-        if (xzout != null)
-        	xzout.close();
-
         sim.proceed();
 
         // 2017-02-03 Added justSaved
      	justSaved = true;
 
+     	lastSavePauseTime = System.currentTimeMillis() - pauseStart;
+     	logger.info("The simulation was paused for " + Math.round(lastSavePauseTime / 10D) / 100D + " s while saving");
+
 		// 2015-12-18 Check if it was previously on pause
 		boolean now = masterClock.isPaused();
 		if (!previous) {
@@ -746,6 +914,10 @@ implements ClockListener, Serializable {
 	    		//System.out.println("previous is true. now is false. Unpaused sim");
 			}
 		}
+
+		// Compress and write the snapshot while the simulation runs
+		if (snapshot != null)
+			writeSnapshotInBackground(snapshot, file);
     }
 
 
@@ -812,6 +984,11 @@ implements ClockListener, Serializable {
 
         if (ut != null && !masterClock.isPaused()) {
 
+        	TickProfiler profiler = getTickProfiler();
+        	long startBytes = profiler.getAllocatedBytes();
+        	long start = profiler.startPulse(masterClock.getPulseBacklog());
+        	long t = start;
+
         	ut.updateTime();
 
             if (debug) {
@@ -823,7 +1000,10 @@ implements ClockListener, Serializable {
                                 )
                         );
             }
+            // Each subsystem draws from its own random stream so other threads do not disturb a seeded run
+            RandomUtil.setStream(RandomUtil.getSubsystemStream(TickProfiler.MARS));
             mars.timePassing(time);
+            t = profiler.record(TickProfiler.MARS, t);
             ut.updateTime();
 
             if (debug) {
@@ -835,7 +1015,9 @@ implements ClockListener, Serializable {
                                 )
                         );
             }
+            RandomUtil.setStream(RandomUtil.getSubsystemStream(TickProfiler.MISSION_MANAGER));
             missionManager.timePassing(time);
+            t = profiler.record(TickProfiler.MISSION_MANAGER, t);
             ut.updateTime();
 
             if (debug) {
@@ -848,6 +1030,7 @@ implements ClockListener, Serializable {
                         );
             }
             unitManager.timePassing(time);
+            t = profiler.record(TickProfiler.UNIT_MANAGER, t);
             ut.updateTime();
 
             if (debug) {
@@ -859,7 +1042,9 @@ implements ClockListener, Serializable {
                                 )
                         );
             }
+            RandomUtil.setStream(RandomUtil.getSubsystemStream(TickProfiler.SCIENTIFIC_STUDY_MANAGER));
             scientificStudyManager.updateStudies();
+            t = profiler.record(TickProfiler.SCIENTIFIC_STUDY_MANAGER, t);
             ut.updateTime();
 
 
@@ -872,11 +1057,49 @@ implements ClockListener, Serializable {
                                 )
                         );
             }
+            RandomUtil.setStream(RandomUtil.getSubsystemStream(TickProfiler.TRANSPORT_MANAGER));
             transportManager.timePassing(time);
+            profiler.record(TickProfiler.TRANSPORT_MANAGER, t);
+            RandomUtil.setStream(null);
 
+            profiler.endPulse(start, startBytes, masterClock.getCurrentTBU());
         }
     }
 
+    /**
+     * Gets the profiler keeping the timings of each part of the clock pulse.
+     * The report is written to {@link #TICK_PROFILE_FILE} at shutdown.
+     * Called mid-pulse, so it does not take the simulation monitor.
+     * @return tick profiler
+     */
+    public TickProfiler getTickProfiler() {
+    	TickProfiler result = tickProfiler;
+    	if (result == null) {
+    		synchronized (tickProfilerLock) {
+    			result = tickProfiler;
+    			if (result == null) {
+    				result = new TickProfiler();
+    				tickProfiler = result;
+    				if (!tickProfilerHookAdded) {
+    					Runtime.getRuntime().addShutdownHook(new Thread(Simulation::dumpTickProfiler,
+    							"TickProfilerDump"));
+    					tickProfilerHookAdded = true;
+    				}
+    			}
+    		}
+    	}
+    	return result;
+    }
+
+    /**
+     * Writes the report of the current tick profiler, if any, to {@link #TICK_PROFILE_FILE}.
+     */
+    private static void dumpTickProfiler() {
+    	TickProfiler profiler = instance().tickProfiler;
+    	if (profiler != null)
+    		profiler.dump(new File(TICK_PROFILE_FILE));
+    }
+
 
     /**
      * Returns the time string of the last saving or autosaving action
@@ -82,6 +82,15 @@ implements Serializable, Comparable<Unit> {
 		return unitIdentifer++;
 	}
 
+	/**
+	 * Makes sure an identifier already given, such as by a loaded simulation, is not given again.
+	 * @param identifier the identifier in use.
+	 */
+	static synchronized void reserveIdentifier(int identifier) {
+		if (unitIdentifer <= identifier)
+			unitIdentifer = identifier + 1;
+	}
+
 	/**
 	 * Constructor.
 	 * @param name {@link String} the name of the unit
@@ -364,6 +373,12 @@ implements Serializable, Comparable<Unit> {
 		
 		this.containerUnit = newContainer;
 
+		if (this instanceof Person) {
+			Settlement settlement = getAssociatedSettlement();
+			if (settlement != null)
+				settlement.updateEVAPerson((Person) this);
+		}
+
 		fireUnitUpdate(UnitEventType.CONTAINER_UNIT_EVENT, newContainer);
 	}
 
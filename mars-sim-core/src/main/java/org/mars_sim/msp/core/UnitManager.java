@@ -14,7 +14,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -91,6 +93,20 @@ public class UnitManager implements Serializable {
 	public transient boolean justReloaded = true;
 	/** List of unit manager listeners. */
 	private transient List<UnitManagerListener> listeners;
+	/** The engine advancing the units on each time pulse. */
+	private transient UnitTickEngine tickEngine;
+	/** The units by identifier. The registries below are rebuilt from the units when null. */
+	private transient volatile Map<Integer, Unit> unitsByID;
+	/** The settlements, in the order they were added. */
+	private transient List<Settlement> settlements;
+	/** The people, in the order they were added. */
+	private transient List<Person> people;
+	/** The vehicles not salvaged, in the order they were added. */
+	private transient List<Vehicle> vehicles;
+	/** The robots, in the order they were added. */
+	private transient List<Robot> robots;
+	/** The equipment not salvaged, in the order they were added. */
+	private transient List<Equipment> equipment;
 	
 	// Static members
 	/** List of possible settlement names. */
@@ -320,8 +336,10 @@ public class UnitManager implements Serializable {
 	 *            new unit to add.
 	 */
 	public void addUnit(Unit unit) {
-		if (!units.contains(unit)) {
+		if (getUnitsByID().get(unit.getIdentifier()) != unit) {
 			units.add(unit);
+			register(unit);
+			updateLocalArea(unit, true);
 			Iterator<Unit> i = unit.getInventory().getContainedUnits().iterator();
 			while (i.hasNext()) {
 				addUnit(i.next());
@@ -338,13 +356,127 @@ public class UnitManager implements Serializable {
 	 *            the unit to remove.
 	 */
 	public void removeUnit(Unit unit) {
-		if (units.contains(unit)) {
+		if (getUnitsByID().get(unit.getIdentifier()) == unit) {
 			units.remove(unit);
+			unregister(unit);
+			updateLocalArea(unit, false);
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.REMOVE_UNIT, unit);
 		}
 	}
 
+	/**
+	 * Takes a salvaged vehicle or piece of equipment out of those in use.
+	 * The unit stays in the unit manager.
+	 *
+	 * @param unit
+	 *            the salvaged unit.
+	 */
+	public void salvageUnit(Unit unit) {
+		if (unitsByID != null) {
+			vehicles.remove(unit);
+			equipment.remove(unit);
+		}
+		if (unit instanceof Vehicle) {
+			LocalAreaUtil.removeLocalBoundedObject((Vehicle) unit);
+		}
+	}
+
+	/**
+	 * Updates the local area indexes for a unit added or removed.
+	 * @param unit the unit.
+	 * @param added true if added, false if removed.
+	 */
+	private void updateLocalArea(Unit unit, boolean added) {
+		if (unit instanceof Settlement) {
+			// The buildings and construction sites of the settlement are indexed again.
+			LocalAreaUtil.clearLocalAreaIndexes();
+		}
+		else if (unit instanceof Vehicle) {
+			Vehicle vehicle = (Vehicle) unit;
+			if (added && !vehicle.isSalvaged())
+				LocalAreaUtil.addLocalBoundedObject(vehicle, vehicle.getCoordinates());
+			else if (!added)
+				LocalAreaUtil.removeLocalBoundedObject(vehicle);
+		}
+	}
+
+	/**
+	 * Gets the units by identifier, building the registries from the units if needed.
+	 * @return map of units
+	 */
+	private Map<Integer, Unit> getUnitsByID() {
+		Map<Integer, Unit> result = unitsByID;
+		if (result == null) {
+			synchronized (this) {
+				result = unitsByID;
+				if (result == null) {
+					settlements = new CopyOnWriteArrayList<Settlement>();
+					people = new CopyOnWriteArrayList<Person>();
+					vehicles = new CopyOnWriteArrayList<Vehicle>();
+					robots = new CopyOnWriteArrayList<Robot>();
+					equipment = new CopyOnWriteArrayList<Equipment>();
+					result = new ConcurrentHashMap<Integer, Unit>();
+					for (Unit unit : units) {
+						register(unit, result);
+					}
+					unitsByID = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a unit to the registries.
+	 * @param unit the unit.
+	 */
+	private void register(Unit unit) {
+		register(unit, getUnitsByID());
+	}
+
+	/**
+	 * Adds a unit to the registries.
+	 * @param unit the unit.
+	 * @param byID the units by identifier.
+	 */
+	private void register(Unit unit, Map<Integer, Unit> byID) {
+		byID.put(unit.getIdentifier(), unit);
+		// A loaded simulation must not give the identifiers of its units to new units.
+		Unit.reserveIdentifier(unit.getIdentifier());
+
+		if (unit instanceof Settlement) {
+			settlements.add((Settlement) unit);
+		}
+		else if (unit instanceof Person) {
+			people.add((Person) unit);
+		}
+		else if (unit instanceof Vehicle) {
+			if (!((Vehicle) unit).isSalvaged())
+				vehicles.add((Vehicle) unit);
+		}
+		else if (unit instanceof Robot) {
+			robots.add((Robot) unit);
+		}
+		else if (unit instanceof Equipment) {
+			if (!((Equipment) unit).isSalvaged())
+				equipment.add((Equipment) unit);
+		}
+	}
+
+	/**
+	 * Removes a unit from the registries.
+	 * @param unit the unit.
+	 */
+	private void unregister(Unit unit) {
+		getUnitsByID().remove(unit.getIdentifier());
+		settlements.remove(unit);
+		people.remove(unit);
+		vehicles.remove(unit);
+		robots.remove(unit);
+		equipment.remove(unit);
+	}
+
 	/**
 	 * Gets a new name for a unit.
 	 * @param unitType {@link UnitType} the type of unit.
@@ -671,7 +803,7 @@ public class UnitManager implements Serializable {
 			// Get person's settlement or randomly determine it if not configured.
 			String preConfigSettlementName = personConfig.getConfiguredPersonDestination(x, crew_id);
 			if (preConfigSettlementName != null) {
-				Collection<Settlement> col = CollectionUtils.getSettlement(units);
+				Collection<Settlement> col = getSettlements();
 				settlement = CollectionUtils.getSettlement(col, preConfigSettlementName);
 				if (settlement == null) {
 					// TODO: If settlement cannot be found that matches the settlement name,
@@ -682,7 +814,7 @@ public class UnitManager implements Serializable {
 				}
 
 			} else {
-				Collection<Settlement> col = CollectionUtils.getSettlement(units);
+				Collection<Settlement> col = getSettlements();
 				settlement = CollectionUtils.getRandomSettlement(col);
 				logger.log(Level.INFO, name + " has no destination settlement specified and goes to "
 						+ preConfigSettlementName + " by random.");
@@ -1373,7 +1505,7 @@ public class UnitManager implements Serializable {
 			// System.out.println("settlementName is " + settlementName);
 			Settlement settlement = null;
 			if (preConfigSettlementName != null) {
-				Collection<Settlement> col = CollectionUtils.getSettlement(units);
+				Collection<Settlement> col = getSettlements();
 				// Find the settlement instance with that name
 				settlement = CollectionUtils.getSettlement(col, preConfigSettlementName);
 				if (settlement == null) {
@@ -1384,7 +1516,7 @@ public class UnitManager implements Serializable {
 				}
 
 			} else {
-				Collection<Settlement> col = CollectionUtils.getSettlement(units);
+				Collection<Settlement> col = getSettlements();
 				settlement = CollectionUtils.getRandomSettlement(col);
 				logger.log(Level.INFO, name + " has no destination settlement specified and goes to "
 						+ preConfigSettlementName + " by random.");
@@ -1807,8 +1939,7 @@ public class UnitManager implements Serializable {
 		if (justReloaded) {
         	partConfig.computeReliability();
         	   
-			Collection<Settlement> c = CollectionUtils.getSettlement(units);
-			for (Settlement s : c) {
+			for (Settlement s : getSettlements()) {
 				s.updateAllAssociatedPeople();
 				s.updateAllAssociatedRobots();
 			}
@@ -1816,11 +1947,25 @@ public class UnitManager implements Serializable {
 			justReloaded = false;
 		}
 
-		for (Unit u : units) {
-			u.timePassing(time);
-	
-		}
+		getTickEngine().timePassing(units, time);
+	}
 
+	/**
+	 * Gets the engine advancing the units on each time pulse.
+	 * @return tick engine
+	 */
+	public UnitTickEngine getTickEngine() {
+		if (tickEngine == null)
+			tickEngine = new UnitTickEngine();
+		return tickEngine;
+	}
+
+	/**
+	 * Sets if the settlements are advanced in parallel on each time pulse.
+	 * @param value true if parallel.
+	 */
+	public void setParallelTick(boolean value) {
+		getTickEngine().setParallel(value);
 	}
 
 	/**
@@ -1829,7 +1974,8 @@ public class UnitManager implements Serializable {
 	 * @return the number of settlements
 	 */
 	public int getSettlementNum() {
-		return CollectionUtils.getSettlement(units).size();
+		getUnitsByID();
+		return settlements.size();
 	}
 
 	/**
@@ -1838,13 +1984,13 @@ public class UnitManager implements Serializable {
 	 * @return Collection of settlements
 	 */
 	public Collection<Settlement> getSettlements() {
-		return CollectionUtils.getSettlement(units);
+		getUnitsByID();
+		return Collections.unmodifiableCollection(settlements);
 	}
 
 	public Settlement getASettlement() {
-		List<Settlement> list = new ArrayList<>();
-		list.addAll(getSettlements());
-		return list.get(0);
+		getUnitsByID();
+		return settlements.get(0);
 	}
 
 	public Settlement getFirstSettlement() {
@@ -1857,7 +2003,8 @@ public class UnitManager implements Serializable {
 	 * @return the number of vehicles
 	 */
 	public int getVehicleNum() {
-		return CollectionUtils.getVehicle(units).size();
+		getUnitsByID();
+		return vehicles.size();
 	}
 
 	/**
@@ -1866,7 +2013,8 @@ public class UnitManager implements Serializable {
 	 * @return Collection of vehicles
 	 */
 	public Collection<Vehicle> getVehicles() {
-		return CollectionUtils.getVehicle(units);
+		getUnitsByID();
+		return Collections.unmodifiableCollection(vehicles);
 	}
 
 	/**
@@ -1875,7 +2023,8 @@ public class UnitManager implements Serializable {
 	 * @return the number of people
 	 */
 	public int getPeopleNum() {
-		return CollectionUtils.getPerson(units).size();
+		getUnitsByID();
+		return people.size();
 	}
 
 	/**
@@ -1884,7 +2033,8 @@ public class UnitManager implements Serializable {
 	 * @return Collection of people
 	 */
 	public Collection<Person> getPeople() {
-		return CollectionUtils.getPerson(units);
+		getUnitsByID();
+		return Collections.unmodifiableCollection(people);
 	}
 
 	/**
@@ -1893,7 +2043,8 @@ public class UnitManager implements Serializable {
 	 * @return the number of Robots
 	 */
 	public int getRobotsNum() {
-		return CollectionUtils.getRobot(units).size();
+		getUnitsByID();
+		return robots.size();
 	}
 
 	/**
@@ -1902,7 +2053,8 @@ public class UnitManager implements Serializable {
 	 * @return Collection of Robots
 	 */
 	public Collection<Robot> getRobots() {
-		return CollectionUtils.getRobot(units);
+		getUnitsByID();
+		return Collections.unmodifiableCollection(robots);
 	}
 
 	/**
@@ -1910,7 +2062,8 @@ public class UnitManager implements Serializable {
 	 * @return number
 	 */
 	public int getEquipmentNum() {
-		return CollectionUtils.getEquipment(units).size();
+		getUnitsByID();
+		return equipment.size();
 	}
 
 	/**
@@ -1918,7 +2071,8 @@ public class UnitManager implements Serializable {
 	 * @return collection
 	 */
 	public Collection<Equipment> getEquipment() {
-		return CollectionUtils.getEquipment(units);
+		getUnitsByID();
+		return Collections.unmodifiableCollection(equipment);
 	}
 
 	/**
@@ -1979,6 +2133,15 @@ public class UnitManager implements Serializable {
 		}
 	}
 
+	/**
+	 * Gets the unit with an identifier.
+	 * @param identifier the identifier of the unit.
+	 * @return unit or null if none.
+	 */
+	public Unit getUnitByID(int identifier) {
+		return getUnitsByID().get(identifier);
+	}
+
 	/**
 	 * Finds a unit in the simulation that has the given name.
 	 * @param name the name to search for.
@@ -2078,6 +2241,17 @@ public class UnitManager implements Serializable {
 		}
 		units.clear();
 		units = null;
+		unitsByID = null;
+		settlements = null;
+		people = null;
+		vehicles = null;
+		robots = null;
+		equipment = null;
+
+		if (tickEngine != null) {
+			tickEngine.destroy();
+			tickEngine = null;
+		}
 
 		settlementNames.clear();
 		settlementNames = null;
@@ -0,0 +1,273 @@
+/**
+ * Mars Simulation Project
+ * UnitTickEngine.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+import org.mars_sim.msp.core.equipment.Equipment;
+import org.mars_sim.msp.core.person.ai.mission.MissionManager;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.time.TickProfiler;
+
+/**
+ * The UnitTickEngine advances all units by one time pulse. Units are partitioned by the
+ * settlement they are in. The partitions are advanced concurrently on a fork/join pool,
+ * followed by a serial phase for the units that may interact with more than one settlement,
+ * namely units outside on Mars (e.g. vehicles on a trade or rescue mission) and visitors
+ * staying at a settlement other than their own. The serial phase ends by finding the
+ * results the mission metas need from other settlements (see
+ * {@link MissionManager#updateCrossSettlementTables(double)}), which the partitions read
+ * in the next pulse.
+ * <p>
+ * Each unit draws its random numbers from its own stream (see {@link RandomUtil}) while it
+ * is advanced, so a run with a given seed is the same in serial and in parallel.
+ */
+public class UnitTickEngine {
+
+	/** default logger. */
+	private static Logger logger = Logger.getLogger(UnitTickEngine.class.getName());
+
+	/** The minimum number of partitions worth running in parallel. */
+	private static final int MIN_PARALLEL_PARTITIONS = 2;
+
+	/** True if the settlement partitions are advanced in parallel. */
+	private volatile boolean parallel;
+
+	/** The pool running the settlement partitions. */
+	private ForkJoinPool pool;
+
+	/** The units of each settlement, in the order they are found in the unit manager. */
+	private Map<Settlement, List<Unit>> partitions = new LinkedHashMap<>();
+	/** The units advanced in the serial phase. */
+	private List<Unit> serialUnits = new ArrayList<>();
+	/** The partition tasks reused every pulse. */
+	private List<PartitionTask> tasks = new ArrayList<>();
+
+	/**
+	 * Constructor.
+	 */
+	public UnitTickEngine() {
+	}
+
+	/**
+	 * Sets if the settlement partitions are advanced in parallel.
+	 * @param value true if parallel.
+	 */
+	public void setParallel(boolean value) {
+		parallel = value;
+		if (parallel)
+			logger.info("Advancing settlements in parallel on up to " + Simulation.NUM_THREADS + " threads");
+	}
+
+	/**
+	 * Checks if the settlement partitions are advanced in parallel.
+	 * @return true if parallel.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Advances the units by a time pulse.
+	 * @param units all the units in the simulation.
+	 * @param time the amount time passing (in millisols)
+	 */
+	public void timePassing(Collection<Unit> units, double time) {
+		TickProfiler profiler = Simulation.instance().getTickProfiler();
+
+		if (!parallel) {
+			advance(units, time, profiler);
+			updateCrossSettlementTables(time);
+			return;
+		}
+
+		partition(units);
+
+		if (partitions.size() < MIN_PARALLEL_PARTITIONS) {
+			for (List<Unit> list : partitions.values()) {
+				advance(list, time, profiler);
+			}
+		}
+		else {
+			if (pool == null)
+				pool = new ForkJoinPool(Simulation.NUM_THREADS);
+
+			while (tasks.size() < partitions.size()) {
+				tasks.add(new PartitionTask());
+			}
+
+			int i = 0;
+			for (List<Unit> list : partitions.values()) {
+				PartitionTask task = tasks.get(i++);
+				task.reinitialize();
+				task.units = list;
+				task.time = time;
+				task.profiler = profiler;
+			}
+
+			pool.invoke(new PulseTask(tasks.subList(0, i)));
+		}
+
+		// Serial phase for the cross-settlement interactions
+		advance(serialUnits, time, profiler);
+		updateCrossSettlementTables(time);
+	}
+
+	/**
+	 * Finds the results the mission metas need from other settlements.
+	 * @param time the amount time passing (in millisols)
+	 */
+	private static void updateCrossSettlementTables(double time) {
+		MissionManager missionManager = Simulation.instance().getMissionManager();
+		if (missionManager != null)
+			missionManager.updateCrossSettlementTables(time);
+	}
+
+	/**
+	 * Advances units one after another, recording the time taken by each type of unit.
+	 * @param units the units.
+	 * @param time the amount time passing (in millisols)
+	 * @param profiler the tick profiler.
+	 */
+	private static void advance(Collection<Unit> units, double time, TickProfiler profiler) {
+		try {
+			if (!profiler.isEnabled()) {
+				for (Unit u : units) {
+					RandomUtil.setStream(RandomUtil.getUnitStream(u.getIdentifier()));
+					u.timePassing(time);
+				}
+				return;
+			}
+
+			long t = System.nanoTime();
+			for (Unit u : units) {
+				RandomUtil.setStream(RandomUtil.getUnitStream(u.getIdentifier()));
+				u.timePassing(time);
+				long now = System.nanoTime();
+				profiler.recordUnit(u.getClass(), now - t);
+				t = now;
+			}
+		} finally {
+			RandomUtil.setStream(null);
+		}
+	}
+
+	/**
+	 * Sorts the units into the settlement partitions and the serial list.
+	 * @param units all the units in the simulation.
+	 */
+	private void partition(Collection<Unit> units) {
+		for (List<Unit> list : partitions.values()) {
+			list.clear();
+		}
+		serialUnits.clear();
+
+		for (Unit u : units) {
+			Settlement s = getPartitionSettlement(u);
+			if (s == null) {
+				serialUnits.add(u);
+			}
+			else {
+				List<Unit> list = partitions.get(s);
+				if (list == null) {
+					list = new ArrayList<>();
+					partitions.put(s, list);
+				}
+				list.add(u);
+			}
+		}
+
+		// Drop the partitions of the settlements no longer around
+		Iterator<List<Unit>> i = partitions.values().iterator();
+		while (i.hasNext()) {
+			if (i.next().isEmpty())
+				i.remove();
+		}
+	}
+
+	/**
+	 * Gets the settlement partition a unit belongs to.
+	 * @param unit the unit.
+	 * @return the settlement or null if the unit belongs to the serial phase.
+	 */
+	private static Settlement getPartitionSettlement(Unit unit) {
+		if (unit instanceof Settlement)
+			return (Settlement) unit;
+
+		Unit top = unit.getTopContainerUnit();
+		if (!(top instanceof Settlement))
+			return null;
+
+		Settlement settlement = (Settlement) top;
+		if (unit instanceof Equipment)
+			return settlement;
+
+		// A visitor (e.g. a trader) may work on the inventory or credit of its home settlement
+		if (unit.getAssociatedSettlement() != settlement)
+			return null;
+
+		return settlement;
+	}
+
+	/**
+	 * Prepare object for garbage collection.
+	 */
+	public void destroy() {
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+		}
+		partitions.clear();
+		serialUnits.clear();
+		tasks.clear();
+	}
+
+	/**
+	 * Advances all the settlement partitions and waits for them to finish.
+	 */
+	private static class PulseTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private List<PartitionTask> tasks;
+
+		private PulseTask(List<PartitionTask> tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected void compute() {
+			ForkJoinTask.invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Advances the units of one settlement partition.
+	 */
+	private static class PartitionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private List<Unit> units;
+		private double time;
+		private TickProfiler profiler;
+
+		@Override
+		protected void compute() {
+			advance(units, time, profiler);
+		}
+	}
+}
@@ -10,7 +10,9 @@ package org.mars_sim.msp.core.equipment;
 import java.io.Serializable;
 
 import org.mars_sim.msp.core.Coordinates;
+import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Unit;
+import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.malfunction.Malfunctionable;
 import org.mars_sim.msp.core.manufacture.Salvagable;
@@ -82,6 +84,9 @@ implements Serializable, Malfunctionable, Salvagable {
 	public void startSalvage(SalvageProcessInfo info, Settlement settlement) {
 		salvageInfo = new SalvageInfo(this, info, settlement);
 		isSalvaged = true;
+		UnitManager manager = Simulation.instance().getUnitManager();
+		if (manager != null)
+			manager.salvageUnit(this);
 	}
 
 	/**
@@ -11,19 +11,16 @@ import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitManager;
+import org.mars_sim.msp.core.malfunction.Malfunctionable;
 import org.mars_sim.msp.core.manufacture.Salvagable;
 import org.mars_sim.msp.core.manufacture.SalvageInfo;
 import org.mars_sim.msp.core.manufacture.SalvageProcessInfo;
 import org.mars_sim.msp.core.person.LocationSituation;
 import org.mars_sim.msp.core.person.Person;
-import org.mars_sim.msp.core.person.ai.task.Maintenance;
-import org.mars_sim.msp.core.person.ai.task.Repair;
-import org.mars_sim.msp.core.person.ai.task.Task;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.vehicle.Vehicle;
 
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
@@ -45,8 +42,6 @@ implements Salvagable {
 
 	private Unit lastOwner;
 
-	private static UnitManager unitManager;
-	
 	/** Constructs an Equipment object
 	 *  @param name the name of the unit
 	 *  @param location the unit's location
@@ -58,8 +53,6 @@ implements Salvagable {
 		// Initialize data members.
 		isSalvaged = false;
 		salvageInfo = null;
-		
-		unitManager = Simulation.instance().getUnitManager();
 	}
 
 	/**
@@ -75,26 +68,11 @@ implements Salvagable {
 			people.add(owner);
 		}
 
-		// Check all people.
-		Iterator<Person> i = unitManager.getPeople().iterator();
-		while (i.hasNext()) {
-			Person person = i.next();			
-			Task task = person.getMind().getTaskManager().getTask();
-
-			// Add all people maintaining this equipment.
-			if (task instanceof Maintenance) {
-				if (((Maintenance) task).getEntity() == this) {
-					if (!people.contains(person)) 
-						people.add(person);
-				}
-			}
-
-			// Add all people repairing this equipment.
-			if (task instanceof Repair) {
-				if (((Repair) task).getEntity() == this) {
-					if (!people.contains(person)) 
-						people.add(person);
-				}
+		// Add all people maintaining or repairing this equipment.
+		if (this instanceof Malfunctionable) {
+			for (Person person : ((Malfunctionable) this).getMalfunctionManager().getWorkers()) {
+				if (!people.contains(person))
+					people.add(person);
 			}
 		}
 
@@ -120,6 +98,9 @@ implements Salvagable {
 	public void startSalvage(SalvageProcessInfo info, Settlement settlement) {
 		salvageInfo = new SalvageInfo(this, info, settlement);
 		isSalvaged = true;
+		UnitManager manager = Simulation.instance().getUnitManager();
+		if (manager != null)
+			manager.salvageUnit(this);
 	}
 
 	/**
@@ -83,7 +83,7 @@ public class HistoricalEventManager implements Serializable {
 	 * @param newEvent The event to register.
 	 */
 	// include any kind of events
-	public void registerNewEvent(HistoricalEvent newEvent) {
+	public synchronized void registerNewEvent(HistoricalEvent newEvent) {
 
 		//MarsClock timestamp;
 
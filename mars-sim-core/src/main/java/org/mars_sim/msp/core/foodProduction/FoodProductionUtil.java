@@ -8,8 +8,12 @@
 package org.mars_sim.msp.core.foodProduction;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 import org.mars_sim.msp.core.Inventory;
@@ -37,6 +41,9 @@ import org.mars_sim.msp.core.time.MarsClock;
  */
 public final class FoodProductionUtil {
 
+    /** The index of the processes. Rebuilt when the configuration changes. */
+    private static volatile ProcessIndex processIndex;
+
     /** Private constructor. */
     private FoodProductionUtil() {}
 
@@ -67,21 +74,105 @@ public final class FoodProductionUtil {
     /**
      * Gets foodProduction processes within the capability of a tech level.
      * @param techLevel the tech level.
-     * @return list of processes.
-     * @throws Exception if error getting processes.
+     * @return unmodifiable list of processes.
      */
     public static List<FoodProductionProcessInfo> getFoodProductionProcessesForTechLevel(
             int techLevel) {
-        List<FoodProductionProcessInfo> result = new ArrayList<FoodProductionProcessInfo>();
+        ProcessIndex index = getProcessIndex();
+        return index.getForTechLevel(index.processes, techLevel);
+    }
+
+    /**
+     * Gets the foodProduction processes within the capability of a tech level having an item as input.
+     * @param name the name of the input item.
+     * @param techLevel the tech level.
+     * @return unmodifiable list of processes.
+     */
+    public static List<FoodProductionProcessInfo> getFoodProductionProcessesWithInput(String name,
+            int techLevel) {
+        ProcessIndex index = getProcessIndex();
+        return index.getForTechLevel(index.processesByInput.get(name.toLowerCase()), techLevel);
+    }
 
+    /**
+     * Gets the foodProduction processes within the capability of a tech level having an item as output.
+     * @param name the name of the output item.
+     * @param techLevel the tech level.
+     * @return unmodifiable list of processes.
+     */
+    public static List<FoodProductionProcessInfo> getFoodProductionProcessesWithOutput(String name,
+            int techLevel) {
+        ProcessIndex index = getProcessIndex();
+        return index.getForTechLevel(index.processesByOutput.get(name.toLowerCase()), techLevel);
+    }
+
+    /**
+     * Gets the index of the foodProduction processes, building it if the configuration changed.
+     * @return process index.
+     */
+    private static ProcessIndex getProcessIndex() {
         FoodProductionConfig config = SimulationConfig.instance().getFoodProductionConfiguration();
-        Iterator<FoodProductionProcessInfo> i = config.getFoodProductionProcessList().iterator();
-        while (i.hasNext()) {
-            FoodProductionProcessInfo process = i.next();
-            if (process.getTechLevelRequired() <= techLevel) result.add(process);
+        ProcessIndex index = processIndex;
+        if ((index == null) || (index.config != config)) {
+            index = new ProcessIndex(config);
+            processIndex = index;
         }
+        return index;
+    }
 
-        return result;
+    /**
+     * The foodProduction processes sorted by tech level required, and by the items they use
+     * and produce (by lower case name).
+     */
+    private static class ProcessIndex {
+
+        private FoodProductionConfig config;
+        private List<FoodProductionProcessInfo> processes;
+        private Map<String, List<FoodProductionProcessInfo>> processesByInput = new HashMap<String, List<FoodProductionProcessInfo>>();
+        private Map<String, List<FoodProductionProcessInfo>> processesByOutput = new HashMap<String, List<FoodProductionProcessInfo>>();
+
+        private ProcessIndex(FoodProductionConfig config) {
+            this.config = config;
+            processes = new ArrayList<FoodProductionProcessInfo>(config.getFoodProductionProcessList());
+            Collections.sort(processes, Comparator.comparingInt(FoodProductionProcessInfo::getTechLevelRequired));
+
+            for (FoodProductionProcessInfo process : processes) {
+                for (FoodProductionProcessItem item : process.getInputList()) {
+                    add(processesByInput, item.getName(), process);
+                }
+                for (FoodProductionProcessItem item : process.getOutputList()) {
+                    add(processesByOutput, item.getName(), process);
+                }
+            }
+        }
+
+        private static void add(Map<String, List<FoodProductionProcessInfo>> map, String name,
+                FoodProductionProcessInfo process) {
+            String key = name.toLowerCase();
+            List<FoodProductionProcessInfo> list = map.get(key);
+            if (list == null) {
+                list = new ArrayList<FoodProductionProcessInfo>();
+                map.put(key, list);
+            }
+            // A process may use an item more than once.
+            if (list.isEmpty() || (list.get(list.size() - 1) != process)) {
+                list.add(process);
+            }
+        }
+
+        /**
+         * Gets the start of a list of processes sorted by tech level, up to a tech level.
+         */
+        private List<FoodProductionProcessInfo> getForTechLevel(List<FoodProductionProcessInfo> list, int techLevel) {
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            int end = 0;
+            while ((end < list.size()) && (list.get(end).getTechLevelRequired() <= techLevel)) {
+                end++;
+            }
+            return Collections.unmodifiableList(list.subList(0, end));
+        }
     }
 
     /**
@@ -16,6 +16,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,10 +27,14 @@ import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.SimulationConfig;
 import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitEventType;
+import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.events.HistoricalEvent;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.PersonalityTraitType;
 import org.mars_sim.msp.core.person.PhysicalCondition;
+import org.mars_sim.msp.core.person.ai.task.Maintenance;
+import org.mars_sim.msp.core.person.ai.task.Repair;
+import org.mars_sim.msp.core.person.ai.task.Task;
 import org.mars_sim.msp.core.person.medical.Complaint;
 import org.mars_sim.msp.core.person.medical.ComplaintType;
 import org.mars_sim.msp.core.person.medical.MedicalManager;
@@ -112,6 +117,9 @@ implements Serializable {
 	private double airPressureModifier = 100D;
 	private double temperatureModifier = 100D;
 
+	/** The people whose current task maintains or repairs the entity. Rebuilt when null. */
+	private transient Collection<Person> workers;
+
 	private static MasterClock masterClock;
 	private static MarsClock startTime;
 	private static MarsClock currentTime;
@@ -1105,11 +1113,72 @@ implements Serializable {
 		return (100D - wearCondition) / 100D * WEAR_ACCIDENT_FACTOR + 1D;
 	}
 
+	/**
+	 * Gets the people whose current task maintains or repairs the entity.
+	 * @return read-only collection of people.
+	 */
+	public synchronized Collection<Person> getWorkers() {
+		if (workers == null) {
+			workers = new CopyOnWriteArrayList<Person>();
+			UnitManager unitManager = Simulation.instance().getUnitManager();
+			if (unitManager != null) {
+				for (Person person : unitManager.getPeople()) {
+					if (getWorkEntity(person.getMind().getTaskManager().getTask()) == entity)
+						workers.add(person);
+				}
+			}
+		}
+		return Collections.unmodifiableCollection(workers);
+	}
+
+	/**
+	 * Updates the workers of the entities a person stops and starts working on.
+	 * @param person the person.
+	 * @param oldTask the task the person is leaving, or null.
+	 * @param newTask the task the person is taking, or null.
+	 */
+	public static void updateWorker(Person person, Task oldTask, Task newTask) {
+		Malfunctionable oldEntity = getWorkEntity(oldTask);
+		Malfunctionable newEntity = getWorkEntity(newTask);
+		if (oldEntity != newEntity) {
+			if (oldEntity != null)
+				oldEntity.getMalfunctionManager().removeWorker(person);
+			if (newEntity != null)
+				newEntity.getMalfunctionManager().addWorker(person);
+		}
+	}
+
+	/**
+	 * Gets the entity a task maintains or repairs.
+	 * @param task the task, or null.
+	 * @return the entity, or null if the task does neither.
+	 */
+	public static Malfunctionable getWorkEntity(Task task) {
+		if (task instanceof Maintenance)
+			return ((Maintenance) task).getEntity();
+		else if (task instanceof Repair)
+			return ((Repair) task).getEntity();
+		else
+			return null;
+	}
+
+	private synchronized void addWorker(Person person) {
+		// The workers are found when first asked for if they are not indexed yet
+		if (workers != null && !workers.contains(person))
+			workers.add(person);
+	}
+
+	private synchronized void removeWorker(Person person) {
+		if (workers != null)
+			workers.remove(person);
+	}
+
 	/**
 	 * Prepare object for garbage collection.
 	 */
 	public void destroy() {
 		entity = null;
+		workers = null;
 		scopes.clear();
 		scopes = null;
 		malfunctions.clear();
@@ -9,8 +9,12 @@ package org.mars_sim.msp.core.manufacture;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 import org.mars_sim.msp.core.Inventory;
@@ -48,6 +52,9 @@ public final class ManufactureUtil {
 
     private static ItemResource printerItem;
 
+    /** The index of the processes. Rebuilt when the configuration changes. */
+    private static volatile ProcessIndex processIndex;
+
     /** Private constructor. */
     private ManufactureUtil() {
         printerItem = ItemResource.findItemResource(Manufacture.LASER_SINTERING_3D_PRINTER);
@@ -80,21 +87,105 @@ public final class ManufactureUtil {
     /**
      * Gets manufacturing processes within the capability of a tech level.
      * @param techLevel the tech level.
-     * @return list of processes.
-     * @throws Exception if error getting processes.
+     * @return unmodifiable list of processes.
      */
     public static List<ManufactureProcessInfo> getManufactureProcessesForTechLevel(
             int techLevel) {
-        List<ManufactureProcessInfo> result = new ArrayList<ManufactureProcessInfo>();
+        ProcessIndex index = getProcessIndex();
+        return index.getForTechLevel(index.processes, techLevel);
+    }
+
+    /**
+     * Gets the manufacturing processes within the capability of a tech level having an item as input.
+     * @param name the name of the input item.
+     * @param techLevel the tech level.
+     * @return unmodifiable list of processes.
+     */
+    public static List<ManufactureProcessInfo> getManufactureProcessesWithInput(String name,
+            int techLevel) {
+        ProcessIndex index = getProcessIndex();
+        return index.getForTechLevel(index.processesByInput.get(name.toLowerCase()), techLevel);
+    }
 
+    /**
+     * Gets the manufacturing processes within the capability of a tech level having an item as output.
+     * @param name the name of the output item.
+     * @param techLevel the tech level.
+     * @return unmodifiable list of processes.
+     */
+    public static List<ManufactureProcessInfo> getManufactureProcessesWithOutput(String name,
+            int techLevel) {
+        ProcessIndex index = getProcessIndex();
+        return index.getForTechLevel(index.processesByOutput.get(name.toLowerCase()), techLevel);
+    }
+
+    /**
+     * Gets the index of the manufacturing processes, building it if the configuration changed.
+     * @return process index.
+     */
+    private static ProcessIndex getProcessIndex() {
         ManufactureConfig config = SimulationConfig.instance().getManufactureConfiguration();
-        Iterator<ManufactureProcessInfo> i = config.getManufactureProcessList().iterator();
-        while (i.hasNext()) {
-            ManufactureProcessInfo process = i.next();
-            if (process.getTechLevelRequired() <= techLevel) result.add(process);
+        ProcessIndex index = processIndex;
+        if ((index == null) || (index.config != config)) {
+            index = new ProcessIndex(config);
+            processIndex = index;
         }
+        return index;
+    }
 
-        return result;
+    /**
+     * The manufacturing processes sorted by tech level required, and by the items they use
+     * and produce (by lower case name).
+     */
+    private static class ProcessIndex {
+
+        private ManufactureConfig config;
+        private List<ManufactureProcessInfo> processes;
+        private Map<String, List<ManufactureProcessInfo>> processesByInput = new HashMap<String, List<ManufactureProcessInfo>>();
+        private Map<String, List<ManufactureProcessInfo>> processesByOutput = new HashMap<String, List<ManufactureProcessInfo>>();
+
+        private ProcessIndex(ManufactureConfig config) {
+            this.config = config;
+            processes = new ArrayList<ManufactureProcessInfo>(config.getManufactureProcessList());
+            Collections.sort(processes, Comparator.comparingInt(ManufactureProcessInfo::getTechLevelRequired));
+
+            for (ManufactureProcessInfo process : processes) {
+                for (ManufactureProcessItem item : process.getInputList()) {
+                    add(processesByInput, item.getName(), process);
+                }
+                for (ManufactureProcessItem item : process.getOutputList()) {
+                    add(processesByOutput, item.getName(), process);
+                }
+            }
+        }
+
+        private static void add(Map<String, List<ManufactureProcessInfo>> map, String name,
+                ManufactureProcessInfo process) {
+            String key = name.toLowerCase();
+            List<ManufactureProcessInfo> list = map.get(key);
+            if (list == null) {
+                list = new ArrayList<ManufactureProcessInfo>();
+                map.put(key, list);
+            }
+            // A process may use an item more than once.
+            if (list.isEmpty() || (list.get(list.size() - 1) != process)) {
+                list.add(process);
+            }
+        }
+
+        /**
+         * Gets the start of a list of processes sorted by tech level, up to a tech level.
+         */
+        private List<ManufactureProcessInfo> getForTechLevel(List<ManufactureProcessInfo> list, int techLevel) {
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            int end = 0;
+            while ((end < list.size()) && (list.get(end).getTechLevelRequired() <= techLevel)) {
+                end++;
+            }
+            return Collections.unmodifiableList(list.subList(0, end));
+        }
     }
 
     /**
@@ -618,10 +709,10 @@ public final class ManufactureUtil {
 
         if (info.getType().equalsIgnoreCase("vehicle")) {
             if (LightUtilityVehicle.NAME.equalsIgnoreCase(info.getItemName())) {
-                salvagableUnits = inv.findAllUnitsOfClass(LightUtilityVehicle.class);
+                salvagableUnits = new ArrayList<Unit>(inv.findAllUnitsOfClass(LightUtilityVehicle.class));
             }
             else {
-                salvagableUnits = inv.findAllUnitsOfClass(Rover.class);
+                salvagableUnits = new ArrayList<Unit>(inv.findAllUnitsOfClass(Rover.class));
 
                 // Remove rovers that aren't the right type.
                 Iterator<Unit> i = salvagableUnits.iterator();
@@ -641,7 +732,7 @@ public final class ManufactureUtil {
         }
         else if (info.getType().equalsIgnoreCase("equipment")) {
             Class<? extends Equipment> equipmentClass = EquipmentFactory.getEquipmentClass(info.getItemName());
-            salvagableUnits = inv.findAllUnitsOfClass(equipmentClass);
+            salvagableUnits = new ArrayList<Unit>(inv.findAllUnitsOfClass(equipmentClass));
         }
 
         // Make sure container unit is settlement.
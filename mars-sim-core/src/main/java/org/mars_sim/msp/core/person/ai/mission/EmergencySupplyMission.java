@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -82,6 +83,15 @@ implements Serializable {
 	private static final double VEHICLE_FUEL_REMAINING_MODIFIER = 2D;
 	private static final double MINIMUM_EMERGENCY_SUPPLY_AMOUNT = 100D;
 
+	/**
+	 * The emergency resources and parts needed at each settlement, as found in the serial
+	 * phase of the time pulse (see {@link #updateEmergencySuppliesNeeded()}).
+	 */
+	private static final Map<Settlement, Map<AmountResource, Double>> RESOURCES_NEEDED_CACHE =
+			new ConcurrentHashMap<Settlement, Map<AmountResource, Double>>();
+	private static final Map<Settlement, Map<Part, Integer>> PARTS_NEEDED_CACHE =
+			new ConcurrentHashMap<Settlement, Map<Part, Integer>>();
+
 	/** Mission phases. */
 	final public static MissionPhase SUPPLY_DELIVERY_DISEMBARKING = new MissionPhase(Msg.getString(
             "Mission.phase.supplyDeliveryDisembarking")); //$NON-NLS-1$
@@ -579,7 +589,8 @@ implements Serializable {
     }
 
     /**
-     * Finds a settlement within range that needs emergency supplies.
+     * Finds a settlement within range that needs emergency supplies, from the supplies
+     * needed found in the last serial phase.
      * @param startingSettlement the starting settlement.
      * @param rover the rover to carry the supplies.
      * @return settlement needing supplies or null if none found.
@@ -602,7 +613,7 @@ implements Serializable {
                     if (settlementRange <= (rover.getRange() * .8D)) {
 
                         // Find what emergency supplies are needed at settlement.
-                        Map<AmountResource, Double> emergencyResourcesNeeded = getEmergencyResourcesNeeded(settlement);
+                        Map<AmountResource, Double> emergencyResourcesNeeded = getKnownResourcesNeeded(settlement);
                         Map<Class<? extends Container>, Integer> emergencyContainersNeeded =
                                 getContainersRequired(emergencyResourcesNeeded);
 
@@ -732,7 +743,7 @@ implements Serializable {
     private void determineNeededEmergencySupplies() {
 
         // Determine emergency resources needed.
-        emergencyResources = getEmergencyResourcesNeeded(emergencySettlement);
+        emergencyResources = new HashMap<AmountResource, Double>(getKnownResourcesNeeded(emergencySettlement));
 
         // Determine containers needed to hold emergency resources.
         Map<Class<? extends Container>, Integer> containers = getContainersRequired(emergencyResources);
@@ -745,7 +756,48 @@ implements Serializable {
         }
 
         // Determine emergency parts needed.
-        emergencyParts = getEmergencyPartsNeeded(emergencySettlement);
+        Map<Part, Integer> parts = PARTS_NEEDED_CACHE.get(emergencySettlement);
+        if (parts != null) {
+            emergencyParts = new HashMap<Part, Integer>(parts);
+        }
+        else {
+            emergencyParts = new HashMap<Part, Integer>(0);
+        }
+    }
+
+    /**
+     * Finds the emergency supplies needed at each settlement. Called in the serial phase
+     * of the time pulse, as it reaches into the inventory of every settlement.
+     */
+    static void updateEmergencySuppliesNeeded() {
+        Iterator<Settlement> i = Simulation.instance().getUnitManager().getSettlements().iterator();
+        while (i.hasNext()) {
+            Settlement settlement = i.next();
+            RESOURCES_NEEDED_CACHE.put(settlement, getEmergencyResourcesNeeded(settlement));
+            PARTS_NEEDED_CACHE.put(settlement, getEmergencyPartsNeeded(settlement));
+        }
+    }
+
+    /**
+     * Drops the emergency supplies needed, as they refer to the settlements of the simulation.
+     */
+    static void clearEmergencySuppliesNeeded() {
+        RESOURCES_NEEDED_CACHE.clear();
+        PARTS_NEEDED_CACHE.clear();
+    }
+
+    /**
+     * Gets the emergency resource supplies needed at a settlement, as found in the last
+     * serial phase.
+     * @param settlement the settlement
+     * @return map of resources and amounts needed.
+     */
+    private static Map<AmountResource, Double> getKnownResourcesNeeded(Settlement settlement) {
+        Map<AmountResource, Double> result = RESOURCES_NEEDED_CACHE.get(settlement);
+        if (result == null) {
+            result = new HashMap<AmountResource, Double>(0);
+        }
+        return result;
     }
 
     /**
@@ -6,17 +6,21 @@
  */
 package org.mars_sim.msp.core.person.ai.mission;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.RandomUtil;
 import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.mission.meta.MetaMission;
 import org.mars_sim.msp.core.person.ai.mission.meta.MetaMissionUtil;
@@ -42,44 +46,75 @@ implements Serializable {
 	/** default logger. */
 	private static transient Logger logger = Logger.getLogger(MissionManager.class.getName());
 
+	/** The time (millisols) between finding the emergency supplies needed at the settlements. */
+	private static final double EMERGENCY_SUPPLIES_INTERVAL = 10D;
+
 	/** Current missions in the simulation. */
 	private List<Mission> missions;
 	
 	/** Mission listeners. */
 	private transient List<MissionManagerListener> listeners;
 
-	// Cache variables.
-	private transient double totalProbCache;
-
 	private String phaseDescriptionCache;
 	
     // Transient members
-	//private transient Person personCache;
-	//private transient Robot robotCache;
-	private transient MarsClock personTimeCache;
-	private transient MarsClock robotTimeCache;
-	private transient Map<MetaMission, Double> missionProbCache;
-	private transient Map<MetaMission, Double> robotMissionProbCache;
+	/**
+	 * The mission probabilities last determined on each thread, since the people
+	 * of different settlements may look for a new mission at the same time.
+	 */
+	private transient volatile ThreadLocal<MissionProbabilities> probCache;
+
+	/** The time (millisols) left until the emergency supplies needed are found again. */
+	private transient double emergencySuppliesTime;
 
 	/**
 	 * Constructor.
 	 */
 	public MissionManager() {
-		// Initialize cache values.
-		//personCache = null;
-		//robotCache = null;
-		personTimeCache = null;
-		robotTimeCache = null;
-		totalProbCache = 0D;
-
-		//if (Simulation.instance().getMasterClock() != null)
-		//	currentTime = Simulation.instance().getMasterClock().getMarsClock();
-		
 		// Initialize data members
-		missions = new ArrayList<Mission>(0);
+		missions = new CopyOnWriteArrayList<Mission>();
 		listeners = Collections.synchronizedList(new ArrayList<MissionManagerListener>(0));
-		missionProbCache = new HashMap<MetaMission, Double>(MetaMissionUtil.getMetaMissions().size());
-		robotMissionProbCache = new HashMap<MetaMission, Double>(MetaMissionUtil.getRobotMetaMissions().size());
+		probCache = new ThreadLocal<MissionProbabilities>();
+		clearCrossSettlementTables();
+	}
+
+	/**
+	 * Implementing readObject method for serialization.
+	 * @param in the input stream.
+	 * @throws IOException if error reading from input stream.
+	 * @throws ClassNotFoundException if error creating class.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		clearCrossSettlementTables();
+	}
+
+	/**
+	 * Drops the trade and emergency results kept for the settlements of the previous simulation.
+	 */
+	private static void clearCrossSettlementTables() {
+		TradeLoadOptimizer.clearKeptLoads();
+		TradeRouteTable.clearRoutes();
+		EmergencySupplyMission.clearEmergencySuppliesNeeded();
+		RescueSalvageVehicle.clearBeaconVehicles();
+	}
+
+	/**
+	 * Finds the results the mission metas need from other settlements: the trade profits
+	 * asked for, the beacon vehicles and the emergency supplies needed. Called in the serial
+	 * phase at the end of each time pulse, as the settlement partitions can only read their
+	 * own settlement safely while they are advanced.
+	 * @param time the amount time passing (in millisols)
+	 */
+	public void updateCrossSettlementTables(double time) {
+		TradeRouteTable.refreshRoutes();
+		RescueSalvageVehicle.updateBeaconVehicles();
+
+		emergencySuppliesTime -= time;
+		if (emergencySuppliesTime <= 0D) {
+			EmergencySupplyMission.updateEmergencySuppliesNeeded();
+			emergencySuppliesTime = EMERGENCY_SUPPLIES_INTERVAL;
+		}
 	}
 
 
@@ -206,7 +241,7 @@ implements Serializable {
 	 * Adds a new mission to the mission list.
 	 * @param newMission new mission to be added
 	 */
-	public void addMission(Mission newMission) {
+	public synchronized void addMission(Mission newMission) {
 		if (newMission == null) {
 			throw new IllegalArgumentException("newMission is null");
 		}
@@ -237,7 +272,7 @@ implements Serializable {
 	 * Removes a mission from the mission list.
 	 * @param the mission to be removed
 	 */
-	private void removeMission(Mission oldMission) {
+	private synchronized void removeMission(Mission oldMission) {
 
 		if (missions.contains(oldMission)) {
 			missions.remove(oldMission);
@@ -265,19 +300,11 @@ implements Serializable {
 	 * @return total probability weight
 	 */
 	public double getTotalMissionProbability(Person person) {
-		// If cache is not current, calculate the probabilities.
-		if (!useCache(person)) {
-			calculateProbability(person);
-		}
-		return totalProbCache;
+		return getProbabilities(person).total;
 	}
 
 	public double getTotalMissionProbability(Robot robot) {
-		// If cache is not current, calculate the probabilities.
-		if (!useCache(robot)) {
-			calculateProbability(robot);
-		}
-		return totalProbCache;
+		return getProbabilities(robot).total;
 	}
 
 	/**
@@ -288,12 +315,10 @@ implements Serializable {
 	public Mission getNewMission(Person person) {
 		Mission result = null;
 		// If cache is not current, calculate the probabilities.
-		if (!useCache(person)) {
-			calculateProbability(person);
-		}
+		MissionProbabilities probabilities = getProbabilities(person);
 
 		// Get a random number from 0 to the total weight
-		double totalProbability = getTotalMissionProbability(person);
+		double totalProbability = probabilities.total;
 
 		if (totalProbability == 0D) {
 			throw new IllegalStateException(person +
@@ -305,10 +330,10 @@ implements Serializable {
 
 		// Determine which mission is selected.
 		MetaMission selectedMetaMission = null;
-		Iterator<MetaMission> i = missionProbCache.keySet().iterator();
+		Iterator<MetaMission> i = probabilities.probs.keySet().iterator();
 		while (i.hasNext() && (selectedMetaMission == null)) {
 			MetaMission metaMission = i.next();
-			double probWeight = missionProbCache.get(metaMission);
+			double probWeight = probabilities.probs.get(metaMission);
 			if (r <= probWeight) {
 				selectedMetaMission = metaMission;
 			}
@@ -325,7 +350,7 @@ implements Serializable {
 		result = selectedMetaMission.constructInstance(person);
 
 		// Clear time cache.
-		personTimeCache = null;
+		probabilities.time = null;
 
 		return result;
 	}
@@ -482,16 +507,46 @@ implements Serializable {
 	}
 
 	/**
-	 * Calculates and caches the probabilities.
-	 * @param person the person to check for.
+	 * Gets the mission probabilities for a person or a robot, calculating them
+	 * if they are not cached for the current time.
+	 * @param unit the person or robot to check for.
+	 * @return the mission probabilities.
 	 */
-	private void calculateProbability(Person person) {
-		if (missionProbCache == null) {
-			missionProbCache = new HashMap<MetaMission, Double>(MetaMissionUtil.getMetaMissions().size());
+	private MissionProbabilities getProbabilities(Unit unit) {
+		if (probCache == null) {
+			synchronized (this) {
+				if (probCache == null)
+					probCache = new ThreadLocal<MissionProbabilities>();
+			}
+		}
+
+		MissionProbabilities result = probCache.get();
+		if (result == null) {
+			result = new MissionProbabilities();
+			probCache.set(result);
 		}
 
-		// Clear total probabilities.
-		totalProbCache = 0D;
+		MarsClock currentTime = Simulation.instance().getMasterClock().getMarsClock();
+		if ((result.unit != unit) || !currentTime.equals(result.time)) {
+			if (unit instanceof Person)
+				calculateProbability((Person) unit, result);
+			else
+				calculateProbability((Robot) unit, result);
+			result.unit = unit;
+			// Set the time cache to the current time.
+			result.time = (MarsClock) currentTime.clone();
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the probabilities.
+	 * @param person the person to check for.
+	 * @param result the probabilities to fill.
+	 */
+	private void calculateProbability(Person person, MissionProbabilities result) {
+		result.probs.clear();
+		result.total = 0D;
 
 		// Determine probabilities.
 		Iterator<MetaMission> i = MetaMissionUtil.getMetaMissions().iterator();
@@ -499,27 +554,20 @@ implements Serializable {
 			MetaMission metaMission = i.next();
 			double probability = metaMission.getProbability(person);
 			if ((probability >= 0D) && (!Double.isNaN(probability)) && (!Double.isInfinite(probability))) {
-				missionProbCache.put(metaMission, probability);
-				totalProbCache += probability;
+				result.probs.put(metaMission, probability);
+				result.total += probability;
 			}
 			else {
-				missionProbCache.put(metaMission, 0D);
+				result.probs.put(metaMission, 0D);
 				logger.severe(person.getName() + " bad mission probability: " +  metaMission.getName() +
 						" probability: " + probability);
 			}
 		}
-
-		// Set the time cache to the current time.
-		personTimeCache = (MarsClock) Simulation.instance().getMasterClock().getMarsClock().clone();
 	}
 
-	private void calculateProbability(Robot robot) {
-		if (robotMissionProbCache == null) {
-			robotMissionProbCache = new HashMap<MetaMission, Double>(MetaMissionUtil.getRobotMetaMissions().size());
-		}
-
-		// Clear total probabilities.
-		totalProbCache = 0D;
+	private void calculateProbability(Robot robot, MissionProbabilities result) {
+		result.probs.clear();
+		result.total = 0D;
 
 		// Determine probabilities.
 		Iterator<MetaMission> i = MetaMissionUtil.getRobotMetaMissions().iterator();
@@ -527,37 +575,17 @@ implements Serializable {
 			MetaMission metaMission = i.next();
 			double probability = metaMission.getProbability(robot);
 			if ((probability >= 0D) && (!Double.isNaN(probability)) && (!Double.isInfinite(probability))) {
-				robotMissionProbCache.put(metaMission, probability);
-				totalProbCache += probability;
+				result.probs.put(metaMission, probability);
+				result.total += probability;
 			}
 			else {
-				robotMissionProbCache.put(metaMission, 0D);
+				result.probs.put(metaMission, 0D);
 				logger.severe(robot.getName() + " bad mission probability: " +  metaMission.getName() +
 						" probability: " + probability);
 			}
 		}
-
-		// Set the time cache to the current time.
-		robotTimeCache = (MarsClock) Simulation.instance().getMasterClock().getMarsClock().clone();
-
-	}
-
-	/**
-	 * Checks if task probability cache should be used.
-	 * @param the person to check for.
-	 * @return true if cache should be used.
-	 */
-	private boolean useCache(Person person) {
-		//if (currentTime == null)
-		MarsClock currentTime = Simulation.instance().getMasterClock().getMarsClock();
-		return currentTime.equals(personTimeCache);// && (person == personCache);
 	}
 
-	private boolean useCache(Robot robot) {
-		//if (currentTime == null)
-		MarsClock currentTime = Simulation.instance().getMasterClock().getMarsClock();
-		return currentTime.equals(robotTimeCache);// && (robot == robotCache);
-	}
 	/**
 	 * Updates mission based on passing time.
 	 * @param time amount of time passing (millisols)
@@ -583,17 +611,18 @@ implements Serializable {
 			listeners = null;
 		}
 		
-		//personCache = null;
-		personTimeCache = null;
-		robotTimeCache = null;
-		if (missionProbCache != null) {
-			missionProbCache.clear();
-			missionProbCache = null;
-		}
-		if (robotMissionProbCache != null) {
-			robotMissionProbCache.clear();
-			robotMissionProbCache = null;
-		}
+		probCache = null;
+		clearCrossSettlementTables();
+	}
+
+	/**
+	 * The mission probabilities of a person or a robot at a given time.
+	 */
+	private static class MissionProbabilities {
 
+		private Unit unit;
+		private MarsClock time;
+		private Map<MetaMission, Double> probs = new LinkedHashMap<MetaMission, Double>();
+		private double total;
 	}
 }
\ No newline at end of file
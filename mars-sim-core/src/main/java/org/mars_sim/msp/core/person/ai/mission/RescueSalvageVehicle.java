@@ -8,9 +8,12 @@
 package org.mars_sim.msp.core.person.ai.mission;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
@@ -69,6 +72,12 @@ implements Serializable {
 
     private static final double RESCUE_RESOURCE_BUFFER = 1D;
 
+    /**
+     * The vehicles with their emergency beacon on, as found in the serial phase of the
+     * time pulse (see {@link #updateBeaconVehicles()}).
+     */
+    private static volatile List<BeaconVehicle> beaconVehicles = Collections.emptyList();
+
     // Mission phases
     final public static MissionPhase RENDEZVOUS = new MissionPhase(Msg.getString(
             "Mission.phase.rendezvous")); //$NON-NLS-1$
@@ -540,7 +549,8 @@ implements Serializable {
     }
 
     /**
-     * Finds the closest available rescue or salvage vehicles within range.
+     * Finds the closest available rescue or salvage vehicles within range, from the
+     * beacon vehicles found in the last serial phase.
      * @param settlement the starting settlement.
      * @param range the available range (km).
      * @return vehicle or null if none available.
@@ -552,19 +562,14 @@ implements Serializable {
         Collection<Vehicle> emergencyBeaconVehicles = new ConcurrentLinkedQueue<Vehicle>();
         Collection<Vehicle> vehiclesNeedingRescue = new ConcurrentLinkedQueue<Vehicle>();
 
-        if (unitManager == null)
-        	unitManager = Simulation.instance().getUnitManager();
         // Find all available vehicles.
-        //Iterator<Vehicle> iV = unitManager.getVehicles().iterator();
-        //while (iV.hasNext()) {
-        for (Vehicle vehicle : unitManager.getVehicles()) {// = iV.next();
-            if (vehicle.isBeaconOn() && !isVehicleAlreadyMissionTarget(vehicle)) {
+        for (BeaconVehicle beacon : beaconVehicles) {
+            Vehicle vehicle = beacon.vehicle;
+            if (!isVehicleAlreadyMissionTarget(vehicle)) {
                 emergencyBeaconVehicles.add(vehicle);
 
-                if (vehicle instanceof Crewable) {
-                    if (((Crewable) vehicle).getCrewNum() > 0 || ((Crewable) vehicle).getRobotCrewNum() > 0) {
-                        vehiclesNeedingRescue.add(vehicle);
-                    }
+                if (beacon.crewed) {
+                    vehiclesNeedingRescue.add(vehicle);
                 }
             }
         }
@@ -753,7 +758,8 @@ implements Serializable {
     }
 
     /**
-     * Checks if this is the closest settlement to a beacon vehicle that could rescue/salvage it.
+     * Checks if this is the closest settlement to a beacon vehicle that could rescue/salvage it,
+     * from the settlements found capable in the last serial phase.
      * @param thisSettlement this settlement.
      * @param thisVehicle the beacon vehicle.
      * @return true if this is the closest settlement.
@@ -765,31 +771,86 @@ implements Serializable {
 
         double distance = thisSettlement.getCoordinates().getDistance(thisVehicle.getCoordinates());
 
-        Iterator<Settlement> iS = unitManager.getSettlements().iterator();
-        while (iS.hasNext() && result) {
-            Settlement settlement = iS.next();
-            if (settlement != thisSettlement) {
-                double settlementDistance = settlement.getCoordinates().getDistance(
-                        thisVehicle.getCoordinates());
-                if (settlementDistance < distance) {
-                    if (settlement.getNumCurrentPopulation() >= MIN_GOING_MEMBERS) {
-                        Iterator<Vehicle> iV = settlement.getParkedVehicles().iterator();
-                        while (iV.hasNext() && result) {
-                            Vehicle vehicle = iV.next();
-                            if (vehicle instanceof Rover) {
-                                if (vehicle.getRange() >= (settlementDistance * 2D)) {
-                                    result = false;
-                                }
-                            }
-                        }
-                    }
+        for (BeaconVehicle beacon : beaconVehicles) {
+            if (beacon.vehicle == thisVehicle) {
+                Settlement settlement = beacon.closestCapableSettlement;
+                if ((settlement != null) && (settlement != thisSettlement)
+                        && (beacon.closestCapableDistance < distance)) {
+                    result = false;
                 }
+                break;
             }
         }
 
         return result;
     }
 
+    /**
+     * Finds the vehicles with their emergency beacon on, and the closest settlement that
+     * could rescue/salvage each of them. Called in the serial phase of the time pulse, as
+     * it reaches into the population and the parked vehicles of every settlement.
+     */
+    static void updateBeaconVehicles() {
+        if (unitManager == null)
+        	unitManager = Simulation.instance().getUnitManager();
+
+        List<BeaconVehicle> result = new ArrayList<BeaconVehicle>();
+        for (Vehicle vehicle : unitManager.getVehicles()) {
+            if (vehicle.isBeaconOn()) {
+                BeaconVehicle beacon = new BeaconVehicle();
+                beacon.vehicle = vehicle;
+                if (vehicle instanceof Crewable) {
+                    beacon.crewed = ((Crewable) vehicle).getCrewNum() > 0
+                            || ((Crewable) vehicle).getRobotCrewNum() > 0;
+                }
+                beacon.closestCapableDistance = Double.MAX_VALUE;
+
+                Iterator<Settlement> iS = unitManager.getSettlements().iterator();
+                while (iS.hasNext()) {
+                    Settlement settlement = iS.next();
+                    double settlementDistance = settlement.getCoordinates().getDistance(
+                            vehicle.getCoordinates());
+                    if ((settlementDistance < beacon.closestCapableDistance)
+                            && isCapableSettlement(settlement, settlementDistance)) {
+                        beacon.closestCapableSettlement = settlement;
+                        beacon.closestCapableDistance = settlementDistance;
+                    }
+                }
+                result.add(beacon);
+            }
+        }
+
+        beaconVehicles = Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Drops the beacon vehicles, as they refer to the units of the simulation.
+     */
+    static void clearBeaconVehicles() {
+        beaconVehicles = Collections.emptyList();
+    }
+
+    /**
+     * Checks if a settlement has the people and a rover to rescue/salvage a vehicle.
+     * @param settlement the settlement.
+     * @param distance the distance (km) to the vehicle.
+     * @return true if capable.
+     */
+    private static boolean isCapableSettlement(Settlement settlement, double distance) {
+        if (settlement.getNumCurrentPopulation() >= MIN_GOING_MEMBERS) {
+            Iterator<Vehicle> iV = settlement.getParkedVehicles().iterator();
+            while (iV.hasNext()) {
+                Vehicle vehicle = iV.next();
+                if (vehicle instanceof Rover) {
+                    if (vehicle.getRange() >= (distance * 2D)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets the resources needed for loading the vehicle.
      * @return resources and their number.
@@ -827,4 +888,17 @@ implements Serializable {
     	waterAR = null;
     	foodAR = null;
     }
+
+    /**
+     * A vehicle with its emergency beacon on, as found in the serial phase.
+     */
+    private static class BeaconVehicle {
+
+        private Vehicle vehicle;
+        /** True if people or robots are aboard. */
+        private boolean crewed;
+        /** The closest settlement that could rescue/salvage the vehicle, or null if none. */
+        private Settlement closestCapableSettlement;
+        private double closestCapableDistance;
+    }
 }
\ No newline at end of file
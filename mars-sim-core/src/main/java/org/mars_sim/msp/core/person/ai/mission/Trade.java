@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,7 +39,6 @@ import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.structure.building.BuildingManager;
 import org.mars_sim.msp.core.structure.building.function.VehicleMaintenance;
-import org.mars_sim.msp.core.structure.goods.CreditManager;
 import org.mars_sim.msp.core.structure.goods.Good;
 import org.mars_sim.msp.core.structure.goods.GoodType;
 import org.mars_sim.msp.core.time.MarsClock;
@@ -79,9 +79,8 @@ implements Serializable {
 	// Static members
 	public static final double MAX_STARTING_PROBABILITY = 10D;
 
-	// Static cache for holding trade profit info.
-	public static final Map<Settlement, TradeProfitInfo> TRADE_PROFIT_CACHE = new HashMap<Settlement, TradeProfitInfo>();
-	public static final Map<Settlement, Settlement> TRADE_SETTLEMENT_CACHE = new HashMap<Settlement, Settlement>();
+	// Static cache for holding the best settlement to trade with, by starting settlement.
+	public static final Map<Settlement, Settlement> TRADE_SETTLEMENT_CACHE = new ConcurrentHashMap<Settlement, Settlement>();
 
 	static final int MAX_MEMBERS = 2;
 	
@@ -135,8 +134,6 @@ implements Serializable {
                         tradingSettlement.getName()));
                 setDescription(Msg.getString("Mission.description.trade.detail",
                         tradingSettlement.getName())); //$NON-NLS-1$
-                TRADE_PROFIT_CACHE.remove(getStartingSettlement());
-                TRADE_PROFIT_CACHE.remove(tradingSettlement);
                 TRADE_SETTLEMENT_CACHE.remove(getStartingSettlement());
                 TRADE_SETTLEMENT_CACHE.remove(tradingSettlement);
             }
@@ -145,30 +142,17 @@ implements Serializable {
             }
 
             if (!isDone()) {
-                // Get the credit that the starting settlement has with the destination settlement.
-                CreditManager creditManager = Simulation.instance().getCreditManager();
-                double credit = creditManager.getCredit(s, tradingSettlement);
-
-                if (credit > (TradeUtil.SELL_CREDIT_LIMIT * -1D)) {
-                    // Determine desired buy load,
-                    desiredBuyLoad = TradeUtil.getDesiredBuyLoad(s, getRover(), tradingSettlement);
+                // Take the loads and profit found for the route in the serial phase, as the
+                // trading settlement is being advanced at the same time.
+                TradeRouteTable.TradeRoute route = TradeRouteTable.getRoute(s, tradingSettlement, getRover());
+                desiredProfit = route.getProfit(getRover());
+                if (route.isProfitKnown()) {
+                    desiredBuyLoad = route.getBuyLoad();
+                    sellLoad = route.getSellLoad();
                 }
                 else {
-                    // Cannot buy from settlement due to credit limit.
-                    desiredBuyLoad = new HashMap<Good, Integer>(0);
-                }
-
-                if (credit < TradeUtil.SELL_CREDIT_LIMIT) {
-                    // Determine sell load.
-                    sellLoad = TradeUtil.determineBestSellLoad(s, getRover(), tradingSettlement);
+                    endMission(Mission.NO_TRADING_SETTLEMENT);
                 }
-                else {
-                    // Will not sell to settlement due to credit limit.
-                    sellLoad = new HashMap<Good, Integer>(0);
-                }
-
-                // Determine desired trade profit.
-                desiredProfit = estimateTradeProfit(desiredBuyLoad);
             }
 
             // Recruit additional members to mission.
@@ -444,7 +428,6 @@ implements Serializable {
             equipmentNeededCache = null;
             addNavpoint(new NavPoint(getStartingSettlement().getCoordinates(), getStartingSettlement(),
                     getStartingSettlement().getName()));
-            TRADE_PROFIT_CACHE.remove(getStartingSettlement());
         }
     }
 
@@ -1025,20 +1008,6 @@ implements Serializable {
         negotiationTask = null;
     }
 
-    /**
-     * Inner class for storing trade profit info.
-     */
-    public static class TradeProfitInfo {
-
-        public double profit;
-        public MarsClock time;
-
-        public TradeProfitInfo(double profit, MarsClock time) {
-            this.profit = profit;
-            this.time = time;
-        }
-    }
-
     @Override
     public Map<Class, Integer> getEquipmentNeededForRemainingMission(
             boolean useBuffer) {
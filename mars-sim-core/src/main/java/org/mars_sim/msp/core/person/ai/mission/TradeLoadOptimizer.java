@@ -0,0 +1,622 @@
+/**
+ * Mars Simulation Project
+ * TradeLoadOptimizer.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.mission;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mars_sim.msp.core.equipment.ContainerUtil;
+import org.mars_sim.msp.core.equipment.EVASuit;
+import org.mars_sim.msp.core.resource.AmountResource;
+import org.mars_sim.msp.core.resource.Part;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.goods.Good;
+import org.mars_sim.msp.core.structure.goods.GoodType;
+import org.mars_sim.msp.core.structure.goods.GoodsManager;
+import org.mars_sim.msp.core.structure.goods.GoodsUtil;
+import org.mars_sim.msp.core.vehicle.Rover;
+
+/**
+ * Determines the load of goods a settlement buys from another with a rover.
+ * The trade value of each good is found once, unit after unit, as long as one more
+ * unit is profitable. The units are then chosen in a single pass as a bounded knapsack
+ * over the rover mass capacity, divided into a fixed number of mass steps, each resource
+ * unit taking a container of the selling settlement. The loads are kept for a pair of
+ * settlements and a rover type until the goods values of either settlement change.
+ */
+final class TradeLoadOptimizer {
+
+	/** The number of steps the rover mass capacity is divided into. */
+	private static final int MASS_STEPS = 200;
+
+	/** The number of loads kept before they are all dropped. */
+	private static final int MAX_LOADS_KEPT = 500;
+
+	/** The loads kept, by selling settlement, buying settlement and rover type. */
+	private static final Map<LoadKey, KeptLoad> keptLoads = new ConcurrentHashMap<LoadKey, KeptLoad>();
+
+	private Settlement buyingSettlement;
+	private Settlement sellingSettlement;
+	private GoodsManager buyerGoodsManager;
+	private GoodsManager sellerGoodsManager;
+	private Rover rover;
+	private double massCapacity;
+	private Set<Part> repairParts;
+
+	/** The units of each good worth trading, except vehicles. */
+	private List<GoodUnits> goodUnits = new ArrayList<GoodUnits>();
+	/** The vehicle worth the most to trade, if any. */
+	private GoodUnits vehicleUnits;
+	/** The number of empty containers at the selling settlement, by container type. */
+	private Map<Class, Integer> numContainers = new HashMap<Class, Integer>(3);
+
+	/**
+	 * Determines the load between a buying settlement and a selling settlement. As this
+	 * reaches into the goods values and inventory of both settlements, it is only called in
+	 * the serial phase of the time pulse (see {@link TradeRouteTable#refreshRoutes()}).
+	 * @param buyingSettlement the settlement buying the goods.
+	 * @param sellingSettlement the settlement selling the goods.
+	 * @param rover the rover to carry the goods.
+	 * @param massCapacity the mass capacity (kg) of the rover for the goods.
+	 * @param repairParts the repair parts possibly needed for the trip.
+	 * @param maxBuyValue the maximum value the selling settlement will permit.
+	 * @return map of goods and their number.
+	 */
+	static Map<Good, Integer> determineLoad(Settlement buyingSettlement, Settlement sellingSettlement,
+			Rover rover, double massCapacity, Set<Part> repairParts, double maxBuyValue) {
+
+		GoodsManager buyerGoodsManager = buyingSettlement.getGoodsManager();
+		GoodsManager sellerGoodsManager = sellingSettlement.getGoodsManager();
+		int buyerGeneration = buyerGoodsManager.getValuesGeneration();
+		int sellerGeneration = sellerGoodsManager.getValuesGeneration();
+
+		// Only the loads not limited by a buy value are kept.
+		boolean keepLoad = Double.isInfinite(maxBuyValue);
+		LoadKey key = new LoadKey(sellingSettlement, buyingSettlement, rover.getDescription());
+		if (keepLoad) {
+			KeptLoad kept = keptLoads.get(key);
+			if ((kept != null) && (kept.buyerGeneration == buyerGeneration)
+					&& (kept.sellerGeneration == sellerGeneration)) {
+				return new HashMap<Good, Integer>(kept.load);
+			}
+		}
+
+		buyerGoodsManager.prepareForLoadCalculation();
+		sellerGoodsManager.prepareForLoadCalculation();
+
+		TradeLoadOptimizer optimizer = new TradeLoadOptimizer(buyingSettlement, sellingSettlement, rover,
+				massCapacity, repairParts);
+		Map<Good, Integer> load = optimizer.solve(maxBuyValue);
+
+		if (keepLoad) {
+			if (keptLoads.size() >= MAX_LOADS_KEPT) {
+				keptLoads.clear();
+			}
+			keptLoads.put(key, new KeptLoad(buyerGeneration, sellerGeneration, load));
+		}
+
+		return new HashMap<Good, Integer>(load);
+	}
+
+	/**
+	 * Drops all the kept loads, as they refer to the settlements of the simulation.
+	 */
+	static void clearKeptLoads() {
+		keptLoads.clear();
+	}
+
+	/**
+	 * Constructor for choosing a load among given units of goods.
+	 * @param massCapacity the mass capacity (kg) of the rover for the goods.
+	 */
+	TradeLoadOptimizer(double massCapacity) {
+		this.massCapacity = Math.max(0D, massCapacity);
+	}
+
+	/**
+	 * Constructor.
+	 * @param buyingSettlement the settlement buying the goods.
+	 * @param sellingSettlement the settlement selling the goods.
+	 * @param rover the rover to carry the goods.
+	 * @param massCapacity the mass capacity (kg) of the rover for the goods.
+	 * @param repairParts the repair parts possibly needed for the trip.
+	 */
+	private TradeLoadOptimizer(Settlement buyingSettlement, Settlement sellingSettlement, Rover rover,
+			double massCapacity, Set<Part> repairParts) {
+		this.buyingSettlement = buyingSettlement;
+		this.sellingSettlement = sellingSettlement;
+		this.rover = rover;
+		this.massCapacity = Math.max(0D, massCapacity);
+		this.repairParts = repairParts;
+		buyerGoodsManager = buyingSettlement.getGoodsManager();
+		sellerGoodsManager = sellingSettlement.getGoodsManager();
+	}
+
+	/**
+	 * Finds the best load.
+	 * @param maxBuyValue the maximum value the selling settlement will permit.
+	 * @return map of goods and their number.
+	 */
+	private Map<Good, Integer> solve(double maxBuyValue) {
+
+		Iterator<Good> i = GoodsUtil.getGoodsList().iterator();
+		while (i.hasNext()) {
+			Good good = i.next();
+			GoodUnits units = findUnits(good);
+			if (units != null) {
+				addUnits(units);
+			}
+		}
+
+		return chooseLoad(maxBuyValue);
+	}
+
+	/**
+	 * Adds the units of a good worth trading.
+	 * @param units the units of the good.
+	 */
+	void addUnits(GoodUnits units) {
+		if (GoodType.VEHICLE == units.good.getCategory()) {
+			// Only one vehicle can be traded, taking no room in the rover.
+			if ((vehicleUnits == null) || (units.profits[0] > vehicleUnits.profits[0])) {
+				vehicleUnits = units;
+				vehicleUnits.chosen = 1;
+			}
+		}
+		else {
+			goodUnits.add(units);
+		}
+	}
+
+	/**
+	 * Sets the number of empty containers of a type at the selling settlement.
+	 * @param containerType the container type.
+	 * @param number the number of containers.
+	 */
+	void setNumContainers(Class containerType, int number) {
+		numContainers.put(containerType, number);
+	}
+
+	/**
+	 * Chooses the load among the units of goods added.
+	 * @param maxBuyValue the maximum value the selling settlement will permit.
+	 * @return map of goods and their number.
+	 */
+	Map<Good, Integer> chooseLoad(double maxBuyValue) {
+		chooseUnits();
+		limitContainers();
+		if (!Double.isInfinite(maxBuyValue)) {
+			limitBuyValue(maxBuyValue);
+		}
+
+		Map<Good, Integer> load = new HashMap<Good, Integer>();
+		for (GoodUnits units : goodUnits) {
+			addToLoad(load, units);
+		}
+		if (vehicleUnits != null) {
+			addToLoad(load, vehicleUnits);
+		}
+		return load;
+	}
+
+	/**
+	 * Finds the units of a good worth trading, until one more unit is not profitable
+	 * or the selling settlement needs to keep the rest.
+	 * @param good the good.
+	 * @return the units, or null if none worth trading.
+	 */
+	private GoodUnits findUnits(Good good) {
+		double sellingInventory = TradeUtil.getNumInInventory(good, sellingSettlement.getInventory());
+		if (sellingInventory <= 0D) {
+			return null;
+		}
+		double buyingInventory = TradeUtil.getNumInInventory(good, buyingSettlement.getInventory());
+
+		boolean isAmountResource = (GoodType.AMOUNT_RESOURCE == good.getCategory());
+		boolean isVehicle = (GoodType.VEHICLE == good.getCategory());
+		double massPerItem = GoodsUtil.getGoodMassPerItem(good);
+		double unitNumber = 1D;
+		double containerMass = 0D;
+		double containerValue = 0D;
+		Class containerType = null;
+		int maxUnits = Integer.MAX_VALUE;
+
+		if (isAmountResource) {
+			// A unit of a resource fills a container.
+			AmountResource resource = (AmountResource) good.getObject();
+			unitNumber = TradeUtil.getResourceTradeAmount(resource);
+			if (unitNumber <= 0D) {
+				return null;
+			}
+			containerType = ContainerUtil.getContainerTypeNeeded(resource.getPhase());
+			Good containerGood = GoodsUtil.getEquipmentGood(containerType);
+			containerMass = GoodsUtil.getGoodMassPerItem(containerGood);
+			containerValue = buyerGoodsManager.getGoodValuePerItem(containerGood,
+					buyerGoodsManager.getNumberOfGoodForSettlement(containerGood));
+			maxUnits = getNumContainers(containerType);
+		}
+		else if (isVehicle) {
+			massPerItem = 0D;
+			maxUnits = 1;
+		}
+		else if (massPerItem > 0D) {
+			// Group the light items and equipment so that a unit weighs at least a mass step.
+			unitNumber = Math.max(1D, Math.ceil(massCapacity / MASS_STEPS / massPerItem));
+		}
+
+		if (!isVehicle) {
+			double unitMass = (massPerItem * unitNumber) + containerMass;
+			if (unitMass > 0D) {
+				maxUnits = (int) Math.min(maxUnits, Math.floor(massCapacity / unitMass));
+			}
+		}
+
+		GoodUnits units = new GoodUnits(good, containerType);
+		double traded = 0D;
+		for (int x = 0; x < maxUnits; x++) {
+			double number = unitNumber;
+			if (!isAmountResource) {
+				number = Math.min(unitNumber, sellingInventory - traded);
+			}
+			if (number < 1D) {
+				break;
+			}
+
+			// Value the unit by its last kg or item.
+			double last = isAmountResource ? 1D : number;
+			double sellingSupply = Math.max(0D, sellingInventory - traded - last);
+			double buyingSupply = buyingInventory + traded + last;
+			if (!isTradeable(good, sellingInventory, sellingSupply, traded, unitNumber)) {
+				break;
+			}
+
+			double sellingValue = sellerGoodsManager.getGoodValuePerItem(good, sellingSupply) * number;
+			double buyingValue = buyerGoodsManager.getGoodValuePerItem(good, buyingSupply) * number;
+			if ((buyingValue <= sellingValue) || (buyingValue <= 0D)) {
+				break;
+			}
+
+			units.add((int) number, (massPerItem * number) + containerMass, buyingValue - sellingValue,
+					buyingValue + containerValue);
+			traded += number;
+		}
+
+		return (units.size > 0) ? units : null;
+	}
+
+	/**
+	 * Checks if the selling settlement can spare one more unit of a good.
+	 * @param good the good.
+	 * @param sellingInventory the number of the good at the selling settlement.
+	 * @param sellingSupply the supply left at the selling settlement after the unit.
+	 * @param traded the number of the good already in the load.
+	 * @param unitNumber the number of the good in a unit.
+	 * @return true if tradeable.
+	 */
+	private boolean isTradeable(Good good, double sellingInventory, double sellingSupply, double traded,
+			double unitNumber) {
+
+		if (sellingInventory <= traded) {
+			return false;
+		}
+
+		if (GoodType.AMOUNT_RESOURCE == good.getCategory()) {
+			// Enough of the resource to fill a container.
+			if (sellingSupply < unitNumber) {
+				return false;
+			}
+			AmountResource resource = (AmountResource) good.getObject();
+			if (resource.isLifeSupport() && (sellingSupply < TradeUtil.MIN_LIFE_SUPPORT_RESOURCES)) {
+				return false;
+			}
+		}
+		else if (GoodType.ITEM_RESOURCE == good.getCategory()) {
+			if (repairParts.contains(good.getObject()) && (sellingSupply < TradeUtil.MIN_REPAIR_PARTS)) {
+				return false;
+			}
+		}
+		else if (GoodType.EQUIPMENT == good.getCategory()) {
+			if ((good.getClassType() == EVASuit.class)
+					&& (sellingInventory - traded <= Trade.MAX_MEMBERS + 2)) {
+				return false;
+			}
+		}
+		else if (GoodType.VEHICLE == good.getCategory()) {
+			// The selling settlement keeps its last rover of the mission rover type.
+			if (good.getName().equalsIgnoreCase(rover.getDescription()) && (sellingInventory == 1D)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Chooses the number of units of each good giving the most profit within the mass
+	 * capacity, the units of a good being taken in order.
+	 */
+	private void chooseUnits() {
+		if ((massCapacity <= 0D) || goodUnits.isEmpty()) {
+			return;
+		}
+
+		double stepMass = massCapacity / MASS_STEPS;
+
+		// The best profit using at most each number of mass steps, with the goods so far.
+		double[] best = new double[MASS_STEPS + 1];
+		int[][] choices = new int[goodUnits.size()][];
+
+		for (int g = 0; g < goodUnits.size(); g++) {
+			GoodUnits units = goodUnits.get(g);
+
+			// The mass steps taken by the first units of the good, rounded up.
+			units.steps = new int[units.size + 1];
+			double mass = 0D;
+			for (int x = 0; x < units.size; x++) {
+				mass += units.masses[x];
+				units.steps[x + 1] = (int) Math.ceil((mass / stepMass) - 1E-9D);
+			}
+
+			double[] next = Arrays.copyOf(best, best.length);
+			int[] choice = new int[MASS_STEPS + 1];
+			for (int c = 0; c <= MASS_STEPS; c++) {
+				double profit = 0D;
+				for (int n = 1; n <= units.size; n++) {
+					int steps = units.steps[n];
+					if (steps > c) {
+						break;
+					}
+					profit += units.profits[n - 1];
+					double value = best[c - steps] + profit;
+					if (value > next[c]) {
+						next[c] = value;
+						choice[c] = n;
+					}
+				}
+			}
+			best = next;
+			choices[g] = choice;
+		}
+
+		// Go back through the choices.
+		int c = MASS_STEPS;
+		for (int g = goodUnits.size() - 1; g >= 0; g--) {
+			GoodUnits units = goodUnits.get(g);
+			units.chosen = choices[g][c];
+			c -= units.steps[units.chosen];
+		}
+	}
+
+	/**
+	 * Drops the least profitable units until the containers of each type taken by the
+	 * resources and traded as equipment are no more than the selling settlement has.
+	 */
+	private void limitContainers() {
+		Iterator<Class> i = numContainers.keySet().iterator();
+		while (i.hasNext()) {
+			Class containerType = i.next();
+			Good containerGood = GoodsUtil.getEquipmentGood(containerType);
+
+			List<GoodUnits> users = new ArrayList<GoodUnits>();
+			int used = 0;
+			for (GoodUnits units : goodUnits) {
+				if (units.containerType == containerType) {
+					users.add(units);
+					used += units.chosen;
+				}
+				else if (units.good.equals(containerGood)) {
+					users.add(units);
+					used += units.getChosenNumber();
+				}
+			}
+
+			int available = numContainers.get(containerType);
+			while (used > available) {
+				GoodUnits units = getLeastProfitable(users);
+				if (units == null) {
+					break;
+				}
+				units.chosen--;
+				used -= (units.containerType != null) ? 1 : units.numbers[units.chosen];
+			}
+		}
+	}
+
+	/**
+	 * Drops the least profitable units until the value of the load to the buying
+	 * settlement is less than a maximum.
+	 * @param maxBuyValue the maximum value.
+	 */
+	private void limitBuyValue(double maxBuyValue) {
+		List<GoodUnits> all = new ArrayList<GoodUnits>(goodUnits);
+		if (vehicleUnits != null) {
+			all.add(vehicleUnits);
+		}
+
+		double buyValue = 0D;
+		for (GoodUnits units : all) {
+			for (int x = 0; x < units.chosen; x++) {
+				buyValue += units.buyValues[x];
+			}
+		}
+
+		while (buyValue >= maxBuyValue) {
+			GoodUnits units = getLeastProfitable(all);
+			if (units == null) {
+				break;
+			}
+			units.chosen--;
+			buyValue -= units.buyValues[units.chosen];
+		}
+	}
+
+	/**
+	 * Gets the goods whose last chosen unit is the least profitable.
+	 * @param list the goods to check.
+	 * @return the units of the good, or null if no unit chosen.
+	 */
+	private static GoodUnits getLeastProfitable(List<GoodUnits> list) {
+		GoodUnits result = null;
+		for (GoodUnits units : list) {
+			if ((units.chosen > 0) && ((result == null)
+					|| (units.profits[units.chosen - 1] < result.profits[result.chosen - 1]))) {
+				result = units;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of empty containers of a type at the selling settlement.
+	 * @param containerType the container type.
+	 * @return number of containers.
+	 */
+	private int getNumContainers(Class containerType) {
+		Integer result = numContainers.get(containerType);
+		if (result == null) {
+			result = sellingSettlement.getInventory().findNumEmptyUnitsOfClass(containerType, false);
+			numContainers.put(containerType, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the chosen units of a good, and the containers they take, to a load.
+	 * @param load the load.
+	 * @param units the units of the good.
+	 */
+	private static void addToLoad(Map<Good, Integer> load, GoodUnits units) {
+		if (units.chosen > 0) {
+			addToLoad(load, units.good, units.getChosenNumber());
+			if (units.containerType != null) {
+				addToLoad(load, GoodsUtil.getEquipmentGood(units.containerType), units.chosen);
+			}
+		}
+	}
+
+	private static void addToLoad(Map<Good, Integer> load, Good good, int number) {
+		Integer current = load.get(good);
+		load.put(good, (current == null) ? number : current + number);
+	}
+
+	/**
+	 * The units of a good worth trading, in the order they are taken.
+	 */
+	static class GoodUnits {
+
+		private Good good;
+		/** The container type each unit needs, or null if none. */
+		private Class containerType;
+		/** The number of units. */
+		private int size;
+		/** The number of the good in each unit (kg for an amount resource). */
+		private int[] numbers = new int[8];
+		/** The mass (kg) of each unit, including its container. */
+		private double[] masses = new double[8];
+		/** The profit of trading each unit (value points). */
+		private double[] profits = new double[8];
+		/** The value of each unit to the buying settlement, including its container. */
+		private double[] buyValues = new double[8];
+		/** The mass steps taken by the first units, by number of units. */
+		private int[] steps;
+		/** The number of units chosen for the load. */
+		private int chosen;
+
+		/**
+		 * Constructor.
+		 * @param good the good.
+		 * @param containerType the container type each unit needs, or null if none.
+		 */
+		GoodUnits(Good good, Class containerType) {
+			this.good = good;
+			this.containerType = containerType;
+		}
+
+		/**
+		 * Adds a unit, after the units already added.
+		 * @param number the number of the good in the unit (kg for an amount resource).
+		 * @param mass the mass (kg) of the unit, including its container.
+		 * @param profit the profit of trading the unit (value points).
+		 * @param buyValue the value of the unit to the buying settlement, including its container.
+		 */
+		void add(int number, double mass, double profit, double buyValue) {
+			if (size == numbers.length) {
+				numbers = Arrays.copyOf(numbers, size * 2);
+				masses = Arrays.copyOf(masses, size * 2);
+				profits = Arrays.copyOf(profits, size * 2);
+				buyValues = Arrays.copyOf(buyValues, size * 2);
+			}
+			numbers[size] = number;
+			masses[size] = mass;
+			profits[size] = profit;
+			buyValues[size] = buyValue;
+			size++;
+		}
+
+		private int getChosenNumber() {
+			int result = 0;
+			for (int x = 0; x < chosen; x++) {
+				result += numbers[x];
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The key of a kept load.
+	 */
+	private static class LoadKey {
+
+		private Settlement sellingSettlement;
+		private Settlement buyingSettlement;
+		private String roverType;
+
+		private LoadKey(Settlement sellingSettlement, Settlement buyingSettlement, String roverType) {
+			this.sellingSettlement = sellingSettlement;
+			this.buyingSettlement = buyingSettlement;
+			this.roverType = roverType;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof LoadKey)) {
+				return false;
+			}
+			LoadKey key = (LoadKey) object;
+			return (sellingSettlement == key.sellingSettlement) && (buyingSettlement == key.buyingSettlement)
+					&& roverType.equals(key.roverType);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * System.identityHashCode(sellingSettlement) + System.identityHashCode(buyingSettlement))
+					* 31 + roverType.hashCode();
+		}
+	}
+
+	/**
+	 * A load kept with the goods value generations it was found with.
+	 */
+	private static class KeptLoad {
+
+		private int buyerGeneration;
+		private int sellerGeneration;
+		private Map<Good, Integer> load;
+
+		private KeptLoad(int buyerGeneration, int sellerGeneration, Map<Good, Integer> load) {
+			this.buyerGeneration = buyerGeneration;
+			this.sellerGeneration = sellerGeneration;
+			this.load = load;
+		}
+	}
+}
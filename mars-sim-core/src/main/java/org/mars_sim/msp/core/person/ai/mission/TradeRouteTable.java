@@ -0,0 +1,292 @@
+/**
+ * Mars Simulation Project
+ * TradeRouteTable.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.mission;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.goods.Good;
+import org.mars_sim.msp.core.time.MasterClock;
+import org.mars_sim.msp.core.vehicle.Rover;
+
+/**
+ * The trade routes between settlements for each rover type. The distance, trip time
+ * and resources needed for the trip of a route are found once. The mission cost is kept
+ * until the goods values of the starting settlement change, and the trade profit until
+ * the sol or the goods values of either settlement change.
+ * <p>
+ * Finding the trade profit reaches into the inventory and goods values of both
+ * settlements, so it is only done in the serial phase of the time pulse (see
+ * {@link #refreshRoutes()}). The settlement partitions read the profit and the loads
+ * found then, and the routes they ask for are refreshed at the end of the pulse.
+ */
+final class TradeRouteTable {
+
+	/** The number of routes kept before they are all dropped. */
+	private static final int MAX_ROUTES_KEPT = 500;
+
+	/** The routes, by starting settlement, trading settlement and rover type. */
+	private static final Map<RouteKey, TradeRoute> routes = new ConcurrentHashMap<RouteKey, TradeRoute>();
+
+	/**
+	 * Private constructor for utility class.
+	 */
+	private TradeRouteTable() {
+	}
+
+	/**
+	 * Gets the trade route from a settlement to another.
+	 * @param startingSettlement the settlement to trade from.
+	 * @param tradingSettlement the settlement to trade to.
+	 * @param rover the rover to carry the trade goods.
+	 * @return the trade route.
+	 */
+	static TradeRoute getRoute(Settlement startingSettlement, Settlement tradingSettlement, Rover rover) {
+		RouteKey key = new RouteKey(startingSettlement, tradingSettlement, rover.getDescription());
+		TradeRoute result = routes.get(key);
+		if (result == null) {
+			if (routes.size() >= MAX_ROUTES_KEPT) {
+				routes.clear();
+			}
+			result = new TradeRoute(startingSettlement, tradingSettlement, rover);
+			TradeRoute previous = routes.putIfAbsent(key, result);
+			if (previous != null) {
+				result = previous;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops all the routes, as they refer to the settlements of the simulation.
+	 */
+	static void clearRoutes() {
+		routes.clear();
+	}
+
+	/**
+	 * Finds the profit of the routes asked for whose profit is out of date. Called in the
+	 * serial phase of the time pulse, in the order of the settlements and rover types so
+	 * a run is the same in serial and in parallel.
+	 */
+	static void refreshRoutes() {
+		List<TradeRoute> list = new ArrayList<TradeRoute>(routes.values());
+		Collections.sort(list, ROUTE_ORDER);
+		for (TradeRoute route : list) {
+			route.refresh();
+		}
+	}
+
+	/** The order the routes are refreshed in. */
+	private static final Comparator<TradeRoute> ROUTE_ORDER = new Comparator<TradeRoute>() {
+		@Override
+		public int compare(TradeRoute route1, TradeRoute route2) {
+			int result = Integer.compare(route1.startingSettlement.getIdentifier(),
+					route2.startingSettlement.getIdentifier());
+			if (result == 0) {
+				result = Integer.compare(route1.tradingSettlement.getIdentifier(),
+						route2.tradingSettlement.getIdentifier());
+			}
+			if (result == 0) {
+				result = route1.roverType.compareTo(route2.roverType);
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * A trade route from a settlement to another with a rover type.
+	 */
+	static final class TradeRoute {
+
+		private Settlement startingSettlement;
+		private Settlement tradingSettlement;
+		private String roverType;
+		/** The distance (km) between the settlements. */
+		private double distance;
+		/** The estimated time (sols) of the round trip. */
+		private double tripTime;
+		/** The resources needed for the round trip. */
+		private Map<Good, Integer> neededResources;
+
+		/** The estimated mission cost (value points). */
+		private double missionCost;
+		/** The goods values generation of the starting settlement the mission cost was found with. */
+		private int costGeneration;
+		private boolean costKnown = false;
+
+		/** The estimated trade profit (value points). */
+		private double profit;
+		/** The sol the trade profit was found on. */
+		private int profitSol;
+		/** The goods values generations of the settlements the trade profit was found with. */
+		private int startingGeneration;
+		private int tradingGeneration;
+		private boolean profitKnown = false;
+		/** The loads bought and sold the trade profit was found with. */
+		private Map<Good, Integer> buyLoad = new HashMap<Good, Integer>(0);
+		private Map<Good, Integer> sellLoad = new HashMap<Good, Integer>(0);
+		/** The rover the trade profit was asked for since the last serial phase, or null if none. */
+		private Rover rover;
+
+		/**
+		 * Constructor.
+		 * @param startingSettlement the settlement to trade from.
+		 * @param tradingSettlement the settlement to trade to.
+		 * @param rover the rover to carry the trade goods.
+		 */
+		private TradeRoute(Settlement startingSettlement, Settlement tradingSettlement, Rover rover) {
+			this.startingSettlement = startingSettlement;
+			this.tradingSettlement = tradingSettlement;
+			roverType = rover.getDescription();
+			distance = startingSettlement.getCoordinates().getDistance(tradingSettlement.getCoordinates());
+			tripTime = TradeUtil.getEstimatedTripTime(rover, distance * 2D);
+			neededResources = TradeUtil.getEstimatedMissionResources(rover, distance * 2D);
+		}
+
+		/**
+		 * Gets the distance between the settlements.
+		 * @return distance (km).
+		 */
+		double getDistance() {
+			return distance;
+		}
+
+		/**
+		 * Gets the estimated time of the round trip.
+		 * @return time (sols).
+		 */
+		double getTripTime() {
+			return tripTime;
+		}
+
+		/**
+		 * Gets the estimated cost of the mission to the starting settlement.
+		 * @return cost (value points).
+		 */
+		synchronized double getMissionCost() {
+			int generation = startingSettlement.getGoodsManager().getValuesGeneration();
+			if (!costKnown || (generation != costGeneration)) {
+				missionCost = TradeUtil.determineLoadValue(neededResources, startingSettlement, false);
+				costGeneration = generation;
+				costKnown = true;
+			}
+			return missionCost;
+		}
+
+		/**
+		 * Gets the estimated profit of the trade, net of the mission cost, as found in the
+		 * last serial phase. The route is refreshed at the end of the time pulse.
+		 * @param rover the rover to carry the trade goods.
+		 * @return profit (value points), or zero if not found yet.
+		 */
+		synchronized double getProfit(Rover rover) {
+			this.rover = rover;
+			return profit;
+		}
+
+		/**
+		 * Checks if the trade profit has been found.
+		 * @return true if found.
+		 */
+		synchronized boolean isProfitKnown() {
+			return profitKnown;
+		}
+
+		/**
+		 * Gets the load to buy from the trading settlement the trade profit was found with.
+		 * @return the load.
+		 */
+		synchronized Map<Good, Integer> getBuyLoad() {
+			return new HashMap<Good, Integer>(buyLoad);
+		}
+
+		/**
+		 * Gets the load to sell to the trading settlement the trade profit was found with.
+		 * @return the load.
+		 */
+		synchronized Map<Good, Integer> getSellLoad() {
+			return new HashMap<Good, Integer>(sellLoad);
+		}
+
+		/**
+		 * Finds the trade profit again if it has been asked for since the last serial phase
+		 * and is out of date. Only called in the serial phase of the time pulse.
+		 */
+		private synchronized void refresh() {
+			if (rover == null) {
+				return;
+			}
+			int sol = getMissionSol();
+			int startingGen = startingSettlement.getGoodsManager().getValuesGeneration();
+			int tradingGen = tradingSettlement.getGoodsManager().getValuesGeneration();
+			if (!profitKnown || (sol != profitSol) || (startingGen != startingGeneration)
+					|| (tradingGen != tradingGeneration)) {
+				buyLoad = TradeUtil.getCreditBuyLoad(startingSettlement, rover, tradingSettlement);
+				sellLoad = TradeUtil.getCreditSellLoad(startingSettlement, rover, tradingSettlement);
+				profit = TradeUtil.getEstimatedTradeRevenue(startingSettlement, tradingSettlement,
+						buyLoad, sellLoad) - getMissionCost();
+				profitSol = sol;
+				startingGeneration = startingGen;
+				tradingGeneration = tradingGen;
+				profitKnown = true;
+			}
+			rover = null;
+		}
+
+		/**
+		 * Gets the current mission sol.
+		 * @return sol, or 0 if no clock.
+		 */
+		private static int getMissionSol() {
+			MasterClock masterClock = Simulation.instance().getMasterClock();
+			if ((masterClock == null) || (masterClock.getMarsClock() == null)) {
+				return 0;
+			}
+			return masterClock.getMarsClock().getMissionSol();
+		}
+	}
+
+	/**
+	 * The key of a trade route.
+	 */
+	private static class RouteKey {
+
+		private Settlement startingSettlement;
+		private Settlement tradingSettlement;
+		private String roverType;
+
+		private RouteKey(Settlement startingSettlement, Settlement tradingSettlement, String roverType) {
+			this.startingSettlement = startingSettlement;
+			this.tradingSettlement = tradingSettlement;
+			this.roverType = roverType;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof RouteKey)) {
+				return false;
+			}
+			RouteKey key = (RouteKey) object;
+			return (startingSettlement == key.startingSettlement) && (tradingSettlement == key.tradingSettlement)
+					&& roverType.equals(key.roverType);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * System.identityHashCode(startingSettlement) + System.identityHashCode(tradingSettlement))
+					* 31 + roverType.hashCode();
+		}
+	}
+}
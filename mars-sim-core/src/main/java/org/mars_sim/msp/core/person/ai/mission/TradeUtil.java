@@ -6,11 +6,11 @@
  */
 package org.mars_sim.msp.core.person.ai.mission;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Coordinates;
@@ -19,7 +19,6 @@ import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.equipment.ContainerUtil;
-import org.mars_sim.msp.core.equipment.EVASuit;
 import org.mars_sim.msp.core.equipment.Equipment;
 import org.mars_sim.msp.core.equipment.EquipmentFactory;
 import org.mars_sim.msp.core.person.PhysicalCondition;
@@ -56,19 +55,13 @@ public final class TradeUtil {
 	private static final double MISSION_BASE_MASS = 2000D;
 
 	/** Minimum mass (kg) of life support resources to leave at settlement. */
-	private static final int MIN_LIFE_SUPPORT_RESOURCES = 100;
+	static final int MIN_LIFE_SUPPORT_RESOURCES = 100;
 
 	/** Minimum number of repair parts to leave at settlement. */
-	private static final int MIN_REPAIR_PARTS = 20;
-
-	/** Performance cache for equipment goods. */
-	private final static Map <Class, Equipment> equipmentGoodCache = new HashMap<Class, Equipment>(5);
-
-	/** Cache for the best trade settlement. */
-	public static Settlement bestTradeSettlementCache = null;
+	static final int MIN_REPAIR_PARTS = 20;
 
 	/** Cache for container types. */
-	private final static Map <Class, Equipment> containerTypeCache = new HashMap<Class, Equipment>(3);
+	private final static Map <Class, Equipment> containerTypeCache = new ConcurrentHashMap<Class, Equipment>(3);
 
 	private static AmountResource oxygenAR = ResourceUtil.oxygenAR;
 	private static AmountResource waterAR = ResourceUtil.waterAR;
@@ -86,6 +79,10 @@ public final class TradeUtil {
 
 	/**
 	 * Gets the best trade value for a given settlement.
+	 * The settlement to trade with is kept in {@link Trade#TRADE_SETTLEMENT_CACHE}.
+	 * The profits are those found in the last serial phase of the time pulse
+	 * (see {@link TradeRouteTable#refreshRoutes()}), as finding them reaches into the
+	 * inventory and goods values of the other settlements.
 	 * @param startingSettlement the settlement to trade from.
 	 * @param rover the rover to carry the trade.
 	 * @return the best value (value points) for trade.
@@ -95,22 +92,14 @@ public final class TradeUtil {
 		double bestProfit = 0D;
 		Settlement bestSettlement = null;
 
-		//Iterator<Settlement> i = unitManager.getSettlements().iterator();
-		//while (i.hasNext()) {
-		for (Settlement s : unitManager.getSettlements()) {//= i.next();
+		for (Settlement s : unitManager.getSettlements()) {
 			if (s != startingSettlement) {
 
-				boolean hasCurrentTradeMission = hasCurrentTradeMission(startingSettlement, s);
+				TradeRouteTable.TradeRoute route = TradeRouteTable.getRoute(startingSettlement, s, rover);
+				boolean withinRange = (route.getDistance() <= (rover.getRange() * .8D));
 
-				double settlementRange = s.getCoordinates().getDistance(startingSettlement.getCoordinates());
-				boolean withinRange = (settlementRange <= (rover.getRange() * .8D));
-
-				if (!hasCurrentTradeMission && withinRange) {
-					// double startTime = System.currentTimeMillis();
-					
-					double profit = getEstimatedTradeProfit(startingSettlement, rover, s);
-					// double endTime = System.currentTimeMillis();
-					// logger.info("getEstimatedTradeProfit " + (endTime - startTime));
+				if (withinRange && !hasCurrentTradeMission(startingSettlement, s)) {
+					double profit = route.getProfit(rover);
 					if (profit > bestProfit) {
 						bestProfit = profit;
 						bestSettlement = s;
@@ -120,7 +109,12 @@ public final class TradeUtil {
 		}
 
 		// Set settlement cache.
-		bestTradeSettlementCache = bestSettlement;
+		if (bestSettlement != null) {
+			Trade.TRADE_SETTLEMENT_CACHE.put(startingSettlement, bestSettlement);
+		}
+		else {
+			Trade.TRADE_SETTLEMENT_CACHE.remove(startingSettlement);
+		}
 
 		return bestProfit;
 	}
@@ -157,60 +151,61 @@ public final class TradeUtil {
 	}
 
 	/**
-	 * Gets the estimated trade profit from one settlement to another.
-	 * @param startingSettlement the settlement to trade from.
-	 * @param rover the rover to carry the trade goods.
-	 * @param tradingSettlement the settlement to trade to.
-	 * @return the trade profit (value points)
-	 * @throws Exception if error getting the estimated trade profit.
-	 */
-	private static double getEstimatedTradeProfit(Settlement startingSettlement, Rover rover,
-			Settlement tradingSettlement) {
-
-		// Determine estimated trade revenue.
-		double revenue = getEstimatedTradeRevenue(startingSettlement, rover, tradingSettlement);
-
-		// Determine estimated mission cost.
-		double distance = startingSettlement.getCoordinates().getDistance(tradingSettlement.getCoordinates()) * 2D;
-		double cost = getEstimatedMissionCost(startingSettlement, rover, distance);
-
-		return revenue - cost;
-	}
-
-	/**
-	 * Gets the estimated trade revenue from one settlement to another.
-	 * @param startingSettlement the settlement to trade from.
-	 * @param rover the rover to carry the trade goods.
-	 * @param tradingSettlement the settlement to trade to.
-	 * @return the trade revenue (value points).
-	 * @throws Exception if error getting the estimated trade revenue.
+	 * Gets the buy load from a trading settlement the credit between the settlements permits.
+	 * @param startingSettlement the settlement that is buying.
+	 * @param rover the rover used for trade.
+	 * @param tradingSettlement the settlement to buy from.
+	 * @return the buy load.
 	 */
-	private static double getEstimatedTradeRevenue(Settlement startingSettlement, Rover rover,
+	static Map<Good, Integer> getCreditBuyLoad(Settlement startingSettlement, Rover rover,
 			Settlement tradingSettlement) {
 
 		// Get credit between starting settlement and trading settlement.
-		//CreditManager creditManager = Simulation.instance().getCreditManager();
 		double credit = creditManager.getCredit(startingSettlement, tradingSettlement);
 
-		Map<Good, Integer> buyLoad = null;
 		if (credit > (TradeUtil.SELL_CREDIT_LIMIT * -1D)) {
 			// Determine desired buy load,
-			buyLoad = TradeUtil.getDesiredBuyLoad(startingSettlement, rover, tradingSettlement);
+			return TradeUtil.getDesiredBuyLoad(startingSettlement, rover, tradingSettlement);
 		}
 		else {
 			// Cannot buy from settlement due to credit limit.
-			buyLoad = new HashMap<Good, Integer>(0);
+			return new HashMap<Good, Integer>(0);
 		}
+	}
+
+	/**
+	 * Gets the sell load to a trading settlement the credit between the settlements permits.
+	 * @param startingSettlement the settlement that is selling.
+	 * @param rover the rover used for trade.
+	 * @param tradingSettlement the settlement to sell to.
+	 * @return the sell load.
+	 */
+	static Map<Good, Integer> getCreditSellLoad(Settlement startingSettlement, Rover rover,
+			Settlement tradingSettlement) {
+
+		// Get credit between starting settlement and trading settlement.
+		double credit = creditManager.getCredit(startingSettlement, tradingSettlement);
 
-		Map<Good, Integer> sellLoad = null;
 		if (credit < TradeUtil.SELL_CREDIT_LIMIT) {
 			// Determine sell load.
-			sellLoad = TradeUtil.determineBestSellLoad(startingSettlement, rover, tradingSettlement);
+			return TradeUtil.determineBestSellLoad(startingSettlement, rover, tradingSettlement);
 		}
 		else {
 			// Will not sell to settlement due to credit limit.
-			sellLoad = new HashMap<Good, Integer>(0);
+			return new HashMap<Good, Integer>(0);
 		}
+	}
+
+	/**
+	 * Gets the estimated trade revenue of the loads from one settlement to another.
+	 * @param startingSettlement the settlement to trade from.
+	 * @param tradingSettlement the settlement to trade to.
+	 * @param buyLoad the load bought from the trading settlement.
+	 * @param sellLoad the load sold to the trading settlement.
+	 * @return the trade revenue (value points).
+	 */
+	static double getEstimatedTradeRevenue(Settlement startingSettlement, Settlement tradingSettlement,
+			Map<Good, Integer> buyLoad, Map<Good, Integer> sellLoad) {
 
 		double sellingValueHome = TradeUtil.determineLoadValue(sellLoad, startingSettlement, false);
 		double sellingValueRemote = TradeUtil.determineLoadValue(sellLoad, tradingSettlement, true);
@@ -271,13 +266,6 @@ public final class TradeUtil {
 	public static Map<Good, Integer> determineLoad(Settlement buyingSettlement, Settlement sellingSettlement,
 			Rover rover, double maxBuyValue) {
 
-		Map<Good, Integer> tradeList = new HashMap<Good, Integer>();
-		boolean hasRover = false;
-		GoodsManager buyerGoodsManager = buyingSettlement.getGoodsManager();
-		buyerGoodsManager.prepareForLoadCalculation();
-		GoodsManager sellerGoodsManager = sellingSettlement.getGoodsManager();
-		sellerGoodsManager.prepareForLoadCalculation();
-
 		double massCapacity = rover.getInventory().getGeneralCapacity();
 
 		// Subtract mission base mass (estimated).
@@ -289,78 +277,8 @@ public final class TradeUtil {
 		Set<Part> repairParts = rover.getMalfunctionManager().getRepairPartProbabilities().keySet();
 
 		// Determine the load.
-		boolean done = false;
-		double buyerLoadValue = 0D;
-		Good previousGood = null;
-		Set<Good> nonTradeGoods = Collections.emptySet();
-		while (!done) {
-			double remainingBuyValue = maxBuyValue - buyerLoadValue;
-			Good good = findBestTradeGood(sellingSettlement, buyingSettlement, tradeList, nonTradeGoods, massCapacity,
-					hasRover, rover, previousGood, false, repairParts, remainingBuyValue);
-			if (good != null) {
-				try {
-					boolean isAmountResource = good.getCategory() == GoodType.AMOUNT_RESOURCE;
-					boolean isItemResource = good.getCategory() == GoodType.ITEM_RESOURCE;
-
-					// Add resource container if needed.
-					if (isAmountResource) {
-						AmountResource resource = (AmountResource) good.getObject();
-						Equipment container = getAvailableContainerForResource(resource, sellingSettlement, tradeList);
-						if (container != null) {
-							Good containerGood = GoodsUtil.getEquipmentGood(container.getClass());
-							massCapacity -= container.getBaseMass();
-							int containerNum = 0;
-							if (tradeList.containsKey(containerGood)) containerNum = tradeList.get(containerGood);
-							double containerSupply = buyerGoodsManager.getNumberOfGoodForSettlement(containerGood);
-							double totalContainerNum = containerNum + containerSupply;
-							buyerLoadValue += buyerGoodsManager.getGoodValuePerItem(containerGood, totalContainerNum);
-							tradeList.put(containerGood, (containerNum + 1));
-						}
-						else logger.warning("container for " + resource.getName() + " not available.");
-					}
-
-					int itemResourceNum = 0;
-					if (isItemResource) {
-						itemResourceNum = getNumItemResourcesToTrade(good, sellingSettlement, buyingSettlement, tradeList,
-								massCapacity, remainingBuyValue);
-					}
-
-					// Add good.
-					if (good.getCategory() == GoodType.VEHICLE) hasRover = true;
-					else {
-						int number = 1;
-						if (isAmountResource) number = (int) getResourceTradeAmount((AmountResource) good.getObject());
-						else if (isItemResource) number = itemResourceNum;
-						massCapacity -= (GoodsUtil.getGoodMassPerItem(good) * number);
-					}
-					int currentNum = 0;
-					if (tradeList.containsKey(good)) currentNum = tradeList.get(good);
-					double supply = buyerGoodsManager.getNumberOfGoodForSettlement(good);
-					double goodNum = 1D;
-					if (isAmountResource) goodNum = getResourceTradeAmount((AmountResource) good.getObject());
-					if (isItemResource) goodNum = itemResourceNum;
-					double buyGoodValue = buyerGoodsManager.getGoodValuePerItem(good, (supply + currentNum + goodNum));
-					if (isAmountResource) {
-						double tradeAmount = getResourceTradeAmount((AmountResource) good.getObject());
-						buyGoodValue *= tradeAmount;
-					}
-					if (isItemResource) {
-						buyGoodValue *= itemResourceNum;
-					}
-					buyerLoadValue += buyGoodValue;
-					int newNumber = currentNum + (int) goodNum;
-					tradeList.put(good, newNumber);
-				}
-				catch (Exception e) {
-					done = true;
-				}
-			}
-			else done = true;
-
-			previousGood = good;
-		}
-
-		return tradeList;
+		return TradeLoadOptimizer.determineLoad(buyingSettlement, sellingSettlement, rover, massCapacity,
+				repairParts, maxBuyValue);
 	}
 
 	/**
@@ -406,235 +324,6 @@ public final class TradeUtil {
 		return result;
 	}
 
-	/**
-	 * Finds the best trade good for a trade.
-	 * @param sellingSettlement the settlement selling the good.
-	 * @param buyingSettlement the settlement buying the good.
-	 * @param tradedGoods the map of goods traded so far.
-	 * @param nonTradeGoods the set of goods not to trade.
-	 * @param remainingCapacity remaining general capacity (kg) in vehicle inventory.
-	 * @param hasVehicle true if a vehicle is in the trade goods.
-	 * @param missionRover the rover carrying the goods.
-	 * @param previousGood the previous trade good used in the trade.
-	 * @param allowNegValue allow negative value goods.
-	 * @param repairParts set of repair parts possibly needed for the trip.
-	 * @param maxBuyValue the maximum value the item can be.
-	 * @return best good to trade or null if none found.
-	 * @throws Exception if error determining best trade good.
-	 */
-	private static Good findBestTradeGood(Settlement sellingSettlement, Settlement buyingSettlement,
-			Map<Good, Integer> tradedGoods, Set<Good> nonTradeGoods, double remainingCapacity,
-			boolean hasVehicle, Rover missionRover, Good previousGood, boolean allowNegValue,
-			Set<Part> repairParts, double maxBuyValue) {
-
-		Good result = null;
-
-		// Check previous good first.
-		if (previousGood != null) {
-			double previousGoodValue = getTradeValue(previousGood, sellingSettlement, buyingSettlement, tradedGoods,
-					remainingCapacity, hasVehicle, missionRover, allowNegValue, repairParts);
-			if ((previousGoodValue > 0D) && (previousGoodValue < maxBuyValue)) result = previousGood;
-		}
-
-		// Check all goods.
-		if (result == null) {
-			double bestValue = 0D;
-			if (allowNegValue) bestValue = Double.NEGATIVE_INFINITY;
-			//Iterator<Good> i = GoodsUtil.getGoodsList().iterator();
-			//while (i.hasNext()) {
-			for (Good good : GoodsUtil.getGoodsList()) {//= i.next();
-				if (!nonTradeGoods.contains(good)) {
-					double tradeValue = getTradeValue(good, sellingSettlement, buyingSettlement, tradedGoods,
-							remainingCapacity, hasVehicle, missionRover, allowNegValue, repairParts);
-					if ((tradeValue > bestValue) && (tradeValue < maxBuyValue)) {
-						result = good;
-						bestValue = tradeValue;
-					}
-				}
-			}
-		}
-
-		return result;
-	}
-
-	/**
-	 * Gets the number of an item resource good that should be traded.
-	 * @param itemResourceGood the item resource good.
-	 * @param sellingSettlement the settlement selling the good.
-	 * @param buyingSettlement the settlement buying the good.
-	 * @param tradeList the map of goods traded so far.
-	 * @param remainingCapacity remaining general capacity (kg) in vehicle inventory.
-	 * @param maxBuyValue the maximum buy value.
-	 * @return number of goods to trade.
-	 * @throws Exception if error determining number of goods.
-	 */
-	private static int getNumItemResourcesToTrade(Good itemResourceGood, Settlement sellingSettlement,
-			Settlement buyingSettlement, Map<Good, Integer>tradeList, double remainingCapacity, double maxBuyValue) {
-
-		int result = 0;
-
-		ItemResource item = (ItemResource) itemResourceGood.getObject();
-
-		int sellingInventory = sellingSettlement.getInventory().getItemResourceNum(item);
-		int buyingInventory = buyingSettlement.getInventory().getItemResourceNum(item);
-
-		int numberTraded = 0;
-		if (tradeList.containsKey(itemResourceGood)) numberTraded = tradeList.get(itemResourceGood);
-
-		int roverLimit = (int) (remainingCapacity / item.getMassPerItem());
-
-		int totalTraded = numberTraded;
-		double totalBuyingValue = 0D;
-		boolean limitReached = false;
-		while (!limitReached) {
-
-			double sellingSupplyAmount = sellingInventory - totalTraded - 1;
-			double sellingValue = sellingSettlement.getGoodsManager().getGoodValuePerItem(itemResourceGood,
-					sellingSupplyAmount);
-			double buyingSupplyAmount = buyingInventory + totalTraded + 1;
-			double buyingValue = buyingSettlement.getGoodsManager().getGoodValuePerItem(itemResourceGood,
-					buyingSupplyAmount);
-
-			if (buyingValue <= sellingValue) limitReached = true;
-			if (totalTraded + 1 > sellingInventory) limitReached = true;
-			if (totalTraded + 1 > roverLimit) limitReached = true;
-			if ((totalBuyingValue + buyingValue) >= maxBuyValue) limitReached = true;
-
-			if (!limitReached) {
-				result++;
-				totalTraded = numberTraded + result;
-				totalBuyingValue += buyingValue;
-			}
-		}
-
-		// Result shouldn't be zero, but just in case it is.
-		if (result == 0) result = 1;
-		return result;
-	}
-
-	/**
-	 * Gets the trade value of a good.
-	 * @param good the good
-	 * @param sellingSettlement the settlement selling the good.
-	 * @param buyingSettlement the settlement buying the good.
-	 * @param tradedGoods the map of goods traded so far.
-	 * @param remainingCapacity remaining general capacity (kg) in vehicle inventory.
-	 * @param hasVehicle true if a vehicle is in the trade goods.
-	 * @param missionRover the rover carrying the goods.
-	 * @param allowNegValue allow negative value goods.
-	 * @param repairParts set of repair parts possibly needed for the trip.
-	 * @return trade value of good.
-	 * @throws Exception if error determining trade value.
-	 */
-	private static double getTradeValue(Good good, Settlement sellingSettlement, Settlement buyingSettlement,
-			Map<Good, Integer> tradedGoods, double remainingCapacity, boolean hasVehicle, Rover missionRover,
-			boolean allowNegValue, Set<Part> repairParts) {
-
-		double result = Double.NEGATIVE_INFINITY;
-
-		double amountTraded = 0D;
-		if (tradedGoods.containsKey(good)) amountTraded += tradedGoods.get(good).doubleValue();
-
-		double sellingInventory = getNumInInventory(good, sellingSettlement.getInventory());
-		double sellingSupplyAmount = sellingInventory - amountTraded - 1D;
-		if (sellingSupplyAmount < 0D) sellingSupplyAmount = 0D;
-		double sellingValue = sellingSettlement.getGoodsManager().getGoodValuePerItem(good, sellingSupplyAmount);
-		if (good.getCategory() == GoodType.AMOUNT_RESOURCE)
-			sellingValue*= getResourceTradeAmount((AmountResource) good.getObject());
-
-		boolean allTraded = (sellingInventory <= amountTraded);
-
-		double buyingInventory = getNumInInventory(good, buyingSettlement.getInventory());
-		double buyingSupplyAmount = buyingInventory + amountTraded + 1D;
-		if (buyingSupplyAmount < 0D) buyingSupplyAmount = 0D;
-		double buyingValue = buyingSettlement.getGoodsManager().getGoodValuePerItem(good, buyingSupplyAmount);
-		if (good.getCategory() == GoodType.AMOUNT_RESOURCE)
-			buyingValue*= getResourceTradeAmount((AmountResource) good.getObject());
-
-		boolean profitable = (buyingValue > sellingValue);
-		boolean hasBuyValue = buyingValue > 0D;
-		if ((allowNegValue || profitable) && hasBuyValue && !allTraded) {
-			// Check if rover inventory has capacity for the good.
-			boolean isRoverCapacity = hasCapacityInInventory(good, remainingCapacity, hasVehicle);
-
-			boolean isContainerAvailable = true;
-			if (good.getCategory() == GoodType.AMOUNT_RESOURCE) {
-				Equipment container = getAvailableContainerForResource((AmountResource) good.getObject(),
-						sellingSettlement, tradedGoods);
-				isContainerAvailable = (container != null);
-			}
-
-			boolean isMissionRover = false;
-			if (good.getCategory() == GoodType.VEHICLE) {
-				if (good.getName().toLowerCase() == missionRover.getDescription().toLowerCase()) {
-					if (sellingInventory == 1D) isMissionRover = true;
-				}
-			}
-
-			boolean enoughResourceForContainer = true;
-			if (good.getCategory() == GoodType.AMOUNT_RESOURCE) {
-				enoughResourceForContainer =
-						(sellingSupplyAmount >= getResourceTradeAmount((AmountResource) good.getObject()));
-			}
-
-			boolean enoughEVASuits = true;
-			if (good.getClassType() == EVASuit.class) {
-				double remainingSuits = sellingInventory - amountTraded;
-				int requiredSuits = Trade.MAX_MEMBERS + 2;
-				enoughEVASuits = remainingSuits > requiredSuits;
-			}
-
-			boolean enoughRepairParts = true;
-			if (good.getCategory() == GoodType.ITEM_RESOURCE) {
-				if (repairParts.contains(good.getObject())) {
-					if (sellingSupplyAmount < MIN_REPAIR_PARTS) enoughRepairParts = false;
-				}
-			}
-
-			boolean enoughLifeSupportResources = true;
-			if (good.getCategory() == GoodType.AMOUNT_RESOURCE) {
-				AmountResource resource = (AmountResource) good.getObject();
-				if (resource.isLifeSupport() && sellingSupplyAmount < MIN_LIFE_SUPPORT_RESOURCES)
-					enoughLifeSupportResources = false;
-			}
-
-			if (isRoverCapacity && isContainerAvailable && !isMissionRover && enoughResourceForContainer
-					&& enoughEVASuits && enoughRepairParts && enoughLifeSupportResources) {
-				result = buyingValue - sellingValue;
-			}
-		}
-
-		return result;
-	}
-
-	/**
-	 * Checks if capacity in inventory for good.
-	 * @param good the good to check for.
-	 * @param remainingCapacity remaining general capacity (kg) in vehicle inventory.
-	 * @param hasVehicle true if good load already includes a vehicle.
-	 * @return true if capacity for good.
-	 * @throws Exception if error checking for capacity.
-	 */
-	private static boolean hasCapacityInInventory(Good good, double remainingCapacity,
-			boolean hasVehicle) {
-		boolean result = false;
-		if (good.getCategory() == GoodType.AMOUNT_RESOURCE) {
-			AmountResource resource = (AmountResource) good.getObject();
-			result = (remainingCapacity >= getResourceTradeAmount(resource));
-		}
-		else if (good.getCategory() == GoodType.ITEM_RESOURCE)
-			result = remainingCapacity >= ((ItemResource) good.getObject()).getMassPerItem();
-			else if (good.getCategory() == GoodType.EQUIPMENT) {
-				Class type = good.getClassType();
-				if (!equipmentGoodCache.containsKey(type))
-					equipmentGoodCache.put(type, EquipmentFactory.getEquipment(type, new Coordinates(0D, 0D), true));
-				result = (remainingCapacity >= equipmentGoodCache.get(type).getBaseMass());
-			}
-			else if (good.getCategory() == GoodType.VEHICLE)
-				result = !hasVehicle;
-		return result;
-	}
-
 	/**
 	 * Gets the number of a good currently in the inventory.
 	 * @param good the good to check.
@@ -669,34 +358,6 @@ public final class TradeUtil {
 		}
 	}
 
-	/**
-	 * Gets an available container for a given resource.
-	 * @param resource the resource to check.
-	 * @param settlement the settlement to check for containers.
-	 * @param tradedGoods the list of goods traded so far.
-	 * @return container for the resource or null if none.
-	 * @throws Exception if error.
-	 */
-	private static Equipment getAvailableContainerForResource(AmountResource resource, Settlement settlement,
-			Map<Good, Integer> tradedGoods) {
-
-		Equipment result = null;
-
-		Class containerType = ContainerUtil.getContainerTypeNeeded(resource.getPhase());
-
-		Inventory settlementInv = settlement.getInventory();
-
-		int containersStored = settlementInv.findNumEmptyUnitsOfClass(containerType, false);
-
-		Good containerGood = GoodsUtil.getEquipmentGood(containerType);
-		int containersTraded = 0;
-		if (tradedGoods.containsKey(containerGood)) containersTraded = tradedGoods.get(containerGood);
-
-		if (containersStored > containersTraded) result = (Equipment) settlementInv.findUnitOfClass(containerType);
-
-		return result;
-	}
-
 	/**
 	 * Gets the estimated trade mission cost.
 	 * @param startingSettlement the settlement starting the trade mission.
@@ -707,6 +368,29 @@ public final class TradeUtil {
 	 */
 	public static double getEstimatedMissionCost(Settlement startingSettlement, Rover rover,
 			double distance) {
+		// Get cost of resources.
+		return determineLoadValue(getEstimatedMissionResources(rover, distance), startingSettlement, false);
+	}
+
+	/**
+	 * Gets the estimated trade mission trip time.
+	 * @param rover the mission rover.
+	 * @param distance the distance (km) of the mission trip.
+	 * @return the trip time (sols).
+	 */
+	static double getEstimatedTripTime(Rover rover, double distance) {
+		double averageSpeed = rover.getBaseSpeed() / 2D;
+		double averageSpeedMillisol = averageSpeed / MarsClock.convertSecondsToMillisols(60D * 60D);
+		return ((distance / averageSpeedMillisol) + 1000D) / 1000D;
+	}
+
+	/**
+	 * Gets the estimated resources needed for a trade mission.
+	 * @param rover the mission rover.
+	 * @param distance the distance (km) of the mission trip.
+	 * @return map of the resource goods and their amount (kg).
+	 */
+	static Map<Good, Integer> getEstimatedMissionResources(Rover rover, double distance) {
 		Map<Good, Integer> neededResources = new HashMap<Good, Integer>(4);
 
 		// Get required fuel.
@@ -716,9 +400,7 @@ public final class TradeUtil {
 				(int) VehicleMission.getFuelNeededForTrip(distance, efficiency * GoodsManager.SOFC_CONVERSION_EFFICIENCY, true));
 
 		// Get estimated trip time.
-		double averageSpeed = rover.getBaseSpeed() / 2D;
-		double averageSpeedMillisol = averageSpeed / MarsClock.convertSecondsToMillisols(60D * 60D);
-		double tripTimeSols = ((distance / averageSpeedMillisol) + 1000D) / 1000D;
+		double tripTimeSols = getEstimatedTripTime(rover, distance);
 
 		double life_support_margin = Vehicle.getLifeSupportRangeErrorMargin();
 		// Get oxygen amount.
@@ -748,8 +430,7 @@ public final class TradeUtil {
 		neededResources.put(dessertGood, (int) dessertAmount);
 */
 
-		// Get cost of resources.
-		return determineLoadValue(neededResources, startingSettlement, false);
+		return neededResources;
 	}
 
 	/**
@@ -758,16 +439,16 @@ public final class TradeUtil {
 	 * @return amount (kg) of resource to trade.
 	 * @throws Exception if error determining container.
 	 */
-	private static double getResourceTradeAmount(AmountResource resource) {
+	static double getResourceTradeAmount(AmountResource resource) {
 		double result = 0D;
 
 		Class containerType = ContainerUtil.getContainerTypeNeeded(resource.getPhase());
 
-		Equipment container = null;
-		if (containerTypeCache.containsKey(containerType)) container = containerTypeCache.get(containerType);
-		else {
+		Equipment container = containerTypeCache.get(containerType);
+		if (container == null) {
 			container = EquipmentFactory.getEquipment(containerType, new Coordinates(0, 0), true);
-			containerTypeCache.put(containerType, container);
+			Equipment previous = containerTypeCache.putIfAbsent(containerType, container);
+			if (previous != null) container = previous;
 		}
 
 		result = container.getInventory().getAmountResourceCapacity(resource, false);
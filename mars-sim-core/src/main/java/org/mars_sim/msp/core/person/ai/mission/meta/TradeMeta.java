@@ -10,7 +10,6 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Msg;
-import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.job.Trader;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
@@ -18,11 +17,9 @@ import org.mars_sim.msp.core.person.ai.mission.RoverMission;
 import org.mars_sim.msp.core.person.ai.mission.Trade;
 import org.mars_sim.msp.core.person.ai.mission.TradeUtil;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
-import org.mars_sim.msp.core.person.ai.mission.Trade.TradeProfitInfo;
 import org.mars_sim.msp.core.resource.ResourceUtil;
 import org.mars_sim.msp.core.robot.Robot;
 import org.mars_sim.msp.core.structure.Settlement;
-import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.vehicle.Rover;
 
 /**
@@ -164,38 +161,8 @@ public class TradeMeta implements MetaMission {
 	    try {
 	        Rover rover = (Rover) RoverMission.getVehicleWithGreatestRange(settlement, false);
 	        if (rover != null) {
-	            // Only check every couple of Sols, else use cache.
-	            // Note: this method is very CPU intensive.
-	            boolean useCache = false;
-	            MarsClock currentTime = Simulation.instance().getMasterClock().getMarsClock();
-	            if (currentTime == null) {
-	            	throw new NullPointerException("currentTime == null");
-	            }
-
-	            if (Trade.TRADE_PROFIT_CACHE.containsKey(settlement)) {
-	                TradeProfitInfo profitInfo = Trade.TRADE_PROFIT_CACHE.get(settlement);
-	                double timeDiff = MarsClock.getTimeDiff(currentTime, profitInfo.time);
-	                if (timeDiff < 2000D) {
-	                    tradeProfit = profitInfo.profit;
-	                    useCache = true;
-	                }
-	            }
-	            else {
-	                Trade.TRADE_PROFIT_CACHE.put(settlement, new TradeProfitInfo(tradeProfit,
-	                        (MarsClock) currentTime.clone()));
-	                useCache = true;
-	            }
-
-	            if (!useCache) {
-	                double startTime = System.currentTimeMillis();
-	                tradeProfit = TradeUtil.getBestTradeProfit(settlement, rover);
-	                double endTime = System.currentTimeMillis();
-	                logger.info(settlement.getName() + " getBestTradeProfit: " + (endTime - startTime)
-	                        + " milliseconds - TP: " + (int) tradeProfit + " VP");
-	                Trade.TRADE_PROFIT_CACHE.put(settlement, new TradeProfitInfo(tradeProfit,
-	                        (MarsClock) currentTime.clone()));
-	                Trade.TRADE_SETTLEMENT_CACHE.put(settlement, TradeUtil.bestTradeSettlementCache);
-	            }
+	            // A lookup of the trade profits found in the serial phase of the last time pulse.
+	            tradeProfit = TradeUtil.getBestTradeProfit(settlement, rover);
 	        }
 	    } catch (Exception e) {
 	    	if (person != null)
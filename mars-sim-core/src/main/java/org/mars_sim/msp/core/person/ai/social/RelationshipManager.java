@@ -64,7 +64,7 @@ implements Serializable {
 	/** The base settler modifier per millisol as settlers are trained to get along with each other. */
 	private static final double SETTLER_MODIFIER = .02D;
 
-	/** The relationship graph. */
+	/** The relationship graph, shared by the people of all the settlements. */
 	private Graph relationshipGraph;
 	private int count = 0;
 
@@ -101,7 +101,7 @@ implements Serializable {
 	 * @param person the new person
 	 * @param initialGroup the group that this person has existing relationships with.
 	 */
-	private void addPerson(Person person, Collection<Person> initialGroup) {
+	private synchronized void addPerson(Person person, Collection<Person> initialGroup) {
 		if ((person == null) || (initialGroup == null))
 			throw new IllegalArgumentException("RelationshipManager.addPerson(): null parameter.");
 
@@ -128,7 +128,7 @@ implements Serializable {
 	 * @param person2 the second person (order isn't important)
 	 * @param relationshipType the type of relationship (see Relationship static members)
 	 */
-	public void addRelationship(Person person1, Person person2, String relationshipType) {
+	public synchronized void addRelationship(Person person1, Person person2, String relationshipType) {
 		try {
 			Relationship relationship = new Relationship(person1, person2, relationshipType);
 			relationshipGraph.addEdge(relationship, person1, person2, false);
@@ -143,7 +143,7 @@ implements Serializable {
 	 * @param person2 the second person (order isn't important)
 	 * @return true if the two people have a relationship
 	 */
-	public boolean hasRelationship(Person person1, Person person2) {
+	public synchronized boolean hasRelationship(Person person1, Person person2) {
 		EdgePredicate edgePredicate = EdgePredicateFactory.createEqualsNodes(person1, person2, GraphUtils.UNDIRECTED_MASK);
 		return (relationshipGraph.getEdge(edgePredicate) != null);
 	}
@@ -154,7 +154,7 @@ implements Serializable {
 	 * @param person2 the second person (order isn't important)
 	 * @return the relationship or null if none.
 	 */
-	public Relationship getRelationship(Person person1, Person person2) {
+	public synchronized Relationship getRelationship(Person person1, Person person2) {
 		Relationship result = null;
 		if (hasRelationship(person1, person2)) {
 			EdgePredicate edgePredicate = EdgePredicateFactory.createEqualsNodes(person1, person2, GraphUtils.UNDIRECTED_MASK);
@@ -168,7 +168,7 @@ implements Serializable {
 	 * @param person the person
 	 * @return a list of the person's Relationship objects.
 	 */
-	public List<Relationship> getAllRelationships(Person person) {
+	public synchronized List<Relationship> getAllRelationships(Person person) {
 		List<Relationship> result = new ArrayList<Relationship>();
 		Traverser traverser = relationshipGraph.traverser(person, GraphUtils.UNDIRECTED_TRAVERSER_PREDICATE);
 		while (traverser.hasNext()) {
@@ -184,7 +184,7 @@ implements Serializable {
 	 * @param person the person
 	 * @return a list of the people the person knows.
 	 */
-	public Collection<Person> getAllKnownPeople(Person person) {
+	public synchronized Collection<Person> getAllKnownPeople(Person person) {
 		Collection<Person> result = new ConcurrentLinkedQueue<Person>();
 		Traverser traverser = relationshipGraph.traverser(person, GraphUtils.UNDIRECTED_TRAVERSER_PREDICATE);
 		while (traverser.hasNext()) {
@@ -713,7 +713,7 @@ implements Serializable {
 
                 if (units.size() >= numNeeded) {
                     int loaded = 0;
-                    for (int x = 0; (x < units.size()) && (loaded < numNeeded) && (amountLoading > 0D); x++) {
+                    for (int x = 0; (x < array.length) && (loaded < numNeeded) && (amountLoading > 0D); x++) {
                         Equipment eq = (Equipment) array[x];
 
                         boolean isEmpty = true;
@@ -803,7 +803,7 @@ implements Serializable {
                 }
 
                 int loaded = 0;
-                for (int x = 0; (x < units.size()) && (loaded < numNeeded) && (amountLoading > 0D); x++) {
+                for (int x = 0; (x < array.length) && (loaded < numNeeded) && (amountLoading > 0D); x++) {
                     Equipment eq = (Equipment) array[x];
 
                     boolean isEmpty = true;
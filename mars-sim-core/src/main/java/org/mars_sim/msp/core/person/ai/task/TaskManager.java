@@ -17,6 +17,7 @@ import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.RandomUtil;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.UnitEventType;
+import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.person.CircadianClock;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.PhysicalCondition;
@@ -76,7 +77,8 @@ implements Serializable {
 	
 	private MarsClock marsClock;
 	
-	private transient MarsClock timeCache;
+	/** The time (millisols) the probabilities were calculated at, or -1 if not current. */
+	private transient double timeCache = -1D;
 	
 	private transient Map<MetaTask, Double> taskProbCache;
 	
@@ -102,7 +104,7 @@ implements Serializable {
 		currentTask = null;
 
 		// Initialize cache values.
-		timeCache = null;
+		timeCache = -1D;
 		taskProbCache = new HashMap<MetaTask, Double>();
 		totalProbCache = 0D;
 
@@ -243,6 +245,7 @@ implements Serializable {
 	public void clearTask() {
 		if (currentTask != null) {
 			currentTask.endTask();
+			MalfunctionManager.updateWorker(person, currentTask, null);
 			currentTask = null;
 		}
 
@@ -303,6 +306,7 @@ implements Serializable {
 		} else {
 			lastTask = currentTask;
 			currentTask = newTask;
+			MalfunctionManager.updateWorker(person, lastTask, currentTask);
 			taskNameCache = currentTask.getTaskName();
 			taskDescriptionCache = currentTask.getDescription();
 
@@ -563,7 +567,7 @@ implements Serializable {
 		}
 
 		// Clear time cache.
-		timeCache = null;
+		timeCache = -1D;
 		return result;
 	}
 
@@ -590,9 +594,8 @@ implements Serializable {
 //    		marsClock = Simulation.instance().getMasterClock().getMarsClock();
 //    	}
     	
-	    if (timeCache == null) {
-	    	timeCache = Simulation.instance().getMasterClock().getMarsClock();
-	    	marsClock = timeCache;
+	    if (marsClock == null) {
+	    	marsClock = Simulation.instance().getMasterClock().getMarsClock();
 	    }
 	    
 	    //int msol = marsClock.getMsol0();
@@ -657,9 +660,7 @@ implements Serializable {
 			}
 	
 			// Set the time cache to the current time.
-			//if (marsClock != null)
-			//	marsClock = Simulation.instance().getMasterClock().getMarsClock();
-			timeCache = (MarsClock) marsClock.clone();
+			timeCache = MarsClock.getTotalMillisols(marsClock);
 			
 	    }
 	}
@@ -669,9 +670,10 @@ implements Serializable {
 	 * @return true if cache should be used.
 	 */
 	private boolean useCache() {
-		//MarsClock currentTime = Simulation.instance().getMasterClock().getMarsClock();
-		//return currentTime.equals(timeCache);
-		return marsClock.equals(timeCache);
+		if (marsClock == null) {
+			return false;
+		}
+		return timeCache == MarsClock.getTotalMillisols(marsClock);
 	}
 
 	/**
@@ -682,7 +684,6 @@ implements Serializable {
 			currentTask.destroy();
 		mind = null;
 		person = null;
-		timeCache = null;
 		lastTask = null;
 		health = null;	
 		circadian = null;
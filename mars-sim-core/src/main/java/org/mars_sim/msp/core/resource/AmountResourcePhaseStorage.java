@@ -11,29 +11,33 @@ package org.mars_sim.msp.core.resource;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
 
 /**
  * Storage for phases of amount resource.
+ * The capacities and amounts are kept in arrays indexed by the phase ordinal.
  */
 class AmountResourcePhaseStorage implements Serializable {
 
 	/** default serial id. */
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 2L;
 
 	/** Comparison to indicate a small but non-zero amount. */
 	private static final double SMALL_AMOUNT_COMPARISON = .0000001D;
 
-	// Data members
+	/** The number of phases. */
+	private static final int PHASES = PhaseType.values().length;
 
 	/** Capacity for each phase of amount resource. */
-	private Map<PhaseType, Double> amountResourcePhaseCapacities = null;
+	private double[] phaseCapacities = new double[PHASES];
 
-	/** Stored resources by phase. */
-	private Map<PhaseType, StoredPhase> amountResourcePhaseStored = null;
+	/** True for each phase with a capacity (possibly of zero). */
+	private boolean[] hasCapacity = new boolean[PHASES];
+
+	/** Stored amount of each phase. */
+	private double[] phaseStored = new double[PHASES];
+
+	/** The resource stored in each phase, or null if none. */
+	private AmountResource[] phaseResources = new AmountResource[PHASES];
 
 	/** The cache value for the total amount phase resources stored. (kg) */
 	private transient double totalStoredCache = 0D;
@@ -51,17 +55,8 @@ class AmountResourcePhaseStorage implements Serializable {
             throw new IllegalStateException("Cannot add negative phase capacity: " + capacity);
         }
 
-        if (amountResourcePhaseCapacities == null) {
-            amountResourcePhaseCapacities = new HashMap<PhaseType, Double>();
-        }
-
-        if (hasAmountResourcePhaseCapacity(phase)) {
-            double current = amountResourcePhaseCapacities.get(phase);
-            amountResourcePhaseCapacities.put(phase, (current + capacity));
-        }
-        else {
-            amountResourcePhaseCapacities.put(phase, capacity);
-        }
+        phaseCapacities[phase.ordinal()] += capacity;
+        hasCapacity[phase.ordinal()] = true;
     }
 
     /**
@@ -70,14 +65,7 @@ class AmountResourcePhaseStorage implements Serializable {
      * @return true if capacity in phase.
      */
     boolean hasAmountResourcePhaseCapacity(PhaseType phase) {
-
-        boolean result = false;
-
-        if (amountResourcePhaseCapacities != null) {
-            result = amountResourcePhaseCapacities.containsKey(phase);
-        }
-
-        return result;
+        return hasCapacity[phase.ordinal()];
     }
 
     /**
@@ -86,14 +74,7 @@ class AmountResourcePhaseStorage implements Serializable {
      * @return the capacity (kg).
      */
     double getAmountResourcePhaseCapacity(PhaseType phase) {
-
-        double result = 0D;
-
-        if (hasAmountResourcePhaseCapacity(phase)) { 
-            result = amountResourcePhaseCapacities.get(phase);
-        }
-
-        return result;
+        return phaseCapacities[phase.ordinal()];
     }
 
     /**
@@ -102,31 +83,7 @@ class AmountResourcePhaseStorage implements Serializable {
      * @return amount stored (kg)
      */
     double getAmountResourcePhaseStored(PhaseType phase) {
-
-        double result = 0D;
-
-        StoredPhase stored = getAmountResourcePhaseStoredObject(phase);
-        if (stored != null) {
-            result = stored.amount;
-        }
-
-        return result;
-    }
-
-    /**
-     * Gets the amount of a resource phase stored.
-     * @param phase the resource phase.
-     * @return stored amount as StoredPhase object.
-     */
-    private StoredPhase getAmountResourcePhaseStoredObject(PhaseType phase) {
-
-        StoredPhase result = null;
-
-        if (amountResourcePhaseStored != null) {
-            result = amountResourcePhaseStored.get(phase);
-        }
-
-        return result;
+        return phaseStored[phase.ordinal()];
     }
 
     /**
@@ -150,12 +107,8 @@ class AmountResourcePhaseStorage implements Serializable {
 
         double totalAmount = 0D;
 
-        if (amountResourcePhaseStored != null) {
-            Map<PhaseType, StoredPhase> tempMap = Collections.unmodifiableMap(amountResourcePhaseStored);
-            Iterator<PhaseType> i = tempMap.keySet().iterator();
-            while (i.hasNext()) {
-                totalAmount += tempMap.get(i.next()).amount;
-            }
+        for (double amount : phaseStored) {
+            totalAmount += amount;
         }
 
         totalStoredCache = totalAmount;
@@ -172,7 +125,7 @@ class AmountResourcePhaseStorage implements Serializable {
         double result = 0D;
 
         if (hasAmountResourcePhaseCapacity(phase)) {
-            result = getAmountResourcePhaseCapacity(phase) - getAmountResourcePhaseStored(phase);
+            result = phaseCapacities[phase.ordinal()] - phaseStored[phase.ordinal()];
         }
 
         return result;
@@ -184,17 +137,7 @@ class AmountResourcePhaseStorage implements Serializable {
      * @return the resource stored.
      */
     AmountResource getAmountResourcePhaseType(PhaseType phase) {
-
-        AmountResource result = null;
-
-        if (amountResourcePhaseStored != null) {
-            StoredPhase stored = amountResourcePhaseStored.get(phase);
-            if (stored != null) {
-                result = stored.resource;
-            }
-        }
-
-        return result;
+        return phaseResources[phase.ordinal()];
     }
 
     /**
@@ -212,12 +155,13 @@ class AmountResourcePhaseStorage implements Serializable {
         if (amount > SMALL_AMOUNT_COMPARISON) {
 
             PhaseType resourcePhase = resource.getPhase();
+            int phase = resourcePhase.ordinal();
             boolean storable = false;
 
             if (getAmountResourcePhaseRemainingCapacity(resourcePhase) >= amount) {
 
-                if ((getAmountResourcePhaseStored(resourcePhase) == 0D) || 
-                        (resource.equals(getAmountResourcePhaseType(resourcePhase)))) {
+                if ((phaseStored[phase] == 0D) ||
+                        (resource.equals(phaseResources[phase]))) {
                     storable = true;
                 }
             }
@@ -227,17 +171,10 @@ class AmountResourcePhaseStorage implements Serializable {
                 // Set total stored cache to dirty since value is changing.
                 totalStoredCacheDirty = true;
 
-                if (amountResourcePhaseStored == null) {
-                    amountResourcePhaseStored = new HashMap<PhaseType, StoredPhase>();
-                }
-
-                StoredPhase stored = getAmountResourcePhaseStoredObject(resourcePhase);
-                if (stored != null) {
-                    stored.amount += amount;
-                }
-                else {
-                    amountResourcePhaseStored.put(resourcePhase, new StoredPhase(resource, amount));
+                if (phaseResources[phase] == null) {
+                    phaseResources[phase] = resource;
                 }
+                phaseStored[phase] += amount;
             }
             else {
                 throw new IllegalStateException("Amount resource could not be added in phase storage.");
@@ -254,62 +191,40 @@ class AmountResourcePhaseStorage implements Serializable {
     void retrieveAmountResourcePhase(PhaseType phase, double amount) {
 
         if (amount < 0D) {
-            throw new IllegalStateException("Cannot retrieve negative amount of phase: " + amount); 
+            throw new IllegalStateException("Cannot retrieve negative amount of phase: " + amount);
         }
 
         if (amount > 0D) {
-            boolean retrievable = false;
-            if (getAmountResourcePhaseStored(phase) >= amount) {
-
-                StoredPhase stored = amountResourcePhaseStored.get(phase);
-                if (stored != null) {
+            int i = phase.ordinal();
+            if (phaseResources[i] != null && phaseStored[i] >= amount) {
 
-                    // Set total stored cache to dirty since value is changing.
-                    totalStoredCacheDirty = true;
-
-                    stored.amount -= amount;
+                // Set total stored cache to dirty since value is changing.
+                totalStoredCacheDirty = true;
 
-                    retrievable = true;
+                phaseStored[i] -= amount;
 
-                    if (stored.amount <= SMALL_AMOUNT_COMPARISON) {
-                        amountResourcePhaseStored.remove(phase);
-                    }
+                if (phaseStored[i] <= SMALL_AMOUNT_COMPARISON) {
+                    phaseStored[i] = 0D;
+                    phaseResources[i] = null;
                 }
             }
-            if (!retrievable) {
-                throw new IllegalStateException("Amount resource (" + phase.getName() +  ":" + 
+            else {
+                throw new IllegalStateException("Amount resource (" + phase.getName() +  ":" +
                         amount + ") could not be retrieved from phase storage");
             }
         }
     }
 
-    
-	/**
-	 * Internal class for a stored phase.
-	 */
-	private static class StoredPhase implements Serializable {
-		/** default serial id. */
-		private static final long serialVersionUID = 1L;
-
-		private AmountResource resource;
-        private double amount;
-
-        private StoredPhase(AmountResource resource, double amount) {
-            this.resource = resource;
-            this.amount = amount;
-        }
-    }
-
     /**
      * Prepare object for garbage collection
      */
     public void destroy() {
-        if (amountResourcePhaseCapacities != null) amountResourcePhaseCapacities.clear();
-        amountResourcePhaseCapacities = null;
-        if (amountResourcePhaseStored != null) amountResourcePhaseStored.clear();
-        amountResourcePhaseStored = null;
+        phaseCapacities = null;
+        hasCapacity = null;
+        phaseStored = null;
+        phaseResources = null;
     }
-    
+
     /**
      * Implementing readObject method for serialization.
      * @param in the input stream.
@@ -317,10 +232,10 @@ class AmountResourcePhaseStorage implements Serializable {
      * @throws ClassNotFoundException if error creating class.
      */
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        
+
         in.defaultReadObject();
 
         // Initialize transient variables that need it.
         totalStoredCacheDirty = true;
     }
-}
\ No newline at end of file
+}
@@ -3,7 +3,7 @@
  * AmountResourceTypeStorage.java
  * @version 3.07 2014-12-06
 
- * @author Scott Davis 
+ * @author Scott Davis
  */
 
 package org.mars_sim.msp.core.resource;
@@ -11,30 +11,34 @@ package org.mars_sim.msp.core.resource;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 
 /**
  * Storage for types of amount resource.
+ * The capacities and amounts are kept in arrays indexed by the resource id, which are
+ * grown to the largest id with a capacity. Storing and retrieving do not allocate.
  */
 class AmountResourceTypeStorage implements Serializable {
 
 	/** default serial id. */
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 2L;
+
+	/** The array length is rounded up to a multiple of this. */
+	private static final int ARRAY_GRANULARITY = 8;
 
 	// Data members
 
-	/** Capacity for each type of amount resource. */
-	//private Map<AmountResource, ResourceAmount> amountResourceTypeCapacities = null;
-	private Map<Integer, ResourceAmount> typeCapacities = null;
+	/** Capacity for each type of amount resource, by resource id. */
+	private double[] typeCapacities = null;
+
+	/** Stored resources by resource id. */
+	private double[] typeStored = null;
 
-	/** Stored resources by type. */
-	//private Map<AmountResource, ResourceAmount> amountResourceTypeStored = null;
-	private Map<Integer, ResourceAmount> typeStored = null;
+	/** The resource ids with a capacity (possibly of zero). */
+	private BitSet hasCapacity = null;
 
 	/** Cache value for the total amount of resources stored. */
 	private transient double totalAmountCache = 0D;
@@ -47,25 +51,8 @@ class AmountResourceTypeStorage implements Serializable {
      */
     void addAmountResourceTypeCapacity(AmountResource resource, double capacity)  {
     	addTypeCapacity(resource.getID(), capacity);
-/*    	
-        if (capacity < 0D) {
-            throw new IllegalStateException("Cannot add negative type capacity: " + capacity);
-        }
-
-        if (amountResourceTypeCapacities == null) {
-            amountResourceTypeCapacities = new HashMap<AmountResource, ResourceAmount>();
-        }
-
-        if (hasAmountResourceTypeCapacity(resource)) {
-            ResourceAmount existingCapacity = amountResourceTypeCapacities.get(resource);
-            existingCapacity.setAmount(existingCapacity.getAmount() + capacity);
-        }
-        else {
-            amountResourceTypeCapacities.put(resource, new ResourceAmount(capacity));
-        }
-*/
     }
-  
+
     /**
      * Adds capacity for a resource type.
      * @param resource the resource.
@@ -77,19 +64,33 @@ class AmountResourceTypeStorage implements Serializable {
             throw new IllegalStateException("Cannot add negative type capacity: " + capacity);
         }
 
-        if (typeCapacities == null) {
-            typeCapacities = new HashMap<Integer, ResourceAmount>();
+        ensureSize(resource);
+        typeCapacities[resource] += capacity;
+        hasCapacity.set(resource);
+    }
+
+    /**
+     * Grows the arrays to hold a resource id.
+     * @param resource the resource.
+     */
+    private void ensureSize(int resource) {
+        if (resource < 0) {
+            throw new IllegalArgumentException("Invalid resource id: " + resource);
         }
 
-        if (hasARTypeCapacity(resource)) {
-            ResourceAmount existingCapacity = typeCapacities.get(resource);
-            existingCapacity.setAmount(existingCapacity.getAmount() + capacity);
+        if (typeCapacities == null) {
+            int length = (resource / ARRAY_GRANULARITY + 1) * ARRAY_GRANULARITY;
+            typeCapacities = new double[length];
+            typeStored = new double[length];
+            hasCapacity = new BitSet(length);
         }
-        else {
-            typeCapacities.put(resource, new ResourceAmount(capacity));
+        else if (resource >= typeCapacities.length) {
+            int length = (resource / ARRAY_GRANULARITY + 1) * ARRAY_GRANULARITY;
+            typeCapacities = Arrays.copyOf(typeCapacities, length);
+            typeStored = Arrays.copyOf(typeStored, length);
         }
     }
-    
+
     /**
      * Removes capacity for a resource type.
      * @param resource the resource.
@@ -97,35 +98,6 @@ class AmountResourceTypeStorage implements Serializable {
      */
     void removeAmountResourceTypeCapacity(AmountResource resource, double capacity) {
     	removeTypeCapacity(resource.getID(), capacity);
-    	
-/*       
-        if (capacity < 0D) {
-            throw new IllegalStateException("Cannot remove negative type capacity: " + capacity);
-        }
-        
-        if (amountResourceTypeCapacities == null) {
-            amountResourceTypeCapacities = new HashMap<AmountResource, ResourceAmount>();
-        }
-        
-        double existingCapacity = getAmountResourceTypeCapacity(resource);
-        double newCapacity = existingCapacity - capacity;
-        if (newCapacity > 0D) {
-            if (hasAmountResourceTypeCapacity(resource)) {
-                ResourceAmount existingCapacityAmount = amountResourceTypeCapacities.get(resource);
-                existingCapacityAmount.setAmount(newCapacity);
-            }
-            else {
-                amountResourceTypeCapacities.put(resource, new ResourceAmount(newCapacity));
-            }
-        }
-        else if (newCapacity == 0D) {
-            amountResourceTypeCapacities.remove(resource);
-        }
-        else {
-            throw new IllegalStateException("Insufficient existing resource type capacity to remove - existing: " + 
-                    existingCapacity + ", removed: " + capacity);
-        }
-*/        
     }
 
     /**
@@ -134,53 +106,37 @@ class AmountResourceTypeStorage implements Serializable {
      * @param capacity the capacity amount (kg).
      */
     void removeTypeCapacity(int resource, double capacity) {
-        
+
         if (capacity < 0D) {
             throw new IllegalStateException("Cannot remove negative type capacity: " + capacity);
         }
-        
-        if (typeCapacities == null) {
-            typeCapacities = new HashMap<Integer, ResourceAmount>();
-        }
-        
+
         double existingCapacity = getARTypeCapacity(resource);
         double newCapacity = existingCapacity - capacity;
         if (newCapacity > 0D) {
-            if (hasARTypeCapacity(resource)) {
-                ResourceAmount existingCapacityAmount = typeCapacities.get(resource);
-                existingCapacityAmount.setAmount(newCapacity);
-            }
-            else {
-               typeCapacities.put(resource, new ResourceAmount(newCapacity));
-            }
+            ensureSize(resource);
+            typeCapacities[resource] = newCapacity;
+            hasCapacity.set(resource);
         }
         else if (newCapacity == 0D) {
-            typeCapacities.remove(resource);
+            if (hasARTypeCapacity(resource)) {
+                typeCapacities[resource] = 0D;
+                hasCapacity.clear(resource);
+            }
         }
         else {
-            throw new IllegalStateException("Insufficient existing resource type capacity to remove - existing: " + 
+            throw new IllegalStateException("Insufficient existing resource type capacity to remove - existing: " +
                     existingCapacity + ", removed: " + capacity);
         }
     }
-    
+
     /**
      * Checks if storage has capacity for a resource type.
      * @param resource the resource.
      * @return true if storage capacity.
      */
     boolean hasAmountResourceTypeCapacity(AmountResource resource) {
-
-        boolean result = false;
-
-        //if (amountResourceTypeCapacities != null) {
-        //    result = amountResourceTypeCapacities.containsKey(resource);
-        //}
-
-        if (typeCapacities != null) {
-            result = typeCapacities.containsKey(resource.getID());
-        }
-        
-        return result;
+        return hasARTypeCapacity(resource.getID());
     }
 
     /**
@@ -189,34 +145,16 @@ class AmountResourceTypeStorage implements Serializable {
      * @return true if storage capacity.
      */
     boolean hasARTypeCapacity(int resource) {
-
-        boolean result = false;
-
-        if (typeCapacities != null) {
-            result = typeCapacities.containsKey(resource);
-        }
-
-        return result;
+        return hasCapacity != null && resource >= 0 && hasCapacity.get(resource);
     }
-    
+
     /**
      * Gets the storage capacity for a resource type.
      * @param resource the resource.
      * @return capacity amount (kg).
      */
     double getAmountResourceTypeCapacity(AmountResource resource) {
-
-        double result = 0D;
-
-        //if (hasAmountResourceTypeCapacity(resource)) {
-        //    result = (amountResourceTypeCapacities.get(resource)).getAmount();
-        //}
-        
-        if (hasARTypeCapacity(resource.getID())) {
-            result = (typeCapacities.get(resource.getID())).getAmount();
-        }
-
-        return result;
+        return getARTypeCapacity(resource.getID());
     }
 
     /**
@@ -228,28 +166,20 @@ class AmountResourceTypeStorage implements Serializable {
 
         double result = 0D;
 
-        if (hasARTypeCapacity(resource)) {
-            result = (typeCapacities.get(resource)).getAmount();
+        if (typeCapacities != null && resource >= 0 && resource < typeCapacities.length) {
+            result = typeCapacities[resource];
         }
 
         return result;
     }
-    
+
     /**
      * Gets the amount of a resource type stored.
      * @param resource the resource.
      * @return stored amount (kg).
      */
     double getAmountResourceTypeStored(AmountResource resource) {
-
-        double result = 0D;
-
-        ResourceAmount storedAmount = getARTypeStoredObject(resource.getID());//getAmountResourceTypeStoredObject(resource);
-        if (storedAmount != null) {
-            result = storedAmount.getAmount();
-        }
-        
-        return result;
+        return getARTypeStored(resource.getID());
     }
 
     /**
@@ -261,62 +191,20 @@ class AmountResourceTypeStorage implements Serializable {
 
         double result = 0D;
 
-        ResourceAmount storedAmount = getARTypeStoredObject(resource);
-        if (storedAmount != null) {
-            result = storedAmount.getAmount();
+        if (typeStored != null && resource >= 0 && resource < typeStored.length) {
+            result = typeStored[resource];
         }
-        
-        return result;
-    }
-    
-    /**
-     * Gets the amount of a resource type stored.
-     * @param resource the resource.
-     * @return stored amount as ResourceAmount object.
-     */
-    private ResourceAmount getAmountResourceTypeStoredObject(AmountResource resource) {
 
-        ResourceAmount result = null;
-
-        //if (amountResourceTypeStored != null) {
-        //    result = amountResourceTypeStored.get(resource);
-        //}
-        if (typeStored != null) {
-            result = typeStored.get(resource.getID());
-        }
-        
         return result;
     }
 
-    /**
-     * Gets the amount of a resource type stored.
-     * @param resource the resource.
-     * @return stored amount as ResourceAmount object.
-     */
-    private ResourceAmount getARTypeStoredObject(int resource) {
-
-        ResourceAmount result = null;
-
-        if (typeStored != null) {
-            result = typeStored.get(resource);
-        }
-
-        return result;
-    }
-    
     /**
      * Gets the total amount of resources stored.
      * @param allowDirty will allow dirty (possibly out of date) results.
      * @return stored amount (kg).
      */
     double getTotalAmountResourceTypesStored(boolean allowDirty) {
-
-        if (totalAmountCacheDirty && !allowDirty) {
-            // Update total amount cache.
-            updateTotalAmountResourceTypesStored();
-        }
-
-        return totalAmountCache;
+        return getTotalTypesStored(allowDirty);
     }
 
     /**
@@ -333,33 +221,6 @@ class AmountResourceTypeStorage implements Serializable {
 
         return totalAmountCache;
     }
-    
-    /**
-     * Updates the total amount of resources stored.
-     */
-    private void updateTotalAmountResourceTypesStored() {
-
-        double totalAmount = 0D;
-/*
-        if (amountResourceTypeStored != null) {
-            Map<AmountResource, ResourceAmount> tempMap = Collections.unmodifiableMap(amountResourceTypeStored);
-            Iterator<AmountResource> i = tempMap.keySet().iterator();
-            while (i.hasNext()) {
-                totalAmount += tempMap.get(i.next()).getAmount();
-            }
-        }
-*/     
-        if (typeStored != null) {
-            Map<Integer, ResourceAmount> tempMap = Collections.unmodifiableMap(typeStored);
-            Iterator<Integer> i = tempMap.keySet().iterator();
-            while (i.hasNext()) {
-                totalAmount += tempMap.get(i.next()).getAmount();
-            }
-        }
-
-        totalAmountCache = totalAmount;
-        totalAmountCacheDirty = false;
-    }
 
     /**
      * Updates the total amount of resources stored.
@@ -369,17 +230,15 @@ class AmountResourceTypeStorage implements Serializable {
         double totalAmount = 0D;
 
         if (typeStored != null) {
-            Map<Integer, ResourceAmount> tempMap = Collections.unmodifiableMap(typeStored);
-            Iterator<Integer> i = tempMap.keySet().iterator();
-            while (i.hasNext()) {
-                totalAmount += tempMap.get(i.next()).getAmount();
+            for (double amount : typeStored) {
+                totalAmount += amount;
             }
         }
 
         totalAmountCache = totalAmount;
         totalAmountCacheDirty = false;
     }
-    
+
     /**
      * Gets a set of resources stored.
      * @return set of resources.
@@ -390,25 +249,6 @@ class AmountResourceTypeStorage implements Serializable {
     		set.add(ResourceUtil.findAmountResource(ar));
     	}
     	return set;
-        
-/*
-        if (amountResourceTypeStored != null) {
-            result = new HashSet<AmountResource>(amountResourceTypeStored.size());
-            Iterator<AmountResource> i = amountResourceTypeStored.keySet().iterator();
-            while (i.hasNext()) {
-                AmountResource resource = i.next();
-                if (getAmountResourceTypeStored(resource) > 0D) {
-                    result.add(resource);
-                }
-            }
-        }
-        else {
-            result = new HashSet<AmountResource>(0);
-        }
-
-        
-        return result;
-*/    
     }
 
     /**
@@ -417,39 +257,26 @@ class AmountResourceTypeStorage implements Serializable {
      */
     Set<Integer> getAllARStored() {
 
-        Set<Integer> result = null;
+        Set<Integer> result = new HashSet<Integer>();
 
         if (typeStored != null) {
-            result = new HashSet<Integer>(typeStored.size());
-            Iterator<Integer> i = typeStored.keySet().iterator();
-            while (i.hasNext()) {
-            	Integer resource = i.next();
-                if (getARTypeStored(resource) > 0D) {
-                    result.add(resource);
+            for (int i = 0; i < typeStored.length; i++) {
+                if (typeStored[i] > 0D) {
+                    result.add(i);
                 }
             }
         }
-        else {
-            result = new HashSet<Integer>(0);
-        }
 
         return result;
     }
-    
+
     /**
      * Gets the remaining capacity available for a resource type.
      * @param resource the resource.
      * @return remaining capacity amount (kg).
      */
     double getAmountResourceTypeRemainingCapacity(AmountResource resource) {
-
-        double result = 0D;
-
-        if (hasAmountResourceTypeCapacity(resource)) {
-            result = getAmountResourceTypeCapacity(resource) - getAmountResourceTypeStored(resource);
-        }
-
-        return result;
+        return getARTypeRemainingCapacity(resource.getID());
     }
 
     /**
@@ -462,12 +289,12 @@ class AmountResourceTypeStorage implements Serializable {
         double result = 0D;
 
         if (hasARTypeCapacity(resource)) {
-            result = getARTypeCapacity(resource) - getARTypeStored(resource);
+            result = typeCapacities[resource] - typeStored[resource];
         }
 
         return result;
     }
-    
+
     /**
      * Store an amount of a resource type.
      * @param resource the resource.
@@ -475,35 +302,8 @@ class AmountResourceTypeStorage implements Serializable {
      */
     void storeAmountResourceType(AmountResource resource, double amount) {
     	storeARType(resource.getID(), amount);
-/*    	
-        if (amount < 0D) {
-            throw new IllegalStateException("Cannot store negative amount of type: " + amount);
-        }
-
-        if (amount > 0D) {
-            if (getAmountResourceTypeRemainingCapacity(resource) >= amount) {
-
-                // Set total amount cache to dirty since value is changing.
-                totalAmountCacheDirty = true;
-
-                if (amountResourceTypeStored == null) {
-                    amountResourceTypeStored = new HashMap<AmountResource, ResourceAmount>();
-                }
-
-                ResourceAmount stored = getAmountResourceTypeStoredObject(resource);
-                if (stored != null) {
-                    stored.setAmount(stored.getAmount() + amount);
-                }
-                else {
-                    amountResourceTypeStored.put(resource, new ResourceAmount(amount));
-                }
-            }
-            else throw new IllegalStateException("Amount resource could not be added in type storage.");
-        }
-*/        
     }
 
-    
     /**
      * Store an amount of a resource type.
      * @param resource the resource.
@@ -521,22 +321,12 @@ class AmountResourceTypeStorage implements Serializable {
                 // Set total amount cache to dirty since value is changing.
                 totalAmountCacheDirty = true;
 
-                if (typeStored == null) {
-                    typeStored = new HashMap<Integer, ResourceAmount>();
-                }
-
-                ResourceAmount stored = getARTypeStoredObject(resource);
-                if (stored != null) {
-                    stored.setAmount(stored.getAmount() + amount);
-                }
-                else {
-                    typeStored.put(resource, new ResourceAmount(amount));
-                }
+                typeStored[resource] += amount;
             }
             else throw new IllegalStateException("Amount resource could not be added in type storage.");
         }
     }
-    
+
     /**
      * Retrieves an amount of a resource type from storage.
      * @param resource the resource.
@@ -545,26 +335,24 @@ class AmountResourceTypeStorage implements Serializable {
     void retrieveAmountResourceType(AmountResource resource, double amount) {
 
         if (amount < 0D) {
-            throw new IllegalStateException("Cannot retrieve negative amount of type: " + amount); 
+            throw new IllegalStateException("Cannot retrieve negative amount of type: " + amount);
         }
 
         if (amount > 0D) {
-            if (getAmountResourceTypeStored(resource) >= amount) {
+            if (getARTypeStored(resource.getID()) >= amount) {
 
                 // Set total amount cache to dirty since value is changing.
                 totalAmountCacheDirty = true;
 
-                ResourceAmount stored = getAmountResourceTypeStoredObject(resource);
-                stored.setAmount(stored.getAmount() - amount);
+                typeStored[resource.getID()] -= amount;
             }
             else {
-                throw new IllegalStateException("Amount resource (" + resource.getName() +  
+                throw new IllegalStateException("Amount resource (" + resource.getName() +
                         ":" + amount + ") could not be retrieved from type storage");
             }
         }
     }
 
-    
     /**
      * Retrieves an amount of a resource type from storage.
      * @param resource the resource.
@@ -573,7 +361,7 @@ class AmountResourceTypeStorage implements Serializable {
     void retrieveARType(int resource, double amount) {
 
         if (amount < 0D) {
-            throw new IllegalStateException("Cannot retrieve negative amount of type: " + amount); 
+            throw new IllegalStateException("Cannot retrieve negative amount of type: " + amount);
         }
 
         if (amount > 0D) {
@@ -582,106 +370,28 @@ class AmountResourceTypeStorage implements Serializable {
                 // Set total amount cache to dirty since value is changing.
                 totalAmountCacheDirty = true;
 
-                ResourceAmount stored = getARTypeStoredObject(resource);
-                stored.setAmount(stored.getAmount() - amount);
+                typeStored[resource] -= amount;
             }
             else {
-                throw new IllegalStateException("Amount resource (" + resource +  
+                throw new IllegalStateException("Amount resource (" + resource +
                         ":" + amount + ") could not be retrieved from type storage");
             }
         }
     }
-    
-    /**
-     * Internal class for storing type resource amounts.
-     */
-    private static class ResourceAmount implements Serializable {
-
-        private double amount;
-
-        private ResourceAmount(double amount) {
-            this.amount = amount;
-        }
-
-        private void setAmount(double amount) {
-            this.amount = amount;
-        }
-
-        private double getAmount() {
-            return amount;
-        }
-    }
 
     public void restoreARs(AmountResource[] ars) {
- /*   	
-    	if (amountResourceTypeCapacities != null && !amountResourceTypeCapacities.isEmpty()) {
-	    	for (AmountResource r : amountResourceTypeCapacities.keySet()) {
-	    		for (AmountResource ar : ars) {
-	    			if (r.getName().equals(ar.getName())) {
-	    				ResourceAmount ra = amountResourceTypeCapacities.get(r);
-	    				// Replace the old AmountResource reference with the new
-	    				amountResourceTypeCapacities.put(ar, ra);
-	    				System.out.println("amountResourceTypeCapacities: " + ar.getName());
-	    			}
-	    		}
-	    	}
-    	}
-    	
-    	if (amountResourceTypeStored != null && !amountResourceTypeStored.isEmpty()) {
-	    	for (AmountResource r : amountResourceTypeStored.keySet()) {
-	    		for (AmountResource ar : ars) {
-	    			if (r.getName().equals(ar.getName())) {
-	    				ResourceAmount ra = amountResourceTypeStored.get(r);
-	    				// Replace the old AmountResource reference with the new
-	    				amountResourceTypeStored.put(ar, ra);
-	       				System.out.println("amountResourceTypeStored: " + ar.getName());
-	    			}
-	    		}
-	    	}
-    	}
-
-    	if (typeCapacities != null && !typeCapacities.isEmpty()) {
-	    	for (int r : typeCapacities.keySet()) {
-	    		for (AmountResource ar : ars) {
-	    			if (ResourceUtil.findAmountResource(r).getName().equals(ar.getName())) {
-	    				ResourceAmount ra = typeCapacities.get(r);
-	    				// Replace the old AmountResource reference with the new
-	    				typeCapacities.put(r, ra);
-	    				System.out.println("amountResourceTypeCapacities: " + ar.getName());
-	    			}
-	    		}
-	    	}
-    	}
-    	
-    	if (typeStored != null && !typeStored.isEmpty()) {
-	    	for (int r : typeStored.keySet()) {
-	    		for (AmountResource ar : ars) {
-	    			if (ResourceUtil.findAmountResource(r).getName().equals(ar.getName())) {
-	    				ResourceAmount ra = typeStored.get(r);
-	    				// Replace the old AmountResource reference with the new
-	    				typeStored.put(r, ra);
-	       				System.out.println("amountResourceTypeStored: " + ar.getName());
-	    			}
-	    		}
-	    	}
-    	}
-*/	
+    	// The storage refers to the resources by id only, so nothing needs restoring
     }
-    
+
     /**
      * Prepare object for garbage collection.
      */
     public void destroy() {
-    	
-        //if (amountResourceTypeCapacities != null) amountResourceTypeCapacities.clear();
-        //amountResourceTypeCapacities = null;
-        //if (amountResourceTypeStored != null) amountResourceTypeStored.clear();
-        //amountResourceTypeStored = null;
-        
         typeCapacities = null;
         typeStored = null;
+        hasCapacity = null;
     }
-    
+
     /**
      * Implementing readObject method for serialization.
      * @param in the input stream.
@@ -689,10 +399,10 @@ class AmountResourceTypeStorage implements Serializable {
      * @throws ClassNotFoundException if error creating class.
      */
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        
+
         in.defaultReadObject();
 
         // Initialize transient variables that need it.
         totalAmountCacheDirty = true;
     }
-}
\ No newline at end of file
+}
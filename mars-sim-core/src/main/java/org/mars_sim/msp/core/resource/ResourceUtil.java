@@ -71,6 +71,8 @@ public class ResourceUtil implements Serializable {
 	//private Set<AmountResource> resources;// = new TreeSet<AmountResource>();
     private static Map<String, AmountResource> amountResourceMap;
     private static Map<Integer, AmountResource> amountResourceIDMap;
+    /** The amount resources indexed by id, for the lookups on the storage hot path. */
+    private static AmountResource[] amountResourceIDArray;
     private static Map<Integer, String> IDNameMap;
 
 	private static Set<AmountResource> resources;
@@ -238,8 +240,15 @@ public class ResourceUtil implements Serializable {
 		}
 
 		amountResourceIDMap = new HashMap<Integer, AmountResource>();
+		int maxID = 0;
 		for (AmountResource resource : sortedResources) {
 			amountResourceIDMap.put(resource.getID(), resource);
+			maxID = Math.max(maxID, resource.getID());
+		}
+
+		amountResourceIDArray = new AmountResource[maxID + 1];
+		for (AmountResource resource : sortedResources) {
+			amountResourceIDArray[resource.getID()] = resource;
 		}
 
 		IDNameMap = new HashMap<Integer, String>();
@@ -384,7 +393,9 @@ public class ResourceUtil implements Serializable {
 		//result = getAmountResourcesIDMap().get(id);
 		//if (result != null) return result;
 		//else throw new IllegalStateException("Resource: " + id + " could not be found.");
-		return amountResourceIDMap.get(id);
+		if (id >= 0 && id < amountResourceIDArray.length)
+			return amountResourceIDArray[id];
+		return null;
 	}
 
 
@@ -624,6 +635,7 @@ public class ResourceUtil implements Serializable {
 		resources = null;
 		amountResourceMap = null;
 		amountResourceIDMap = null;
+		amountResourceIDArray = null;
 		IDNameMap = null;
 	}
 
@@ -9,7 +9,6 @@ package org.mars_sim.msp.core.robot;
 
 import java.io.Serializable;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
@@ -35,11 +34,8 @@ import org.mars_sim.msp.core.person.ai.SkillManager;
 import org.mars_sim.msp.core.person.ai.SkillType;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
 import org.mars_sim.msp.core.person.ai.mission.MissionMember;
-import org.mars_sim.msp.core.person.ai.task.Maintenance;
 import org.mars_sim.msp.core.person.ai.task.Relax;
-import org.mars_sim.msp.core.person.ai.task.Repair;
 import org.mars_sim.msp.core.person.ai.task.Sleep;
-import org.mars_sim.msp.core.person.ai.task.Task;
 import org.mars_sim.msp.core.person.ai.task.Walk;
 import org.mars_sim.msp.core.person.medical.MedicalAid;
 import org.mars_sim.msp.core.robot.ai.BotMind;
@@ -750,25 +746,10 @@ implements Salvagable, Malfunctionable, MissionMember, Serializable {
 	public Collection<Person> getAffectedPeople() {
 		Collection<Person> people = new ConcurrentLinkedQueue<Person>();
 
-		// Check all people.
-		Iterator<Person> i = Simulation.instance().getUnitManager().getPeople().iterator();
-		while (i.hasNext()) {
-			Person person = i.next();
-			Task task = person.getMind().getTaskManager().getTask();
-
-			// Add all people maintaining this equipment.
-			if (task instanceof Maintenance) {
-				if (((Maintenance) task).getEntity() == this) {
-					if (!people.contains(person)) people.add(person);
-				}
-			}
-
-			// Add all people repairing this equipment.
-			if (task instanceof Repair) {
-				if (((Repair) task).getEntity() == this) {
-					if (!people.contains(person)) people.add(person);
-				}
-			}
+		// Add all people maintaining or repairing this robot.
+		for (Person person : getMalfunctionManager().getWorkers()) {
+			if (!people.contains(person))
+				people.add(person);
 		}
 
 		return people;
@@ -78,6 +78,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	private ScienceType science;
 	private int difficultyLevel;
 	private Person primaryResearcher;
+	// The collaborative researchers may be at other settlements, working on the study at the same time.
 	private Map<Person, ScienceType> collaborativeResearchers;
 	private Map<Person, Boolean> invitedResearchers;
 	private double proposalWorkTime;
@@ -210,7 +211,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Gets the study's collaborative researchers and their fields of science.
 	 * @return map of researchers and their sciences.
 	 */
-	public Map<Person, ScienceType> getCollaborativeResearchers() {
+	public synchronized Map<Person, ScienceType> getCollaborativeResearchers() {
 		return new HashMap<Person, ScienceType>(collaborativeResearchers);
 	}
 
@@ -219,7 +220,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @param science the scientific field to collaborate with.
 	 */
-	public void addCollaborativeResearcher(Person researcher, ScienceType science) {
+	public synchronized void addCollaborativeResearcher(Person researcher, ScienceType science) {
 		collaborativeResearchers.put(researcher, science);
 		collaborativeResearchWorkTime.put(researcher, 0D);
 		collaborativePaperWorkTime.put(researcher, 0D);
@@ -234,7 +235,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Removes a collaborative researcher from a study.
 	 * @param researcher the collaborative researcher.
 	 */
-	public void removeCollaborativeResearcher(Person researcher) {
+	public synchronized void removeCollaborativeResearcher(Person researcher) {
 		collaborativeResearchers.remove(researcher);
 		collaborativeResearchWorkTime.remove(researcher);
 		collaborativePaperWorkTime.remove(researcher);
@@ -251,7 +252,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the researcher to check.
 	 * @return true if already invited.
 	 */
-	public boolean hasResearcherBeenInvited(Person researcher) {
+	public synchronized boolean hasResearcherBeenInvited(Person researcher) {
 		return invitedResearchers.containsKey(researcher);
 	}
 
@@ -260,7 +261,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the invited researcher
 	 * @return true if reseacher has responded.
 	 */
-	public boolean hasInvitedResearcherResponded(Person researcher) {
+	public synchronized boolean hasInvitedResearcherResponded(Person researcher) {
 		boolean result = false;
 		if (invitedResearchers.containsKey(researcher)) 
 			result = invitedResearchers.get(researcher);
@@ -271,7 +272,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Get number of research invitations that have not been responded to yet.
 	 * @return num invitations.
 	 */
-	public int getNumOpenResearchInvitations() {
+	public synchronized int getNumOpenResearchInvitations() {
 		int result = 0;
 
 		Iterator<Person> i = invitedResearchers.keySet().iterator();
@@ -285,7 +286,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	/**
 	 * Cleans out any dead collaboration invitees.
 	 */
-	void cleanResearchInvitations() {
+	synchronized void cleanResearchInvitations() {
 		Iterator<Person> i = invitedResearchers.keySet().iterator();
 		while (i.hasNext()) {
 			Person invitee = i.next();
@@ -298,7 +299,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * on this study.
 	 * @param researcher the invited researcher.
 	 */
-	public void addInvitedResearcher(Person researcher) {
+	public synchronized void addInvitedResearcher(Person researcher) {
 		if (!invitedResearchers.containsKey(researcher))
 			invitedResearchers.put(researcher, false);
 	}
@@ -307,7 +308,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Sets that an invited researcher has responded.
 	 * @param researcher the invited researcher.
 	 */
-	public void respondingInvitedResearcher(Person researcher) {
+	public synchronized void respondingInvitedResearcher(Person researcher) {
 		if (invitedResearchers.containsKey(researcher))
 			invitedResearchers.put(researcher, true);
 	}
@@ -377,7 +378,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @return work time (millisols).
 	 */
-	public double getCollaborativeResearchWorkTimeCompleted(Person researcher) {
+	public synchronized double getCollaborativeResearchWorkTimeCompleted(Person researcher) {
 		if (collaborativeResearchWorkTime.containsKey(researcher))
 			return collaborativeResearchWorkTime.get(researcher);
 		else throw new IllegalArgumentException(researcher + 
@@ -389,7 +390,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @param workTime the work time (millisols).
 	 */
-	public void addCollaborativeResearchWorkTime(Person researcher, double workTime) {
+	public synchronized void addCollaborativeResearchWorkTime(Person researcher, double workTime) {
 		if (collaborativeResearchWorkTime.containsKey(researcher)) {
 			double currentWorkTime = collaborativeResearchWorkTime.get(researcher);
 			currentWorkTime += workTime;
@@ -412,7 +413,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Checks if collaborative research has been completed by a given researcher.
 	 * @param researcher the collaborative researcher.
 	 */
-	public boolean isCollaborativeResearchCompleted(Person researcher) {
+	public synchronized boolean isCollaborativeResearchCompleted(Person researcher) {
 		if (collaborativeResearchWorkTime.containsKey(researcher)) {
 			double currentWorkTime = collaborativeResearchWorkTime.get(researcher);
 			double requiredWorkTime = getTotalCollaborativeResearchWorkTimeRequired();
@@ -426,7 +427,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Checks if all collaborative research has been completed.
 	 * @return true if research completed.
 	 */
-	public boolean isAllCollaborativeResearchCompleted() {
+	public synchronized boolean isAllCollaborativeResearchCompleted() {
 		boolean result = true;
 		Iterator<Person> i = collaborativeResearchWorkTime.keySet().iterator();
 		while (i.hasNext()) {
@@ -504,7 +505,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @return work time (millisols).
 	 */
-	public double getCollaborativePaperWorkTimeCompleted(Person researcher) {
+	public synchronized double getCollaborativePaperWorkTimeCompleted(Person researcher) {
 		if (collaborativePaperWorkTime.containsKey(researcher))
 			return collaborativePaperWorkTime.get(researcher);
 		else throw new IllegalArgumentException(researcher + 
@@ -516,7 +517,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @param workTime the work time (millisols).
 	 */
-	public void addCollaborativePaperWorkTime(Person researcher, double workTime) {
+	public synchronized void addCollaborativePaperWorkTime(Person researcher, double workTime) {
 		if (collaborativePaperWorkTime.containsKey(researcher)) {
 			double currentWorkTime = collaborativePaperWorkTime.get(researcher);
 			currentWorkTime += workTime;
@@ -535,7 +536,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Checks if collaborative paper writing has been completed by a given researcher.
 	 * @param researcher the collaborative researcher.
 	 */
-	public boolean isCollaborativePaperCompleted(Person researcher) {
+	public synchronized boolean isCollaborativePaperCompleted(Person researcher) {
 		if (collaborativePaperWorkTime.containsKey(researcher)) {
 			double currentWorkTime = collaborativePaperWorkTime.get(researcher);
 			double requiredWorkTime = getTotalCollaborativePaperWorkTimeRequired();
@@ -549,7 +550,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * Checks if all collaborative paper writing has been completed.
 	 * @return true if paper writing completed.
 	 */
-	public boolean isAllCollaborativePaperCompleted() {
+	public synchronized boolean isAllCollaborativePaperCompleted() {
 		boolean result = true;
 		Iterator<Person> i = collaborativePaperWorkTime.keySet().iterator();
 		while (i.hasNext()) {
@@ -659,7 +660,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @return last time or null if none.
 	 */
-	public MarsClock getLastCollaborativeResearchWorkTime(Person researcher) {
+	public synchronized MarsClock getLastCollaborativeResearchWorkTime(Person researcher) {
 		MarsClock result = null;
 		if (lastCollaborativeResearchWorkTime.containsKey(researcher)) 
 			result = lastCollaborativeResearchWorkTime.get(researcher);
@@ -687,7 +688,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @return earned scientific achievement.
 	 */
-	public double getCollaborativeResearcherEarnedScientificAchievement(Person researcher) {
+	public synchronized double getCollaborativeResearcherEarnedScientificAchievement(Person researcher) {
 		double result = 0D;
 
 		if (collaborativeAchievementEarned.containsKey(researcher))
@@ -701,7 +702,7 @@ implements Serializable, Comparable<ScientificStudy> {
 	 * @param researcher the collaborative researcher.
 	 * @param earned the earned scientific achievement.
 	 */
-	void setCollaborativeResearcherEarnedScientificAchievement(Person researcher, double earned) {
+	synchronized void setCollaborativeResearcherEarnedScientificAchievement(Person researcher, double earned) {
 		if (collaborativeAchievementEarned.containsKey(researcher))
 			collaborativeAchievementEarned.put(researcher, earned);
 	}
@@ -10,6 +10,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Simulation;
@@ -38,7 +39,8 @@ implements Serializable {
     public ScientificStudyManager() { //}   
 	// 2015-02-04 Added run()
 	//public void run() {
-        studies = new ArrayList<ScientificStudy>();
+        // Studies may be created by the people of different settlements at the same time.
+        studies = new CopyOnWriteArrayList<ScientificStudy>();
 	}
     
     /**
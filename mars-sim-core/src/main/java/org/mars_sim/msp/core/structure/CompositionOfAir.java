@@ -109,16 +109,14 @@ public class CompositionOfAir implements Serializable {
 	public static final double CH4_MOLAR_MASS = 16.04276 / 1000;; // [in kg/mol] 
 	public static final double H2_MOLAR_MASS = 2.016 / 1000;; // [in kg/mol] 
 	
-	private static final int MILLISOLS_PER_UPDATE = 2;
+	/** The period (in millisols) of monitoring the air. */
+	public static final int MILLISOLS_PER_UPDATE = 2;
 	
     private static final double R_GAS_CONSTANT = 0.082057338; // [ in L atm K^−1 mol^−1 ]
     // alternatively, R_GAS_CONSTANT = 8.3144598 m^3 Pa K^−1 mol^−1
     // see https://en.wikipedia.org/wiki/Gas_constant
 
 	public static final int numGases = 5;
-    /** The cache for msols */     
- 	private int msolCache;
-    
     private boolean isDone = false;
     
     /** Oxygen consumed by a person [kg/millisol] */
@@ -325,15 +323,16 @@ public class CompositionOfAir implements Serializable {
 		
 		// For each time interval
 		calculateGasExchange(time, newList, num);
-			
-		int msol = clock.getMsol0();
-		
-		if (msolCache != msol && msol % MILLISOLS_PER_UPDATE == 0) {
-			msolCache = msol;
+	}
 
-			monitorAir(newList, num);
-		}
-		
+	/**
+	 * Monitors the air of all the buildings with life support. Called by the settlement
+	 * every {@link #MILLISOLS_PER_UPDATE} millisols.
+	 */
+	public void monitorAir() {
+		List<Building> buildings = buildingManager.getBuildingsWithLifeSupport();
+		int num = buildingManager.getLargestInhabitableID() + 1;
+		monitorAir(buildings, num);
 	}
 	
 	public double getMolecularMass(int gas) {
@@ -0,0 +1,170 @@
+/**
+ * Mars Simulation Project
+ * ResourceSampleSeries.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core.structure;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Samples of the amounts of a fixed number of resources, summed up per sol for a
+ * rolling window of sols. Each sol of the window has a slot per resource holding the
+ * count, sum, minimum and maximum of its samples; a slot is reused once its sol falls
+ * out of the window. Adding a sample and getting the statistics of a sol do not allocate.
+ */
+public class ResourceSampleSeries implements Serializable {
+
+	/** default serial id. */
+	private static final long serialVersionUID = 1L;
+
+	/** The number of resources sampled. */
+	private int numResources;
+	/** The number of sols kept. */
+	private int numSols;
+	/** The sol each slot holds, or -1 if none. */
+	private int[] slotSols;
+	/** The number of samples in each slot, by slot then by resource. */
+	private int[] counts;
+	/** The sum of the samples in each slot. */
+	private double[] sums;
+	/** The smallest sample in each slot. */
+	private double[] mins;
+	/** The largest sample in each slot. */
+	private double[] maxs;
+
+	/**
+	 * Constructor.
+	 * @param numResources the number of resources sampled.
+	 * @param numSols the number of sols kept.
+	 */
+	public ResourceSampleSeries(int numResources, int numSols) {
+		this.numResources = numResources;
+		this.numSols = numSols;
+		slotSols = new int[numSols];
+		Arrays.fill(slotSols, -1);
+		counts = new int[numSols * numResources];
+		sums = new double[numSols * numResources];
+		mins = new double[numSols * numResources];
+		maxs = new double[numSols * numResources];
+	}
+
+	/**
+	 * Adds a sample of a resource.
+	 * @param sol the sol of the sample.
+	 * @param resourceType the resource type, from 0 to the number of resources.
+	 * @param amount the amount sampled (kg).
+	 */
+	public void add(int sol, int resourceType, double amount) {
+		int slot = Math.floorMod(sol, numSols);
+		if (slotSols[slot] != sol) {
+			// Reuse the slot of a sol out of the window.
+			slotSols[slot] = sol;
+			Arrays.fill(counts, slot * numResources, (slot + 1) * numResources, 0);
+			Arrays.fill(sums, slot * numResources, (slot + 1) * numResources, 0D);
+		}
+
+		int i = slot * numResources + resourceType;
+		if (counts[i] == 0) {
+			mins[i] = amount;
+			maxs[i] = amount;
+		}
+		else {
+			mins[i] = Math.min(mins[i], amount);
+			maxs[i] = Math.max(maxs[i], amount);
+		}
+		counts[i]++;
+		sums[i] += amount;
+	}
+
+	/**
+	 * Gets the number of samples of a resource on a sol.
+	 * @param sol the sol.
+	 * @param resourceType the resource type.
+	 * @return number of samples, 0 if the sol is not in the window.
+	 */
+	public int getCount(int sol, int resourceType) {
+		int i = getIndex(sol, resourceType);
+		return (i < 0) ? 0 : counts[i];
+	}
+
+	/**
+	 * Gets the average amount of a resource on a sol.
+	 * @param sol the sol.
+	 * @param resourceType the resource type.
+	 * @return average amount (kg), 0 if no sample.
+	 */
+	public double getAverage(int sol, int resourceType) {
+		int i = getIndex(sol, resourceType);
+		return (i < 0 || counts[i] == 0) ? 0D : sums[i] / counts[i];
+	}
+
+	/**
+	 * Gets the average amount of a resource over a number of sols up to a sol.
+	 * @param sol the last sol.
+	 * @param sols the number of sols.
+	 * @param resourceType the resource type.
+	 * @return average amount (kg) over the samples of those sols, 0 if no sample.
+	 */
+	public double getAverage(int sol, int sols, int resourceType) {
+		int count = 0;
+		double sum = 0D;
+		for (int s = Math.max(sol - Math.min(sols, numSols) + 1, 0); s <= sol; s++) {
+			int i = getIndex(s, resourceType);
+			if (i >= 0) {
+				count += counts[i];
+				sum += sums[i];
+			}
+		}
+		return (count == 0) ? 0D : sum / count;
+	}
+
+	/**
+	 * Gets the smallest amount of a resource sampled on a sol.
+	 * @param sol the sol.
+	 * @param resourceType the resource type.
+	 * @return smallest amount (kg), 0 if no sample.
+	 */
+	public double getMin(int sol, int resourceType) {
+		int i = getIndex(sol, resourceType);
+		return (i < 0 || counts[i] == 0) ? 0D : mins[i];
+	}
+
+	/**
+	 * Gets the largest amount of a resource sampled on a sol.
+	 * @param sol the sol.
+	 * @param resourceType the resource type.
+	 * @return largest amount (kg), 0 if no sample.
+	 */
+	public double getMax(int sol, int resourceType) {
+		int i = getIndex(sol, resourceType);
+		return (i < 0 || counts[i] == 0) ? 0D : maxs[i];
+	}
+
+	/**
+	 * Gets the number of sols kept.
+	 * @return number of sols.
+	 */
+	public int getNumSols() {
+		return numSols;
+	}
+
+	/**
+	 * Gets the index of the statistics of a resource on a sol.
+	 * @param sol the sol.
+	 * @param resourceType the resource type.
+	 * @return the index, or -1 if the sol is not in the window.
+	 */
+	private int getIndex(int sol, int resourceType) {
+		if (sol < 0 || resourceType < 0 || resourceType >= numResources) {
+			return -1;
+		}
+		int slot = Math.floorMod(sol, numSols);
+		if (slotSols[slot] != sol) {
+			return -1;
+		}
+		return slot * numResources + resourceType;
+	}
+}
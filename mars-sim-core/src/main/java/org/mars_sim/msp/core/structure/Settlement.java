@@ -11,12 +11,14 @@ import java.awt.geom.Point2D;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -47,10 +49,8 @@ import org.mars_sim.msp.core.person.ai.mission.Mission;
 import org.mars_sim.msp.core.person.ai.mission.MissionManager;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
 import org.mars_sim.msp.core.person.ai.task.HaveConversation;
-import org.mars_sim.msp.core.person.ai.task.Maintenance;
 import org.mars_sim.msp.core.person.ai.task.Read;
 import org.mars_sim.msp.core.person.ai.task.Relax;
-import org.mars_sim.msp.core.person.ai.task.Repair;
 import org.mars_sim.msp.core.person.ai.task.Task;
 import org.mars_sim.msp.core.person.ai.task.Workout;
 import org.mars_sim.msp.core.resource.AmountResource;
@@ -70,6 +70,7 @@ import org.mars_sim.msp.core.structure.construction.ConstructionManager;
 import org.mars_sim.msp.core.structure.goods.GoodsManager;
 import org.mars_sim.msp.core.structure.goods.GoodsUtil;
 import org.mars_sim.msp.core.time.MarsClock;
+import org.mars_sim.msp.core.time.MultiRateScheduler;
 import org.mars_sim.msp.core.vehicle.LightUtilityVehicle;
 import org.mars_sim.msp.core.vehicle.Vehicle;
 import org.mars_sim.msp.core.vehicle.VehicleType;
@@ -104,6 +105,10 @@ implements Serializable, LifeSupportType, Objective {
 
 	private static final int SAMPLING_FREQ = 250; // in millisols
 
+	private static final int GOODS_VALUE_FREQ = 500; // in millisols
+
+	private static final int WEATHER_UPDATE_FREQ = 5; // in millisols
+
 	public static final int NUM_CRITICAL_RESOURCES = 9;
 
 	private static final int RESOURCE_STAT_SOLS = 12;
@@ -146,8 +151,6 @@ implements Serializable, LifeSupportType, Objective {
 	private int millisolCache = -5;
 	private int numConnectorsCache = 0;
 	
-	/** Goods manager update time. */
-	private double goodsManagerUpdateTime = 0D;
 
 	private double currentTemperature = 22.5;
 	
@@ -185,6 +188,10 @@ implements Serializable, LifeSupportType, Objective {
 	public transient boolean justReloadedPeople = true;
 
 	public transient boolean justReloadedRobots = true;
+	/** The length of the current time pulse (in millisols). */
+	private transient double pulseTime;
+	/** The scheduler of the periodic subsystems. */
+	private transient MultiRateScheduler scheduler;
 
 	private boolean[] exposed = {false, false, false};
 
@@ -246,11 +253,14 @@ implements Serializable, LifeSupportType, Objective {
 	/** The settlement's achievement in scientific fields. */
 	private Map<ScienceType, Double> scientificAchievement;
 	//private Map<Integer, Double> resourceMapCache = new HashMap<>();
-	private Map<Integer, Map<Integer, List<Double>>> resourceStat = new HashMap<>();
+	/** The samples of the amounts of the critical resources stored, per sol. */
+	private ResourceSampleSeries resourceStat = new ResourceSampleSeries(NUM_CRITICAL_RESOURCES, RESOURCE_STAT_SOLS);
 	// 2016-12-21 Added allAssociatedPeople
 	private Collection<Person> allAssociatedPeople = new ConcurrentLinkedQueue<Person>();
 	// 2016-12-22 Added allAssociatedRobots
 	private Collection<Robot> allAssociatedRobots = new ConcurrentLinkedQueue<Robot>();
+	/** The associated people doing EVA in the settlement vicinity. Rebuilt when null. */
+	private transient CopyOnWriteArrayList<Person> evaPeople;
 
 	private Map<Building, List<Building>> adjacentBuildingMap = new HashMap<>();
 	
@@ -582,8 +592,10 @@ implements Serializable, LifeSupportType, Objective {
 	 * Gets a collection of the inhabitants of the settlement.
 	 * @return Collection of inhabitants
 	 */
+	@SuppressWarnings("unchecked")
 	public Collection<Person> getInhabitants() {
-		return CollectionUtils.getPerson(getInventory().getContainedUnits());
+		// The people the inventory keeps indexed as they come and go
+		return (Collection<Person>) (Collection<?>) getInventory().findAllUnitsOfClass(Person.class);
 	}
 
 	/**
@@ -591,24 +603,47 @@ implements Serializable, LifeSupportType, Objective {
 	 * @return Collection of people
 	 */
 	public Collection<Person> getOutsideEVAPeople() {
-
-		return allAssociatedPeople
-				.stream()
-				.filter(p-> p.getLocationStateType() == LocationStateType.SETTLEMENT_VICINITY)
-				.collect(Collectors.toList());
-		
+		return Collections.unmodifiableCollection(getEVAPeople());
 	}
-	
+
 	/**
 	 * Gets the number of people currently doing EVA outside the settlement
 	 * @return the available population capacity
 	 */
 	public int getNumOutsideEVAPeople() {
-		Collection<Person> ppl = getOutsideEVAPeople();
-		if (ppl.isEmpty() || ppl == null)
-			return 0;
-		else
-			return ppl.size();
+		return getEVAPeople().size();
+	}
+
+	/**
+	 * Gets the associated people doing EVA in the settlement vicinity, building the index if needed.
+	 * @return people
+	 */
+	private Collection<Person> getEVAPeople() {
+		CopyOnWriteArrayList<Person> result = evaPeople;
+		if (result == null) {
+			result = new CopyOnWriteArrayList<Person>();
+			for (Person p : getAllAssociatedPeople()) {
+				if (p.getLocationStateType() == LocationStateType.SETTLEMENT_VICINITY)
+					result.add(p);
+			}
+			evaPeople = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Updates the people doing EVA after a person changes location or associated settlement.
+	 * @param person the person.
+	 */
+	public void updateEVAPerson(Person person) {
+		CopyOnWriteArrayList<Person> index = evaPeople;
+		if (index != null) {
+			if (person.getAssociatedSettlement() == this
+					&& person.getLocationStateType() == LocationStateType.SETTLEMENT_VICINITY)
+				index.addIfAbsent(person);
+			else
+				index.remove(person);
+		}
 	}
 	
 	/**
@@ -1020,27 +1055,9 @@ implements Serializable, LifeSupportType, Objective {
 		// 2015-01-09 Added makeDailyReport()
 		performEndOfDayTasks(); // NOTE: also update solCache in makeDailyReport()
 
-		// Sample a data point every SAMPLE_FREQ (in millisols)
-	    int millisols = marsClock.getMsol0();
-
-	    int remainder = millisols % SAMPLING_FREQ ;
-	    if (remainder == 0)
-	    	if (millisols != 1000) // will NOT check for radiation at the exact 1000 millisols in order to balance the simulation load
-	    		// take a sample for each critical resource
-	    		sampleAllResources();
-
-		// Check every RADIATION_CHECK_FREQ (in millisols)
-	    // Compute whether a baseline, GCR, or SEP event has occurred
-	    remainder = millisols % RadiationExposure.RADIATION_CHECK_FREQ ;
-	    if (remainder == 5)
-	    	//if (millisols != 1000) // will NOT check for radiation at the exact 1000 millisols in order to balance the simulation load
-	    		checkRadiationProbability(time);
-
-	    // Updates the goodsManager twice per sol at random time.
-	    updateGoodsManager(time);
-
-		// 2015-04-18 Added updateRegistry();
-		// updateRegistry();
+	    // Updates the goodsManager right away the first time, and on each tick of an update in progress
+		if (!goodsManager.isInitialized() || goodsManager.isUpdateInProgress())
+			goodsManager.timePassing(time);
 
 	    // 2015-12-29 Added CompositionOfAir
 	    compositionOfAir.timePassing(time);
@@ -1049,25 +1066,11 @@ implements Serializable, LifeSupportType, Objective {
 	    
 	    currentTemperature = computeAverageTemperature();
 
-		outside_temperature = weather.getTemperature(location);
+	    // Run resource sampling, radiation, ice/regolith probability, goods valuation,
+	    // air monitoring and weather reading at their own rates
+	    pulseTime = time;
+	    getScheduler().timePassing((marsClock.getMissionSol() - 1) * 1000D + marsClock.getMillisol());
 
-	    remainder = millisols % RESOURCE_UPDATE_FREQ ;
-	    if (remainder == 5) {
-	    	iceProbabilityValue = computeIceProbability();
-	    }
-
-	    if (remainder == 10) {
-	    	regolithProbabilityValue = computeRegolithProbability();
-	    }
-
-	    //if (remainder == 15) {
-	    //	oxygenProbabilityValue = computeOxygenProbability();
-	    //}
-
-	    //if (remainder == 20) {
-	    //	methaneProbabilityValue = computeMethaneProbability();
-	    //}
-	    
 	    if (!adjacentBuildingMap.isEmpty()) {
 			int numConnectors = adjacentBuildingMap.size();
 		    
@@ -1120,34 +1123,7 @@ implements Serializable, LifeSupportType, Objective {
 			resource = ResourceUtil.iceAR;//"ice";
 		}
 
-
-		if (resourceStat.containsKey(solCache)) {
-			Map<Integer, List<Double>> todayMap = resourceStat.get(solCache);
-
-			if (todayMap.containsKey(resourceType)) {
-				List<Double> list = todayMap.get(resourceType);
-				double newAmount = getInventory().getAmountResourceStored(resource, false);
-				list.add(newAmount);
-
-			}
-
-			else {
-				List<Double> list = new ArrayList<>();
-				double newAmount = getInventory().getAmountResourceStored(resource, false);
-				list.add(newAmount);
-				todayMap.put(resourceType, list);
-			}
-
-		} 
-		
-		else {
-			List<Double> list = new ArrayList<>();
-			Map<Integer, List<Double>> todayMap = new HashMap<>();
-			double newAmount = getInventory().getAmountResourceStored(resource, false);
-			list.add(newAmount);
-			todayMap.put(resourceType, list);
-			resourceStat.put(solCache, todayMap);
-		}
+		resourceStat.add(solCache, resourceType, getInventory().getAmountResourceStored(resource, false));
 	}
 
 
@@ -1166,38 +1142,7 @@ implements Serializable, LifeSupportType, Objective {
 		else if (solType == -10) // average from 10 sols ago
 			sol = solCache - 10;
 
-		int size = 0;
-		double average = 0;
-
-		if (resourceStat.containsKey(sol)) {
-			Map<Integer, List<Double>> map = resourceStat.get(sol);
-			//System.out.println("Sol " + solCache + " : yes to resourceStat.containsKey(" + sol + ")");
-			//System.out.println("map.containsKey(resourceType) is " + map.containsKey(resourceType));
-			if (map.containsKey(resourceType)) {
-				List<Double> list = map.get(resourceType);
-				//System.out.println("sol : " + solCache + "   solType : "  + solType + "   list is " + list);
-				size = list.size();
-				for (int i = 0; i < size; i++) {
-					average += list.get(i);
-					//System.out.println("list.get(i) is " + list.get(i));
-				}
-
-				//System.out.println("size is " + size + "   average is " + average);
-				average = average/size;
-
-			}
-			else {
-				average = 0; // how long will it be filled ? ?
-			}
-
-		}
-		else
-			average = 0;
-
-		//if (size != 0)
-		//	average = average/size;
-
-		return average;
+		return resourceStat.getAverage(sol, resourceType);
 	}
 
 	/*
@@ -1256,8 +1201,6 @@ implements Serializable, LifeSupportType, Objective {
 
 			reassignWorkShift();
 
-			refreshResourceStat();
-
 			refreshSleepMap(solElapsed);
 
 			//getSupplyDemandSampleReport(solElapsed);
@@ -1270,19 +1213,6 @@ implements Serializable, LifeSupportType, Objective {
 	}
 
 
-	public void refreshResourceStat() {
-		// Remove the resourceStat map data from 12 days ago
-		if (resourceStat.size() > RESOURCE_STAT_SOLS)
-			resourceStat.remove(0);
-		//if (counter30 == 31) {
-		//	resourceStat.remove(0);
-			//resourceStat.clear();
-			//resourceStat = new HashMap<>();
-			//counter30--;
-		//}
-		//else
-		//	counter30++;
-	}
 	/***
 	 * Refreshes the sleep map for each person in the settlement
 	 * @param solElapsed
@@ -1441,20 +1371,23 @@ implements Serializable, LifeSupportType, Objective {
 
 		// Sample supply and demand data on Potato and Water
 
-		double supplyAmount1 = getInventory().getAmountSupplyAmount(sample1);
-		double supplyAmount2 = getInventory().getAmountSupplyAmount(sample2);
+		int id1 = ResourceUtil.findIDbyAmountResourceName(sample1);
+		int id2 = ResourceUtil.findIDbyAmountResourceName(sample2);
+
+		double supplyAmount1 = getInventory().getAmountSupplyAmount(id1, 1);
+		double supplyAmount2 = getInventory().getAmountSupplyAmount(id2, 1);
 
-		int supplyRequest1 = getInventory().getAmountSupplyRequest(sample1);
-		int supplyRequest2 = getInventory().getAmountSupplyRequest(sample2);
+		int supplyRequest1 = getInventory().getAmountSupplyRequest(id1, 1);
+		int supplyRequest2 = getInventory().getAmountSupplyRequest(id2, 1);
 
-		double demandAmount1 = getInventory().getAmountDemandAmount(sample1);
-		double demandAmount2 = getInventory().getAmountDemandAmount(sample2);
+		double demandAmount1 = getInventory().getAmountDemandAmount(id1, 1);
+		double demandAmount2 = getInventory().getAmountDemandAmount(id2, 1);
 
 		// int totalRequest1 = getInventory().getDemandTotalRequest(sample1);
 		// int totalRequest2 = getInventory().getDemandTotalRequest(sample2);
 
-		int demandSuccessfulRequest1 = getInventory().getAmountDemandMetRequest(sample1);
-		int demandSuccessfulRequest2 = getInventory().getAmountDemandMetRequest(sample2);
+		int demandSuccessfulRequest1 = getInventory().getAmountDemandMetRequest(id1, 1);
+		int demandSuccessfulRequest2 = getInventory().getAmountDemandMetRequest(id2, 1);
 
 		// int numOfGoodsInDemandAmountMap = getInventory().getDemandAmountMapSize();
 		// int numOfGoodsInDemandTotalRequestMap =
@@ -1491,16 +1424,11 @@ implements Serializable, LifeSupportType, Objective {
 	 */
 	// 2015-02-13 Added refreshMapDaily()
 	public void refreshDataMap(int solElapsed) {
+		// Start counting the supply and demand of the new sol
+		getInventory().setSupplyDemandSol(solElapsed);
 		// Clear maps once every x number of days
 		if (solElapsed % SUPPLY_DEMAND_REFRESH == 0) {
 			// True if solElapsed is an exact multiple of x
-			// Carry out the daily average of the previous 5 days
-			getInventory().compactAmountSupplyAmountMap(SUPPLY_DEMAND_REFRESH);
-			getInventory().clearAmountSupplyRequestMap();
-			// Carry out the daily average of the previous 5 days
-			getInventory().compactAmountDemandAmountMap(SUPPLY_DEMAND_REFRESH);
-			getInventory().clearAmountDemandTotalRequestMap();
-			getInventory().clearAmountDemandMetRequestMap();
 			// 2015-03-06 Added clearing of weather data map
 			weather.clearMap();
 			//logger.info(name + " : Compacted the settlement's supply demand data & cleared weather data.");
@@ -1508,20 +1436,37 @@ implements Serializable, LifeSupportType, Objective {
 	}
 
 	/**
-	 * Updates the GoodsManager twice per day
+	 * Gets the scheduler of the periodic subsystems, registering them the first time.
+	 * Each settlement gets its own phase shift so the settlements take turns.
 	 *
-	 * @param time
-	 */
-	private void updateGoodsManager(double time) {
-
-	    goodsManagerUpdateTime += time;
-
-		// Randomly update goods manager twice per Sol.
-	    double timeThreshold = 250D + RandomUtil.getRandomDouble(250D);
-		if (!goodsManager.isInitialized() || (goodsManagerUpdateTime > timeThreshold)) {
-		    goodsManager.timePassing(time);
-		    goodsManagerUpdateTime = 0D;
-		}
+	 * @return scheduler
+	 */
+	private MultiRateScheduler getScheduler() {
+		if (scheduler == null) {
+			scheduler = new MultiRateScheduler(getIdentifier());
+			// Take a sample for each critical resource
+			scheduler.register("resource sampling", SAMPLING_FREQ, 0,
+					slots -> sampleAllResources());
+			// Compute whether a baseline, GCR, or SEP event has occurred, once for each check interval
+			// elapsed, each covering one interval
+			scheduler.register("radiation", RadiationExposure.RADIATION_CHECK_FREQ, 5,
+					slots -> {
+						for (int i = 0; i < slots; i++)
+							checkRadiationProbability(RadiationExposure.RADIATION_CHECK_FREQ);
+					});
+			scheduler.register("ice probability", RESOURCE_UPDATE_FREQ, 5,
+					slots -> iceProbabilityValue = computeIceProbability());
+			scheduler.register("regolith probability", RESOURCE_UPDATE_FREQ, 10,
+					slots -> regolithProbabilityValue = computeRegolithProbability());
+			// Update the goods manager twice per sol
+			scheduler.register("goods valuation", GOODS_VALUE_FREQ, 250,
+					slots -> goodsManager.timePassing(pulseTime));
+			scheduler.register("air composition", CompositionOfAir.MILLISOLS_PER_UPDATE, 0,
+					slots -> compositionOfAir.monitorAir());
+			scheduler.register("weather", WEATHER_UPDATE_FREQ, 0,
+					slots -> outside_temperature = weather.getTemperature(location));
+		}
+		return scheduler;
 	}
 
 	/**
@@ -1531,32 +1476,9 @@ implements Serializable, LifeSupportType, Objective {
 	 */
 	// TODO: will this method be called by robots?
 	public Collection<Person> getAffectedPeople() {
-		Collection<Person> people = new ConcurrentLinkedQueue<Person>(getInhabitants());
-
-		// Check all people.
-		Iterator<Person> i = unitManager.getPeople().iterator();
-		while (i.hasNext()) {
-			Person person = i.next();
-			Task task = person.getMind().getTaskManager().getTask();
-
-			// Add all people maintaining this settlement.
-			if (task instanceof Maintenance) {
-				if (((Maintenance) task).getEntity() == this) {
-					if (!people.contains(person))
-						people.add(person);
-				}
-			}
-
-			// Add all people repairing this settlement.
-			if (task instanceof Repair) {
-				if (((Repair) task).getEntity() == this) {
-					if (!people.contains(person))
-						people.add(person);
-				}
-			}
-		}
-
-		return people;
+		// A settlement is not a malfunctionable entity, so no one maintains or repairs it
+		// as such. The people working on its buildings are kept by their malfunction managers.
+		return new ConcurrentLinkedQueue<Person>(getInhabitants());
 	}
 
 
@@ -1930,16 +1852,19 @@ implements Serializable, LifeSupportType, Objective {
 		}
 */
 		allAssociatedPeople = result;
+		evaPeople = null;
 		justReloadedPeople = false;
 		return result;
 	}
 
 	public void addPerson(Person p){
 		allAssociatedPeople.add(p);
+		updateEVAPerson(p);
 	}
 
 	public void removePerson(Person p){
 		allAssociatedPeople.remove(p);
+		updateEVAPerson(p);
 	}
 
 	public void addRobot(Robot r){
@@ -3291,7 +3216,11 @@ implements Serializable, LifeSupportType, Objective {
 	}
 */
 
-	public Map<Integer, Map<Integer, List<Double>>> getResourceStat() {
+	/**
+	 * Gets the samples of the amounts of the critical resources stored.
+	 * @return resource samples by sol
+	 */
+	public ResourceSampleSeries getResourceStat() {
 		return resourceStat;
 	}
 
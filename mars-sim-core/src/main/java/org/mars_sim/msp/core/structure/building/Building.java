@@ -21,6 +21,7 @@ import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.LocalAreaUtil;
 import org.mars_sim.msp.core.LocalBoundedObject;
 import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.RandomUtil;
@@ -970,6 +971,7 @@ LocalBoundedObject, InsidePathLocation {
 
 	public void setXLocation(double x) {
 		this.xLoc = x ;
+		LocalAreaUtil.updateLocalBoundedObject(this);
 	}
 
 	@Override
@@ -979,6 +981,7 @@ LocalBoundedObject, InsidePathLocation {
 
 	public void setYLocation(double y) {
 		this.yLoc = y ;
+		LocalAreaUtil.updateLocalBoundedObject(this);
 	}
 
 	@Override
@@ -988,6 +991,7 @@ LocalBoundedObject, InsidePathLocation {
 
 	public void setFacing(double facing) {
 		this.facing = facing ;
+		LocalAreaUtil.updateLocalBoundedObject(this);
 	}
 
 	public boolean getInTransport() {
@@ -1192,25 +1196,10 @@ LocalBoundedObject, InsidePathLocation {
 		}
 */
 		Collection<Person> people = getInhabitants();
-		// Check all people in settlement.
-		Iterator<Person> i = manager.getSettlement().getInhabitants().iterator();
-		while (i.hasNext()) {
-			Person person = i.next();
-			Task task = person.getMind().getTaskManager().getTask();
-
-			// Add all people maintaining this building.
-			if (task instanceof Maintenance) {
-				if (((Maintenance) task).getEntity() == this) {
-					if (!people.contains(person)) people.add(person);
-				}
-			}
-
-			// Add all people repairing this facility.
-			if (task instanceof Repair) {
-				if (((Repair) task).getEntity() == this) {
-					if (!people.contains(person)) people.add(person);
-				}
-			}
+		// Add all people maintaining or repairing this building.
+		for (Person person : getMalfunctionManager().getWorkers()) {
+			if (!people.contains(person))
+				people.add(person);
 		}
 
 		return people;
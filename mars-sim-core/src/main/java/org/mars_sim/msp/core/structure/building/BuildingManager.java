@@ -274,6 +274,7 @@ public class BuildingManager implements Serializable {
             oldBuilding.removeFunctionsFromSettlement();
 
             buildings.remove(oldBuilding);
+            LocalAreaUtil.removeLocalBoundedObject(oldBuilding);
             
             //removeBuildingTypeIDMap(oldBuilding);
             
@@ -355,6 +356,7 @@ public class BuildingManager implements Serializable {
         if (!buildings.contains(newBuilding)) {
 
             buildings.add(newBuilding);
+            LocalAreaUtil.addLocalBoundedObject(newBuilding, settlement.getCoordinates());
                    
             // 2016-10-17 Insert this new building into buildingFunctionsMap
             addAllFunctionstoBFMap(newBuilding);
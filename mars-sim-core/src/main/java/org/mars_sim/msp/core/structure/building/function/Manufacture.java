@@ -17,6 +17,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.InventoryTransaction;
 import org.mars_sim.msp.core.RandomUtil;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.SimulationConfig;
@@ -272,12 +273,19 @@ implements Serializable {
         processes.add(process);
 
 
+        // Consume the amount resource inputs at once.
+        InventoryTransaction transaction = new InventoryTransaction();
+        for (ManufactureProcessItem item : process.getInfo().getInputList()) {
+            if (ItemType.AMOUNT_RESOURCE.equals(item.getType())) {
+                transaction.retrieve(AmountResource.findAmountResource(item.getName()), item.getAmount());
+            }
+        }
+        inv.applyTransaction(transaction);
+
         // Consume inputs.
         for (ManufactureProcessItem item : process.getInfo().getInputList()) {
             if (ItemType.AMOUNT_RESOURCE.equals(item.getType())) {
                 AmountResource resource = AmountResource.findAmountResource(item.getName());
-                //s_inv
-                inv.retrieveAmountResource(resource, item.getAmount());
 
 				// 2015-02-13 addAmountDemand()
 				//s_inv.
@@ -12,9 +12,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.InventoryTransaction;
+import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.resource.AmountResource;
 
 /**
@@ -30,6 +33,8 @@ implements Serializable {
 	/** default logger. */
 	private static Logger logger = Logger.getLogger(ResourceProcess.class.getName());
 
+	private static String sourceName = logger.getName().substring(logger.getName().lastIndexOf(".") + 1, logger.getName().length());
+
 	/** The work time required to toggle this process on or off. */
 	public static final double TOGGLE_RUNNING_WORK_TIME_REQUIRED = 10D;
 
@@ -235,50 +240,55 @@ implements Serializable {
 
 			// logger.info(name + " production level: " + productionLevel);
 
+			// Retrieve the inputs and store the outputs as a single transaction.
+			InventoryTransaction transaction = new InventoryTransaction();
+			Map<AmountResource, Double> inputAmounts = new HashMap<AmountResource, Double>(maxInputResourceRates.size());
+			Map<AmountResource, Double> outputAmounts = new HashMap<AmountResource, Double>(maxOutputResourceRates.size());
+
 			// Input resources from inventory.
-			//Iterator<AmountResource> inputI = maxInputResourceRates.keySet().iterator();
-			//while (inputI.hasNext()) {
-			//	AmountResource resource = inputI.next();
 			for (AmountResource resource : maxInputResourceRates.keySet()) {
 				double maxRate = maxInputResourceRates.get(resource);
 				double resourceRate = maxRate * productionLevel;
 				double resourceAmount = resourceRate * time;
 				double remainingAmount = inventory.getAmountResourceStored(resource, false);
 
-				// 2015-01-09 Added addDemandTotalRequest()
-				//inventory.addAmountDemandTotalRequest(resource);
-
 				if (resourceAmount > remainingAmount)
 					resourceAmount = remainingAmount;
 
-				try {
-					inventory.retrieveAmountResource(resource, resourceAmount);
-					// 2015-01-09 addAmountDemand
-					//inventory.addAmountDemand(resource,resourceAmount);
-				}
-				catch (Exception e) {}
+				transaction.retrieve(resource, resourceAmount);
+				inputAmounts.put(resource, resourceAmount);
 				// logger.info(resourceName + " input: " + resourceAmount + "kg.");
 			}
 
 			// Output resources to inventory.
-			//Iterator<AmountResource> outputI = maxOutputResourceRates.keySet().iterator();
-			//while (outputI.hasNext()) {
-			//	AmountResource resource = outputI.next();
-			for (AmountResource resource : maxOutputResourceRates.keySet()) {	
+			for (AmountResource resource : maxOutputResourceRates.keySet()) {
 				double maxRate = maxOutputResourceRates.get(resource);
 				double resourceRate = maxRate * productionLevel;
 				double resourceAmount = resourceRate * time;
 				double remainingCapacity = inventory.getAmountResourceRemainingCapacity(resource,
 						false, false);
 				if (resourceAmount > remainingCapacity) resourceAmount = remainingCapacity;
-				try {
-					inventory.storeAmountResource(resource, resourceAmount, false);
-					 // 2015-01-15 Add addSupplyAmount()
-		            inventory.addAmountSupplyAmount(resource, resourceAmount);
-				}
-				catch (Exception e) {}
+
+				transaction.store(resource, resourceAmount, false);
+				outputAmounts.put(resource, resourceAmount);
 				// logger.info(resourceName + " output: " + resourceAmount + "kg.");
 			}
+
+			try {
+				inventory.applyTransaction(transaction);
+
+				for (Map.Entry<AmountResource, Double> output : outputAmounts.entrySet()) {
+					// 2015-01-15 Add addSupplyAmount()
+					inventory.addAmountSupplyAmount(output.getKey(), output.getValue());
+				}
+			}
+			catch (Exception e) {
+				// e.g. outputs sharing a storage capacity that each fit but not all together
+				LogConsolidated.log(logger, Level.WARNING, 10_000, sourceName,
+						name + " could not process its resources together, processing them one by one : "
+						+ e.getMessage(), null);
+				processResourcesSeparately(inputAmounts, outputAmounts, inventory);
+			}
 		}
 		else productionLevel = 0D;
 
@@ -286,6 +296,41 @@ implements Serializable {
 		currentProductionLevel = productionLevel;
 	}
 
+	/**
+	 * Retrieves the inputs and stores the outputs one resource at a time, so that a resource
+	 * that cannot be retrieved or stored does not hold back the others.
+	 * @param inputAmounts the amounts (kg) of the input resources.
+	 * @param outputAmounts the amounts (kg) of the output resources.
+	 * @param inventory the inventory pool the process uses.
+	 */
+	private void processResourcesSeparately(Map<AmountResource, Double> inputAmounts,
+			Map<AmountResource, Double> outputAmounts, Inventory inventory) {
+
+		for (Map.Entry<AmountResource, Double> input : inputAmounts.entrySet()) {
+			AmountResource resource = input.getKey();
+			double resourceAmount = Math.min(input.getValue(), inventory.getAmountResourceStored(resource, false));
+			try {
+				inventory.retrieveAmountResource(resource, resourceAmount);
+			}
+			catch (Exception e) {
+				logger.fine(name + " could not retrieve " + resource.getName() + " : " + e.getMessage());
+			}
+		}
+
+		for (Map.Entry<AmountResource, Double> output : outputAmounts.entrySet()) {
+			AmountResource resource = output.getKey();
+			double resourceAmount = Math.min(output.getValue(),
+					inventory.getAmountResourceRemainingCapacity(resource, false, false));
+			try {
+				inventory.storeAmountResource(resource, resourceAmount, false);
+				inventory.addAmountSupplyAmount(resource, resourceAmount);
+			}
+			catch (Exception e) {
+				logger.fine(name + " could not store " + resource.getName() + " : " + e.getMessage());
+			}
+		}
+	}
+
 	/**
 	 * Finds the bottleneck of input resources from inventory pool.
 	 * @param time (millisols)
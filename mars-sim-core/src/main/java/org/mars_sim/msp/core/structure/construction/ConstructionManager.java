@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.mars_sim.msp.core.LocalAreaUtil;
 import org.mars_sim.msp.core.UnitEventType;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.resource.AmountResource;
@@ -167,6 +168,7 @@ implements Serializable {
 	public ConstructionSite createNewConstructionSite() {
 		ConstructionSite result = new ConstructionSite(settlement);//, this);
 		sites.add(result);
+		LocalAreaUtil.addLocalBoundedObject(result, settlement.getCoordinates());
 		settlement.fireUnitUpdate(UnitEventType.START_CONSTRUCTION_SITE_EVENT, result);
 		return result;
 	}
@@ -183,6 +185,7 @@ implements Serializable {
 	public void removeConstructionSite(ConstructionSite site) {
 		if (sites.contains(site)) {
 			sites.remove(site);
+			LocalAreaUtil.removeLocalBoundedObject(site);
 		}
 		else throw new IllegalStateException("Construction site doesn't exist.");
 	}
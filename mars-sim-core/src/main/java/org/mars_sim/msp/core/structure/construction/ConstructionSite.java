@@ -7,6 +7,7 @@
 
 package org.mars_sim.msp.core.structure.construction;
 
+import org.mars_sim.msp.core.LocalAreaUtil;
 import org.mars_sim.msp.core.LocalBoundedObject;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.person.ai.mission.MissionMember;
@@ -106,6 +107,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setWidth(double width) {
         this.width = width;
+        LocalAreaUtil.updateLocalBoundedObject(this);
     }
 
     @Override
@@ -119,6 +121,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setLength(double length) {
         this.length = length;
+        LocalAreaUtil.updateLocalBoundedObject(this);
     }
 
     @Override
@@ -132,6 +135,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setXLocation(double xLocation) {
         this.xLocation = xLocation;
+        LocalAreaUtil.updateLocalBoundedObject(this);
     }
 
     @Override
@@ -145,6 +149,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setYLocation(double yLocation) {
         this.yLocation = yLocation;
+        LocalAreaUtil.updateLocalBoundedObject(this);
     }
 
     @Override
@@ -158,6 +163,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setFacing(double facing) {
         this.facing = facing;
+        LocalAreaUtil.updateLocalBoundedObject(this);
     }
 
     /**
@@ -0,0 +1,148 @@
+/**
+ * Mars Simulation Project
+ * GoodsDependencyGraph.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+package org.mars_sim.msp.core.structure.goods;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.mars_sim.msp.core.foodProduction.FoodProductionProcessInfo;
+import org.mars_sim.msp.core.foodProduction.FoodProductionProcessItem;
+import org.mars_sim.msp.core.foodProduction.FoodProductionUtil;
+import org.mars_sim.msp.core.manufacture.ManufactureProcessInfo;
+import org.mars_sim.msp.core.manufacture.ManufactureProcessItem;
+import org.mars_sim.msp.core.manufacture.ManufactureUtil;
+import org.mars_sim.msp.core.resource.AmountResource;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.function.FunctionType;
+import org.mars_sim.msp.core.structure.building.function.ResourceProcess;
+import org.mars_sim.msp.core.structure.building.function.ResourceProcessing;
+
+/**
+ * The goods whose value depends on the value of other goods at a settlement.
+ * The demand for an input of a manufacturing, food production or resource process
+ * comes from the value of the outputs of the process, so the inputs depend on the
+ * outputs. The graph is built from the processes available at the settlement.
+ */
+class GoodsDependencyGraph {
+
+	/** The goods depending on each good. */
+	private Map<Good, Set<Good>> dependents = new HashMap<Good, Set<Good>>();
+
+	/**
+	 * Constructor.
+	 * @param settlement the settlement.
+	 */
+	GoodsDependencyGraph(Settlement settlement) {
+
+		// Add the manufacturing processes of the highest tech level at the settlement.
+		if (ManufactureUtil.doesSettlementHaveManufacturing(settlement)) {
+			int techLevel = ManufactureUtil.getHighestManufacturingTechLevel(settlement);
+			Iterator<ManufactureProcessInfo> i = ManufactureUtil.getManufactureProcessesForTechLevel(
+					techLevel).iterator();
+			while (i.hasNext()) {
+				ManufactureProcessInfo process = i.next();
+				Set<Good> inputs = new HashSet<Good>();
+				for (ManufactureProcessItem item : process.getInputList()) {
+					addGood(inputs, ManufactureUtil.getGood(item));
+				}
+				Set<Good> outputs = new HashSet<Good>();
+				for (ManufactureProcessItem item : process.getOutputList()) {
+					addGood(outputs, ManufactureUtil.getGood(item));
+				}
+				addProcess(inputs, outputs);
+			}
+		}
+
+		// Add the food production processes of the highest tech level at the settlement.
+		if (FoodProductionUtil.doesSettlementHaveFoodProduction(settlement)) {
+			int techLevel = FoodProductionUtil.getHighestFoodProductionTechLevel(settlement);
+			Iterator<FoodProductionProcessInfo> i = FoodProductionUtil.getFoodProductionProcessesForTechLevel(
+					techLevel).iterator();
+			while (i.hasNext()) {
+				FoodProductionProcessInfo process = i.next();
+				Set<Good> inputs = new HashSet<Good>();
+				for (FoodProductionProcessItem item : process.getInputList()) {
+					addGood(inputs, FoodProductionUtil.getGood(item));
+				}
+				Set<Good> outputs = new HashSet<Good>();
+				for (FoodProductionProcessItem item : process.getOutputList()) {
+					addGood(outputs, FoodProductionUtil.getGood(item));
+				}
+				addProcess(inputs, outputs);
+			}
+		}
+
+		// Add the resource processes of the buildings at the settlement.
+		Iterator<Building> i = settlement.getBuildingManager().getACopyOfBuildings().iterator();
+		while (i.hasNext()) {
+			Building building = i.next();
+			if (building.hasFunction(FunctionType.RESOURCE_PROCESSING)) {
+				ResourceProcessing processing = (ResourceProcessing) building.getFunction(
+						FunctionType.RESOURCE_PROCESSING);
+				for (ResourceProcess process : processing.getProcesses()) {
+					Set<Good> inputs = new HashSet<Good>();
+					for (AmountResource resource : process.getInputResources()) {
+						addGood(inputs, GoodsUtil.getResourceGood(resource));
+					}
+					Set<Good> outputs = new HashSet<Good>();
+					for (AmountResource resource : process.getOutputResources()) {
+						addGood(outputs, GoodsUtil.getResourceGood(resource));
+					}
+					addProcess(inputs, outputs);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds a good to a set if not null.
+	 */
+	private static void addGood(Set<Good> goods, Good good) {
+		if (good != null) {
+			goods.add(good);
+		}
+	}
+
+	/**
+	 * Makes the inputs of a process depend on its outputs.
+	 * @param inputs the input goods.
+	 * @param outputs the output goods.
+	 */
+	private void addProcess(Collection<Good> inputs, Collection<Good> outputs) {
+		for (Good output : outputs) {
+			Set<Good> set = dependents.get(output);
+			if (set == null) {
+				set = new HashSet<Good>();
+				dependents.put(output, set);
+			}
+			for (Good input : inputs) {
+				if (!input.equals(output)) {
+					set.add(input);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the goods whose value depends on the value of a good.
+	 * @param good the good.
+	 * @return set of goods (may be empty).
+	 */
+	Set<Good> getDependents(Good good) {
+		Set<Good> result = dependents.get(good);
+		if (result == null) {
+			result = Collections.emptySet();
+		}
+		return result;
+	}
+}
@@ -6,6 +6,8 @@
  */
 package org.mars_sim.msp.core.structure.goods;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -16,6 +18,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,7 +28,9 @@ import org.mars_sim.msp.core.Inventory;
 import org.mars_sim.msp.core.LifeSupportType;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.UnitEvent;
 import org.mars_sim.msp.core.UnitEventType;
+import org.mars_sim.msp.core.UnitListener;
 import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.equipment.Bag;
 import org.mars_sim.msp.core.equipment.Container;
@@ -62,6 +69,7 @@ import org.mars_sim.msp.core.resource.ItemResource;
 import org.mars_sim.msp.core.resource.ItemResourceUtil;
 import org.mars_sim.msp.core.resource.Part;
 import org.mars_sim.msp.core.resource.PhaseType;
+import org.mars_sim.msp.core.resource.Resource;
 import org.mars_sim.msp.core.resource.ResourceUtil;
 import org.mars_sim.msp.core.resource.ItemType;
 import org.mars_sim.msp.core.structure.Settlement;
@@ -142,6 +150,15 @@ public class GoodsManager implements Serializable {
     private static final double METHANE_AVERAGE_DEMAND = 20;
     private static final double TISSUE_CULTURE_FACTOR = 100;
     private static final double FOOD_FACTOR = .001;
+
+    /** Number of goods value updates between two updates of all the goods. */
+    private static final int FULL_UPDATE_INTERVAL = 4;
+    /** Number of goods valued per tick by a full update spread over several ticks. */
+    private static final int GOODS_PER_TICK = 50;
+    /** Relative change of a good value making the goods depending on it to be updated. */
+    private static final double VALUE_CHANGE_THRESHOLD = .01D;
+    /** The most times a good is updated by an update of the dirty goods, as the goods may depend on each other in a cycle. */
+    private static final int MAX_DIRTY_UPDATES_PER_GOOD = 3;
     
     private double inflation_rate = .8;
     
@@ -165,7 +182,8 @@ public class GoodsManager implements Serializable {
  
     private double vp_cache;
     
-    private Map<Good, Double> goodsValues;
+    /** The published goods values. Replaced as a whole, never modified once published. */
+    private volatile Map<Good, Double> goodsValues;
     private Map<Good, Double> goodsDemandCache;
     //private Map<Good, Double> goodsSupplyCache;
     private Map<Good, Double> goodsTradeCache;
@@ -173,6 +191,27 @@ public class GoodsManager implements Serializable {
     private Map<String, Double> vehicleSellValueCache;
     private Map<Part, Double> partsDemandCache;
     private boolean initialized = false;
+    /** Number of goods value updates since all the goods were updated. */
+    private int updatesSinceFullUpdate = 0;
+
+    /** The goods depending on the value of other goods. Rebuilt when null. */
+    private transient GoodsDependencyGraph dependencyGraph;
+    /** The goods whose supply or demand changed since their last update. */
+    private transient Set<Good> dirtyGoods;
+    /** True if all the goods need updating, after a change to the settlement's buildings or population. */
+    private transient volatile boolean fullUpdateNeeded = true;
+    /** The listener marking goods dirty on settlement changes. */
+    private transient UnitListener settlementListener;
+    /** The goods left to value by the full update spread over several ticks, or null if none. */
+    private transient Iterator<Good> fullUpdateGoods;
+    /** The number of goods found out of date so far by the full update in progress. */
+    private transient int fullUpdateOutOfDate;
+    /** The thread computing goods values, if any. */
+    private transient volatile Thread valuationThread;
+    /** The goods values being computed, published when done. */
+    private transient Map<Good, Double> workingValues;
+    /** The number of times goods values were published. */
+    private transient volatile int valuesGeneration;
 
     private Settlement settlement;
     private Inventory inv;
@@ -223,24 +262,25 @@ public class GoodsManager implements Serializable {
      */
     private void populateGoodsValues() {
         List<Good> goods = GoodsUtil.getGoodsList();
-        goodsValues = new TreeMap<Good, Double>();
-        goodsDemandCache = new TreeMap<Good, Double>();
-        goodsTradeCache = new TreeMap<Good, Double>();
+        Map<Good, Double> values = new TreeMap<Good, Double>();
+        goodsDemandCache = new ConcurrentSkipListMap<Good, Double>();
+        goodsTradeCache = new ConcurrentSkipListMap<Good, Double>();
 
         Iterator<Good> i = goods.iterator();
         while (i.hasNext()) {
             Good good = i.next();
-            goodsValues.put(good, 0D);
+            values.put(good, 0D);
             goodsDemandCache.put(good, 0D);
             goodsTradeCache.put(good, 0D);
         }
+        goodsValues = values;
 
         // Create parts demand cache.
-        partsDemandCache = new HashMap<Part, Double>(ItemResourceUtil.getItemResources().size());
+        partsDemandCache = new ConcurrentHashMap<Part, Double>(ItemResourceUtil.getItemResources().size());
 
         // Create vehicle caches.
-        vehicleBuyValueCache = new HashMap<String, Double>();
-        vehicleSellValueCache = new HashMap<String, Double>();
+        vehicleBuyValueCache = new ConcurrentHashMap<String, Double>();
+        vehicleSellValueCache = new ConcurrentHashMap<String, Double>();
     }
 
     /**
@@ -250,7 +290,10 @@ public class GoodsManager implements Serializable {
      */
     public double getGoodValuePerItem(Good good) {
         try {
-            if (goodsValues.containsKey(good)) return goodsValues.get(good);
+            // The values being computed are seen while computing them, the published ones otherwise.
+            Map<Good, Double> values = (Thread.currentThread() == valuationThread) ? workingValues : goodsValues;
+            Double value = values.get(good);
+            if (value != null) return value;
             else throw new IllegalArgumentException("Good: " + good + " not valid.");
         } catch (Exception e) {
             logger.log(Level.SEVERE,e.getMessage());
@@ -264,17 +307,61 @@ public class GoodsManager implements Serializable {
     }
 
     /**
-     * Time passing
+     * Time passing.
+     * The first goods values are computed right away. After that, the goods values are
+     * updated on the settlement's tick, the full updates being spread over several ticks
+     * so that no single tick pays for all the goods. The values are computed in a copy
+     * and published all at once when done.
      * @param time the amount of time passing (millisols).
      */
     public void timePassing(double time) {
-        updateGoodsValues();
+        startListening();
+        if (!initialized) {
+            updateGoodsValues();
+        }
+        else if (isUpdateInProgress()) {
+            continueFullUpdate(GOODS_PER_TICK);
+        }
+        else if (++updatesSinceFullUpdate >= FULL_UPDATE_INTERVAL) {
+            startFullUpdate();
+            continueFullUpdate(GOODS_PER_TICK);
+        }
+        else {
+            updateDirtyGoodsValues();
+        }
+    }
+
+    /**
+     * Checks if a full goods value update spread over several ticks is in progress.
+     * @return true if in progress.
+     */
+    public boolean isUpdateInProgress() {
+        return fullUpdateGoods != null;
     }
 
     /**
      * Updates the values for all the goods at the settlement.
+     * This also catches the changes of demand not signaled by a settlement event,
+     * such as the values at other settlements or the time passing.
      */
     public void updateGoodsValues() {
+        startFullUpdate();
+        continueFullUpdate(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Starts updating the values for all the goods at the settlement, in a copy of the
+     * published values. A full update already in progress is started over.
+     */
+    private void startFullUpdate() {
+        startListening();
+        fullUpdateNeeded = false;
+        updatesSinceFullUpdate = 0;
+        dirtyGoods.clear();
+        if (dependencyGraph == null) {
+            dependencyGraph = new GoodsDependencyGraph(settlement);
+        }
+
         // Clear parts demand cache.
         partsDemandCache.clear();
 
@@ -282,18 +369,224 @@ public class GoodsManager implements Serializable {
         vehicleBuyValueCache.clear();
         vehicleSellValueCache.clear();
 
-        Iterator<Good> i = goodsValues.keySet().iterator();
-        while (i.hasNext()) updateGoodValue(i.next(), true);
-/* 
-        while (i.hasNext()) {
-        	Good good = i.next();
-        	logger.info("Good : " + good.toString());
-        	updateGoodValue(good, true); 
+        workingValues = new TreeMap<Good, Double>(goodsValues);
+        fullUpdateGoods = new ArrayList<Good>(workingValues.keySet()).iterator();
+        fullUpdateOutOfDate = 0;
+    }
+
+    /**
+     * Updates the values of the next goods of the full update in progress, and publishes
+     * the values if all the goods have been updated.
+     * @param maxGoods the most goods to update.
+     */
+    private void continueFullUpdate(int maxGoods) {
+        Map<Good, Double> values = workingValues;
+        valuationThread = Thread.currentThread();
+        try {
+            // Count the goods left out of date by the updates of the dirty goods only.
+            int count = 0;
+            while ((count < maxGoods) && fullUpdateGoods.hasNext()) {
+                Good good = fullUpdateGoods.next();
+                double oldValue = values.get(good);
+                updateGoodValue(good, true);
+                if (Math.abs(values.get(good) - oldValue) > VALUE_CHANGE_THRESHOLD * Math.abs(oldValue))
+                    fullUpdateOutOfDate++;
+                count++;
+            }
+        } finally {
+            valuationThread = null;
+        }
+
+        if (!fullUpdateGoods.hasNext()) {
+            if (initialized)
+                logger.fine(settlement.getName() + " : " + fullUpdateOutOfDate
+                        + " goods values out of date at full update.");
+
+            fullUpdateGoods = null;
+            workingValues = null;
+            publishGoodsValues(values);
+
+            settlement.fireUnitUpdate(UnitEventType.GOODS_VALUE_EVENT);
+
+            initialized = true;
+        }
+    }
+
+    /**
+     * Updates the values of the goods marked dirty since the last update, then of the
+     * goods depending on those whose value changed. A good already updated is updated
+     * again if a good it depends on changes afterward, so the goods are left up to date
+     * whatever order they were marked dirty in.
+     */
+    public void updateDirtyGoodsValues() {
+        startListening();
+        if (isUpdateInProgress()) {
+            // The goods marked dirty meanwhile are left for the next update.
+            return;
+        }
+        GoodsDependencyGraph graph = dependencyGraph;
+        if (fullUpdateNeeded || (graph == null)) {
+            startFullUpdate();
+            continueFullUpdate(GOODS_PER_TICK);
+            return;
+        }
+        if (dirtyGoods.isEmpty()) {
+            return;
+        }
+
+        List<Good> toUpdate = new ArrayList<Good>(dirtyGoods);
+        dirtyGoods.removeAll(toUpdate);
+        Map<Good, Double> values = new TreeMap<Good, Double>(goodsValues);
+        workingValues = values;
+        valuationThread = Thread.currentThread();
+
+        // Clear the caches computed for the goods being updated.
+        for (Good good : toUpdate) {
+            if (GoodType.ITEM_RESOURCE == good.getCategory()) {
+                partsDemandCache.clear();
+            }
+            else if (GoodType.VEHICLE == good.getCategory()) {
+                vehicleBuyValueCache.clear();
+                vehicleSellValueCache.clear();
+            }
         }
-*/    	
+
+        try {
+            // The goods waiting for an update, taken in name order so the result does not
+            // depend on the order the goods were marked dirty in.
+            TreeSet<Good> pending = new TreeSet<Good>(toUpdate);
+            Map<Good, Integer> updateCounts = new HashMap<Good, Integer>();
+            while (!pending.isEmpty()) {
+                Good good = pending.pollFirst();
+                if (!values.containsKey(good)) {
+                    continue;
+                }
+                Integer count = updateCounts.get(good);
+                updateCounts.put(good, (count == null) ? 1 : count + 1);
+
+                double oldValue = values.get(good);
+                updateGoodValue(good, true);
+                double newValue = values.get(good);
+                if (Math.abs(newValue - oldValue) > VALUE_CHANGE_THRESHOLD * Math.abs(oldValue)) {
+                    // Update the dependent goods again, even if already updated.
+                    for (Good dependent : graph.getDependents(good)) {
+                        Integer dependentCount = updateCounts.get(dependent);
+                        if ((dependentCount == null) || (dependentCount < MAX_DIRTY_UPDATES_PER_GOOD)) {
+                            pending.add(dependent);
+                        }
+                    }
+                }
+            }
+
+            publishGoodsValues(values);
+        } finally {
+            valuationThread = null;
+            workingValues = null;
+        }
+
         settlement.fireUnitUpdate(UnitEventType.GOODS_VALUE_EVENT);
+    }
 
-        initialized = true;
+    /**
+     * Publishes the computed goods values, replacing all the values at once.
+     * @param values the goods values.
+     */
+    private synchronized void publishGoodsValues(Map<Good, Double> values) {
+        goodsValues = values;
+        valuesGeneration++;
+    }
+
+    /**
+     * Publishes the value of a single good. The generation is left as is, so the results
+     * kept for it (e.g. trade loads and profits) are not dropped on every single good
+     * update; the good is marked dirty and reaches them with the next batch of values.
+     * @param good the good.
+     * @param value the value.
+     */
+    private synchronized void publishGoodValue(Good good, double value) {
+        Map<Good, Double> values = new TreeMap<Good, Double>(goodsValues);
+        values.put(good, value);
+        goodsValues = values;
+    }
+
+    /**
+     * Gets the generation of the published goods values, changing each time values are published.
+     * Results computed from the goods values of a generation may be kept until it changes.
+     * @return generation.
+     */
+    public int getValuesGeneration() {
+        return valuesGeneration;
+    }
+
+    /**
+     * Marks a good to be updated at the next goods value update.
+     * @param good the good.
+     */
+    public void markGoodDirty(Good good) {
+        if ((good != null) && (dirtyGoods != null)) {
+            dirtyGoods.add(good);
+        }
+    }
+
+    /**
+     * Marks all the goods to be updated at the next goods value update, and the dependencies
+     * between goods to be found again.
+     */
+    public void markAllGoodsDirty() {
+        dependencyGraph = null;
+        fullUpdateNeeded = true;
+    }
+
+    /**
+     * Starts listening to the settlement changes marking goods dirty, if not already.
+     */
+    private void startListening() {
+        if (settlementListener == null) {
+            dirtyGoods = ConcurrentHashMap.newKeySet();
+            settlementListener = new SettlementListener();
+            settlement.addUnitListener(settlementListener);
+            fullUpdateNeeded = true;
+        }
+    }
+
+    /**
+     * Marks the goods affected by a change to the settlement dirty.
+     */
+    private class SettlementListener implements UnitListener {
+
+        @Override
+        public void unitUpdate(UnitEvent event) {
+            UnitEventType type = event.getType();
+            Object target = event.getTarget();
+            if (UnitEventType.INVENTORY_RESOURCE_EVENT == type) {
+                if (target instanceof Resource) {
+                    markGoodDirty(GoodsUtil.getResourceGood((Resource) target));
+                }
+                else if (target instanceof Collection) {
+                    for (Object resource : (Collection<?>) target) {
+                        if (resource instanceof Resource) {
+                            markGoodDirty(GoodsUtil.getResourceGood((Resource) resource));
+                        }
+                    }
+                }
+            }
+            else if ((UnitEventType.INVENTORY_STORING_UNIT_EVENT == type)
+                    || (UnitEventType.INVENTORY_RETRIEVING_UNIT_EVENT == type)) {
+                if (target instanceof Equipment) {
+                    markGoodDirty(GoodsUtil.getEquipmentGood(((Equipment) target).getClass()));
+                }
+                else if (target instanceof Vehicle) {
+                    markGoodDirty(GoodsUtil.getVehicleGood(((Vehicle) target).getDescription()));
+                }
+            }
+            else if ((UnitEventType.ADD_BUILDING_EVENT == type)
+                    || (UnitEventType.REMOVE_BUILDING_EVENT == type)
+                    || (UnitEventType.START_CONSTRUCTION_SITE_EVENT == type)
+                    || (UnitEventType.ADD_ASSOCIATED_PERSON_EVENT == type)
+                    || (UnitEventType.REMOVE_ASSOCIATED_PERSON_EVENT == type)) {
+                markAllGoodsDirty();
+            }
+        }
     }
 
     /**
@@ -303,7 +596,16 @@ public class GoodsManager implements Serializable {
      */
     public void updateGoodValue(Good good, boolean collectiveUpdate) {
         if (good != null) {
-            goodsValues.put(good, determineGoodValue(good, getNumberOfGoodForSettlement(good), false));
+            double value = determineGoodValue(good, getNumberOfGoodForSettlement(good), false);
+            if (Thread.currentThread() == valuationThread) {
+                workingValues.put(good, value);
+            }
+            else {
+                publishGoodValue(good, value);
+                // The next batch publishes the good again with a new generation, and a full
+                // update in progress publishes the value it computed for the good.
+                markGoodDirty(good);
+            }
             if (!collectiveUpdate) settlement.fireUnitUpdate(UnitEventType.GOODS_VALUE_EVENT, good);
         }
         else throw new IllegalArgumentException("Good is null.");
@@ -514,9 +816,8 @@ public class GoodsManager implements Serializable {
     // 2015-01-15 Created getTotalSupplyAmount()
     public double getTotalSupplyAmount(AmountResource resource, double supplyStored, int solElapsed) {
     	double totalSupplyAmount = 0;
-    	String r = resource.getName().toLowerCase();
 
-        double supplyAmount = inv.getAmountSupplyAmount(r);
+        double supplyAmount = inv.getAmountSupplyAmount(resource.getID(), Settlement.SUPPLY_DEMAND_REFRESH);
         supplyAmount = Math.round(supplyAmount * 1000000.0) / 1000000.0;
 //        int supplyRequest = inv.getAmountSupplyRequest(r);
 
@@ -550,18 +851,15 @@ public class GoodsManager implements Serializable {
 	 * @return
 	 */
     public double getNewDemandAmount(AmountResource resource, int solElapsed) {
-    	String r = resource.getName().toLowerCase();
 
-    	// sDemand is the amount of successful demand
-        double sDemand = inv.getAmountDemandAmount(r);
+    	// sDemand is the amount of successful demand over the last sols
+        double sDemand = inv.getAmountDemandAmount(resource.getID(), Settlement.SUPPLY_DEMAND_REFRESH);
         //sDemand = Math.round(sDemand * 1000000.0) / 1000000.0;
-        int requests = inv.getAmountDemandTotalRequest(r);
-        
-        
-        // Get the average demand per orbit
+
+        // Get the average demand per sol
         // total average demand = projected demand + real demand usage
 
-        return sDemand / solElapsed ;
+        return sDemand / inv.getSupplyDemandSols(Settlement.SUPPLY_DEMAND_REFRESH);
 
         //totalAmountDemand = Math.round(totalAmountDemand* 1000000.0) / 1000000.0;
 
@@ -948,8 +1246,8 @@ public class GoodsManager implements Serializable {
         // Get highest manufacturing tech level in settlement.
         if (ManufactureUtil.doesSettlementHaveManufacturing(settlement)) {
             int techLevel = ManufactureUtil.getHighestManufacturingTechLevel(settlement);
-            Iterator<ManufactureProcessInfo> i = ManufactureUtil.getManufactureProcessesForTechLevel(
-                    techLevel).iterator();
+            Iterator<ManufactureProcessInfo> i = ManufactureUtil.getManufactureProcessesWithInput(
+                    resource.getName(), techLevel).iterator();
             while (i.hasNext()) {
                 double manufacturingDemand = getResourceManufacturingProcessDemand(resource, i.next());
                 demand += manufacturingDemand;
@@ -971,8 +1269,8 @@ public class GoodsManager implements Serializable {
         // Get highest Food Production tech level in settlement.
         if (FoodProductionUtil.doesSettlementHaveFoodProduction(settlement)) {
             int techLevel = FoodProductionUtil.getHighestFoodProductionTechLevel(settlement);
-            Iterator<FoodProductionProcessInfo> i = FoodProductionUtil.getFoodProductionProcessesForTechLevel(
-                    techLevel).iterator();
+            Iterator<FoodProductionProcessInfo> i = FoodProductionUtil.getFoodProductionProcessesWithInput(
+                    resource.getName(), techLevel).iterator();
             while (i.hasNext()) {
                 double FoodProductionDemand = getResourceFoodProductionProcessDemand(resource, i.next());
                 demand += FoodProductionDemand;
@@ -1806,8 +2104,8 @@ public class GoodsManager implements Serializable {
         // Get highest manufacturing tech level in settlement.
         if (ManufactureUtil.doesSettlementHaveManufacturing(settlement)) {
             int techLevel = ManufactureUtil.getHighestManufacturingTechLevel(settlement);
-            Iterator<ManufactureProcessInfo> i = ManufactureUtil.getManufactureProcessesForTechLevel(
-                    techLevel).iterator();
+            Iterator<ManufactureProcessInfo> i = ManufactureUtil.getManufactureProcessesWithInput(
+                    part.getName(), techLevel).iterator();
             while (i.hasNext()) {
                 double manufacturingDemand = getPartManufacturingProcessDemand(part, i.next());
                 demand += manufacturingDemand;
@@ -1881,8 +2179,8 @@ public class GoodsManager implements Serializable {
         // Get highest Food Production tech level in settlement.
         if (FoodProductionUtil.doesSettlementHaveFoodProduction(settlement)) {
             int techLevel = FoodProductionUtil.getHighestFoodProductionTechLevel(settlement);
-            Iterator<FoodProductionProcessInfo> i = FoodProductionUtil.getFoodProductionProcessesForTechLevel(
-                    techLevel).iterator();
+            Iterator<FoodProductionProcessInfo> i = FoodProductionUtil.getFoodProductionProcessesWithInput(
+                    part.getName(), techLevel).iterator();
             while (i.hasNext()) {
                 double FoodProductionDemand = getPartFoodProductionProcessDemand(part, i.next());
                 demand += FoodProductionDemand;
@@ -2317,10 +2615,10 @@ public class GoodsManager implements Serializable {
         }
 
         if (vehicleBuyValueCache == null) {
-            vehicleBuyValueCache = new HashMap<String, Double>();
+            vehicleBuyValueCache = new ConcurrentHashMap<String, Double>();
         }
         if (vehicleSellValueCache == null) {
-            vehicleSellValueCache = new HashMap<String, Double>();
+            vehicleSellValueCache = new ConcurrentHashMap<String, Double>();
         }
 
         if (useCache) {
@@ -2749,12 +3047,37 @@ public class GoodsManager implements Serializable {
         vehicleSellValueCache.clear();
     }
     
+    /**
+     * Implementing readObject method for serialization.
+     * @param in the input stream.
+     * @throws IOException if error reading from input stream.
+     * @throws ClassNotFoundException if error creating class.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+        in.defaultReadObject();
+
+        // The caches may be read by the other settlements ticking at the same time.
+        goodsDemandCache = new ConcurrentSkipListMap<Good, Double>(goodsDemandCache);
+        goodsTradeCache = new ConcurrentSkipListMap<Good, Double>(goodsTradeCache);
+        partsDemandCache = new ConcurrentHashMap<Part, Double>(partsDemandCache);
+        vehicleBuyValueCache = new ConcurrentHashMap<String, Double>();
+        vehicleSellValueCache = new ConcurrentHashMap<String, Double>();
+    }
+
     /**
      * Prepare object for garbage collection.
      */
     public void destroy() {
+        if (settlementListener != null) {
+            settlement.removeUnitListener(settlementListener);
+            settlementListener = null;
+        }
+        dependencyGraph = null;
+        dirtyGoods = null;
+        fullUpdateGoods = null;
+        workingValues = null;
         settlement = null;
-        goodsValues.clear();
         goodsValues = null;
         goodsDemandCache.clear();
         goodsDemandCache = null;
@@ -23,6 +23,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,6 +46,16 @@ public class MasterClock implements Serializable {
 	private static final String	SECONDS = "s";
 
 	private static final int SEC_TO_MILLIS = 1000;
+
+	/** The default fixed time pulse (in millisols) of each step in batch mode. */
+	public static final double DEFAULT_BATCH_PULSE = 1D;
+
+	/** The maximum number of pulses coalesced for a clock listener before the clock thread waits for it. */
+	public static final int MAX_COALESCED_PULSES = 10;
+	/** The time (in milliseconds) between checks while waiting for a clock listener. */
+	private static final long LISTENER_WAIT_MILLIS = 100L;
+	/** The time (in milliseconds) between checks while batch mode is paused. */
+	private static final long BATCH_PAUSE_MILLIS = 50L;
 	
 	// Data members
 	/** Runnable flag. */
@@ -78,6 +89,20 @@ public class MasterClock implements Serializable {
 	private transient volatile boolean exitProgram;
 	/** Flag for getting ready for autosaving. */
 	private transient volatile boolean autosave;
+	/** Flag for running in the deterministic fixed-step batch mode. */
+	private transient volatile boolean isBatchMode;
+	/** The fixed time pulse (in millisols) of each step in batch mode. */
+	private transient double batchPulse = DEFAULT_BATCH_PULSE;
+	/** The number of sols to run in batch mode. Zero means no limit. */
+	private transient int batchSolLimit;
+	/** The wall-time budget (in milliseconds) of batch mode. Zero means no limit. */
+	private transient long batchWallLimit;
+	/** The number of steps taken in batch mode. */
+	private transient long batchSteps;
+	/** The number of sols elapsed in batch mode. */
+	private transient double batchSols;
+	/** The wall time (in milliseconds) elapsed in batch mode. */
+	private transient long batchWallTime;
 
 	private long totalPulses = 1;
 	private long t2Cache = 0;
@@ -87,6 +112,10 @@ public class MasterClock implements Serializable {
 	/** Clock listeners. */
 	private transient List<ClockListener> clockListeners;
 	private transient List<ClockListenerTask> clockListenerTasks =  new CopyOnWriteArrayList<>();
+	/** The number of clock pulses fired but not yet processed by the clock listeners. */
+	private transient AtomicInteger pulseBacklog = new AtomicInteger();
+	/** The number of times the clock thread has waited for a clock listener to catch up. */
+	private transient volatile long listenerWaits;
 
 	//private double time_ratio;
 	private boolean isFXGL = false;
@@ -348,6 +377,53 @@ public class MasterClock implements Serializable {
     	return autosave;
     }
 
+    /**
+     * Sets up the deterministic fixed-step batch mode. In batch mode the clock thread
+     * advances the Martian clock by a fixed pulse back-to-back, without sleeping and
+     * without looking at the wall clock for the pulse size, and fires each pulse to
+     * the clock listeners on its own thread, one after another.
+     *
+     * @param pulse the fixed time pulse (in millisols) of each step.
+     * @param sols the number of sols to run, or zero for no limit.
+     * @param wallMillis the wall-time budget in milliseconds, or zero for no limit.
+     */
+    public void setBatchMode(double pulse, int sols, long wallMillis) {
+    	if (pulse <= 0D)
+    		throw new IllegalArgumentException("Batch time pulse must be positive");
+    	if (sols < 0 || wallMillis < 0L)
+    		throw new IllegalArgumentException("Batch stop conditions cannot be negative");
+    	batchPulse = pulse;
+    	batchSolLimit = sols;
+    	batchWallLimit = wallMillis;
+    	isBatchMode = true;
+    }
+
+    /**
+     * Checks if the clock is running in batch mode.
+     * @return true if in batch mode.
+     */
+    public boolean isBatchMode() {
+    	return isBatchMode;
+    }
+
+    /**
+     * Gets the number of steps taken so far in batch mode.
+     * @return number of steps.
+     */
+    public long getBatchSteps() {
+    	return batchSteps;
+    }
+
+    /**
+     * Gets the throughput of batch mode.
+     * @return simulated sols per wall second.
+     */
+    public double getBatchSolsPerSecond() {
+    	if (batchWallTime <= 0L)
+    		return 0D;
+    	return batchSols * SEC_TO_MILLIS / batchWallTime;
+    }
+
     /**
      * Checks if in the process of saving a simulation.
      * @return true if saving simulation.
@@ -519,7 +595,10 @@ public class MasterClock implements Serializable {
 	        // Keep running until told not to by calling stop()
 	        keepRunning = true;
 
-	        if (!isFXGL) {
+	        if (isBatchMode) {
+	        	runBatch();
+	        }
+	        else if (!isFXGL) {
 		        // 2015-06-26 For variable sleepTime
 				long t1, t2, sleepTime, overSleepTime = 0L, excess = 0L;
 		        int noDelays = 0;
@@ -610,6 +689,64 @@ public class MasterClock implements Serializable {
 	 	        } // end of while
 	        } // if gameWorld
 	    } // end of run
+
+		/**
+		 * Advances the clocks in fixed steps as fast as possible until a stop condition is met.
+		 */
+		private void runBatch() {
+			double earthMillisPerStep = batchPulse * MarsClock.SECONDS_IN_MILLISOL * SEC_TO_MILLIS;
+			long start = System.currentTimeMillis();
+			batchSteps = 0;
+			batchSols = 0D;
+			batchWallTime = 0L;
+
+			logger.info("Running in batch mode with a fixed pulse of " + batchPulse + " millisols"
+					+ (batchSolLimit > 0 ? " for " + batchSolLimit + " sols" : "")
+					+ (batchWallLimit > 0L ? " within " + batchWallLimit / SEC_TO_MILLIS + " s" : ""));
+
+			while (keepRunning) {
+				if (isPaused) {
+					// Wait while paused, without counting the paused time against the wall time limit
+					long pauseStart = System.currentTimeMillis();
+					try {
+						TimeUnit.MILLISECONDS.sleep(BATCH_PAUSE_MILLIS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						keepRunning = false;
+					}
+					start += System.currentTimeMillis() - pauseStart;
+				}
+				else {
+					earthTime.addTime(earthMillisPerStep);
+					marsTime.addTime(batchPulse);
+					totalPulses++;
+					batchSteps++;
+					batchSols = batchSteps * batchPulse / 1000D;
+					// Fire the pulse on this thread so that the listeners always run in the same order
+					for (ClockListenerTask task : clockListenerTasks) {
+						task.addTime(batchPulse);
+						task.run();
+					}
+				}
+
+				checkSaveAndExit();
+
+				batchWallTime = System.currentTimeMillis() - start;
+				if ((batchSolLimit > 0 && batchSols >= batchSolLimit)
+						|| (batchWallLimit > 0L && batchWallTime >= batchWallLimit)) {
+					keepRunning = false;
+				}
+			}
+
+			logger.info("Batch mode completed " + batchSteps + " steps (" + Math.round(batchSols * 100D) / 100D
+					+ " sols) in " + Math.round(batchWallTime / 10D) / 100D + " s at "
+					+ Math.round(getBatchSolsPerSecond() * 100D) / 100D + " sols per second");
+
+			// A batch run is headless and ends the program once a stop condition is met
+			exitProgram = true;
+			checkSaveAndExit();
+		}
     }
 
     /**
@@ -645,6 +782,13 @@ public class MasterClock implements Serializable {
             
         }
 
+        checkSaveAndExit();
+    }
+
+    /**
+     * Saves the simulation if requested and exits the program if the exit flag is set.
+     */
+    private void checkSaveAndExit() {
         if (saveType != 0) {
             try {
                 sim.saveSimulation(saveType, file);
@@ -661,9 +805,10 @@ public class MasterClock implements Serializable {
         if (exitProgram) {
         	if (sim.getAutosaveTimer() != null)
         		sim.getAutosaveTimer().stop();
+        	// Let a save still being written in the background complete
+        	sim.awaitBackgroundSave();
             System.exit(0);
         }
-
     }
 
 
@@ -678,12 +823,19 @@ public class MasterClock implements Serializable {
 		});
     }
 
-    /**
-     * Prepares clock listener tasks for setting up threads.
-     */
+	/**
+	 * Passes the clock pulses on to a clock listener. Pulses fired while the task is waiting
+	 * in the executor queue are coalesced into one pulse with the sum of their millisols,
+	 * so each listener has at most one task in the queue.
+	 */
 	public class ClockListenerTask implements Runnable {
 
-		private double time;
+		/** The millisols fired but not yet passed on to the listener. */
+		private double pendingTime;
+		/** The number of pulses coalesced into the pending time. */
+		private int pendingPulses;
+		/** True if the task is waiting in the executor queue. */
+		private boolean queued;
 		private ClockListener listener;
 
 		public ClockListener getClockListener() {
@@ -694,33 +846,161 @@ public class MasterClock implements Serializable {
 			this.listener = listener;
 		}
 
-		public void addTime(double time) {
-			this.time = time;
+		/**
+		 * Adds a pulse to the pending time.
+		 * @param time the pulse length (in millisols)
+		 */
+		public synchronized void addTime(double time) {
+			pendingTime += time;
+			pendingPulses++;
+			getPulseBacklogCounter().incrementAndGet();
+		}
+
+		/**
+		 * Gets the number of pulses not yet passed on to the listener.
+		 * @return number of pulses.
+		 */
+		public synchronized int getPendingPulses() {
+			return pendingPulses;
+		}
+
+		/**
+		 * Marks the task as waiting in the executor queue.
+		 * @return true if it was not queued already.
+		 */
+		private synchronized boolean markQueued() {
+			if (queued)
+				return false;
+			queued = true;
+			return true;
+		}
+
+		/**
+		 * Waits until the listener has taken the pending pulses or the timeout has elapsed.
+		 * @param timeout the maximum time to wait (in milliseconds)
+		 */
+		private synchronized void awaitPendingPulses(long timeout) throws InterruptedException {
+			if (pendingPulses >= MAX_COALESCED_PULSES)
+				wait(timeout);
 		}
 
 		@Override
 		public void run() {
+			double time;
+			int pulses;
+			synchronized (this) {
+				queued = false;
+				time = pendingTime;
+				pulses = pendingPulses;
+				pendingTime = 0D;
+				pendingPulses = 0;
+				notifyAll();
+			}
+
+			if (pulses == 0)
+				return;
+
 			try {
 				listener.clockPulse(time);
-			} catch (ConcurrentModificationException e) {}
+			} catch (ConcurrentModificationException e) {
+			} finally {
+				getPulseBacklogCounter().addAndGet(-pulses);
+			}
 		}
 	}
 
+	/**
+	 * Gets the counter of clock pulses fired but not yet processed.
+	 * @return counter
+	 */
+	private AtomicInteger getPulseBacklogCounter() {
+		if (pulseBacklog == null)
+			pulseBacklog = new AtomicInteger();
+		return pulseBacklog;
+	}
+
+	/**
+	 * Gets the number of clock pulses waiting to be processed, summed over all the clock listeners.
+	 * @return pulse backlog
+	 */
+	public int getPulseBacklog() {
+		return Math.max(0, getPulseBacklogCounter().get());
+	}
+
+	/**
+	 * Waits until the clock listeners have processed all the pulses fired, i.e. until
+	 * the simulation is at a pulse boundary. Meant to be called once the clock is paused.
+	 * @param timeout the maximum time to wait (in milliseconds)
+	 * @return true if the clock listeners are idle.
+	 */
+	public boolean awaitListeners(long timeout) {
+		long end = System.currentTimeMillis() + timeout;
+		while (getPulseBacklog() > 0) {
+			if (System.currentTimeMillis() >= end)
+				return false;
+			try {
+				TimeUnit.MILLISECONDS.sleep(1L);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of times the clock thread has waited for a clock listener to catch up.
+	 * @return number of waits
+	 */
+	public long getListenerWaits() {
+		return listenerWaits;
+	}
 
     /**
-     * Fires the clock pulse to each clock listener
+     * Fires the clock pulse to each clock listener. A listener still busy with earlier pulses
+     * gets this one added to its pending time. If a listener falls more than
+     * MAX_COALESCED_PULSES behind, the clock thread waits for it rather than letting
+     * the pending time grow without limit.
      */
 	public void fireClockPulse(double time) {
 		for (ClockListenerTask task : clockListenerTasks) {
 	  		if (task != null) {
   		  		task.addTime(time);
-	  			clockListenerExecutor.execute(task);
+  		  		if (task.markQueued())
+  		  			clockListenerExecutor.execute(task);
 	  		}
 	  		else
 	  			return;
         }
+
+		for (ClockListenerTask task : clockListenerTasks) {
+			if (task.getPendingPulses() >= MAX_COALESCED_PULSES)
+				waitForListener(task);
+		}
     }
 
+	/**
+	 * Blocks the clock thread until a clock listener has caught up. The wall time spent
+	 * waiting is not added to the simulation time, so the simulation slows down instead.
+	 * @param task the clock listener task.
+	 */
+	private void waitForListener(ClockListenerTask task) {
+		listenerWaits++;
+		try {
+			while (keepRunning
+					&& task.getPendingPulses() >= MAX_COALESCED_PULSES
+					&& clockListenerExecutor != null
+					&& !clockListenerExecutor.isShutdown()) {
+				task.awaitPendingPulses(LISTENER_WAIT_MILLIS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (uptimer != null)
+			elapsedLast = uptimer.getUptimeMillis();
+	}
+
     /**
      * Stop the clock
      */
@@ -1001,24 +1281,7 @@ public class MasterClock implements Serializable {
 		        tpfCache = 0;
 	        }
    
-	      	if (saveType != 0) {
-	            try {
-	                sim.saveSimulation(saveType, file);
-	            } catch (IOException e) {
-	                logger.log(Level.SEVERE, "Could not save the simulation as "
-	                        + (file == null ? "null" : file.getPath()), e);
-	                e.printStackTrace();
-	            }
-
-	            saveType = 0;
-	        }
-
-	        // Exit program if exitProgram flag is true.
-	        if (exitProgram) {
-	        	if (sim.getAutosaveTimer() != null)
-	        		sim.getAutosaveTimer().stop();
-	            System.exit(0);
-	        }
+	      	checkSaveAndExit();
 	        
 
     	}
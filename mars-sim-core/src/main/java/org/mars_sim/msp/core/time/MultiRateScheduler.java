@@ -0,0 +1,130 @@
+/**
+ * Mars Simulation Project
+ * MultiRateScheduler.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.time;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MultiRateScheduler runs periodic jobs, each at its own period and phase (in millisols).
+ * A job is due whenever the clock has crossed one of its slots since its last run, so it never
+ * misses a slot when a time pulse skips over the exact millisol. If several slots have been
+ * crossed at once, the job is told how many so it can catch up. The phases of all jobs are
+ * shifted by a spread offset so that the jobs of different owners (e.g. settlements) do not
+ * all fall on the same pulse.
+ */
+public class MultiRateScheduler {
+
+	/** The maximum number of missed slots reported to a job at once. */
+	public static final int MAX_CATCH_UP = 20;
+
+	/** The golden ratio conjugate, for spreading the offsets evenly. */
+	private static final double SPREAD_RATIO = 0.6180339887498949;
+
+	/**
+	 * A job run by the scheduler.
+	 */
+	public interface Job {
+
+		/**
+		 * Runs the job.
+		 * @param slots the number of slots crossed since the last run (at least 1).
+		 */
+		void run(int slots);
+	}
+
+	/**
+	 * A job with its period, phase and last slot run.
+	 */
+	private static class Entry {
+
+		private String name;
+		private int period;
+		private double phase;
+		private long lastSlot;
+		private Job job;
+
+		private Entry(String name, int period, double phase, Job job) {
+			this.name = name;
+			this.period = period;
+			this.phase = phase;
+			this.job = job;
+		}
+	}
+
+	/** The fraction of each period the phases are shifted by. */
+	private double spread;
+	/** True until the first call to {@link #timePassing(double)}. */
+	private boolean firstCall = true;
+
+	private List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Constructor.
+	 * @param spreadKey a key (e.g. the owner's identifier) used to shift the phases of the jobs.
+	 */
+	public MultiRateScheduler(int spreadKey) {
+		double s = spreadKey * SPREAD_RATIO;
+		spread = s - Math.floor(s);
+	}
+
+	/**
+	 * Registers a job.
+	 * @param name the name of the job.
+	 * @param period the period in millisols.
+	 * @param phase the phase in millisols, before applying the spread offset.
+	 * @param job the job.
+	 */
+	public void register(String name, int period, int phase, Job job) {
+		if (period <= 0)
+			throw new IllegalArgumentException("Period of " + name + " must be positive");
+		double shifted = (phase + spread * period) % period;
+		entries.add(new Entry(name, period, shifted, job));
+	}
+
+	/**
+	 * Runs the jobs that are due.
+	 * @param now the current time in millisols since the start of the simulation.
+	 */
+	public void timePassing(double now) {
+		if (firstCall) {
+			// Start counting from now, so a newly created or reloaded owner does not run everything at once
+			for (Entry e : entries) {
+				e.lastSlot = getSlot(e, now);
+			}
+			firstCall = false;
+			return;
+		}
+
+		for (Entry e : entries) {
+			long slot = getSlot(e, now);
+			if (slot > e.lastSlot) {
+				long missed = slot - e.lastSlot;
+				e.lastSlot = slot;
+				e.job.run((int) Math.min(missed, MAX_CATCH_UP));
+			}
+		}
+	}
+
+	private static long getSlot(Entry e, double now) {
+		return (long) Math.floor((now - e.phase) / e.period);
+	}
+
+	/**
+	 * Gets the shifted phase of a job.
+	 * @param name the name of the job.
+	 * @return the phase in millisols or -1 if no such job.
+	 */
+	public double getPhase(String name) {
+		for (Entry e : entries) {
+			if (e.name.equals(name))
+				return e.phase;
+		}
+		return -1D;
+	}
+}
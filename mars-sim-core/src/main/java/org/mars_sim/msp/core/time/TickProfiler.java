@@ -0,0 +1,358 @@
+/**
+ * Mars Simulation Project
+ * TickProfiler.java
+ * @version 3.1.0 2026-10-18
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.time;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The TickProfiler keeps timing histograms of each subsystem advanced on a clock pulse,
+ * of each type of unit, of the heap allocated by the pulse thread and of the pulse backlog.
+ * It can be queried at runtime and dumped to a file.
+ */
+public class TickProfiler {
+
+	/** Initialized logger. */
+	private static Logger logger = Logger.getLogger(TickProfiler.class.getName());
+
+	public static final String PULSE = "pulse";
+	public static final String MARS = "mars";
+	public static final String MISSION_MANAGER = "missionManager";
+	public static final String UNIT_MANAGER = "unitManager";
+	public static final String SCIENTIFIC_STUDY_MANAGER = "scientificStudyManager";
+	public static final String TRANSPORT_MANAGER = "transportManager";
+
+	private static final String UNIT_PREFIX = "unit.";
+	private static final double NANOS_PER_MILLI = 1_000_000D;
+
+	/** True if the profiler is recording. */
+	private volatile boolean enabled = true;
+
+	/** The number of pulses taking longer than the time between updates. */
+	private AtomicLong overBudget = new AtomicLong();
+	/** The latest pulse backlog. */
+	private volatile int backlog;
+
+	/** Timings of the subsystems and the whole pulse (in ns). */
+	private Map<String, Histogram> sections = new ConcurrentHashMap<>();
+	/** Timings of each type of unit (in ns). */
+	private Map<Class<?>, Histogram> unitTypes = new ConcurrentHashMap<>();
+	/** Bytes allocated by the pulse thread per pulse. */
+	private Histogram allocations = new Histogram();
+	/** The pulse backlog seen at the start of each pulse. */
+	private Histogram backlogs = new Histogram();
+
+	private com.sun.management.ThreadMXBean threadBean;
+
+	/**
+	 * Constructor.
+	 */
+	public TickProfiler() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+			if (threadBean.isThreadAllocatedMemorySupported())
+				threadBean.setThreadAllocatedMemoryEnabled(true);
+			else
+				threadBean = null;
+		}
+	}
+
+	/**
+	 * Sets if the profiler is recording.
+	 * @param value true if recording.
+	 */
+	public void setEnabled(boolean value) {
+		enabled = value;
+	}
+
+	/**
+	 * Checks if the profiler is recording.
+	 * @return true if recording.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Gets the bytes allocated so far by the current thread.
+	 * @return bytes or zero if not supported.
+	 */
+	public long getAllocatedBytes() {
+		if (threadBean == null || !enabled)
+			return 0L;
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Marks the start of a clock pulse.
+	 * @param pulseBacklog the number of pulses waiting to be processed.
+	 * @return the start time in ns.
+	 */
+	public long startPulse(int pulseBacklog) {
+		backlog = pulseBacklog;
+		if (enabled)
+			backlogs.record(pulseBacklog);
+		return System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a clock pulse.
+	 * @param start the start time in ns.
+	 * @param startBytes the bytes allocated by the thread at the start of the pulse.
+	 * @param budget the time between updates in ns.
+	 */
+	public void endPulse(long start, long startBytes, long budget) {
+		if (!enabled)
+			return;
+		long elapsed = System.nanoTime() - start;
+		getSection(PULSE).record(elapsed);
+		if (budget > 0L && elapsed > budget)
+			overBudget.incrementAndGet();
+		if (threadBean != null)
+			allocations.record(getAllocatedBytes() - startBytes);
+	}
+
+	/**
+	 * Records the time taken by a subsystem.
+	 * @param section the subsystem name.
+	 * @param start the start time in ns.
+	 * @return the end time in ns, to be used as the start of the next subsystem.
+	 */
+	public long record(String section, long start) {
+		long now = System.nanoTime();
+		if (enabled)
+			getSection(section).record(now - start);
+		return now;
+	}
+
+	/**
+	 * Records the time taken by a unit.
+	 * @param type the class of the unit.
+	 * @param nanos the time in ns.
+	 */
+	public void recordUnit(Class<?> type, long nanos) {
+		if (!enabled)
+			return;
+		Histogram h = unitTypes.get(type);
+		if (h == null)
+			h = unitTypes.computeIfAbsent(type, t -> new Histogram());
+		h.record(nanos);
+	}
+
+	/**
+	 * Gets the timing histogram of a subsystem.
+	 * @param section the subsystem name.
+	 * @return histogram
+	 */
+	public Histogram getSection(String section) {
+		Histogram h = sections.get(section);
+		if (h == null)
+			h = sections.computeIfAbsent(section, s -> new Histogram());
+		return h;
+	}
+
+	/**
+	 * Gets the timing histogram of a type of unit.
+	 * @param type the class of the unit.
+	 * @return histogram or null if not recorded.
+	 */
+	public Histogram getUnitType(Class<?> type) {
+		return unitTypes.get(type);
+	}
+
+	/**
+	 * Gets the histogram of bytes allocated by the pulse thread per pulse.
+	 * @return histogram
+	 */
+	public Histogram getAllocations() {
+		return allocations;
+	}
+
+	/**
+	 * Gets the latest pulse backlog.
+	 * @return number of pulses waiting.
+	 */
+	public int getBacklog() {
+		return backlog;
+	}
+
+	/**
+	 * Gets the histogram of the pulse backlog.
+	 * @return histogram
+	 */
+	public Histogram getBacklogs() {
+		return backlogs;
+	}
+
+	/**
+	 * Gets the number of pulses taking longer than the time between updates.
+	 * @return number of pulses.
+	 */
+	public long getOverBudget() {
+		return overBudget.get();
+	}
+
+	/**
+	 * Clears all the recorded data.
+	 */
+	public void reset() {
+		sections.clear();
+		unitTypes.clear();
+		allocations = new Histogram();
+		backlogs = new Histogram();
+		overBudget.set(0L);
+	}
+
+	/**
+	 * Gets a report of all the recorded data.
+	 * @return report
+	 */
+	public String getReport() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-28s %10s %10s %10s %10s %10s%n", "Section (ms)", "Count", "Mean", "p50", "p99", "Max"));
+
+		List<String> names = new ArrayList<>(sections.keySet());
+		Collections.sort(names);
+		for (String name : names) {
+			appendTimes(sb, name, sections.get(name));
+		}
+
+		List<Class<?>> types = new ArrayList<>(unitTypes.keySet());
+		types.sort((a, b) -> a.getSimpleName().compareTo(b.getSimpleName()));
+		for (Class<?> type : types) {
+			appendTimes(sb, UNIT_PREFIX + type.getSimpleName(), unitTypes.get(type));
+		}
+
+		sb.append(String.format("%nPulses over budget : %d%n", overBudget.get()));
+		sb.append(String.format("Pulse backlog      : %d (p99 %d, max %d)%n", backlog,
+				backlogs.getPercentile(99D), backlogs.getMax()));
+		if (threadBean != null)
+			sb.append(String.format("Bytes per pulse    : mean %.0f, p50 %d, p99 %d, max %d%n", allocations.getMean(),
+					allocations.getPercentile(50D), allocations.getPercentile(99D), allocations.getMax()));
+		return sb.toString();
+	}
+
+	private static void appendTimes(StringBuilder sb, String name, Histogram h) {
+		sb.append(String.format("%-28s %10d %10.3f %10.3f %10.3f %10.3f%n", name, h.getCount(),
+				h.getMean() / NANOS_PER_MILLI, h.getPercentile(50D) / NANOS_PER_MILLI,
+				h.getPercentile(99D) / NANOS_PER_MILLI, h.getMax() / NANOS_PER_MILLI));
+	}
+
+	/**
+	 * Writes the report to a file.
+	 * @param file the file to write to.
+	 */
+	public void dump(File file) {
+		if (file.getParentFile() != null && !file.getParentFile().exists()) {
+			file.getParentFile().mkdirs();
+		}
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.print(getReport());
+			logger.info("Tick profile written to " + file);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Could not write the tick profile to " + file, e);
+		}
+	}
+
+	/**
+	 * A lock-free histogram with log-linear buckets (8 per power of two, i.e. within 12.5%).
+	 */
+	public static class Histogram {
+
+		private static final int SUB_BITS = 3;
+		private static final int SUB_BUCKETS = 1 << SUB_BITS;
+		private static final int BUCKETS = SUB_BUCKETS * (64 - SUB_BITS);
+
+		private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		private AtomicLong count = new AtomicLong();
+		private AtomicLong total = new AtomicLong();
+		private AtomicLong max = new AtomicLong();
+
+		/**
+		 * Records a value.
+		 * @param value a non-negative value.
+		 */
+		public void record(long value) {
+			if (value < 0L)
+				value = 0L;
+			counts.incrementAndGet(getIndex(value));
+			count.incrementAndGet();
+			total.addAndGet(value);
+			long m = max.get();
+			while (value > m && !max.compareAndSet(m, value)) {
+				m = max.get();
+			}
+		}
+
+		private static int getIndex(long value) {
+			if (value < SUB_BUCKETS)
+				return (int) value;
+			int exp = 63 - Long.numberOfLeadingZeros(value);
+			int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+			return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+		}
+
+		private static long getValue(int index) {
+			if (index < SUB_BUCKETS)
+				return index;
+			int exp = index / SUB_BUCKETS + SUB_BITS - 1;
+			int sub = index % SUB_BUCKETS;
+			long lower = (long) (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+			// Use the middle of the bucket
+			return lower + ((1L << (exp - SUB_BITS)) >> 1);
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		public double getMean() {
+			long n = count.get();
+			return n == 0L ? 0D : (double) total.get() / n;
+		}
+
+		/**
+		 * Gets the approximate value at a percentile.
+		 * @param percentile between 0 and 100.
+		 * @return value
+		 */
+		public long getPercentile(double percentile) {
+			long n = count.get();
+			if (n == 0L)
+				return 0L;
+			long rank = (long) Math.ceil(percentile / 100D * n);
+			if (rank < 1L)
+				rank = 1L;
+			long seen = 0L;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts.get(i);
+				if (seen >= rank)
+					return Math.min(getValue(i), max.get());
+			}
+			return max.get();
+		}
+	}
+}
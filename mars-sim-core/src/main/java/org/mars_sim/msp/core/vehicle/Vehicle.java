@@ -28,6 +28,7 @@ import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.SimulationConfig;
 import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitEventType;
+import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.malfunction.Malfunctionable;
 import org.mars_sim.msp.core.manufacture.Salvagable;
@@ -297,6 +298,18 @@ public abstract class Vehicle extends Unit implements Serializable,
 
 	    // Set the robot crew locations to the vehicle's new parked location.
 	    setRobotCrewPositions(currentRobotCrewPositions);
+
+	    LocalAreaUtil.updateLocalBoundedObject(this);
+    }
+
+    /**
+     * Sets the vehicle's location coordinates.
+     * @param newLocation the new location of the vehicle
+     */
+    @Override
+    public void setCoordinates(Coordinates newLocation) {
+        super.setCoordinates(newLocation);
+        LocalAreaUtil.moveLocalBoundedObject(this, newLocation);
     }
 
     /**
@@ -735,25 +748,10 @@ public abstract class Vehicle extends Unit implements Serializable,
     public Collection<Person> getAffectedPeople() {
         Collection<Person> people = new ConcurrentLinkedQueue<Person>();
 
-        // Check all people.
-        Iterator<Person> i = Simulation.instance().getUnitManager().getPeople().iterator();
-        while (i.hasNext()) {
-            Person person = i.next();
-            Task task = person.getMind().getTaskManager().getTask();
-
-            // Add all people maintaining this vehicle.
-            if (task instanceof Maintenance) {
-                if (((Maintenance) task).getEntity() == this) {
-                    if (!people.contains(person)) people.add(person);
-		        }
-            }
-
-            // Add all people repairing this vehicle.
-            if (task instanceof Repair) {
-                if (((Repair) task).getEntity() == this) {
-                    if (!people.contains(person)) people.add(person);
-		        }
-            }
+        // Add all people maintaining or repairing this vehicle.
+        for (Person person : getMalfunctionManager().getWorkers()) {
+            if (!people.contains(person))
+                people.add(person);
         }
 
         return people;
@@ -895,6 +893,9 @@ public abstract class Vehicle extends Unit implements Serializable,
     public void startSalvage(SalvageProcessInfo info, Settlement settlement) {
         salvageInfo = new SalvageInfo(this, info, settlement);
         isSalvaged = true;
+        UnitManager manager = Simulation.instance().getUnitManager();
+        if (manager != null)
+            manager.salvageUnit(this);
     }
 
     /**
@@ -26,12 +26,14 @@ public class AllJUnitTests extends TestCase {
 		suite.addTestSuite(org.mars_sim.msp.core.TestCoordinates.class);
 		suite.addTestSuite(org.mars_sim.msp.core.TestInventory.class);
 		suite.addTestSuite(org.mars_sim.msp.core.TestLocalAreaUtil.class);
+		suite.addTestSuite(org.mars_sim.msp.core.TestRandomUtil.class);
 		suite.addTestSuite(org.mars_sim.msp.core.equipment.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.events.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.malfunction.TestMalfunctionManager.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.ai.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.ai.mission.JUnitTests.class);
+		suite.addTestSuite(org.mars_sim.msp.core.person.ai.mission.TestTradeLoadOptimizer.class);
 		suite.addTest(org.mars_sim.msp.core.person.ai.task.JUnitTests.suite());
 		suite.addTestSuite(org.mars_sim.msp.core.person.medical.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestAmountResourceStorage.class);
@@ -39,11 +41,14 @@ public class AllJUnitTests extends TestCase {
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestAmountResourceTypeStorage.class);
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestItemResource.class);
 		suite.addTestSuite(org.mars_sim.msp.core.structure.JUnitTests.class);
+		suite.addTestSuite(org.mars_sim.msp.core.structure.TestResourceSampleSeries.class);
 		suite.addTestSuite(org.mars_sim.msp.core.structure.building.JUnitTests.class);
 		suite.addTest(org.mars_sim.msp.core.structure.building.connection.JUnitTests.suite());
+		suite.addTestSuite(org.mars_sim.msp.core.structure.building.function.TestResourceProcess.class);
 		suite.addTest(org.mars_sim.msp.core.structure.construction.JUnitTests.suite());
 		suite.addTestSuite(org.mars_sim.msp.core.structure.goods.TestGoods.class);
 		suite.addTestSuite(org.mars_sim.msp.core.structure.goods.TestCreditManager.class);
+		suite.addTestSuite(org.mars_sim.msp.core.time.TestMultiRateScheduler.class);
 		suite.addTestSuite(org.mars_sim.msp.core.vehicle.JUnitTests.class);
 
 		return suite;
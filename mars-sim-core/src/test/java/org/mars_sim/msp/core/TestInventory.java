@@ -332,6 +332,27 @@ public class TestInventory extends TestCase {
         assertEquals(50D, remainingCapacity, 0D);
     }
 
+    public void testInventoryAmountResourceCacheUpdatedByContainedUnit() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        AmountResource hydrogen = AmountResource.findAmountResource(HYDROGEN);
+        inventory.addGeneralCapacity(130D);
+        Unit testUnit = new MockUnit3(PhaseType.GAS);
+        testUnit.getInventory().addAmountResourceTypeCapacity(hydrogen, 100D);
+        inventory.storeUnit(testUnit);
+        assertEquals(0D, inventory.getAmountResourceStored(hydrogen, false), 0D);
+        assertEquals(100D, inventory.getAmountResourceRemainingCapacity(hydrogen, true, false), 0D);
+
+        // Storing directly in the contained unit must invalidate the cached values of the container.
+        testUnit.getInventory().storeAmountResource(hydrogen, 40D, false);
+        assertEquals(40D, inventory.getAmountResourceStored(hydrogen, false), 0D);
+        assertEquals(60D, inventory.getAmountResourceRemainingCapacity(hydrogen, true, false), 0D);
+        assertTrue(inventory.getAllAmountResourcesStored(false).contains(hydrogen));
+
+        inventory.retrieveUnit(testUnit);
+        assertEquals(0D, inventory.getAmountResourceStored(hydrogen, false), 0D);
+        assertEquals(0D, inventory.getAmountResourceCapacity(hydrogen, false), 0D);
+    }
+
     public void testInventoryAmountResourceAllResources() throws Exception {
         Inventory inventory = new MockUnit1().getInventory();
         AmountResource hydrogen = AmountResource.findAmountResource(HYDROGEN);
@@ -681,6 +702,114 @@ public class TestInventory extends TestCase {
         assertEquals(0, units.size());
     }
 
+    public void testInventoryFindAllUnitsFollowsStoredUnits() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        AmountResource hydrogen = AmountResource.findAmountResource(HYDROGEN);
+        inventory.addGeneralCapacity(100D);
+        Unit testUnit1 = new MockUnit3(PhaseType.GAS);
+        Unit testUnit2 = new MockUnit3(PhaseType.GAS);
+        testUnit2.getInventory().addAmountResourceTypeCapacity(hydrogen, 10D);
+        inventory.storeUnit(testUnit1);
+        Collection<Unit> units = inventory.findAllUnitsOfClass(MockUnit3.class);
+        assertEquals(1, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+
+        inventory.storeUnit(testUnit2);
+        assertEquals(2, units.size());
+        assertEquals(2, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+
+        testUnit2.getInventory().storeAmountResource(hydrogen, 5D, false);
+        assertEquals(1, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+
+        inventory.retrieveUnit(testUnit1);
+        assertEquals(1, units.size());
+        assertSame(testUnit2, inventory.findUnitOfClass(MockUnit3.class));
+        assertEquals(0, inventory.findNumUnitsOfClass(MockUnit2.class));
+        assertEquals(0, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+    }
+
+    public void testInventoryFindNumEmptyUnitsFollowsContents() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        AmountResource hydrogen = AmountResource.findAmountResource(HYDROGEN);
+        inventory.addGeneralCapacity(100D);
+        Unit testUnit = new MockUnit3(PhaseType.GAS);
+        testUnit.getInventory().addAmountResourceTypeCapacity(hydrogen, 10D);
+        testUnit.getInventory().storeAmountResource(hydrogen, 5D, false);
+        inventory.storeUnit(testUnit);
+        assertEquals(0, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+
+        testUnit.getInventory().retrieveAmountResource(hydrogen, 5D);
+        assertEquals(1, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+
+        testUnit.getInventory().storeAmountResource(hydrogen, 2D, false);
+        assertEquals(0, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+
+        testUnit.getInventory().retrieveAmountResource(hydrogen, 2D);
+        inventory.retrieveUnit(testUnit);
+        assertEquals(0, inventory.findNumEmptyUnitsOfClass(MockUnit3.class, false));
+    }
+
+    public void testInventoryApplyTransactionGood() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        AmountResource carbonDioxide = AmountResource.findAmountResource(CARBON_DIOXIDE);
+        AmountResource methane = AmountResource.findAmountResource(METHANE);
+        inventory.addAmountResourceTypeCapacity(carbonDioxide, 100D);
+        inventory.addAmountResourceTypeCapacity(methane, 100D);
+        inventory.storeAmountResource(carbonDioxide, 60D, true);
+
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.retrieve(carbonDioxide, 40D);
+        transaction.store(methane, 20D, true);
+        transaction.store(carbonDioxide, 80D, true);
+        inventory.applyTransaction(transaction);
+
+        assertEquals(100D, inventory.getAmountResourceStored(carbonDioxide, false), 0D);
+        assertEquals(20D, inventory.getAmountResourceStored(methane, false), 0D);
+    }
+
+    public void testInventoryApplyTransactionAllOrNothing() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        AmountResource carbonDioxide = AmountResource.findAmountResource(CARBON_DIOXIDE);
+        AmountResource methane = AmountResource.findAmountResource(METHANE);
+        inventory.addAmountResourceTypeCapacity(carbonDioxide, 100D);
+        inventory.addAmountResourceTypeCapacity(methane, 100D);
+        inventory.storeAmountResource(carbonDioxide, 60D, true);
+
+        InventoryTransaction transaction = new InventoryTransaction();
+        transaction.retrieve(carbonDioxide, 40D);
+        transaction.store(methane, 120D, true);
+        try {
+            inventory.applyTransaction(transaction);
+            fail("methane stored over capacity.");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(60D, inventory.getAmountResourceStored(carbonDioxide, false), 0D);
+        assertEquals(0D, inventory.getAmountResourceStored(methane, false), 0D);
+    }
+
+    public void testInventorySupplyDemandWindow() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        AmountResource carbonDioxide = AmountResource.findAmountResource(CARBON_DIOXIDE);
+        int id = carbonDioxide.getID();
+
+        inventory.setSupplyDemandSol(1);
+        inventory.addAmountDemand(carbonDioxide, 10D);
+        inventory.setSupplyDemandSol(2);
+        inventory.addAmountDemand(id, 5D);
+
+        assertEquals(5D, inventory.getAmountDemandAmount(id, 1), 0D);
+        assertEquals(15D, inventory.getAmountDemandAmount(id, 10), 0D);
+        assertEquals(2, inventory.getAmountDemandMetRequest(id, 10));
+        assertEquals(2, inventory.getSupplyDemandSols(10));
+
+        // Sols falling out of the window are no longer counted.
+        inventory.setSupplyDemandSol(100);
+        assertEquals(0D, inventory.getAmountDemandAmount(id, 10), 0D);
+        assertEquals(10, inventory.getSupplyDemandSols(10));
+    }
+
     public void testInventoryFindNumUnitsGood() throws Exception {
         Inventory inventory = new MockUnit1().getInventory();
         inventory.addGeneralCapacity(20D);
@@ -2,12 +2,17 @@ package org.mars_sim.msp.core;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.mars_sim.msp.core.structure.MockSettlement;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.BuildingManager;
 import org.mars_sim.msp.core.structure.building.MockBuilding;
+import org.mars_sim.msp.core.vehicle.MockVehicle;
+import org.mars_sim.msp.core.vehicle.Vehicle;
 
 import junit.framework.TestCase;
 
@@ -239,4 +244,228 @@ public class TestLocalAreaUtil extends TestCase {
         assertTrue(LocalAreaUtil.checkLocationWithinLocalBoundedObject(0D, 5.01D, building));
         assertTrue(LocalAreaUtil.checkLocationWithinLocalBoundedObject(0D, -5.01D, building));
     }
+    
+    /**
+     * Test the point and area queries of the local area index.
+     */
+    public void testLocalAreaIndexQueries() {
+        
+        LocalAreaIndex index = new LocalAreaIndex();
+        assertTrue(index.isEmpty());
+        
+        // A 10m x 10m object centered at (0, 0), overlapping four grid cells.
+        TestBoundedObject center = new TestBoundedObject(0D, 0D, 10D, 10D, 0D);
+        // A 4m x 4m object centered at (50, 50), inside a single grid cell.
+        TestBoundedObject far = new TestBoundedObject(50D, 50D, 4D, 4D, 0D);
+        index.add(center);
+        index.add(far);
+        assertFalse(index.isEmpty());
+        assertTrue(index.contains(center));
+        assertTrue(index.contains(far));
+        
+        Set<LocalBoundedObject> all = new HashSet<LocalBoundedObject>();
+        index.getAll(all);
+        assertEquals(2, all.size());
+        
+        // Point queries.
+        assertEquals(setOf(center), getOverlapping(index, 0D, 0D, 0D, 0D));
+        assertEquals(setOf(center), getOverlapping(index, 5D, -5D, 5D, -5D));
+        assertEquals(setOf(far), getOverlapping(index, 51D, 49D, 51D, 49D));
+        assertTrue(getOverlapping(index, 5.01D, 0D, 5.01D, 0D).isEmpty());
+        assertTrue(getOverlapping(index, 25D, 25D, 25D, 25D).isEmpty());
+        
+        // Area queries.
+        assertEquals(setOf(center), getOverlapping(index, 4D, 4D, 30D, 30D));
+        assertEquals(setOf(center, far), getOverlapping(index, -100D, -100D, 100D, 100D));
+        assertEquals(setOf(far), getOverlapping(index, 45D, 45D, 48D, 48D));
+        assertTrue(getOverlapping(index, 6D, 6D, 47.9D, 47.9D).isEmpty());
+        
+        // Entering an object again after a change of its bounds.
+        center.xLoc = 30D;
+        index.add(center);
+        assertTrue(getOverlapping(index, 0D, 0D, 0D, 0D).isEmpty());
+        assertEquals(setOf(center), getOverlapping(index, 30D, 0D, 30D, 0D));
+        all.clear();
+        index.getAll(all);
+        assertEquals(2, all.size());
+        
+        // A rotated object covers its rotated bounding rectangle.
+        TestBoundedObject rotated = new TestBoundedObject(-50D, 0D, 2D, 20D, 90D);
+        index.add(rotated);
+        assertEquals(setOf(rotated), getOverlapping(index, -59D, 0D, -59D, 0D));
+        assertTrue(getOverlapping(index, -50D, 9D, -50D, 9D).isEmpty());
+        
+        // Removal.
+        assertTrue(index.remove(center));
+        assertFalse(index.remove(center));
+        assertFalse(index.contains(center));
+        assertTrue(getOverlapping(index, 30D, 0D, 30D, 0D).isEmpty());
+        assertTrue(index.remove(far));
+        assertTrue(index.remove(rotated));
+        assertTrue(index.isEmpty());
+    }
+    
+    /**
+     * Test the objects too large for the grid of the local area index.
+     */
+    public void testLocalAreaIndexLargeObjects() {
+        
+        LocalAreaIndex index = new LocalAreaIndex();
+        
+        // A 400m x 400m object covers far more grid cells than are kept.
+        TestBoundedObject large = new TestBoundedObject(0D, 0D, 400D, 400D, 0D);
+        TestBoundedObject small = new TestBoundedObject(150D, 150D, 2D, 2D, 0D);
+        index.add(large);
+        index.add(small);
+        assertTrue(index.contains(large));
+        
+        assertEquals(setOf(large), getOverlapping(index, 0D, 0D, 0D, 0D));
+        assertEquals(setOf(large), getOverlapping(index, -199D, 199D, -199D, 199D));
+        assertEquals(setOf(large, small), getOverlapping(index, 150D, 150D, 150D, 150D));
+        assertEquals(setOf(large, small), getOverlapping(index, 100D, 100D, 300D, 300D));
+        assertTrue(getOverlapping(index, 201D, 0D, 201D, 0D).isEmpty());
+        assertTrue(getOverlapping(index, 250D, 250D, 300D, 300D).isEmpty());
+        
+        // Shrinking the object moves it into the grid.
+        large.width = 10D;
+        large.length = 10D;
+        index.add(large);
+        assertTrue(getOverlapping(index, -199D, 199D, -199D, 199D).isEmpty());
+        assertEquals(setOf(large), getOverlapping(index, 0D, 0D, 0D, 0D));
+        assertEquals(setOf(small), getOverlapping(index, 150D, 150D, 150D, 150D));
+        
+        // Growing it moves it out of the grid again.
+        large.width = 400D;
+        large.length = 400D;
+        index.add(large);
+        assertEquals(setOf(large, small), getOverlapping(index, 150D, 150D, 150D, 150D));
+        
+        assertTrue(index.remove(large));
+        assertTrue(getOverlapping(index, 0D, 0D, 0D, 0D).isEmpty());
+        assertTrue(index.remove(small));
+        assertTrue(index.isEmpty());
+    }
+    
+    /**
+     * Test that a vehicle is found at its new coordinate location after moving.
+     */
+    public void testVehicleMovingBetweenLocations() throws Exception {
+        
+        // Create new simulation instance.
+        SimulationConfig.loadConfig();
+        Simulation.createNewSimulation();
+        
+        // Clear out existing settlements in simulation.
+        UnitManager unitManager = Simulation.instance().getUnitManager();
+        Iterator<Settlement> i = unitManager.getSettlements().iterator();
+        while (i.hasNext()) {
+            unitManager.removeUnit(i.next());
+        }
+        
+        // Create test settlement.
+        Settlement settlement = new MockSettlement();
+        unitManager.addUnit(settlement);
+        Coordinates settlementLoc = settlement.getCoordinates();
+        
+        // Create test building.
+        MockBuilding building = new MockBuilding(settlement.getBuildingManager());
+        building.setWidth(10D);
+        building.setLength(10D);
+        building.setXLocation(0D);
+        building.setYLocation(0D);
+        building.setFacing(0D);
+        settlement.getBuildingManager().addBuilding(building, false);
+        
+        // Create test vehicle parked at the settlement.
+        Vehicle vehicle = new MockVehicle(settlement);
+        unitManager.addUnit(vehicle);
+        vehicle.setCoordinates(settlementLoc);
+        vehicle.setParkedLocation(20D, 0D, 0D);
+        
+        Set<LocalBoundedObject> objects = LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(settlementLoc);
+        assertTrue(objects.contains(building));
+        assertTrue(objects.contains(vehicle));
+        assertTrue(LocalAreaUtil.getLocalBoundedObjectsNear(settlementLoc, 19D, -1D, 21D, 1D).contains(vehicle));
+        
+        // Drive the vehicle away from the settlement.
+        Coordinates newLoc = new Coordinates(settlementLoc.getPhi() + .1D, settlementLoc.getTheta());
+        vehicle.setCoordinates(newLoc);
+        
+        objects = LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(settlementLoc);
+        assertTrue(objects.contains(building));
+        assertFalse(objects.contains(vehicle));
+        assertFalse(LocalAreaUtil.getLocalBoundedObjectsNear(settlementLoc, 19D, -1D, 21D, 1D).contains(vehicle));
+        assertEquals(setOf(vehicle), LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(newLoc));
+        assertEquals(setOf(vehicle), LocalAreaUtil.getLocalBoundedObjectsNear(newLoc, 19D, -1D, 21D, 1D));
+        
+        // Drive it back.
+        vehicle.setCoordinates(settlementLoc);
+        assertTrue(LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(newLoc).isEmpty());
+        assertTrue(LocalAreaUtil.getLocalBoundedObjectsNear(settlementLoc, 19D, -1D, 21D, 1D).contains(vehicle));
+        
+        // A removed vehicle is no longer found.
+        unitManager.removeUnit(vehicle);
+        assertFalse(LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(settlementLoc).contains(vehicle));
+        
+        LocalAreaUtil.clearLocalAreaIndexes();
+    }
+    
+    /**
+     * Gets the objects of a local area index overlapping an area.
+     */
+    private static Set<LocalBoundedObject> getOverlapping(LocalAreaIndex index,
+            double minX, double minY, double maxX, double maxY) {
+        Set<LocalBoundedObject> result = new HashSet<LocalBoundedObject>();
+        index.getOverlapping(minX, minY, maxX, maxY, result);
+        return result;
+    }
+    
+    private static Set<LocalBoundedObject> setOf(LocalBoundedObject... objects) {
+        return new HashSet<LocalBoundedObject>(Arrays.asList(objects));
+    }
+    
+    /**
+     * A local bounded object with settable bounds.
+     */
+    private static class TestBoundedObject implements LocalBoundedObject {
+        
+        private double xLoc;
+        private double yLoc;
+        private double width;
+        private double length;
+        private double facing;
+        
+        private TestBoundedObject(double xLoc, double yLoc, double width, double length, double facing) {
+            this.xLoc = xLoc;
+            this.yLoc = yLoc;
+            this.width = width;
+            this.length = length;
+            this.facing = facing;
+        }
+        
+        @Override
+        public double getXLocation() {
+            return xLoc;
+        }
+        
+        @Override
+        public double getYLocation() {
+            return yLoc;
+        }
+        
+        @Override
+        public double getWidth() {
+            return width;
+        }
+        
+        @Override
+        public double getLength() {
+            return length;
+        }
+        
+        @Override
+        public double getFacing() {
+            return facing;
+        }
+    }
 }
\ No newline at end of file
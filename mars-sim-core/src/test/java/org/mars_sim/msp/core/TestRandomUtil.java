@@ -0,0 +1,49 @@
+package org.mars_sim.msp.core;
+
+import junit.framework.TestCase;
+
+public class TestRandomUtil extends TestCase {
+
+    @Override
+    public void tearDown() throws Exception {
+        RandomUtil.setStream(null);
+    }
+
+    /**
+     * Test that a stream is reproduced from the same seed.
+     */
+    public void testSameSeed() {
+        RandomUtil.setSeed(42L);
+        double first = RandomUtil.getUnitStream(7).nextDouble();
+        RandomUtil.setSeed(42L);
+        double second = RandomUtil.getUnitStream(7).nextDouble();
+        assertEquals(first, second, 0D);
+    }
+
+    /**
+     * Test that the streams of different units are independent.
+     */
+    public void testIndependentStreams() {
+        RandomUtil.setSeed(42L);
+        double a = RandomUtil.getUnitStream(7).nextDouble();
+        double b = RandomUtil.getUnitStream(8).nextDouble();
+        assertTrue(a != b);
+
+        // Drawing from one stream does not change the other
+        RandomUtil.setSeed(42L);
+        RandomUtil.getUnitStream(8).nextDouble();
+        RandomUtil.getUnitStream(8).nextDouble();
+        assertEquals(a, RandomUtil.getUnitStream(7).nextDouble(), 0D);
+    }
+
+    /**
+     * Test that the bound stream is used by the utility methods.
+     */
+    public void testBoundStream() {
+        RandomUtil.setSeed(42L);
+        double expected = RandomUtil.getUnitStream(3).nextDouble() * 10D;
+        RandomUtil.setSeed(42L);
+        RandomUtil.setStream(RandomUtil.getUnitStream(3));
+        assertEquals(expected, RandomUtil.getRandomDouble(10D), 0D);
+    }
+}
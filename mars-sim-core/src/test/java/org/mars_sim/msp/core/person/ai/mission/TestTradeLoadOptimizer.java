@@ -0,0 +1,175 @@
+package org.mars_sim.msp.core.person.ai.mission;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.mars_sim.msp.core.LifeSupportType;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.equipment.Bag;
+import org.mars_sim.msp.core.equipment.ContainerUtil;
+import org.mars_sim.msp.core.equipment.SpecimenContainer;
+import org.mars_sim.msp.core.resource.AmountResource;
+import org.mars_sim.msp.core.structure.goods.Good;
+import org.mars_sim.msp.core.structure.goods.GoodsUtil;
+
+/**
+ * Unit test suite for the TradeLoadOptimizer class.
+ */
+public class TestTradeLoadOptimizer extends TestCase {
+
+    private Good bagGood;
+    private Good specimenContainerGood;
+    private Good waterGood;
+    private Class waterContainerType;
+    private Good containerGood;
+
+    @Override
+    public void setUp() throws Exception {
+        SimulationConfig.loadConfig();
+        bagGood = GoodsUtil.getEquipmentGood(Bag.class);
+        specimenContainerGood = GoodsUtil.getEquipmentGood(SpecimenContainer.class);
+        AmountResource water = AmountResource.findAmountResource(LifeSupportType.WATER);
+        waterGood = GoodsUtil.getResourceGood(water);
+        waterContainerType = ContainerUtil.getContainerTypeNeeded(water.getPhase());
+        containerGood = GoodsUtil.getEquipmentGood(waterContainerType);
+    }
+
+    /**
+     * Test that the load chosen is the most profitable within the mass capacity.
+     */
+    public void testMassCapacity() {
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(100D);
+
+        TradeLoadOptimizer.GoodUnits bags = new TradeLoadOptimizer.GoodUnits(bagGood, null);
+        bags.add(1, 40D, 10D, 20D);
+        bags.add(1, 40D, 9D, 20D);
+        bags.add(1, 40D, 8D, 20D);
+        optimizer.addUnits(bags);
+
+        TradeLoadOptimizer.GoodUnits specimenContainers = new TradeLoadOptimizer.GoodUnits(
+                specimenContainerGood, null);
+        specimenContainers.add(1, 60D, 15D, 30D);
+        specimenContainers.add(1, 60D, 14D, 30D);
+        optimizer.addUnits(specimenContainers);
+
+        // Two bags would be 80 kg for 19 VP, a bag and a specimen container 100 kg for 25 VP.
+        Map<Good, Integer> load = optimizer.chooseLoad(Double.POSITIVE_INFINITY);
+        assertEquals(2, load.size());
+        assertEquals(1, (int) load.get(bagGood));
+        assertEquals(1, (int) load.get(specimenContainerGood));
+    }
+
+    /**
+     * Test that no goods are chosen without mass capacity.
+     */
+    public void testNoMassCapacity() {
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(0D);
+
+        TradeLoadOptimizer.GoodUnits bags = new TradeLoadOptimizer.GoodUnits(bagGood, null);
+        bags.add(1, 1D, 10D, 20D);
+        optimizer.addUnits(bags);
+
+        assertTrue(optimizer.chooseLoad(Double.POSITIVE_INFINITY).isEmpty());
+    }
+
+    /**
+     * Test that the resources take no more containers than the selling settlement has.
+     */
+    public void testContainerLimit() {
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(10000D);
+        optimizer.setNumContainers(waterContainerType, 2);
+
+        TradeLoadOptimizer.GoodUnits water = new TradeLoadOptimizer.GoodUnits(waterGood, waterContainerType);
+        water.add(100, 110D, 5D, 50D);
+        water.add(100, 110D, 4D, 50D);
+        water.add(100, 110D, 3D, 50D);
+        optimizer.addUnits(water);
+
+        // The least profitable unit is dropped, and each unit kept takes a container.
+        Map<Good, Integer> load = optimizer.chooseLoad(Double.POSITIVE_INFINITY);
+        assertEquals(200, (int) load.get(waterGood));
+        assertEquals(2, (int) load.get(containerGood));
+    }
+
+    /**
+     * Test that the containers traded as equipment count against the containers the
+     * resources take.
+     */
+    public void testContainerLimitWithContainersTraded() {
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(10000D);
+        optimizer.setNumContainers(waterContainerType, 3);
+
+        TradeLoadOptimizer.GoodUnits water = new TradeLoadOptimizer.GoodUnits(waterGood, waterContainerType);
+        water.add(100, 110D, 5D, 50D);
+        water.add(100, 110D, 4D, 50D);
+        optimizer.addUnits(water);
+
+        TradeLoadOptimizer.GoodUnits containers = new TradeLoadOptimizer.GoodUnits(containerGood, null);
+        containers.add(1, 10D, 6D, 10D);
+        containers.add(1, 10D, 1D, 10D);
+        optimizer.addUnits(containers);
+
+        // Four containers wanted, three available: the empty container of 1 VP is dropped.
+        Map<Good, Integer> load = optimizer.chooseLoad(Double.POSITIVE_INFINITY);
+        assertEquals(200, (int) load.get(waterGood));
+        assertEquals(3, (int) load.get(containerGood));
+    }
+
+    /**
+     * Test that the least profitable units are dropped until the load is worth less than
+     * the maximum buy value.
+     */
+    public void testMaxBuyValue() {
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(1000D);
+
+        TradeLoadOptimizer.GoodUnits bags = new TradeLoadOptimizer.GoodUnits(bagGood, null);
+        bags.add(1, 10D, 5D, 10D);
+        bags.add(1, 10D, 4D, 10D);
+        optimizer.addUnits(bags);
+
+        TradeLoadOptimizer.GoodUnits specimenContainers = new TradeLoadOptimizer.GoodUnits(
+                specimenContainerGood, null);
+        specimenContainers.add(1, 10D, 6D, 10D);
+        optimizer.addUnits(specimenContainers);
+
+        Map<Good, Integer> load = optimizer.chooseLoad(25D);
+        assertEquals(1, (int) load.get(bagGood));
+        assertEquals(1, (int) load.get(specimenContainerGood));
+    }
+
+    /**
+     * Test that a maximum buy value below the value of any unit leaves the load empty.
+     */
+    public void testMaxBuyValueBelowAnyUnit() {
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(1000D);
+
+        TradeLoadOptimizer.GoodUnits bags = new TradeLoadOptimizer.GoodUnits(bagGood, null);
+        bags.add(1, 10D, 5D, 10D);
+        optimizer.addUnits(bags);
+
+        assertTrue(optimizer.chooseLoad(5D).isEmpty());
+    }
+
+    /**
+     * Test that only the most profitable vehicle is traded, taking no mass capacity.
+     */
+    public void testSingleVehicle() {
+        Good explorerGood = GoodsUtil.getVehicleGood("explorer rover");
+        Good transportGood = GoodsUtil.getVehicleGood("transport rover");
+
+        TradeLoadOptimizer optimizer = new TradeLoadOptimizer(0D);
+
+        TradeLoadOptimizer.GoodUnits explorer = new TradeLoadOptimizer.GoodUnits(explorerGood, null);
+        explorer.add(1, 0D, 10D, 100D);
+        optimizer.addUnits(explorer);
+
+        TradeLoadOptimizer.GoodUnits transport = new TradeLoadOptimizer.GoodUnits(transportGood, null);
+        transport.add(1, 0D, 20D, 200D);
+        optimizer.addUnits(transport);
+
+        Map<Good, Integer> load = optimizer.chooseLoad(Double.POSITIVE_INFINITY);
+        assertEquals(1, load.size());
+        assertEquals(1, (int) load.get(transportGood));
+    }
+}
@@ -0,0 +1,113 @@
+package org.mars_sim.msp.core.structure;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test suite for the ResourceSampleSeries class.
+ */
+public class TestResourceSampleSeries extends TestCase {
+
+    private static final double DELTA = .0000001D;
+
+    /**
+     * Test the count, minimum, maximum and average of the samples of a sol.
+     */
+    public void testSolStatistics() {
+        ResourceSampleSeries series = new ResourceSampleSeries(2, 5);
+        series.add(1, 0, 2D);
+        series.add(1, 0, 6D);
+        series.add(1, 0, 4D);
+        series.add(1, 1, 10D);
+
+        assertEquals(3, series.getCount(1, 0));
+        assertEquals(2D, series.getMin(1, 0), DELTA);
+        assertEquals(6D, series.getMax(1, 0), DELTA);
+        assertEquals(4D, series.getAverage(1, 0), DELTA);
+
+        // The other resource of the sol is kept apart.
+        assertEquals(1, series.getCount(1, 1));
+        assertEquals(10D, series.getMin(1, 1), DELTA);
+        assertEquals(10D, series.getMax(1, 1), DELTA);
+        assertEquals(10D, series.getAverage(1, 1), DELTA);
+    }
+
+    /**
+     * Test that a sol or resource without samples has empty statistics.
+     */
+    public void testNoSamples() {
+        ResourceSampleSeries series = new ResourceSampleSeries(2, 5);
+        series.add(1, 0, 3D);
+
+        assertEquals(0, series.getCount(2, 0));
+        assertEquals(0D, series.getAverage(2, 0), DELTA);
+        assertEquals(0D, series.getMin(2, 0), DELTA);
+        assertEquals(0D, series.getMax(2, 0), DELTA);
+        assertEquals(0, series.getCount(1, 1));
+        assertEquals(0D, series.getAverage(1, 1), DELTA);
+        assertEquals(0, series.getCount(-1, 0));
+        assertEquals(0, series.getCount(1, 2));
+        assertEquals(0D, series.getAverage(1, 5, 1), DELTA);
+    }
+
+    /**
+     * Test that the slot of a sol out of the window is reused without its old samples.
+     */
+    public void testSlotReuse() {
+        ResourceSampleSeries series = new ResourceSampleSeries(2, 3);
+        series.add(0, 0, 100D);
+        series.add(0, 0, -100D);
+        series.add(0, 1, 50D);
+
+        // Sol 3 takes the slot of sol 0.
+        series.add(3, 0, 5D);
+
+        assertEquals(0, series.getCount(0, 0));
+        assertEquals(0D, series.getAverage(0, 0), DELTA);
+        assertEquals(1, series.getCount(3, 0));
+        assertEquals(5D, series.getMin(3, 0), DELTA);
+        assertEquals(5D, series.getMax(3, 0), DELTA);
+        assertEquals(5D, series.getAverage(3, 0), DELTA);
+
+        // The other resource of the reused slot is emptied too.
+        assertEquals(0, series.getCount(3, 1));
+        assertEquals(0, series.getCount(0, 1));
+        series.add(3, 1, 7D);
+        assertEquals(7D, series.getMin(3, 1), DELTA);
+        assertEquals(7D, series.getMax(3, 1), DELTA);
+    }
+
+    /**
+     * Test the average over a number of sols, weighted by the samples and skipping the
+     * sols without samples.
+     */
+    public void testWindowedAverageAcrossMissingSols() {
+        ResourceSampleSeries series = new ResourceSampleSeries(1, 4);
+        series.add(1, 0, 2D);
+        series.add(3, 0, 4D);
+        series.add(3, 0, 6D);
+        series.add(3, 0, 8D);
+
+        // Sol 2 has no sample: (2 + 4 + 6 + 8) / 4.
+        assertEquals(5D, series.getAverage(3, 3, 0), DELTA);
+        // Sol 1 is out of a window of 2 sols.
+        assertEquals(6D, series.getAverage(3, 2, 0), DELTA);
+        // A window larger than the series is limited to the sols kept.
+        assertEquals(5D, series.getAverage(3, 10, 0), DELTA);
+    }
+
+    /**
+     * Test that the windowed average ignores the sols whose slots were reused.
+     */
+    public void testWindowedAverageAfterWrap() {
+        ResourceSampleSeries series = new ResourceSampleSeries(1, 3);
+        series.add(0, 0, 100D);
+        series.add(1, 0, 1D);
+        series.add(2, 0, 2D);
+        series.add(4, 0, 4D);
+
+        // Sol 3 has no sample and sol 1 has been replaced by sol 4.
+        assertEquals(3D, series.getAverage(4, 3, 0), DELTA);
+        assertEquals(0, series.getCount(1, 0));
+        assertEquals(3, series.getNumSols());
+    }
+}
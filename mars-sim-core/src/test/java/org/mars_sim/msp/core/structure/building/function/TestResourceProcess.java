@@ -0,0 +1,70 @@
+package org.mars_sim.msp.core.structure.building.function;
+
+import junit.framework.TestCase;
+
+import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.MockUnit1;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.resource.AmountResource;
+import org.mars_sim.msp.core.resource.PhaseType;
+
+public class TestResourceProcess extends TestCase {
+
+    private static final String CARBON_DIOXIDE = "carbon dioxide";
+    private static final String HYDROGEN = "hydrogen";
+    private static final String METHANE = "methane";
+
+    private AmountResource carbonDioxide;
+    private AmountResource hydrogen;
+    private AmountResource methane;
+
+    @Override
+    public void setUp() throws Exception {
+        SimulationConfig.loadConfig();
+        carbonDioxide = AmountResource.findAmountResource(CARBON_DIOXIDE);
+        hydrogen = AmountResource.findAmountResource(HYDROGEN);
+        methane = AmountResource.findAmountResource(METHANE);
+    }
+
+    private ResourceProcess createProcess() {
+        ResourceProcess process = new ResourceProcess("test process", 0D, true);
+        process.addMaxInputResourceRate(carbonDioxide, 1D, false);
+        process.addMaxOutputResourceRate(methane, 1D, false);
+        process.addMaxOutputResourceRate(hydrogen, 1D, false);
+        return process;
+    }
+
+    public void testProcessResources() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        inventory.addAmountResourceTypeCapacity(carbonDioxide, 100D);
+        inventory.addAmountResourceTypeCapacity(methane, 100D);
+        inventory.addAmountResourceTypeCapacity(hydrogen, 100D);
+        inventory.storeAmountResource(carbonDioxide, 50D, false);
+
+        createProcess().processResources(10D, 1D, inventory);
+
+        assertEquals(40D, inventory.getAmountResourceStored(carbonDioxide, false), .0001D);
+        assertEquals(10D, inventory.getAmountResourceStored(methane, false), .0001D);
+        assertEquals(10D, inventory.getAmountResourceStored(hydrogen, false), .0001D);
+    }
+
+    /**
+     * The outputs each fit in the gas phase storage but not both, as it holds a single
+     * resource. The inputs and the output that fits are still processed.
+     */
+    public void testProcessResourcesOutputsNotFittingTogether() throws Exception {
+        Inventory inventory = new MockUnit1().getInventory();
+        inventory.addAmountResourceTypeCapacity(carbonDioxide, 100D);
+        inventory.addAmountResourcePhaseCapacity(PhaseType.GAS, 100D);
+        inventory.storeAmountResource(carbonDioxide, 50D, false);
+
+        ResourceProcess process = createProcess();
+        process.processResources(10D, 1D, inventory);
+
+        assertEquals(40D, inventory.getAmountResourceStored(carbonDioxide, false), .0001D);
+        double stored = inventory.getAmountResourceStored(methane, false)
+                + inventory.getAmountResourceStored(hydrogen, false);
+        assertEquals(10D, stored, .0001D);
+        assertEquals(1D, process.getCurrentProductionLevel(), 0D);
+    }
+}
@@ -0,0 +1,70 @@
+package org.mars_sim.msp.core.time;
+
+import junit.framework.TestCase;
+
+public class TestMultiRateScheduler extends TestCase {
+
+    private int runs;
+    private int slots;
+
+    @Override
+    public void setUp() throws Exception {
+        runs = 0;
+        slots = 0;
+    }
+
+    private MultiRateScheduler createScheduler(int period) {
+        MultiRateScheduler scheduler = new MultiRateScheduler(0);
+        scheduler.register("test", period, 0, s -> {
+            runs++;
+            slots += s;
+        });
+        return scheduler;
+    }
+
+    /**
+     * Test that a slot is not missed when a pulse skips over the exact millisol.
+     */
+    public void testSkippedMillisol() {
+        MultiRateScheduler scheduler = createScheduler(50);
+        scheduler.timePassing(10.3D);
+        scheduler.timePassing(49.7D);
+        assertEquals(0, runs);
+        scheduler.timePassing(50.4D);
+        assertEquals(1, runs);
+        scheduler.timePassing(50.9D);
+        assertEquals(1, runs);
+    }
+
+    /**
+     * Test that a large pulse reports all the slots crossed.
+     */
+    public void testCatchUp() {
+        MultiRateScheduler scheduler = createScheduler(50);
+        scheduler.timePassing(0.5D);
+        scheduler.timePassing(160D);
+        assertEquals(1, runs);
+        assertEquals(3, slots);
+    }
+
+    /**
+     * Test that the first call only starts counting.
+     */
+    public void testFirstCall() {
+        MultiRateScheduler scheduler = createScheduler(50);
+        scheduler.timePassing(500D);
+        assertEquals(0, runs);
+    }
+
+    /**
+     * Test that different spread keys shift the phase.
+     */
+    public void testSpread() {
+        MultiRateScheduler s1 = new MultiRateScheduler(1);
+        MultiRateScheduler s2 = new MultiRateScheduler(2);
+        s1.register("test", 500, 250, s -> {});
+        s2.register("test", 500, 250, s -> {});
+        assertTrue(s1.getPhase("test") != s2.getPhase("test"));
+        assertTrue(s1.getPhase("test") >= 0D && s1.getPhase("test") < 500D);
+    }
+}
@@ -21,8 +21,10 @@ import java.util.logging.Logger;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
+import org.mars_sim.msp.core.RandomUtil;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.ui.helpGenerator.HelpGenerator;
 //import org.mars_sim.msp.ui.javafx.svg.SvgImageLoaderFactory;
 import org.mars_sim.msp.ui.swing.MainWindow;
@@ -47,6 +49,9 @@ public class MarsProject {
     /** true if help documents should be generated from config xml files. */
     private boolean generateHelp = false;
 
+    /** true if running headless in the deterministic fixed-step batch mode. */
+    private boolean batch = false;
+
     //private ExecutorService worker;
 
     /**
@@ -72,6 +77,12 @@ public class MarsProject {
 	        List<String> argList = Arrays.asList(args);
 	        useGUI = !argList.contains("-headless");
 	        generateHelp = argList.contains("-generateHelp");
+	        batch = !useGUI && argList.contains("-batch");
+
+	        if (argList.contains("-seed")) {
+	        	// Seed the random generator before any unit is created so that the run can be reproduced
+	        	RandomUtil.setSeed(Long.parseLong(getArgValue(argList, "-seed", "0")));
+	        }
 
 	        if (useGUI) {
 	    		//System.setProperty("sun.java2d.opengl", "true"); // not compatible with SplashWindow and SimulationConfigEditor
@@ -266,12 +277,41 @@ public class MarsProject {
         }
     }
 
+    /**
+     * Gets the value following an argument.
+     * @param argList the command argument list.
+     * @param arg the argument name.
+     * @param defaultValue the value to use if the argument is not given.
+     * @return the argument value.
+     */
+    private String getArgValue(List<String> argList, String arg, String defaultValue) {
+        int index = argList.indexOf(arg);
+        if (index >= 0 && index + 1 < argList.size())
+            return argList.get(index + 1);
+        return defaultValue;
+    }
+
     /**
      * Start the simulation instance.
      */
     public void startSimulation(boolean useDefaultName) {
 		//logger.info("MarsProject's startSimulation() is on "+Thread.currentThread().getName() + " Thread");
 
+        List<String> argList = Arrays.asList(args);
+
+        if (argList.contains("-parallel")) {
+            // Advance the settlements concurrently on each time pulse
+            Simulation.instance().getUnitManager().setParallelTick(true);
+        }
+
+        if (batch) {
+            // e.g. -headless -batch -sols 6686 -walltime 3600 -pulse 1 -seed 42
+            double pulse = Double.parseDouble(getArgValue(argList, "-pulse", "" + MasterClock.DEFAULT_BATCH_PULSE));
+            int sols = Integer.parseInt(getArgValue(argList, "-sols", "0"));
+            long wallMillis = Long.parseLong(getArgValue(argList, "-walltime", "0")) * 1000L;
+            Simulation.instance().getMasterClock().setBatchMode(pulse, sols, wallMillis);
+        }
+
         // Start the simulation.
         Simulation.instance().start(useDefaultName);
     }
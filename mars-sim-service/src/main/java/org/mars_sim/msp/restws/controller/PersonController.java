@@ -2,11 +2,11 @@ package org.mars_sim.msp.restws.controller;
 
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.restws.mapper.InventoryMapper;
@@ -50,13 +50,9 @@ public class PersonController {
 	 * @return
 	 */
 	private Person getPerson(int personId) {
-		// Need a better way to find people
-		Iterator<Person> it = personManager.getPeople().iterator();
-		while (it.hasNext()) {
-			Person person = it.next();
-			if (person.getIdentifier() == personId) {
-				return person;
-			}
+		Unit unit = personManager.getUnitByID(personId);
+		if (unit instanceof Person) {
+			return (Person) unit;
 		}
 		log.error("Can not find " + personId);
 		throw new NotFoundException("Person", personId);
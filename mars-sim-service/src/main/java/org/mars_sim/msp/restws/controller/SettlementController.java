@@ -3,11 +3,11 @@ package org.mars_sim.msp.restws.controller;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.mission.MissionManager;
@@ -78,13 +78,9 @@ public class SettlementController {
 	 * @return Found Settlement
 	 */
 	private Settlement findSettlement(int settlementId) {
-		// Need a better way to find people
-		Iterator<Settlement> it = manager.getSettlements().iterator();
-		while (it.hasNext()) {
-			Settlement item = it.next();
-			if (item.getIdentifier() == settlementId) {
-				return item;
-			}
+		Unit unit = manager.getUnitByID(settlementId);
+		if (unit instanceof Settlement) {
+			return (Settlement) unit;
 		}
 		log.error("Settlement not found: id=" + settlementId);
 		throw new NotFoundException("Settlement", settlementId);
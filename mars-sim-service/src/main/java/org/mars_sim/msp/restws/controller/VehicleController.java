@@ -2,11 +2,11 @@ package org.mars_sim.msp.restws.controller;
 
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.vehicle.Vehicle;
@@ -55,13 +55,9 @@ public class VehicleController {
 	 * @return
 	 */
 	private Vehicle getVehicle(int vehicleId) {
-		// Need a better way to find people
-		Iterator<Vehicle> it = vehicleManager.getVehicles().iterator();
-		while (it.hasNext()) {
-			Vehicle v = it.next();
-			if (v.getIdentifier() == vehicleId) {
-				return v;
-			}
+		Unit unit = vehicleManager.getUnitByID(vehicleId);
+		if (unit instanceof Vehicle) {
+			return (Vehicle) unit;
 		}
 		log.error("There is no Vehicle with id=" + vehicleId);
 		
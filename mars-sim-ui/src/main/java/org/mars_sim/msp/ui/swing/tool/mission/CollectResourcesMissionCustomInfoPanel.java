@@ -8,6 +8,7 @@ package org.mars_sim.msp.ui.swing.tool.mission;
 
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
+import java.util.Collection;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -102,8 +103,9 @@ implements UnitListener {
 	@Override
 	public void unitUpdate(UnitEvent event) {
 		if (UnitEventType.INVENTORY_RESOURCE_EVENT == event.getType()) {
-			if (resource.equals(event.getTarget())) {
-				updateCollectionValueLabel();   
+			Object target = event.getTarget();
+			if (resource.equals(target) || ((target instanceof Collection) && ((Collection<?>) target).contains(resource))) {
+				updateCollectionValueLabel();
 			}
 		}
 	}
@@ -232,6 +232,14 @@ extends UnitTableModel {
 		Object target = event.getTarget();
 		UnitEventType eventType = event.getType();
 
+		if ((eventType == UnitEventType.INVENTORY_RESOURCE_EVENT) && (target instanceof Collection)) {
+			// An inventory transaction changes several resources at once.
+			for (Object resource : (Collection<?>) target) {
+				unitUpdate(new UnitEvent(unit, eventType, resource));
+			}
+			return;
+		}
+
 		int columnNum = -1;
 		if (eventType == UnitEventType.NAME_EVENT) columnNum = NAME;
 		else if (eventType == UnitEventType.INVENTORY_STORING_UNIT_EVENT ||